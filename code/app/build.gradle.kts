@@ -34,6 +34,12 @@ android {
         targetCompatibility = JavaVersion.VERSION_11
     }
 
+    // DAO contract tests run both as unit tests (in-memory DAOs) and against the emulators
+    sourceSets {
+        getByName("test").java.srcDir("src/sharedTest/java")
+        getByName("androidTest").java.srcDir("src/sharedTest/java")
+    }
+
     // Add this block to support unit testing
     testOptions {
         unitTests {
@@ -0,0 +1,180 @@
+/**
+ * DocumentMapperEquivalenceTest - Checks the document mappers against Firestore's own toObject().
+ *
+ * Key Responsibilities:
+ * - Documents written with set(pojo) and with the mappers' toMap() store the same data
+ * - fromMap() on a stored document gives the same model as toObject(), including documents with
+ *   missing, extra and differently typed numeric fields
+ * - Logs how long both take over the same documents, for comparison on a real device
+ *
+ * Technical Implementation:
+ * - Points Firestore at the emulator (see firebase.json) before the first test
+ * - Models are compared through toMap(), since they do not implement equals()
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.unemployedavengers.models.Comment;
+import com.example.unemployedavengers.models.CommentMapper;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.example.unemployedavengers.models.MoodEventMapper;
+import com.example.unemployedavengers.models.User;
+import com.example.unemployedavengers.models.UserMapper;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+public class DocumentMapperEquivalenceTest {
+    private static final String TAG = "DocumentMapperTest";
+    private static final int MOODS = 200;
+
+    private static CollectionReference moods;
+    private static CollectionReference comments;
+    private static CollectionReference users;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        String androidLocalhost = "10.0.2.2";
+        try {
+            FirebaseFirestore.getInstance().useEmulator(androidLocalhost, 8080);
+        } catch (IllegalStateException e) {
+            // Another test in this process already pointed Firebase at the emulators
+        }
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        moods = db.collection("mapperEquivalenceMoods");
+        comments = db.collection("mapperEquivalenceComments");
+        users = db.collection("mapperEquivalenceUsers");
+
+        WriteBatch batch = db.batch();
+        for (int i = 0; i < MOODS; i++) {
+            MoodEvent moodEvent = new MoodEvent("Happiness \uD83D\uDE0A", i % 3 == 0 ? null : "reason " + i, "", 1_700_000_000_000L + i,
+                    "Alone", "", i % 2 == 0);
+            moodEvent.setUserId("user" + (i % 7));
+            moodEvent.setHasLocation(i % 4 == 0);
+            moodEvent.setLatitude(53.5 + i / 1000.0);
+            moodEvent.setLongitude(-113.5);
+            moodEvent.setUpdatedAt(1_700_000_000_000L + i);
+            // Half written the reflective way, half with the mapper
+            batch.set(moods.document("mood" + i), i % 2 == 0 ? moodEvent : MoodEventMapper.toMap(moodEvent));
+        }
+
+        // Written by hand: missing fields, an unknown field and whole numbers in double fields
+        Map<String, Object> sparse = new HashMap<>();
+        sparse.put("mood", "Fear \uD83D\uDE28");
+        sparse.put("latitude", 53L);
+        sparse.put("time", 5L);
+        sparse.put("lastMoodAt", 7L);
+        batch.set(moods.document("sparse"), sparse);
+
+        Comment comment = new Comment("mood1", "user1", "alice", "nice", null);
+        comment.setReplyIds(Arrays.asList("a", "b"));
+        comment.setLikeCount(2);
+        batch.set(comments.document("pojo"), comment);
+        batch.set(comments.document("mapper"), CommentMapper.toMap(comment));
+
+        User user = new User("user1", "alice", "alice@example.com", "pw", "");
+        batch.set(users.document("pojo"), user);
+        batch.set(users.document("mapper"), UserMapper.toMap(user));
+        Tasks.await(batch.commit(), 30, TimeUnit.SECONDS);
+    }
+
+    private static List<DocumentSnapshot> read(CollectionReference collection) throws Exception {
+        return Tasks.await(collection.get(), 30, TimeUnit.SECONDS).getDocuments();
+    }
+
+    @Test
+    public void moodEvents_MapperMatchesToObject() throws Exception {
+        List<DocumentSnapshot> documents = read(moods);
+
+        for (DocumentSnapshot document : documents) {
+            assertEquals(document.getId(),
+                    MoodEventMapper.toMap(document.toObject(MoodEvent.class)),
+                    MoodEventMapper.toMap(MoodEventMapper.fromMap(document.getData())));
+        }
+    }
+
+    @Test
+    public void moodEvents_MapperWritesWhatSetWrites() throws Exception {
+        Map<String, Object> reflective = Tasks.await(moods.document("mood0").get(), 30, TimeUnit.SECONDS).getData();
+        MoodEvent moodEvent = MoodEventMapper.fromMap(reflective);
+        Tasks.await(moods.document("rewritten").set(MoodEventMapper.toMap(moodEvent)), 30, TimeUnit.SECONDS);
+
+        Map<String, Object> mapped = Tasks.await(moods.document("rewritten").get(), 30, TimeUnit.SECONDS).getData();
+
+        assertEquals(reflective, mapped);
+    }
+
+    @Test
+    public void comments_MapperMatchesToObject() throws Exception {
+        List<DocumentSnapshot> documents = read(comments);
+
+        for (DocumentSnapshot document : documents) {
+            assertEquals(document.getId(),
+                    CommentMapper.toMap(document.toObject(Comment.class)),
+                    CommentMapper.toMap(CommentMapper.fromMap(document.getData())));
+        }
+        assertEquals(documents.get(0).getData(), documents.get(1).getData());
+    }
+
+    @Test
+    public void users_MapperMatchesToObject() throws Exception {
+        List<DocumentSnapshot> documents = read(users);
+
+        for (DocumentSnapshot document : documents) {
+            assertEquals(document.getId(),
+                    UserMapper.toMap(document.toObject(User.class)),
+                    UserMapper.toMap(UserMapper.fromMap(document.getData())));
+        }
+        assertEquals(documents.get(0).getData(), documents.get(1).getData());
+    }
+
+    @Test
+    public void logTimings() throws Exception {
+        List<DocumentSnapshot> documents = read(moods);
+        for (int round = 0; round < 5; round++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            for (DocumentSnapshot document : documents) {
+                document.toObject(MoodEvent.class);
+            }
+            long reflective = SystemClock.elapsedRealtimeNanos() - start;
+
+            start = SystemClock.elapsedRealtimeNanos();
+            for (DocumentSnapshot document : documents) {
+                MoodEventMapper.fromMap(document.getData());
+            }
+            long mapped = SystemClock.elapsedRealtimeNanos() - start;
+            Log.i(TAG, documents.size() + " moods: toObject " + reflective / 1000 + " us, mapper " + mapped / 1000 + " us");
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        WriteBatch batch = FirebaseFirestore.getInstance().batch();
+        for (CollectionReference collection : Arrays.asList(moods, comments, users)) {
+            for (DocumentSnapshot document : read(collection)) {
+                batch.delete(document.getReference());
+            }
+        }
+        Tasks.await(batch.commit(), 30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * EmulatorUserDAOTest - Runs UserDAOContract against UserDAOImplement on the Firebase emulators.
+ *
+ * Key Responsibilities:
+ * - Keeps InMemoryUserDAO honest: both implementations pass the same contract, so load test
+ *   results on the in-memory DAO reflect how the Firebase one behaves
+ *
+ * Technical Implementation:
+ * - Points FirebaseAuth and Firestore at the emulators (see firebase.json) before the first test
+ * - Requires `firebase emulators:start` on the host; the Android emulator reaches it via 10.0.2.2
+ *
+ * @see UserDAOContract
+ */
+package com.example.unemployedavengers;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.unemployedavengers.DAO.IUserDAO;
+import com.example.unemployedavengers.implementationDAO.UserDAOImplement;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.BeforeClass;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public class EmulatorUserDAOTest extends UserDAOContract {
+
+    @BeforeClass
+    public static void useEmulators() {
+        String androidLocalhost = "10.0.2.2";
+        try {
+            FirebaseFirestore.getInstance().useEmulator(androidLocalhost, 8080);
+            FirebaseAuth.getInstance().useEmulator(androidLocalhost, 9099);
+        } catch (IllegalStateException e) {
+            // Another test in this process already pointed Firebase at the emulators
+        }
+    }
+
+    @Override
+    protected IUserDAO createUserDAO() {
+        return new UserDAOImplement(FirebaseAuth.getInstance(), FirebaseFirestore.getInstance());
+    }
+}
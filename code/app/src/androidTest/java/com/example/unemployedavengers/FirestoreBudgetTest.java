@@ -0,0 +1,158 @@
+/**
+ * FirestoreBudgetTest.java
+ *
+ * Purpose:
+ * Fails when a screen starts reading more Firestore documents than it is allowed to. Uses the
+ * per-screen totals FirestoreMeter keeps in debug builds, against the emulators.
+ *
+ * Tests include:
+ * - Opening History for a user with 30 moods reads at most 50 documents.
+ * - Opening the Dashboard reads at most 50 documents.
+ *
+ * Budgets are charged to the navigation destination the request was made on, so the meter is
+ * reset right before navigating and read once the screen has settled.
+ */
+package com.example.unemployedavengers;
+
+import static androidx.test.espresso.Espresso.onView;
+import static androidx.test.espresso.action.ViewActions.click;
+import static androidx.test.espresso.action.ViewActions.closeSoftKeyboard;
+import static androidx.test.espresso.assertion.ViewAssertions.matches;
+import static androidx.test.espresso.matcher.ViewMatchers.isDisplayed;
+import static androidx.test.espresso.matcher.ViewMatchers.withId;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.espresso.Espresso;
+import androidx.test.espresso.action.ViewActions;
+import androidx.test.ext.junit.rules.ActivityScenarioRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.example.unemployedavengers.models.User;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class FirestoreBudgetTest {
+    private static final String USERNAME = "BudgetUser";
+    private static final String PASSWORD = "password1";
+    private static final int MOODS = 30;
+    private static final long HISTORY_BUDGET = 50;
+    private static final long DASHBOARD_BUDGET = 50;
+    private static final long SETTLE_MS = 3000;
+
+    @Rule
+    public ActivityScenarioRule<MainActivity> activityScenarioRule =
+            new ActivityScenarioRule<>(MainActivity.class);
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        String androidLocalhost = "10.0.2.2";
+        FirebaseFirestore.getInstance().useEmulator(androidLocalhost, 8080);
+        FirebaseAuth.getInstance().useEmulator(androidLocalhost, 9099);
+
+        FirebaseAuth auth = FirebaseAuth.getInstance();
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        String email = USERNAME.toLowerCase() + "@example.com";
+        FirebaseUser user = Tasks.await(auth.createUserWithEmailAndPassword(email, PASSWORD), 30, TimeUnit.SECONDS).getUser();
+        String userId = user.getUid();
+
+        WriteBatch batch = db.batch();
+        batch.set(db.collection("users").document(userId),
+                new User(userId, USERNAME, email, PASSWORD, ""));
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < MOODS; i++) {
+            MoodEvent moodEvent = new MoodEvent("\uD83D\uDE04Happiness", "reason " + i, "", now - i * 60_000L, "Alone", "", true);
+            String id = db.collection("users").document(userId).collection("moods").document().getId();
+            moodEvent.setId(id);
+            moodEvent.setUserId(userId);
+            moodEvent.setUpdatedAt(now - i * 60_000L);
+            batch.set(db.collection("users").document(userId).collection("moods").document(id), moodEvent);
+        }
+        Tasks.await(batch.commit(), 30, TimeUnit.SECONDS);
+        auth.signOut();
+    }
+
+    @Before
+    public void login() {
+        FirebaseAuth.getInstance().signOut();
+        onView(withId(R.id.tvStartLogin)).check(matches(isDisplayed()));
+        onView(withId(R.id.tvStartLogin)).perform(click());
+        onView(withId(R.id.etUsername)).perform(ViewActions.typeText(USERNAME), closeSoftKeyboard());
+        onView(withId(R.id.etPassword)).perform(ViewActions.typeText(PASSWORD), closeSoftKeyboard());
+        onView(withId(R.id.btnLogin)).perform(click());
+        CustomMatchers.handleLocationPermissionPopup();
+        Espresso.onIdle();
+    }
+
+    @Test
+    public void openingHistory_StaysWithinBudget() throws InterruptedException {
+        FirestoreMeter meter = FirestoreMeter.getInstance();
+        meter.reset();
+
+        onView(withId(R.id.historyFragment)).perform(click());
+        Espresso.onIdle();
+        Thread.sleep(SETTLE_MS);
+
+        assertWithinBudget(meter, "historyFragment", HISTORY_BUDGET);
+    }
+
+    @Test
+    public void openingDashboard_StaysWithinBudget() throws InterruptedException {
+        FirestoreMeter meter = FirestoreMeter.getInstance();
+        onView(withId(R.id.historyFragment)).perform(click());
+        Espresso.onIdle();
+        meter.reset();
+
+        onView(withId(R.id.dashboardFragment)).perform(click());
+        Espresso.onIdle();
+        Thread.sleep(SETTLE_MS);
+
+        assertWithinBudget(meter, "dashboardFragment", DASHBOARD_BUDGET);
+    }
+
+    private static void assertWithinBudget(FirestoreMeter meter, String screen, long budget) {
+        assertTrue("FirestoreMeter is only enabled in debug builds", meter.isEnabled());
+        FirestoreMeter.Totals totals = meter.screenTotals(screen);
+        assertNotNull(screen + " made no Firestore requests", totals);
+        assertTrue(screen + " read " + totals.getDocuments() + " documents, budget is " + budget + "\n" + meter.toJson(),
+                totals.getDocuments() <= budget);
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        FirebaseAuth auth = FirebaseAuth.getInstance();
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        auth.signOut();
+        FirebaseUser user = Tasks.await(auth.signInWithEmailAndPassword(USERNAME.toLowerCase() + "@example.com", PASSWORD),
+                30, TimeUnit.SECONDS).getUser();
+        String userId = user.getUid();
+
+        WriteBatch batch = db.batch();
+        for (DocumentSnapshot mood : Tasks.await(db.collection("users").document(userId).collection("moods").get(),
+                30, TimeUnit.SECONDS).getDocuments()) {
+            batch.delete(mood.getReference());
+        }
+        batch.delete(db.collection("users").document(userId));
+        Tasks.await(batch.commit(), 30, TimeUnit.SECONDS);
+        Tasks.await(user.delete(), 30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * ScaleHarnessTest - Measures the load path of each data-heavy screen on a synthetic dataset.
+ *
+ * Key Responsibilities:
+ * - Seeds the Firestore emulator with a SyntheticDataset for the chosen scenario
+ * - Drives the same loaders the screens use, as the user who follows the most people:
+ *   Dashboard (LocalMoodStore.sync then getMoods), History (getMoods from disk),
+ *   FollowedUserMoodEvents (FollowedMoodSync.sync then getFeed) and FriendsMap
+ *   (FriendsViewportLoader over the whole populated area)
+ * - Writes a ScaleReport as JSON to the app's external files directory and to logcat
+ *
+ * Technical Implementation:
+ * - Pick the scenario with the instrumentation argument scaleScenario (small, medium, large):
+ *   ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=
+ *   com.example.unemployedavengers.ScaleHarnessTest
+ *   -Pandroid.testInstrumentationRunnerArguments.scaleScenario=medium
+ * - Requires `firebase emulators:start`; runs against 10.0.2.2 like the other emulator tests
+ * - Run it on a freshly installed app, or the local mirror is already warm from the last run
+ *
+ * @see SyntheticDataset
+ * @see ScaleReport
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertFalse;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.unemployedavengers.DAO.DAOProvider;
+import com.example.unemployedavengers.DAO.MoodEventCache;
+import com.example.unemployedavengers.implementationDAO.MoodEventDAOImplement;
+import com.example.unemployedavengers.local.FollowedMoodSync;
+import com.example.unemployedavengers.local.LocalMoodStore;
+import com.example.unemployedavengers.maps.FriendsViewportLoader;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.example.unemployedavengers.scale.FirestoreSeeder;
+import com.example.unemployedavengers.scale.ScaleReport;
+import com.example.unemployedavengers.scale.ScenarioConfig;
+import com.example.unemployedavengers.scale.SyntheticDataset;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class ScaleHarnessTest {
+    private static final String TAG = "ScaleHarness";
+    private static final long MAP_QUIET_MS = 2_000;
+    private static final long MAP_TIMEOUT_MS = 120_000;
+
+    private static FirebaseFirestore db;
+    private static ScaleReport.Counter counter;
+
+    @BeforeClass
+    public static void setup() {
+        db = FirebaseFirestore.getInstance();
+        try {
+            db.useEmulator("10.0.2.2", 8080);
+        } catch (IllegalStateException e) {
+            // Another test in this process already pointed Firestore at the emulator
+        }
+        // Must be installed before any loader takes the shared DAO
+        counter = new ScaleReport.Counter();
+        DAOProvider.setMoodEventDAO(new MoodEventDAOImplement(db, MoodEventCache.NONE, counter));
+    }
+
+    @Test
+    public void runScenario() throws Exception {
+        String name = InstrumentationRegistry.getArguments().getString("scaleScenario", "small");
+        SyntheticDataset dataset = SyntheticDataset.generate(ScenarioConfig.named(name));
+        new FirestoreSeeder(db).seed(dataset);
+
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        String owner = dataset.busiestFollower();
+        List<String> followees = dataset.following.get(owner);
+        LocalMoodStore localMoodStore = LocalMoodStore.getInstance(context);
+        FollowedMoodSync followedMoodSync = FollowedMoodSync.getInstance(context);
+
+        ScaleReport report = new ScaleReport(dataset, counter);
+        report.measure("dashboard", () -> {
+            Tasks.await(localMoodStore.sync(owner), 2, TimeUnit.MINUTES);
+            Tasks.await(localMoodStore.getMoods(owner), 2, TimeUnit.MINUTES);
+        });
+        report.measure("history", () -> Tasks.await(localMoodStore.getMoods(owner), 2, TimeUnit.MINUTES));
+        report.measure("followedUserMoodEvents", () -> {
+            Tasks.await(followedMoodSync.sync(owner, followees), 5, TimeUnit.MINUTES);
+            Tasks.await(followedMoodSync.getFeed(owner, 3), 2, TimeUnit.MINUTES);
+        });
+        report.measure("friendsMap", () -> loadWholeMap(dataset.config, owner));
+
+        String json = report.toJson();
+        Log.i(TAG, json);
+        File file = new File(context.getExternalFilesDir(null), "scale-report-" + name + ".json");
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(json);
+        }
+        assertFalse(json.isEmpty());
+    }
+
+    /**
+     * Opens FriendsViewportLoader on the populated area and returns once no new area has
+     * finished loading for MAP_QUIET_MS, so its wall time includes that quiet period.
+     */
+    private void loadWholeMap(ScenarioConfig config, String owner) throws InterruptedException {
+        double latSpan = config.radiusKm / 111.32;
+        double lngSpan = latSpan / Math.cos(Math.toRadians(config.centerLatitude));
+        LatLngBounds bounds = new LatLngBounds(
+                new LatLng(config.centerLatitude - latSpan, config.centerLongitude - lngSpan),
+                new LatLng(config.centerLatitude + latSpan, config.centerLongitude + lngSpan));
+
+        AtomicLong lastLoadAt = new AtomicLong(SystemClock.elapsedRealtime());
+        FriendsViewportLoader[] loader = new FriendsViewportLoader[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            loader[0] = new FriendsViewportLoader(db, owner,
+                    (List<MoodEvent> events) -> lastLoadAt.set(SystemClock.elapsedRealtime()));
+            loader[0].onCameraIdle(bounds, 11f);
+        });
+
+        long start = SystemClock.elapsedRealtime();
+        while (SystemClock.elapsedRealtime() - lastLoadAt.get() < MAP_QUIET_MS
+                && SystemClock.elapsedRealtime() - start < MAP_TIMEOUT_MS) {
+            Thread.sleep(100);
+        }
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> loader[0].release());
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * UsernamePropagationTest - Runs UsernamePropagation over tens of thousands of documents.
+ *
+ * Key Responsibilities:
+ * - Checks that every mood and comment of the renamed user ends up with the new name, and that
+ *   other users' comments are left alone
+ * - Checks that renamed moods get a newer updatedAt and that lastMoodAt advances, so mirrors
+ *   and followers' syncs see the rename
+ * - Checks that a cancelled run resumes from its checkpoint without rewriting pages it already
+ *   committed
+ *
+ * Technical Implementation:
+ * - Seeds MOODS moods and COMMENTS comments per test in WriteBatches of 500, under a fresh user id
+ * - Counts results with count() aggregations instead of downloading the documents
+ * - Requires `firebase emulators:start`; runs against 10.0.2.2 like the other emulator tests
+ *
+ * @see UsernamePropagation
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.unemployedavengers.implementationDAO.UsernamePropagation;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class UsernamePropagationTest {
+    private static final int MOODS = 20_000;
+    private static final int COMMENTS = 5_000;
+    private static final int MAX_BATCH_WRITES = 500;
+
+    private static FirebaseFirestore db;
+
+    private UsernamePropagation propagation;
+    private String userId;
+
+    @BeforeClass
+    public static void useEmulator() {
+        db = FirebaseFirestore.getInstance();
+        try {
+            db.useEmulator("10.0.2.2", 8080);
+        } catch (IllegalStateException e) {
+            // Another test in this process already pointed Firestore at the emulator
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        propagation = UsernamePropagation.getInstance(context);
+        // The emulator has no quota to protect; keep the throttle short of free-running
+        propagation.setMaxWritesPerSecond(5_000);
+        userId = "rename-" + UUID.randomUUID();
+        seed(userId, "oldname");
+    }
+
+    @Test
+    public void start_RewritesEveryMoodAndComment() throws Exception {
+        String otherId = "other-" + UUID.randomUUID();
+        Map<String, Object> otherComment = new HashMap<>();
+        otherComment.put("userId", otherId);
+        otherComment.put("username", "oldname");
+        Tasks.await(db.collection("comments").document(otherId).set(otherComment), 30, TimeUnit.SECONDS);
+
+        long startedAt = System.currentTimeMillis();
+
+        UsernamePropagation.Progress progress = Tasks.await(propagation.start(userId, "newname"), 10, TimeUnit.MINUTES);
+
+        assertNotNull(progress);
+        assertTrue(progress.done);
+        assertEquals(MOODS + COMMENTS, progress.updated);
+        assertEquals(MOODS, count(moods().whereEqualTo("userName", "newname")));
+        assertEquals(MOODS, count(moods().whereGreaterThanOrEqualTo("updatedAt", startedAt)));
+        Long lastMoodAt = Tasks.await(db.collection("users").document(userId).get(), 30, TimeUnit.SECONDS)
+                .getLong("lastMoodAt");
+        assertNotNull(lastMoodAt);
+        assertTrue(lastMoodAt >= startedAt);
+        assertEquals(COMMENTS, count(comments(userId).whereEqualTo("username", "newname")));
+        assertEquals(1, count(comments(otherId).whereEqualTo("username", "oldname")));
+    }
+
+    @Test
+    public void resume_AfterCancel_ContinuesFromCheckpoint() throws Exception {
+        UsernamePropagation.Listener cancelAfterFirstPage = progress -> propagation.cancel();
+        propagation.addListener(cancelAfterFirstPage);
+        UsernamePropagation.Progress cancelled;
+        try {
+            cancelled = Tasks.await(propagation.start(userId, "newname"), 10, TimeUnit.MINUTES);
+        } finally {
+            propagation.removeListener(cancelAfterFirstPage);
+        }
+        assertNull(cancelled);
+        long renamedBeforeResume = count(moods().whereEqualTo("userName", "newname"));
+        assertTrue(renamedBeforeResume > 0 && renamedBeforeResume < MOODS);
+
+        UsernamePropagation.Progress progress = Tasks.await(propagation.resume(userId), 10, TimeUnit.MINUTES);
+
+        assertNotNull(progress);
+        assertTrue(progress.done);
+        // Pages committed before the cancel are counted once and not rewritten
+        assertEquals(MOODS + COMMENTS, progress.updated);
+        assertEquals(0, count(moods().whereEqualTo("userName", "oldname")));
+        assertEquals(0, count(comments(userId).whereEqualTo("username", "oldname")));
+    }
+
+    private void seed(String userId, String username) throws Exception {
+        WriteBatch batch = db.batch();
+        int writes = 0;
+        for (int i = 0; i < MOODS + COMMENTS; i++) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("userId", userId);
+            if (i < MOODS) {
+                data.put("userName", username);
+                data.put("mood", "Happiness");
+                data.put("time", (long) i);
+                batch.set(moods().document(String.format(Locale.ROOT, "mood%05d", i)), data);
+            } else {
+                data.put("username", username);
+                data.put("content", "comment " + i);
+                batch.set(db.collection("comments").document(userId + "-" + i), data);
+            }
+            if (++writes == MAX_BATCH_WRITES) {
+                Tasks.await(batch.commit(), 60, TimeUnit.SECONDS);
+                batch = db.batch();
+                writes = 0;
+            }
+        }
+        if (writes > 0) {
+            Tasks.await(batch.commit(), 60, TimeUnit.SECONDS);
+        }
+    }
+
+    private CollectionReference moods() {
+        return db.collection("users").document(userId).collection("moods");
+    }
+
+    private static Query comments(String userId) {
+        return db.collection("comments").whereEqualTo("userId", userId);
+    }
+
+    private static long count(Query query) throws Exception {
+        return Tasks.await(query.count().get(AggregateSource.SERVER), 60, TimeUnit.SECONDS).getCount();
+    }
+}
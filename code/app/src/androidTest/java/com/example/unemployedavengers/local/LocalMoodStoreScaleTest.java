@@ -0,0 +1,122 @@
+/**
+ * LocalMoodStoreScaleTest - Times LocalMoodStore's history and reason search over 10,000 moods.
+ *
+ * Key Responsibilities:
+ * - Checks that a user's whole history is read from disk in under MAX_QUERY_MS
+ * - Checks that a full-text reason search over the same moods also takes under MAX_QUERY_MS,
+ *   and returns exactly the moods whose reason has the searched word
+ *
+ * Technical Implementation:
+ * - Writes MOODS moods for a fresh user id straight into the mirror through applyLocalChange,
+ *   the path MoodOutbox uses, in one SQLite transaction; no Firestore or emulator is needed
+ * - Lives in the local package for access to applyLocalChange
+ * - Each query is run once to warm up, then RUNS times; the median is compared with the target
+ * - The user's moods are deleted again afterwards
+ *
+ * @see LocalMoodStore
+ */
+package com.example.unemployedavengers.local;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.unemployedavengers.models.MoodEvent;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class LocalMoodStoreScaleTest {
+    private static final String TAG = "LocalMoodStoreScale";
+    private static final int MOODS = 10_000;
+    private static final int RUNS = 5;
+    private static final long MAX_QUERY_MS = 100;
+    private static final String[] REASONS = {"exam stress", "good day", "work deadline", "family dinner", "long run"};
+
+    private LocalDatabase database;
+    private LocalMoodStore store;
+    private String userId;
+
+    @Before
+    public void setup() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        database = LocalDatabase.getInstance(context);
+        store = LocalMoodStore.getInstance(context);
+        userId = "scale-" + UUID.randomUUID();
+
+        SQLiteDatabase sql = database.getWritableDatabase();
+        sql.beginTransaction();
+        try {
+            for (int i = 0; i < MOODS; i++) {
+                MoodEvent moodEvent = new MoodEvent("Happiness", REASONS[i % REASONS.length], "Alone",
+                        1_700_000_000_000L + i * 60_000L, "Alone", null, i % 2 == 0);
+                moodEvent.setId("mood-" + i);
+                moodEvent.setUserId(userId);
+                moodEvent.setUserName("scale");
+                moodEvent.setUpdatedAt(moodEvent.getTime());
+                store.applyLocalChange(OutboxOperation.TYPE_CREATE, userId, moodEvent);
+            }
+            sql.setTransactionSuccessful();
+        } finally {
+            sql.endTransaction();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        database.getWritableDatabase().delete(LocalDatabase.TABLE_MOODS,
+                LocalDatabase.COL_USER_ID + " = ?", new String[]{userId});
+    }
+
+    @Test
+    public void history_ReadsTenThousandMoodsUnderTarget() throws Exception {
+        long medianMs = medianMs(() -> store.getMoods(userId), MOODS);
+        Log.i(TAG, "getMoods over " + MOODS + " moods: " + medianMs + " ms");
+        assertTrue("getMoods took " + medianMs + " ms", medianMs < MAX_QUERY_MS);
+    }
+
+    @Test
+    public void searchReasons_UsesIndexUnderTarget() throws Exception {
+        long medianMs = medianMs(() -> store.searchReasons(userId, "deadl"), MOODS / REASONS.length);
+        Log.i(TAG, "searchReasons over " + MOODS + " moods: " + medianMs + " ms");
+        assertTrue("searchReasons took " + medianMs + " ms", medianMs < MAX_QUERY_MS);
+    }
+
+    /**
+     * Runs a query once to warm up and RUNS more times, checking the result size each time.
+     *
+     * @return The median wall time of the timed runs, in milliseconds.
+     */
+    private static long medianMs(Callable<Task<List<MoodEvent>>> query, int expected) throws Exception {
+        assertEquals(expected, Tasks.await(query.call(), 30, TimeUnit.SECONDS).size());
+        long[] times = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = SystemClock.elapsedRealtime();
+            List<MoodEvent> moods = Tasks.await(query.call(), 30, TimeUnit.SECONDS);
+            times[i] = SystemClock.elapsedRealtime() - start;
+            assertEquals(expected, moods.size());
+        }
+        Arrays.sort(times);
+        return times[RUNS / 2];
+    }
+}
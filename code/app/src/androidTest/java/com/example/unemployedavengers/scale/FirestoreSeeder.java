@@ -0,0 +1,112 @@
+/**
+ * FirestoreSeeder - Writes a SyntheticDataset into Firestore, normally the emulator.
+ *
+ * Key Responsibilities:
+ * - Lays the data out exactly like the app does: users/{id} with usernameLower and lastMoodAt,
+ *   usernames/{name} reservations, following and followers subcollections, mood summaries in
+ *   users/{id}/moods/{id} with their details in users/{id}/moodDetails/{id}, and the top-level
+ *   comments collection
+ * - Documents are built with the same mappers the app writes with, never by reflection
+ *
+ * Technical Implementation:
+ * - Writes go in WriteBatches of 500, committed one after another and awaited, so it must run
+ *   off the main thread (e.g. from an instrumented test)
+ */
+
+package com.example.unemployedavengers.scale;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.models.Comment;
+import com.example.unemployedavengers.models.CommentMapper;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.example.unemployedavengers.models.MoodEventMapper;
+import com.example.unemployedavengers.models.User;
+import com.example.unemployedavengers.models.UserMapper;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class FirestoreSeeder {
+    private static final int MAX_BATCH_WRITES = 500;
+
+    private final FirebaseFirestore db;
+    private WriteBatch batch;
+    private int writes;
+
+    public FirestoreSeeder(@NonNull FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Writes every user, follow, mood and comment of the dataset and waits for the last batch.
+     */
+    public void seed(@NonNull SyntheticDataset dataset) throws Exception {
+        for (User user : dataset.users) {
+            Map<String, Object> data = UserMapper.toMap(user);
+            data.put(UserMapper.USERNAME_LOWER, UserMapper.normalize(user.getUsername()));
+            long lastMoodAt = 0L;
+            for (MoodEvent moodEvent : dataset.moods.get(user.getUserId())) {
+                lastMoodAt = Math.max(lastMoodAt, moodEvent.getUpdatedAt());
+            }
+            data.put("lastMoodAt", lastMoodAt);
+            write(db.collection("users").document(user.getUserId()), data);
+
+            Map<String, Object> reservation = new HashMap<>();
+            reservation.put("uid", user.getUserId());
+            reservation.put("username", user.getUsername());
+            write(db.collection("usernames").document(UserMapper.reservationId(user.getUsername())), reservation);
+        }
+
+        for (Map.Entry<String, List<String>> entry : dataset.following.entrySet()) {
+            String followerId = entry.getKey();
+            for (String followedId : entry.getValue()) {
+                Map<String, Object> following = new HashMap<>();
+                following.put("followedId", followedId);
+                following.put("followedAt", 0L);
+                write(db.collection("users").document(followerId).collection("following").document(followedId), following);
+
+                Map<String, Object> follower = new HashMap<>();
+                follower.put("followerId", followerId);
+                follower.put("followedAt", 0L);
+                write(db.collection("users").document(followedId).collection("followers").document(followerId), follower);
+            }
+        }
+
+        for (Map.Entry<String, List<MoodEvent>> entry : dataset.moods.entrySet()) {
+            DocumentReference userRef = db.collection("users").document(entry.getKey());
+            for (MoodEvent moodEvent : entry.getValue()) {
+                write(userRef.collection("moods").document(moodEvent.getId()), MoodEventMapper.toSummaryMap(moodEvent));
+                write(userRef.collection("moodDetails").document(moodEvent.getId()), MoodEventMapper.toDetailMap(moodEvent));
+            }
+        }
+
+        for (Comment comment : dataset.comments) {
+            write(db.collection("comments").document(comment.getId()), CommentMapper.toMap(comment));
+        }
+        commit();
+    }
+
+    private void write(DocumentReference ref, Map<String, Object> data) throws Exception {
+        if (batch == null) {
+            batch = db.batch();
+        }
+        batch.set(ref, data);
+        if (++writes >= MAX_BATCH_WRITES) {
+            commit();
+        }
+    }
+
+    private void commit() throws Exception {
+        if (batch == null) return;
+        Tasks.await(batch.commit(), 60, TimeUnit.SECONDS);
+        batch = null;
+        writes = 0;
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * DAOMetrics - Receives counts and timings of the reads and writes made by a DAO.
+ *
+ * Purpose:
+ * - Lets the cost of each DAO operation be measured (documents read or written, time taken)
+ *   without the DAO knowing where the numbers go.
+ *
+ * Key Features:
+ * - NONE discards everything and is the default.
+ * - Reads answered from a DAO cache are reported with fromCache set and zero documents billed.
+ * - DAOs report from background threads, so implementations must be thread-safe.
+ */
+
+package com.example.unemployedavengers.DAO;
+
+import androidx.annotation.NonNull;
+
+public interface DAOMetrics {
+
+    DAOMetrics NONE = new DAOMetrics() {
+        @Override
+        public void onRead(@NonNull String operation, int documents, boolean fromCache, long elapsedMs) {
+        }
+
+        @Override
+        public void onWrite(@NonNull String operation, int documents, long elapsedMs) {
+        }
+    };
+
+    /**
+     * @param operation Name of the DAO operation, e.g. "getMoodEvents".
+     * @param documents Number of documents returned.
+     * @param fromCache true if no document was read from the server.
+     * @param elapsedMs Time from the request to the result.
+     */
+    void onRead(@NonNull String operation, int documents, boolean fromCache, long elapsedMs);
+
+    /**
+     * @param operation Name of the DAO operation, e.g. "saveMoodEvent".
+     * @param documents Number of documents written or deleted.
+     * @param elapsedMs Time from the commit to its completion.
+     */
+    void onWrite(@NonNull String operation, int documents, long elapsedMs);
+}
@@ -0,0 +1,61 @@
+/**
+ * DAOProvider - Holds the DAO instances shared by the whole app.
+ *
+ * Purpose:
+ * - A single shared IMoodEventDAO lets its cache and in-flight read deduplication work across
+ *   screens, and lets benchmarks and tests swap in InMemoryMoodEventDAO before any screen runs.
+ * - Likewise for IUserDAO, where load tests swap in InMemoryUserDAO.
+ */
+
+package com.example.unemployedavengers.DAO;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.implementationDAO.MoodEventDAOImplement;
+import com.example.unemployedavengers.implementationDAO.UserDAOImplement;
+
+public final class DAOProvider {
+    private static IMoodEventDAO moodEventDAO;
+    private static IUserDAO userDAO;
+
+    private DAOProvider() {
+    }
+
+    /**
+     * @return The shared IMoodEventDAO, a Firestore-backed MoodEventDAOImplement unless replaced.
+     */
+    public static synchronized IMoodEventDAO getMoodEventDAO() {
+        if (moodEventDAO == null) {
+            moodEventDAO = new MoodEventDAOImplement();
+        }
+        return moodEventDAO;
+    }
+
+    /**
+     * Replaces the shared IMoodEventDAO, e.g. with an in-memory one for benchmarks.
+     *
+     * @param dao The DAO every caller should use from now on.
+     */
+    public static synchronized void setMoodEventDAO(@NonNull IMoodEventDAO dao) {
+        moodEventDAO = dao;
+    }
+
+    /**
+     * @return The shared IUserDAO, a Firebase-backed UserDAOImplement unless replaced.
+     */
+    public static synchronized IUserDAO getUserDAO() {
+        if (userDAO == null) {
+            userDAO = new UserDAOImplement();
+        }
+        return userDAO;
+    }
+
+    /**
+     * Replaces the shared IUserDAO, e.g. with an in-memory one for load tests.
+     *
+     * @param dao The DAO every caller should use from now on.
+     */
+    public static synchronized void setUserDAO(@NonNull IUserDAO dao) {
+        userDAO = dao;
+    }
+}
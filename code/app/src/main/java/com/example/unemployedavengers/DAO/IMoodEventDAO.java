@@ -0,0 +1,145 @@
+/**
+ * IMoodEventDAO - Data Access Object interface for mood event storage.
+ *
+ * Design Pattern:
+ * - Follows the DAO pattern, like IUserDAO, so screens and sync engines do not build
+ *   users/{id}/moods queries inline
+ * - Implementations can be swapped through DAOProvider (Firestore in the app, in-memory for benchmarks)
+ *
+ * Key Responsibilities:
+ * - Centralizes every mood event query: full history, recent page, incremental (updatedAt) and
+ *   map tile reads
+ * - Writes single mood events, advancing the owner's lastMoodAt like MoodOutbox does
+ * - List reads may return summaries only (MoodEvent.needsDetail); loadDetail completes them
+ *
+ * Technical Implementation:
+ * - Returns Task-based results, like IUserDAO
+ * - Returned moods always carry their document id and owner id
+ * - Returned lists belong to the caller and may be modified
+ *
+ * Outstanding Issues/TODOs:
+ * 1. MoodOutbox still replays through its own transaction, since last-writer-wins needs a
+ *    read-compare-write per mood; it calls invalidate afterwards
+ *
+ * Dependencies:
+ * - MoodEvent model class
+ * - ReadPolicy and CachedReads for stale-while-revalidate reads
+ */
+
+package com.example.unemployedavengers.DAO;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.local.CachedReads;
+import com.example.unemployedavengers.local.ReadPolicy;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.Task;
+
+import java.util.List;
+
+/**
+ * Interface defining mood event operations.
+ */
+public interface IMoodEventDAO {
+
+    /**
+     * Allocates a document id for a new mood event without writing anything.
+     *
+     * @param userId The owner of the mood event.
+     * @return A new, unique mood event id.
+     */
+    String newMoodEventId(@NonNull String userId);
+
+    /**
+     * Retrieves every mood event of a user.
+     *
+     * @param userId The owner of the mood events.
+     * @return A {@link Task<List<MoodEvent>>} with the mood events, most recent first.
+     */
+    Task<List<MoodEvent>> getMoodEvents(@NonNull String userId);
+
+    /**
+     * Counts every mood event of a user on the server, without reading them.
+     *
+     * @param userId The owner of the mood events.
+     * @return A {@link Task<Long>} with the number of mood events.
+     */
+    Task<Long> countMoodEvents(@NonNull String userId);
+
+    /**
+     * Retrieves the latest mood events of a user, public or not.
+     *
+     * @param userId The owner of the mood events.
+     * @param limit The maximum number of mood events to return.
+     * @return A {@link Task<List<MoodEvent>>} with the mood events, most recent first.
+     */
+    Task<List<MoodEvent>> getRecentMoodEvents(@NonNull String userId, int limit);
+
+    /**
+     * Retrieves the mood events of a user changed after a given time.
+     *
+     * @param userId The owner of the mood events.
+     * @param updatedAt Only mood events with a later updatedAt are returned.
+     * @return A {@link Task<List<MoodEvent>>} with the changed mood events, in no particular order.
+     */
+    Task<List<MoodEvent>> getMoodEventsUpdatedSince(@NonNull String userId, long updatedAt);
+
+    /**
+     * Retrieves the public, located mood events of several users inside any of a set of map tiles.
+     *
+     * @param userIds The owners of the mood events.
+     * @param tileKeys ViewportTileCache tile keys, at any zoom up to MAX_TILE_ZOOM. Firestore
+     *                 allows at most 30 userId and tile pairs per query, so
+     *                 userIds.size() x tileKeys.size() must not exceed 30.
+     * @return A {@link Task<List<MoodEvent>>} with the mood events, in no particular order.
+     */
+    Task<List<MoodEvent>> getPublicMoodEventsInTiles(@NonNull List<String> userIds, @NonNull List<String> tileKeys);
+
+    /**
+     * Retrieves the public mood events of a user, delivering them once or twice according to the policy.
+     *
+     * @param userId The owner of the mood events.
+     * @param policy Where to serve the read from.
+     * @param listener Receives the mood events, most recent first.
+     * @param failureListener Called if no copy could be delivered at all.
+     */
+    void getPublicMoodEvents(@NonNull String userId, @NonNull ReadPolicy policy,
+                             @NonNull CachedReads.ReadListener<List<MoodEvent>> listener,
+                             @NonNull OnFailureListener failureListener);
+
+    /**
+     * Loads the situation, radio situation and image of a mood event read as a summary.
+     * Completes straight away with the same mood event if nothing is missing.
+     *
+     * @param moodEvent The mood event to complete; it is modified in place.
+     * @return A {@link Task<MoodEvent>} with the mood event, its needsDetail flag cleared.
+     */
+    Task<MoodEvent> loadDetail(@NonNull MoodEvent moodEvent);
+
+    /**
+     * Creates or overwrites a mood event, without last-writer-wins. Screens write through
+     * MoodOutbox instead. Assigns an id first if the mood event has none.
+     *
+     * @param userId The owner of the mood event.
+     * @param moodEvent The mood event to write.
+     * @return A {@link Task<Void>} that completes once the write is committed.
+     */
+    Task<Void> saveMoodEvent(@NonNull String userId, @NonNull MoodEvent moodEvent);
+
+    /**
+     * Deletes a mood event.
+     *
+     * @param userId The owner of the mood event.
+     * @param moodEventId The id of the mood event to delete.
+     * @return A {@link Task<Void>} that completes once the delete is committed.
+     */
+    Task<Void> deleteMoodEvent(@NonNull String userId, @NonNull String moodEventId);
+
+    /**
+     * Drops anything cached for a user whose mood events were written outside this DAO.
+     *
+     * @param userId The owner of the mood events.
+     */
+    void invalidate(@NonNull String userId);
+}
@@ -38,7 +38,9 @@ package com.example.unemployedavengers.DAO;
 import androidx.annotation.NonNull;
 import com.google.android.gms.tasks.Task;
 import com.example.unemployedavengers.models.User;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface defining user-related operations for Firebase Authentication and Firestore.
@@ -131,6 +133,24 @@ public interface IUserDAO {
      */
     Task<Void> rejectFollowRequest(@NonNull String requesterId, @NonNull String targetId);
 
+    /**
+     * Accepts many follow requests with as few batched commits as Firestore allows.
+     *
+     * @param requesterIds The user IDs of the users who sent the follow requests.
+     * @param targetId The user ID of the user accepting them.
+     * @return A {@link Task<Void>} that fails if any of the batches failed.
+     */
+    Task<Void> acceptFollowRequests(@NonNull Collection<String> requesterIds, @NonNull String targetId);
+
+    /**
+     * Rejects many follow requests with as few batched commits as Firestore allows.
+     *
+     * @param requesterIds The user IDs of the users who sent the follow requests.
+     * @param targetId The user ID of the user rejecting them.
+     * @return A {@link Task<Void>} that fails if any of the batches failed.
+     */
+    Task<Void> rejectFollowRequests(@NonNull Collection<String> requesterIds, @NonNull String targetId);
+
     /**
      * Unfollows a user by removing the follow relationship from Firestore.
      *
@@ -148,6 +168,17 @@ public interface IUserDAO {
      */
     Task<List<User>> searchUsers(@NonNull String query);
 
+    /**
+     * Searches for users whose username starts with a prefix, returning at most limit of them.
+     * The signed-in user is left out of the results.
+     *
+     * @param prefix The start of the usernames to find.
+     * @param limit The maximum number of users to return.
+     * @return A {@link Task<List<User>>} with the matching users in username order. Fewer than
+     *         limit users means every match was returned.
+     */
+    Task<List<User>> searchUsers(@NonNull String prefix, int limit);
+
     /**
      * Retrieves a user from Firestore based on their username.
      *
@@ -173,4 +204,24 @@ public interface IUserDAO {
      */
 
     Task<String> getFollowStatus(@NonNull String requesterId, @NonNull String targetId);
+
+    /**
+     * Resolves the follow status of many targets at once, e.g. every row of a search result,
+     * without one read per target.
+     *
+     * @param requesterId The user ID of the person initiating the follow.
+     * @param targetIds The user IDs of the target people; duplicates are resolved once.
+     * @return A {@link Task} with "following", "requested" or "none" for every target ID.
+     */
+    Task<Map<String, String>> getFollowStatuses(@NonNull String requesterId, @NonNull Collection<String> targetIds);
+
+    /**
+     * Resolves how a user relates to many others at once, e.g. to badge mutual follows in a list.
+     *
+     * @param userId The user whose follow graph is consulted.
+     * @param targetIds The other users; duplicates are resolved once.
+     * @return A {@link Task} with Relationships.MUTUAL, FOLLOWING, REQUESTED, FOLLOWER or NONE
+     *         for every target ID.
+     */
+    Task<Map<String, String>> getRelationships(@NonNull String userId, @NonNull Collection<String> targetIds);
 }
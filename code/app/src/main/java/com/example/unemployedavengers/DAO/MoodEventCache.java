@@ -0,0 +1,58 @@
+/**
+ * MoodEventCache - Pluggable in-process cache for the results of mood event reads.
+ *
+ * Purpose:
+ * - Lets a DAO answer a repeated read without going to the data store. Keys are built by the DAO
+ *   from the operation and its arguments and always start with the owner's id followed by '|'.
+ *
+ * Key Features:
+ * - NONE caches nothing and is the default.
+ * - invalidateUser drops every entry of one owner; DAOs call it whenever that owner's moods change.
+ * - Called from background threads as well as the main thread, so implementations must be thread-safe.
+ */
+
+package com.example.unemployedavengers.DAO;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.unemployedavengers.models.MoodEvent;
+
+import java.util.List;
+
+public interface MoodEventCache {
+
+    MoodEventCache NONE = new MoodEventCache() {
+        @Nullable
+        @Override
+        public List<MoodEvent> get(@NonNull String key) {
+            return null;
+        }
+
+        @Override
+        public void put(@NonNull String key, @NonNull List<MoodEvent> moodEvents) {
+        }
+
+        @Override
+        public void invalidateUser(@NonNull String userId) {
+        }
+    };
+
+    /**
+     * @param key The cache key.
+     * @return A copy of the cached result, or null if there is none.
+     */
+    @Nullable
+    List<MoodEvent> get(@NonNull String key);
+
+    /**
+     * @param key The cache key.
+     * @param moodEvents The result to cache.
+     */
+    void put(@NonNull String key, @NonNull List<MoodEvent> moodEvents);
+
+    /**
+     * @param userId The owner whose cached results are dropped.
+     */
+    void invalidateUser(@NonNull String userId);
+}
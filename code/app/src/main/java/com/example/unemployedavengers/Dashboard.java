@@ -10,11 +10,11 @@
  * 1. Mood History Management:
  *    - Displays user's last 7 mood events in chronological order
  *    - Handles CRUD operations for mood events
- *    - Syncs with Firestore (online/offline)
+ *    - Syncs with Firestore (online/offline) through the MoodOutbox write journal
  *
  * 2. Social Features:
  *    - Shows nearby mood events (within 5km radius)
- *    - Displays followed users' public mood events
+ *    - Displays followed users' public mood events, delta-synced by FollowedMoodSync
  *    - Manages location-based filtering
  *
  * 3. Navigation Hub:
@@ -23,8 +23,8 @@
  *    - Handles authentication state transitions
  *
  * Technical Implementation:
- * - Uses Firestore with offline persistence
- * - Integrates Google Location Services
+ * - Uses Firestore with offline persistence; reads go through CachedReads (cache first, then server)
+ * - Integrates Google Location Services through the shared LocationService
  * - Shares data across fragments via ViewModels
  * - Implements permission handling for location access
  *
@@ -59,7 +59,7 @@
 
 import android.content.Context;
 import android.content.SharedPreferences;
-import android.content.pm.PackageManager;
+import android.location.Location;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.os.Bundle;
@@ -76,18 +76,30 @@ import androidx.fragment.app.FragmentResultListener;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 
+import com.example.unemployedavengers.DAO.DAOProvider;
 import com.example.unemployedavengers.DAO.IUserDAO;
 import com.example.unemployedavengers.arrayadapters.MoodEventArrayAdapter;
+import com.example.unemployedavengers.concurrent.ViewScope;
 import com.example.unemployedavengers.databinding.DashboardBinding;
-import com.example.unemployedavengers.implementationDAO.UserDAOImplement;
+import com.example.unemployedavengers.implementationDAO.MoodDetailMigration;
+import com.example.unemployedavengers.implementationDAO.UsernameIndexMigration;
+import com.example.unemployedavengers.implementationDAO.UsernamePropagation;
+import com.example.unemployedavengers.local.CachedReads;
+import com.example.unemployedavengers.local.FollowGraphStore;
+import com.example.unemployedavengers.local.FollowedMoodSync;
+import com.example.unemployedavengers.local.LocalMoodStore;
+import com.example.unemployedavengers.local.MoodOutbox;
+import com.example.unemployedavengers.local.OutboxMerge;
+import com.example.unemployedavengers.local.OutboxOperation;
+import com.example.unemployedavengers.local.ReadPolicy;
+import com.example.unemployedavengers.local.SuggestionStore;
+import com.example.unemployedavengers.metrics.FragmentTracing;
 import com.example.unemployedavengers.models.FriendMoodEventsViewModel;
 import com.example.unemployedavengers.models.MoodEvent;
 import com.example.unemployedavengers.models.MoodEventsViewModel;
 import com.example.unemployedavengers.models.WithinFiveKmViewModel;
-import com.google.android.gms.location.FusedLocationProviderClient;
-import com.google.android.gms.location.LocationRequest;
-import com.google.android.gms.location.LocationServices;
 import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.CollectionReference;
@@ -96,7 +108,6 @@ import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreSettings;
 import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.maps.android.SphericalUtil;
 
 import java.util.ArrayList;
@@ -105,7 +116,18 @@ import java.util.List;
 
 public class Dashboard extends BaseFragment {
     private static final int LOCATION_PERMISSION_REQUEST_CODE = 100;
-    private FusedLocationProviderClient fusedLocationClient;
+    private LocationService locationService;
+    private MoodOutbox moodOutbox;
+    private LocalMoodStore localMoodStore;
+    private FollowedMoodSync followedMoodSync;
+    private ViewScope viewScope;
+    private final MoodOutbox.Listener outboxListener = this::showLocalMoods;
+    // Re-syncs the feed when someone is followed or unfollowed while the dashboard is open
+    private final FollowGraphStore.Listener followGraphListener = version -> {
+        if (binding != null && isValidFragment() && userID != null) {
+            syncFollowedMoodEvents(new ArrayList<>(FollowGraphStore.getInstance().getFollowing()));
+        }
+    };
     private DashboardBinding binding;
     private ArrayList<MoodEvent> moodList;
     private MoodEventArrayAdapter moodAdapter;
@@ -115,8 +137,12 @@ public class Dashboard extends BaseFragment {
     private String userID;
     private String username;
 
-    private double currentLatitude;
-    private double currentLongitude;
+    private Location currentLocation;
+    private List<MoodEvent> followedMoodEvents = new ArrayList<>();
+    private final LocationService.LocationListener locationListener = location -> {
+        currentLocation = location;
+        updateWithinFiveKm();
+    };
 
     private MoodEvent selectedMoodForDeletion;
 
@@ -134,8 +160,12 @@ public class Dashboard extends BaseFragment {
     public void onViewCreated(@NonNull View view,
                               @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
-        userDAO = new UserDAOImplement();
-        fusedLocationClient = LocationServices.getFusedLocationProviderClient(requireActivity());
+        viewScope = ViewScope.of(this);
+        userDAO = DAOProvider.getUserDAO();
+        locationService = LocationService.getInstance(requireContext());
+        moodOutbox = MoodOutbox.getInstance(requireContext());
+        localMoodStore = LocalMoodStore.getInstance(requireContext());
+        followedMoodSync = FollowedMoodSync.getInstance(requireContext());
         // Initialize FirebaseFirestore
         db = FirebaseFirestore.getInstance();
 
@@ -181,41 +211,41 @@ public class Dashboard extends BaseFragment {
 
         }
 
-        // Only try to fetch username from Firestore if we're online and username isn't cached
-        if (isOnline && (username == null)) {
-            DocumentReference userDocRef = db.collection("users").document(userID);
-            userDocRef.get().addOnCompleteListener(task -> {
-                if (task.isSuccessful() && task.getResult().exists()) {
-                    username = task.getResult().getString("username");
-
-                    // Cache the username for offline use
-                    SharedPreferences.Editor editor = sharedPreferences.edit();
-                    editor.putString("username", username);
-                    editor.apply();
-                } else {
-                    if (isValidFragment()) {
-                        Toast.makeText(requireContext(), "User data not available", Toast.LENGTH_SHORT).show();
-                    }
-                }
-            });
-        }
-
-
-        // Get user document reference
+        // Serve the username from the cache straight away and refresh it (and the offline copy)
+        // if the server has a different one
         DocumentReference userDocRef = db.collection("users").document(userID);
-
-        // Fetch username from Firestore (works offline if previously cached)
-        userDocRef.get().addOnCompleteListener(task -> {
-            if (task.isSuccessful() && task.getResult().exists()) {
-                username = task.getResult().getString("username");
-            } else {
-                if (isValidFragment()) {
+        CachedReads.get("Dashboard.user", userDocRef, ReadPolicy.CACHE_THEN_NETWORK, (userDoc, fromCache) -> {
+            if (!userDoc.exists()) {
+                if (!fromCache && isValidFragment()) {
                     Toast.makeText(requireContext(), "User data not available", Toast.LENGTH_SHORT).show();
                 }
+                return;
+            }
+            username = userDoc.getString("username");
+
+            // Cache the username for offline use
+            SharedPreferences.Editor editor = sharedPreferences.edit();
+            editor.putString("username", username);
+            editor.apply();
+        }, e -> {
+            if (isValidFragment()) {
+                Toast.makeText(requireContext(), "User data not available", Toast.LENGTH_SHORT).show();
             }
         });
         if (userID != null) {
             moodEventRef = db.collection("users").document(userID).collection("moods");
+            FollowGraphStore.getInstance().start(requireContext(), userID);
+            // Moves moods stored before the summary/detail split, adds map tiles to located ones
+            // and reserves usernames from before reservations, backfilling lastMoodAt on the way;
+            // each runs to completion once per user. A rename whose copy onto moods and comments
+            // was cut short continues from its checkpoint. Friend suggestions are recomputed at
+            // most every few hours
+            if (isOnline) {
+                MoodDetailMigration.getInstance(requireContext()).migrateOnce(userID);
+                UsernameIndexMigration.getInstance(requireContext()).migrateOnce(userID);
+                UsernamePropagation.getInstance(requireContext()).resumePending(userID);
+                SuggestionStore.getInstance(requireContext()).refreshIfDue(userID);
+            }
         } else {
             if (isValidFragment()) {
                 Toast.makeText(requireContext(), "User ID not found, please login again", Toast.LENGTH_LONG).show();
@@ -229,6 +259,8 @@ public class Dashboard extends BaseFragment {
         loadFollowedMoodEvents();
 
         //load mood event function
+        moodOutbox.addListener(outboxListener);
+        FollowGraphStore.getInstance().addListener(followGraphListener);
         loadMoodEvents();
 
         //Navigates to the input dialog
@@ -287,97 +319,110 @@ public class Dashboard extends BaseFragment {
         // Set user info from current session
         moodEvent.setUserId(userID);
         moodEvent.setUserName(username);
-        moodEvent.setExisted(true);
 
-        //add the mood event without the ID first
-        moodEventRef.add(moodEvent)
-                .addOnSuccessListener(documentReference -> {
-                    if (binding == null || !isValidFragment()) return;
-
-                    //get the unique ID generated by Firestore
-                    String id = documentReference.getId();
-
-                    //update the document with the ID field
-                    documentReference.update("id", id)
-                            .addOnSuccessListener(aVoid -> {
-                                if (binding == null || !isValidFragment()) return;
-
-                                //set the id in the local object
-                                moodEvent.setId(id);
-                                moodEvent.setUserId(userID);
-                                moodEvent.setUserName((username));
-
-                                //update user
-                                updateMoodEvent(moodEvent);
-                                Toast.makeText(getContext(), "Mood added successfully", Toast.LENGTH_SHORT).show();
-                            })
-                            .addOnFailureListener(e -> {
-                                if (binding == null || !isValidFragment()) return;
-                                Toast.makeText(getContext(), "Failed to update ID in Firestore", Toast.LENGTH_SHORT).show();
-                            });
-                })
-                .addOnFailureListener(e -> {
-                    if (binding == null || !isValidFragment()) return;
-                    Toast.makeText(getContext(), "Failed to add mood", Toast.LENGTH_SHORT).show();
-                });
+        // Journal the write; the outbox assigns the document id and replays it once online
+        moodOutbox.enqueueCreate(userID, moodEvent);
+        Toast.makeText(getContext(), moodOutbox.isOnline() ? "Mood added successfully"
+                : "Mood saved, it will sync when you are back online", Toast.LENGTH_SHORT).show();
     }
 
     private void updateMoodEvent(MoodEvent moodEvent) {
         if (binding == null || moodEventRef == null || !isValidFragment() || moodEvent == null) return;
 
-        // NEED TO RELOAD DATABASE CAUSE FIREBASE IS AN IDIOT (crashes if you add a moodEvent and tries to update it right away cause "cannot find id")
-
-        loadMoodEvents();
-
-        String moodEventId = moodEvent.getId();
-        if (moodEventId == null) {
+        if (moodEvent.getId() == null) {
             Log.e("Dashboard", "Mood event ID is null");
             return;
         }
 
-        // Get document via id
-        DocumentReference moodEventDocRef = moodEventRef.document(moodEventId);
-
-        // Set the new values for the document
-        moodEventDocRef.set(moodEvent)  //use set() to update or create the document if it doesn't exist
-                .addOnSuccessListener(aVoid -> {
-                    if (binding == null || !isValidFragment()) return;
-                    Toast.makeText(getContext(), "Mood updated successfully", Toast.LENGTH_SHORT).show();
-                })
-                .addOnFailureListener(e -> {
-                    if (binding == null || !isValidFragment()) return;
-                    Toast.makeText(getContext(), "Failed to update mood", Toast.LENGTH_SHORT).show();
-                });
+        moodOutbox.enqueueUpdate(userID, moodEvent);
+        Toast.makeText(getContext(), "Mood updated successfully", Toast.LENGTH_SHORT).show();
     }
 
     //delete function
     public void onDeleteConfirmed(MoodEvent moodEvent) {
         if (binding == null || moodEventRef == null || !isValidFragment() || moodEvent == null || moodEvent.getId() == null) return;
 
-        moodEventRef.document(moodEvent.getId()).delete() //using the id to delete
-                .addOnSuccessListener(aVoid -> {
-                    if (binding == null || !isValidFragment()) return;
-                    Toast.makeText(getContext(), "Mood deleted successfully", Toast.LENGTH_SHORT).show();
-                })
-                .addOnFailureListener(e -> {
-                    if (binding == null || !isValidFragment()) return;
-                    Toast.makeText(getContext(), "Failed to delete mood", Toast.LENGTH_SHORT).show();
-                });
-
-        loadMoodEvents(); //reload mood events
+        moodOutbox.enqueueDelete(userID, moodEvent);
+        Toast.makeText(getContext(), "Mood deleted successfully", Toast.LENGTH_SHORT).show();
     }
 
+    /**
+     * Loads the latest public mood events of every followed user. The feed is shown from the local
+     * mirror straight away and refreshed by FollowedMoodSync, which only reads followees with new
+     * moods; the followees come from FollowGraphStore when it already tracks the user. The within-5km list is filled from whatever fix LocationService already has and
+     * recomputed by {@link #updateWithinFiveKm()} whenever a better fix arrives.
+     */
     public void loadFollowedMoodEvents() {
         if (binding == null || moodEventRef == null || !isValidFragment()) return;
 
-        // Create an empty list to collect mood events.
-        List<MoodEvent> followedEventsList = new ArrayList<>();
-        List<MoodEvent> withinFiveEventsList = new ArrayList<>();
-        FriendMoodEventsViewModel vm = new ViewModelProvider(requireActivity()).get(FriendMoodEventsViewModel.class);
-        WithinFiveKmViewModel withinFiveKmViewModel = new ViewModelProvider(requireActivity()).get(WithinFiveKmViewModel.class);
+        requestLocationForProximity();
+        showFollowedMoodEvents();
+
+        FollowGraphStore followGraph = FollowGraphStore.getInstance();
+        if (followGraph.isTracking(userID)) {
+            syncFollowedMoodEvents(new ArrayList<>(followGraph.getFollowing()));
+            return;
+        }
+
+        // Query the current user's "following" subcollection to get followed user IDs.
+        Query followingQuery = db.collection("users").document(userID).collection("following");
+        CachedReads.get("Dashboard.following", followingQuery, ReadPolicy.CACHE_THEN_NETWORK, (querySnapshot, fromCache) -> {
+            if (binding == null || !isValidFragment()) return;
+
+            List<String> followedUserIds = new ArrayList<>();
+
+            // Extract each followed user ID from the "following" documents.
+            for (DocumentSnapshot document : querySnapshot.getDocuments()) {
+                String followedId = document.getString("followedId");
+                if (followedId != null) {
+                    followedUserIds.add(followedId);
+                }
+            }
+
+            syncFollowedMoodEvents(followedUserIds);
+        }, e -> {
+            if (binding == null || !isValidFragment()) return;
+            Log.e("Dashboard", "Error loading following users", e);
+        });
+    }
 
-        if (ActivityCompat.checkSelfPermission(requireContext(), android.Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED &&
-                ActivityCompat.checkSelfPermission(requireContext(), android.Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+    /**
+     * Brings the followed users' moods on disk up to date and shows them if anything changed.
+     */
+    private void syncFollowedMoodEvents(List<String> followedUserIds) {
+        followedMoodSync.sync(userID, followedUserIds).addOnCompleteListener(syncTask -> {
+            if (binding == null || !isValidFragment()) return;
+            if (!syncTask.isSuccessful()) {
+                Log.e("Dashboard", "Error loading followed mood events", syncTask.getException());
+            } else if (Boolean.TRUE.equals(syncTask.getResult())) {
+                showFollowedMoodEvents();
+            }
+        });
+    }
+
+    /**
+     * Publishes the 3 most recent public moods of each followed user, as stored on disk.
+     */
+    private void showFollowedMoodEvents() {
+        followedMoodSync.getFeed(userID, 3).addOnCompleteListener(feedTask -> {
+            if (binding == null || !isValidFragment()) return;
+            if (!feedTask.isSuccessful()) {
+                Log.e("Dashboard", "Error reading followed mood events", feedTask.getException());
+                return;
+            }
+            followedMoodEvents = feedTask.getResult();
+            FriendMoodEventsViewModel vm = new ViewModelProvider(requireActivity()).get(FriendMoodEventsViewModel.class);
+            vm.setMoodEvents(followedMoodEvents);
+            updateWithinFiveKm();
+        });
+    }
+
+    /**
+     * Asks LocationService for a reasonably fresh fix without blocking the feed. Passive updates
+     * delivered through the registered listener refine the fix later on.
+     */
+    private void requestLocationForProximity() {
+        if (!locationService.hasPermission()) {
             ActivityCompat.requestPermissions(requireActivity(),
                     new String[]{
                             android.Manifest.permission.ACCESS_FINE_LOCATION,
@@ -387,90 +432,18 @@ public class Dashboard extends BaseFragment {
             return;
         }
 
-        // Request the current location
-        fusedLocationClient.getCurrentLocation(LocationRequest.PRIORITY_HIGH_ACCURACY, null)
+        locationService.addListener(locationListener);
+        currentLocation = locationService.getCachedLocation(Long.MAX_VALUE);
+        locationService.getLocation(LocationService.DEFAULT_MAX_AGE_MS)
                 .addOnSuccessListener(location -> {
                     if (binding == null || !isValidFragment()) return;
 
                     if (location != null) {
-                        currentLatitude = location.getLatitude();
-                        currentLongitude = location.getLongitude();
+                        currentLocation = location;
+                        updateWithinFiveKm();
                     } else {
                         Toast.makeText(getContext(), "Unable to retrieve current location", Toast.LENGTH_SHORT).show();
                     }
-
-                    if (binding == null || !isValidFragment() || userID == null) return;
-
-                    LatLng currentLocation = new LatLng(currentLatitude, currentLongitude);
-
-                    // Query the current user's "following" subcollection to get followed user IDs.
-                    db.collection("users")
-                            .document(userID)
-                            .collection("following")
-                            .get()
-                            .addOnSuccessListener(querySnapshot -> {
-                                if (binding == null || !isValidFragment()) return;
-
-                                List<String> followedUserIds = new ArrayList<>();
-
-                                // Extract each followed user ID from the "following" documents.
-                                for (DocumentSnapshot document : querySnapshot.getDocuments()) {
-                                    String followedId = document.getString("followedId");
-                                    if (followedId != null) {
-                                        followedUserIds.add(followedId);
-                                    }
-                                }
-
-                                if (followedUserIds.isEmpty()) {
-                                    vm.setMoodEvents(followedEventsList);
-                                    return;
-                                }
-
-                                // For each followed user, query the 3 most recent mood events.
-                                for (String followedId : followedUserIds) {
-                                    db.collection("users")
-                                            .document(followedId)
-                                            .collection("moods")
-                                            .orderBy("time", Query.Direction.DESCENDING) // Sort by time descending (newest first)
-                                            .limit(10) // Get more than we need in case some are private
-                                            .get()
-                                            .addOnSuccessListener(querySnapshot1 -> {
-                                                if (binding == null || !isValidFragment()) return;
-                                                int count = 0;
-
-                                                for (QueryDocumentSnapshot doc : querySnapshot1) {
-                                                    MoodEvent moodEvent = doc.toObject(MoodEvent.class);
-                                                    Boolean isPublic = doc.contains("publicStatus") ?
-                                                            doc.getBoolean("publicStatus") : true;
-                                                    if (isPublic != null && isPublic) {
-                                                        followedEventsList.add(moodEvent);
-                                                        count++;
-                                                        if (moodEvent.getHasLocation()) {
-                                                            LatLng eventLocation = new LatLng(moodEvent.getLatitude(), moodEvent.getLongitude());
-                                                            double distanceInMeters = SphericalUtil.computeDistanceBetween(currentLocation, eventLocation);
-                                                            if (distanceInMeters <= 5000) {
-                                                                withinFiveEventsList.add(moodEvent);
-                                                            }
-                                                        }
-                                                        if (count >= 3) {
-                                                            break;
-                                                        }
-                                                    }
-                                                }
-
-                                                vm.setMoodEvents(followedEventsList);
-                                                withinFiveKmViewModel.setMoodEvents(withinFiveEventsList);
-                                            })
-                                            .addOnFailureListener(e -> {
-                                                if (binding == null || !isValidFragment()) return;
-                                                Log.e("Dashboard", "Error loading followed mood events", e);
-                                            });
-                                }
-                            })
-                            .addOnFailureListener(e -> {
-                                if (binding == null || !isValidFragment()) return;
-                                Log.e("Dashboard", "Error loading following users", e);
-                            });
                 })
                 .addOnFailureListener(e -> {
                     if (binding == null || !isValidFragment()) return;
@@ -479,6 +452,28 @@ public class Dashboard extends BaseFragment {
                 });
     }
 
+    /**
+     * Recomputes which followed mood events are within 5km of the current fix and publishes
+     * them to the WithinFiveKmViewModel. Does nothing until a fix is available.
+     */
+    private void updateWithinFiveKm() {
+        if (binding == null || !isValidFragment() || currentLocation == null) return;
+
+        LatLng here = new LatLng(currentLocation.getLatitude(), currentLocation.getLongitude());
+        List<MoodEvent> withinFiveEventsList = new ArrayList<>();
+        for (MoodEvent moodEvent : followedMoodEvents) {
+            if (moodEvent.getHasLocation()) {
+                LatLng eventLocation = new LatLng(moodEvent.getLatitude(), moodEvent.getLongitude());
+                double distanceInMeters = SphericalUtil.computeDistanceBetween(here, eventLocation);
+                if (distanceInMeters <= 5000) {
+                    withinFiveEventsList.add(moodEvent);
+                }
+            }
+        }
+        WithinFiveKmViewModel withinFiveKmViewModel = new ViewModelProvider(requireActivity()).get(WithinFiveKmViewModel.class);
+        withinFiveKmViewModel.setMoodEvents(withinFiveEventsList);
+    }
+
     private void loadMoodEvents() {
         if (binding == null || moodEventRef == null || !isValidFragment()) return;
 
@@ -489,81 +484,116 @@ public class Dashboard extends BaseFragment {
             return;
         }
 
-        moodEventRef.get()
-                .addOnCompleteListener(task -> {
-                    if (binding == null || !isValidFragment()) return;
+        // Render from the local mirror first, then pull only what changed since the last sync
+        showLocalMoods();
+        localMoodStore.sync(userID).addOnCompleteListener(syncTask -> {
+            if (binding == null || !isValidFragment()) return;
+            if (!syncTask.isSuccessful()) {
+                Log.e("Dashboard", "Error fetching mood events", syncTask.getException());
+            } else if (Boolean.TRUE.equals(syncTask.getResult())) {
+                showLocalMoods();
+            }
+        });
+    }
 
-                    //convert each document to
-                    if (task.isSuccessful()) {
-                        List<MoodEvent> moodEvents = new ArrayList<>();
-                        //each documentSnapsho is a document fethced from task.getResult()
-                        for (DocumentSnapshot document : task.getResult()) {
-                            MoodEvent moodEvent = document.toObject(MoodEvent.class); //convert to MoodEvent class
-                            if (moodEvent != null) {
-                                moodEvents.add(moodEvent); //add to array
-                                // Ensure user info is set from current session
-                                moodEvent.setUserId(userID);
-                                moodEvent.setUserName(username);
-                            }
-                        }
-
-                        Log.d("MapDebug", "dashboard reached" );
-                        // query first in upper space for map to draw markers
-                        MoodEventsViewModel vm = new ViewModelProvider(requireActivity()).get(MoodEventsViewModel.class);
-                        vm.setMoodEvents(moodEvents);
-                        Log.d("MapDebug", "size dashboard" + moodEvents.size() );
-
-                        //sort the mood events by time in descending order (most recent first)
-                        Collections.sort(moodEvents, (e1, e2) -> Long.compare(e2.getTime(), e1.getTime()));
-
-                        //limit the list to the most recent 7 mood events
-                        List<MoodEvent> recentMoodEvents = new ArrayList<>();
-
-                        //store the most recent 7 moodevent or smaller.
-                        for (int i = 0; i < Math.min(7, moodEvents.size()); i++) {
-                            recentMoodEvents.add(moodEvents.get(i));
-                        }
-
-                        //set the adapter with the recent 7 mood events
-                        MoodEventArrayAdapter adapter = new MoodEventArrayAdapter(getContext(), recentMoodEvents);
-                        binding.activityList.setAdapter(adapter);
-
-                        //set item click listener
-                        binding.activityList.setOnItemClickListener((parent, view, position, id) -> {
-                            if (position >= 0 && position < recentMoodEvents.size()) {
-                                //get the selected MoodEvent based on position
-                                MoodEvent selectedMoodEvent = recentMoodEvents.get(position);
-
-                                //create a bundle and put the selected MoodEvent in it
-                                Bundle args = new Bundle();
-                                args.putSerializable("selected_mood_event", selectedMoodEvent);
-                                args.putString("source", "dashboard");
-
-                                //navigate to inputdialog and pass the selected mood event
-                                Navigation.findNavController(view).navigate(R.id.action_dashboardFragment_to_inputDialog, args);
-                            }
-                        });
-
-                        //long click to delete
-                        binding.activityList.setOnItemLongClickListener((parent, view, position, id) -> {
-                            if (position >= 0 && position < recentMoodEvents.size()) {
-                                selectedMoodForDeletion = recentMoodEvents.get(position);
-
-                                ConfirmDeleteDialogFragment dialog = ConfirmDeleteDialogFragment.newInstance(selectedMoodForDeletion.getId());
-                                dialog.show(getParentFragmentManager(), "ConfirmDeleteDialog");
-                            }
-                            return true; //indicate the event was handled
-                        });
+    /**
+     * Shows the moods stored on disk, with writes still waiting in the outbox layered on top.
+     */
+    private void showLocalMoods() {
+        if (binding == null || !isValidFragment() || userID == null) return;
+
+        String currentUserId = userID;
+        String currentUsername = username;
+        Task<List<MoodEvent>> localTask = localMoodStore.getMoods(currentUserId);
+        Task<List<OutboxOperation>> pendingTask = localTask
+                .continueWithTask(task -> moodOutbox.getPendingOperations(currentUserId))
+                .continueWith(task -> task.isSuccessful() ? task.getResult() : new ArrayList<OutboxOperation>());
+
+        // Merge and sort in the background; only the finished list reaches the views
+        Task<List<MoodEvent>> mergedTask = viewScope.transform(pendingTask, pending -> {
+            List<MoodEvent> moodEvents = localTask.getResult();
+            for (MoodEvent moodEvent : moodEvents) {
+                // Ensure user info is set from current session
+                moodEvent.setUserId(currentUserId);
+                moodEvent.setUserName(currentUsername);
+            }
 
-                    } else {
-                        Log.e("Dashboard", "Error fetching mood events", task.getException());
-                    }
-                });
+            // Layer writes still waiting in the outbox over what is on disk, most recent first
+            List<MoodEvent> merged = OutboxMerge.applyPending(moodEvents, pending);
+            Collections.sort(merged, (e1, e2) -> Long.compare(e2.getTime(), e1.getTime()));
+            return merged;
+        });
+        viewScope.deliver(mergedTask, task -> {
+            if (!isValidFragment()) return;
+            if (!task.isSuccessful()) {
+                Log.e("Dashboard", "Error reading local mood events", task.getException());
+                return;
+            }
+            showMoodEvents(task.getResult());
+        });
+    }
+
+    /**
+     * @param moodEvents The user's moods, most recent first.
+     */
+    private void showMoodEvents(List<MoodEvent> moodEvents) {
+        Log.d("MapDebug", "dashboard reached" );
+        // query first in upper space for map to draw markers
+        MoodEventsViewModel vm = new ViewModelProvider(requireActivity()).get(MoodEventsViewModel.class);
+        vm.setMoodEvents(moodEvents);
+        Log.d("MapDebug", "size dashboard" + moodEvents.size() );
+
+        //limit the list to the most recent 7 mood events
+        List<MoodEvent> recentMoodEvents = new ArrayList<>();
+
+        //store the most recent 7 moodevent or smaller.
+        for (int i = 0; i < Math.min(7, moodEvents.size()); i++) {
+            recentMoodEvents.add(moodEvents.get(i));
+        }
+
+        //set the adapter with the recent 7 mood events
+        MoodEventArrayAdapter adapter = new MoodEventArrayAdapter(getContext(), recentMoodEvents);
+        binding.activityList.setAdapter(adapter);
+        FragmentTracing.reportFirstContent(this);
+
+        //set item click listener
+        binding.activityList.setOnItemClickListener((parent, view, position, id) -> {
+            if (position >= 0 && position < recentMoodEvents.size()) {
+                //get the selected MoodEvent based on position
+                MoodEvent selectedMoodEvent = recentMoodEvents.get(position);
+
+                //create a bundle and put the selected MoodEvent in it
+                Bundle args = new Bundle();
+                args.putSerializable("selected_mood_event", selectedMoodEvent);
+                args.putString("source", "dashboard");
+
+                //navigate to inputdialog and pass the selected mood event
+                Navigation.findNavController(view).navigate(R.id.action_dashboardFragment_to_inputDialog, args);
+            }
+        });
+
+        //long click to delete
+        binding.activityList.setOnItemLongClickListener((parent, view, position, id) -> {
+            if (position >= 0 && position < recentMoodEvents.size()) {
+                selectedMoodForDeletion = recentMoodEvents.get(position);
+
+                ConfirmDeleteDialogFragment dialog = ConfirmDeleteDialogFragment.newInstance(selectedMoodForDeletion.getId());
+                dialog.show(getParentFragmentManager(), "ConfirmDeleteDialog");
+            }
+            return true; //indicate the event was handled
+        });
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (locationService != null) {
+            locationService.removeListener(locationListener);
+        }
+        if (moodOutbox != null) {
+            moodOutbox.removeListener(outboxListener);
+        }
+        FollowGraphStore.getInstance().removeListener(followGraphListener);
         binding = null;
     }
 }
\ No newline at end of file
@@ -10,7 +10,7 @@
  * 1. Mood Event Management:
  *    - Displays chronological list of mood events
  *    - Handles CRUD operations (Create, Read, Update, Delete)
- *    - Maintains real-time sync with Firestore
+ *    - Writes edits and deletes through the MoodOutbox and shows each mood's sync state
  *
  * 2. Filtering System:
  *    - Supports multi-criteria filtering (mood type, reason, recency)
@@ -23,7 +23,10 @@
  *    - Navigates to InputDialog for edits
  *
  * Technical Implementation:
- * - Uses Firestore with offline persistence
+ * - Renders from the LocalMoodStore mirror, then syncs it incrementally with Firestore
+ * - Reason filtering uses the mirror's full-text index, falling back to MoodFilterHelper's
+ *   whole-word match in memory if the index query fails
+ * - Merges, sorts and filters in the background through a ViewScope; only results touch the list
  * - Maintains two separate lists (filtered/unfiltered)
  * - Shares data with other fragments via ViewModel
  * - Implements custom ArrayAdapter for mood display
@@ -31,12 +34,12 @@
  * Outstanding Issues/TODOs:
  * 1. Filter state not preserved across configuration changes
  * 2. No pagination for large mood histories
- * 3. Limited to single-word reason filtering
+ * 3. Reason filtering matches word prefixes only
  * 4. Could benefit from swipe-to-delete gesture
  * 5. No proper empty state UI
  *
  * Dependencies:
- * - Firebase Firestore (moodEventRef)
+ * - LocalMoodStore (local mirror of users/{id}/moods)
  * - MoodEventsViewModel for data sharing
  * - MoodEventArrayAdapter for list display
  * - Filter dialog for filter configuration
@@ -75,16 +78,24 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 
 import com.example.unemployedavengers.arrayadapters.MoodEventArrayAdapter;
+import com.example.unemployedavengers.concurrent.ViewScope;
 import com.example.unemployedavengers.databinding.HistoryBinding;
+import com.example.unemployedavengers.local.LocalMoodStore;
+import com.example.unemployedavengers.local.MoodOutbox;
+import com.example.unemployedavengers.local.OutboxMerge;
+import com.example.unemployedavengers.local.OutboxOperation;
+import com.example.unemployedavengers.metrics.FragmentTracing;
+import com.example.unemployedavengers.metrics.Span;
 import com.example.unemployedavengers.models.MoodEvent;
 import com.example.unemployedavengers.models.MoodEventsViewModel;
-import com.google.firebase.firestore.CollectionReference;
-import com.google.firebase.firestore.DocumentReference;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.android.gms.tasks.Task;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 //A history class that displays all mood event and can filter through them (to be completed later)
 //All functions currently are adapted from dashboard
@@ -95,14 +106,16 @@ public class History extends Fragment {
     private ArrayList<MoodEvent> filteredMoodList;
     private MoodEventArrayAdapter moodAdapter;
     private MoodEventArrayAdapter filteredMoodAdapter;
-    private FirebaseFirestore db;
-    private CollectionReference moodEventRef;
     private String userID;
     private MoodEvent selectedMoodForDeletion;
     private boolean isFiltered = false;
 
     private boolean isMood, isReason,isWeek, seeAllSelect;
     private String filterReason, filterMood;
+    private MoodOutbox moodOutbox;
+    private LocalMoodStore localMoodStore;
+    private ViewScope viewScope;
+    private final MoodOutbox.Listener outboxListener = this::showLocalMoods;
 
     @Nullable
     @Override
@@ -117,12 +130,14 @@ public class History extends Fragment {
     public void onViewCreated(@NonNull View view,
                               @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        viewScope = ViewScope.of(this);
 
         SharedPreferences sharedPreferences = getActivity().getSharedPreferences("user_preferences", Context.MODE_PRIVATE);
         userID = sharedPreferences.getString("userID", null);
 
-        db = FirebaseFirestore.getInstance();
-        moodEventRef = db.collection("users").document(userID).collection("moods");
+        localMoodStore = LocalMoodStore.getInstance(requireContext());
+        moodOutbox = MoodOutbox.getInstance(requireContext());
+        moodOutbox.addListener(outboxListener);
 
         moodList = new ArrayList<>();
         filteredMoodList = new ArrayList<>();
@@ -184,218 +199,205 @@ public class History extends Fragment {
                 filterReason = reasonText;
                 filterMood = spinnerSelection;
                 seeAllSelect =seeAll;
-                ArrayList<MoodEvent> filterMoodList = new ArrayList<>(moodList);
-                if (seeAll||(!mood&&!reason&&!recentWeek)) {
-                    isFiltered = false;
-                    loadHistoryMoodEvents();
-                } else {
-                    isFiltered = true;
-                    if (mood) {
-                        ArrayList<MoodEvent> filteredByMood = new ArrayList<>();
-                        for (MoodEvent event : filterMoodList) {
-                            if (event.getMood() != null && event.getMood().contains(spinnerSelection)) {
-                                filteredByMood.add(event);
-                            }
-                        }
-                        filterMoodList = filteredByMood;
-                    }
-                    if (reason) {
-                        ArrayList<MoodEvent> filteredByReason = new ArrayList<>();
-                        for (MoodEvent event : filterMoodList) {
-                            String [] reasonWords = event.getReason().split("\\s+");
-                            for (String word : reasonWords){
-                                if (word.equalsIgnoreCase(reasonText)){
-                                    filteredByReason.add(event);
-                                    break;
-                                }
-                            }
-                        }
-                        filterMoodList = filteredByReason;
-                    }
-                    if (recentWeek) {
-                        long currentTime = System.currentTimeMillis();
-                        long sevenDaysMillis = 7L * 24 * 60 * 60 * 1000;
-                        ArrayList<MoodEvent> filteredByWeek = new ArrayList<>();
-                        for (MoodEvent event : filterMoodList) {
-                            if (event.getTime() >= (currentTime - sevenDaysMillis)) {
-                                filteredByWeek.add(event);
-                            }
-                        }
-                        filterMoodList = filteredByWeek;
-                    }
-                    filteredMoodList.clear();
-                    filteredMoodList.addAll(filterMoodList);
-                    MoodEventsViewModel vm = new ViewModelProvider(requireActivity()).get(MoodEventsViewModel.class);
-                    vm.setMoodEvents(filteredMoodList);
-                    binding.historyList.setAdapter(filteredMoodAdapter);
-                    filteredMoodAdapter.notifyDataSetChanged();
-                }
+                isFiltered = !(seeAll || (!mood && !reason && !recentWeek));
+                showHistory();
             });
             filterDialog.show(getParentFragmentManager(), "FilterDialog");
         });
     }
 
     private void updateMoodEvent(MoodEvent moodEvent) {
-        //NEED TO RELOAD DATABASE CAUSE FIREBASE IS AN IDIOT (crashes if you add a moodEvent and tries to update it right away cause "cannot find id")
-        loadHistoryMoodEvents();
+        Log.d("Dashboard", "updateMoodEvent: " + moodEvent.getId());
 
-        String moodEventId = moodEvent.getId();
+        // Journal the edit; the outbox writes it to Firestore once online
+        moodOutbox.enqueueUpdate(userID, moodEvent);
+        Toast.makeText(getContext(), "Mood updated successfully", Toast.LENGTH_SHORT).show();
+        // The list is refreshed by the outbox listener once the edit is journaled
+    }
 
-        Log.d("Dashboard", "updateMoodEvent: " + moodEventId);
-        //get document via id
-        DocumentReference moodEventDocRef = moodEventRef.document(moodEventId);
+    public void onDeleteConfirmed(MoodEvent moodEvent) {
+        moodOutbox.enqueueDelete(userID, moodEvent);
+        Toast.makeText(getContext(), "Mood deleted successfully", Toast.LENGTH_SHORT).show();
+    }
 
-        //set the new values for the document
-        moodEventDocRef.set(moodEvent)  //use set() to update or create the document if it doesn't exist
-                .addOnSuccessListener(aVoid -> {
-                    Toast.makeText(getContext(), "Mood updated successfully", Toast.LENGTH_SHORT).show();
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(getContext(), "Failed to update mood", Toast.LENGTH_SHORT).show();
-                });
+    private void loadHistoryMoodEvents() {
+        // Render from the local mirror first, then pull only what changed since the last sync
+        showLocalMoods();
+        localMoodStore.sync(userID).addOnCompleteListener(syncTask -> {
+            if (binding == null) return;
+            if (!syncTask.isSuccessful()) {
+                Log.e("HistoryFragment", "Error fetching mood events", syncTask.getException());
+            } else if (Boolean.TRUE.equals(syncTask.getResult())) {
+                showLocalMoods();
+            }
+        });
+    }
 
+    /**
+     * Shows the moods stored on disk, with writes still waiting in the outbox layered on top.
+     */
+    private void showLocalMoods() {
+        Task<List<MoodEvent>> localTask = localMoodStore.getMoods(userID);
+        Task<List<OutboxOperation>> pendingTask = localTask
+                .continueWithTask(task -> moodOutbox.getPendingOperations(userID))
+                .continueWith(task -> task.isSuccessful() ? task.getResult() : new ArrayList<OutboxOperation>());
+
+        // Merge and sort in the background; only the finished list is handed to the adapter
+        Task<List<MoodEvent>> mergedTask = viewScope.transform(pendingTask, pending -> {
+            List<MoodEvent> merged = OutboxMerge.applyPending(localTask.getResult(), pending);
+            Collections.sort(merged, (e1, e2) -> Long.compare(e2.getTime(), e1.getTime()));
+            return merged;
+        });
+        viewScope.deliver(mergedTask, task -> {
+            if (!task.isSuccessful()) {
+                Log.e("HistoryFragment", "Error reading local mood events", task.getException());
+                return;
+            }
+            moodList.clear();
+            moodList.addAll(task.getResult());
+            applySyncStates(pendingTask.getResult());
+            showHistory();
+        });
+    }
 
+    private void applySyncStates(List<OutboxOperation> pending) {
+        Map<String, String> syncStates = OutboxMerge.syncStates(pending);
+        moodAdapter.setSyncStates(syncStates);
+        filteredMoodAdapter.setSyncStates(syncStates);
+    }
 
+    /**
+     * Applies the current filters. The reason filter is answered by the full-text index of the
+     * local store, or by MoodFilterHelper in memory if that fails; mood and recency are checked
+     * in memory.
+     */
+    private void applyFilters() {
+        if (!isReason) {
+            showFiltered(null, null);
+            return;
+        }
+        String reason = filterReason;
+        localMoodStore.searchReasons(userID, reason).addOnCompleteListener(task -> {
+            if (binding == null) return;
+            if (!task.isSuccessful()) {
+                Log.w("HistoryFragment", "Reason search failed, matching in memory", task.getException());
+                showFiltered(null, reason);
+                return;
+            }
+            Set<String> reasonMatches = new HashSet<>();
+            for (MoodEvent event : task.getResult()) {
+                reasonMatches.add(event.getId());
+            }
+            showFiltered(reasonMatches, null);
+        });
     }
 
-    public void onDeleteConfirmed(MoodEvent moodEvent) {
-        moodEventRef.document(moodEvent.getId()).delete()
-                .addOnSuccessListener(aVoid -> {
-                    Toast.makeText(getContext(), "Mood deleted successfully", Toast.LENGTH_SHORT).show();
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(getContext(), "Failed to delete mood", Toast.LENGTH_SHORT).show();
-                });
-
-        loadHistoryMoodEvents();
+    /**
+     * @param reasonMatches Ids of the moods the reason search found, or null if it was not used.
+     * @param reasonText Reason to match in memory with MoodFilterHelper, or null.
+     */
+    private void showFiltered(Set<String> reasonMatches, String reasonText) {
+        // The filter runs in the background over a copy of the list, with the filters as they are now
+        List<MoodEvent> moods = new ArrayList<>(moodList);
+        boolean byMood = isMood;
+        boolean byWeek = isWeek;
+        String mood = filterMood;
+        Task<List<MoodEvent>> filterTask = viewScope.compute(() -> {
+            List<MoodEvent> events = reasonText == null ? moods
+                    : MoodFilterHelper.filterMoodEvents(moods, false, true, false, null, reasonText);
+            List<MoodEvent> filterMoodList = new ArrayList<>();
+            long currentTime = System.currentTimeMillis();
+            long sevenDaysMillis = 7L * 24 * 60 * 60 * 1000;
+            try (Span ignored = Span.begin("History.filter")) {
+                for (MoodEvent event : events) {
+                    if (byMood && (event.getMood() == null || !event.getMood().contains(mood))) continue;
+                    if (reasonMatches != null && !reasonMatches.contains(event.getId())) continue;
+                    if (byWeek && event.getTime() < (currentTime - sevenDaysMillis)) continue;
+                    filterMoodList.add(event);
+                }
+            }
+            return filterMoodList;
+        });
+        viewScope.deliver(filterTask, task -> {
+            if (!task.isSuccessful()) return;
+            filteredMoodList.clear();
+            filteredMoodList.addAll(task.getResult());
+            MoodEventsViewModel vm = new ViewModelProvider(requireActivity()).get(MoodEventsViewModel.class);
+            vm.setMoodEvents(filteredMoodList);
+            binding.historyList.setAdapter(filteredMoodAdapter);
+            filteredMoodAdapter.notifyDataSetChanged();
+            FragmentTracing.reportFirstContent(this);
+        });
     }
 
-    private void loadHistoryMoodEvents() {
-        moodEventRef.get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        moodList.clear();
-                        for (DocumentSnapshot document : task.getResult()) {
-                            MoodEvent moodEvent = document.toObject(MoodEvent.class);
-                            moodList.add(moodEvent);
-                        }
-
-                        /*
-                        MoodEventsViewModel vm = new ViewModelProvider(requireActivity()).get(MoodEventsViewModel.class);
-                        vm.setMoodEvents(moodList);
-
-                         */
-                        Collections.sort(moodList, (e1, e2) -> Long.compare(e2.getTime(), e1.getTime()));
-                        if (!isFiltered) {
-                            binding.historyList.setAdapter(moodAdapter);
-                            moodAdapter.notifyDataSetChanged();
-                        }else {
-                            ArrayList<MoodEvent> filterMoodList = new ArrayList<>(moodList);
-                            if (seeAllSelect || (!isMood && !isReason && !isWeek)) {
-                                isFiltered = false;
-                                loadHistoryMoodEvents();
-                            } else {
-                                isFiltered = true;
-                                if (isMood) {
-                                    ArrayList<MoodEvent> filteredByMood = new ArrayList<>();
-                                    for (MoodEvent event : filterMoodList) {
-                                        if (event.getMood() != null && event.getMood().contains(filterMood)) {
-                                            filteredByMood.add(event);
-                                        }
-                                    }
-                                    filterMoodList = filteredByMood;
-                                }
-                                if (isReason) {
-                                    ArrayList<MoodEvent> filteredByReason = new ArrayList<>();
-                                    for (MoodEvent event : filterMoodList) {
-                                        if (event.getReason().contains(filterReason)) {
-                                            filteredByReason.add(event);
-                                        }
-                                    }
-                                    filterMoodList = filteredByReason;
-                                }
-                                if (isWeek) {
-                                    long currentTime = System.currentTimeMillis();
-                                    long sevenDaysMillis = 7L * 24 * 60 * 60 * 1000;
-                                    ArrayList<MoodEvent> filteredByWeek = new ArrayList<>();
-                                    for (MoodEvent event : filterMoodList) {
-                                        if (event.getTime() >= (currentTime - sevenDaysMillis)) {
-                                            filteredByWeek.add(event);
-                                        }
-                                    }
-                                    filterMoodList = filteredByWeek;
-                                }
-                                filteredMoodList.clear();
-                                filteredMoodList.addAll(filterMoodList);
-                                MoodEventsViewModel vm = new ViewModelProvider(requireActivity()).get(MoodEventsViewModel.class);
-                                vm.setMoodEvents(filteredMoodList);
-                                binding.historyList.setAdapter(filteredMoodAdapter);
-                                filteredMoodAdapter.notifyDataSetChanged();
-                            }
-                        }
-
-
-                        binding.historyList.setOnItemClickListener((parent, view, position, id) -> {
-                            AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
-
-                            MoodEvent selectedEvent;
-                            if(!isFiltered){
-                                selectedEvent = moodList.get(position);
-                            } else{
-                                selectedEvent = filteredMoodList.get(position);
-                            }
-
-                            builder.setPositiveButton("Edit", (dialog, id1) -> {
-                                Bundle args = new Bundle();
-                                args.putSerializable("selected_mood_event", selectedEvent);
-                                args.putString("source", "history");
-                                Navigation.findNavController(view)
-                                        .navigate(R.id.action_historyFragment_to_inputDialog, args);
-                            });
-                            builder.setNegativeButton("View", (dialog, id2) -> {
-                                Bundle args = new Bundle();
-                                args.putSerializable("selected_mood_event", selectedEvent);
-
-                                // Navigate to the mood detail fragment
-                                Navigation.findNavController(view)
-                                        .navigate(R.id.action_historyFragment_to_moodDetailFragment, args);
-                            });
-                            builder.setNeutralButton("Cancel", ((dialogInterface, i) -> {
-                                dialogInterface.dismiss();
-                            }));
-                            builder.setTitle("Choose Action");
-
-                            AlertDialog dialog = builder.create();
-                            dialog.show();
-
-                            // Accessing buttons and changing colors
-                            Button positiveButton = dialog.getButton(AlertDialog.BUTTON_POSITIVE);
-                            Button negativeButton = dialog.getButton(AlertDialog.BUTTON_NEGATIVE);
-                            Button neutralButton = dialog.getButton(AlertDialog.BUTTON_NEUTRAL);
-
-                            // Change text color
-                            positiveButton.setTextColor(ContextCompat.getColor(requireActivity(), R.color.thememain));
-                            negativeButton.setTextColor(ContextCompat.getColor(requireActivity(), R.color.thememain));
-                            neutralButton.setTextColor(ContextCompat.getColor(requireActivity(), R.color.thememain));
-
-
-                        });
-
-                        binding.historyList.setOnItemLongClickListener((parent, view, position, id) -> {
-                            selectedMoodForDeletion = moodList.get(position);
-                            ConfirmDeleteDialogFragment dialog = ConfirmDeleteDialogFragment.newInstance(selectedMoodForDeletion.getId());
-                            dialog.show(getParentFragmentManager(), "ConfirmDeleteDialog");
-                            return true;
-                        });
-                    } else {
-                        Log.e("HistoryFragment", "Error fetching mood events", task.getException());
-                    }
-                });
+    private void showHistory() {
+        // moodList is kept newest first by showLocalMoods
+        if (!isFiltered) {
+            binding.historyList.setAdapter(moodAdapter);
+            moodAdapter.notifyDataSetChanged();
+            FragmentTracing.reportFirstContent(this);
+        } else {
+            applyFilters();
+        }
+
+        binding.historyList.setOnItemClickListener((parent, view, position, id) -> {
+            AlertDialog.Builder builder = new AlertDialog.Builder(getActivity());
+
+            MoodEvent selectedEvent;
+            if(!isFiltered){
+                selectedEvent = moodList.get(position);
+            } else{
+                selectedEvent = filteredMoodList.get(position);
+            }
+
+            builder.setPositiveButton("Edit", (dialog, id1) -> {
+                Bundle args = new Bundle();
+                args.putSerializable("selected_mood_event", selectedEvent);
+                args.putString("source", "history");
+                Navigation.findNavController(view)
+                        .navigate(R.id.action_historyFragment_to_inputDialog, args);
+            });
+            builder.setNegativeButton("View", (dialog, id2) -> {
+                Bundle args = new Bundle();
+                args.putSerializable("selected_mood_event", selectedEvent);
+
+                // Navigate to the mood detail fragment
+                Navigation.findNavController(view)
+                        .navigate(R.id.action_historyFragment_to_moodDetailFragment, args);
+            });
+            builder.setNeutralButton("Cancel", ((dialogInterface, i) -> {
+                dialogInterface.dismiss();
+            }));
+            builder.setTitle("Choose Action");
+
+            AlertDialog dialog = builder.create();
+            dialog.show();
+
+            // Accessing buttons and changing colors
+            Button positiveButton = dialog.getButton(AlertDialog.BUTTON_POSITIVE);
+            Button negativeButton = dialog.getButton(AlertDialog.BUTTON_NEGATIVE);
+            Button neutralButton = dialog.getButton(AlertDialog.BUTTON_NEUTRAL);
+
+            // Change text color
+            positiveButton.setTextColor(ContextCompat.getColor(requireActivity(), R.color.thememain));
+            negativeButton.setTextColor(ContextCompat.getColor(requireActivity(), R.color.thememain));
+            neutralButton.setTextColor(ContextCompat.getColor(requireActivity(), R.color.thememain));
+
+
+        });
+
+        binding.historyList.setOnItemLongClickListener((parent, view, position, id) -> {
+            selectedMoodForDeletion = moodList.get(position);
+            ConfirmDeleteDialogFragment dialog = ConfirmDeleteDialogFragment.newInstance(selectedMoodForDeletion.getId());
+            dialog.show(getParentFragmentManager(), "ConfirmDeleteDialog");
+            return true;
+        });
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        moodOutbox.removeListener(outboxListener);
         binding = null;
     }
 }
@@ -18,7 +18,7 @@
  *    - Supports image preview with Glide
  *
  * 3. Location Services:
- *    - Captures current location coordinates
+ *    - Captures current location coordinates through the shared LocationService
  *    - Manages location permissions
  *    - Provides visual feedback during location acquisition
  *
@@ -29,7 +29,8 @@
  *    - Progress indicators for async operations
  *
  * Integration Points:
- * - Receives existing MoodEvent objects for editing
+ * - Receives existing MoodEvent objects for editing, loading their detail document first if
+ *   they were read as summaries
  * - Sends completed MoodEvents back via FragmentResult API
  * - Works with both DashboardFragment and HistoryFragment
  * - Coordinates with Firebase Storage for image uploads
@@ -95,13 +96,13 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.bumptech.glide.Glide;
+import com.example.unemployedavengers.DAO.DAOProvider;
+import com.example.unemployedavengers.concurrent.ViewScope;
 import com.example.unemployedavengers.databinding.InputDialogBinding;
+import com.example.unemployedavengers.local.MoodOutbox;
 import com.example.unemployedavengers.models.MoodEvent;
-import com.google.android.gms.location.FusedLocationProviderClient;
 import com.google.android.gms.location.LocationCallback;
-import com.google.android.gms.location.LocationRequest;
 import com.google.android.gms.location.LocationResult;
-import com.google.android.gms.location.LocationServices;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 
@@ -132,8 +133,8 @@ public class InputDialog extends DialogFragment {
     private static final String ARG_PARAM1 = "param1";
     private static final String ARG_PARAM2 = "param2";
     private static final int AUTOCOMPLETE_REQUEST_CODE = 1;
-    private FusedLocationProviderClient fusedLocationClient;
     private static final int LOCATION_PERMISSION_REQUEST_CODE = 100;
+    private static final long MOOD_LOCATION_MAX_AGE_MS = 60 * 1000;
 
     // TODO: Rename and change types of parameters
     private String mParam1;
@@ -345,8 +346,6 @@ public class InputDialog extends DialogFragment {
             imagePickerLauncher.launch(new Intent(MediaStore.ACTION_PICK_IMAGES));
         });
 
-        fusedLocationClient = LocationServices.getFusedLocationProviderClient(requireContext());
-
         // Set up the "Use Current Location" button
         view.findViewById(R.id.use_current_location_button).setOnClickListener(v -> {
             setCurrentLocation();
@@ -357,34 +356,31 @@ public class InputDialog extends DialogFragment {
         if (getArguments() != null) {
             moodEvent = (MoodEvent) getArguments().getSerializable("selected_mood_event");
 
-            if (moodEvent != null && moodEvent.getImageUri() != null && !moodEvent.getImageUri().isEmpty()) {
-                Glide.with(requireContext())
-                        .load(moodEvent.getImageUri())
-                        .into(imagePreview);
-            }
-
             //get the source dashboard/history
             source = getArguments().getString("source");
 
             //if we are updating
             if (moodEvent != null) {
                 //populate the fields with the data from the selected MoodEvent
-                EditText situationEditText = view.findViewById(R.id.editSocialSituation);
                 EditText reasonEditText = view.findViewById(R.id.editReason);
                 Spinner spinner = view.findViewById(R.id.spinnerEmotion);
 
                 //using getter function from model to get text
-                situationEditText.setText(moodEvent.getSituation());
                 reasonEditText.setText(moodEvent.getReason());
 
-                if (Objects.equals(moodEvent.getRadioSituation(), "Alone")) {
-                    ((RadioButton) view.findViewById(R.id.radioAlone)).setChecked(true);
-                } else if (Objects.equals(moodEvent.getRadioSituation(), "Two or Several")) {
-                    ((RadioButton) view.findViewById(R.id.radioTwoSeveral)).setChecked(true);
-                } else if (Objects.equals(moodEvent.getRadioSituation(), "A Crowd")) {
-                    ((RadioButton) view.findViewById(R.id.radioCrowd)).setChecked(true);
-                }else if (Objects.equals(moodEvent.getRadioSituation(), "None")) {
-                    ((RadioButton) view.findViewById(R.id.radioNone)).setChecked(true);
+                if (moodEvent.needsDetail()) {
+                    // Saving before the detail arrives would overwrite it with empty fields
+                    binding.buttonConfirm.setEnabled(false);
+                    ViewScope.of(this).deliver(DAOProvider.getMoodEventDAO().loadDetail(moodEvent), task -> {
+                        if (task.isSuccessful()) {
+                            showDetail(view);
+                            binding.buttonConfirm.setEnabled(true);
+                        } else {
+                            Toast.makeText(getContext(), "Could not load this mood", Toast.LENGTH_SHORT).show();
+                        }
+                    });
+                } else {
+                    showDetail(view);
                 }
 
                 // Check if the view exists before using it
@@ -486,6 +482,28 @@ public class InputDialog extends DialogFragment {
             }
         });
     }
+    // Fills in the fields that are stored in the mood's detail document
+    private void showDetail(View view) {
+        if (moodEvent.getImageUri() != null && !moodEvent.getImageUri().isEmpty()) {
+            Glide.with(requireContext())
+                    .load(moodEvent.getImageUri())
+                    .into(imagePreview);
+        }
+
+        EditText situationEditText = view.findViewById(R.id.editSocialSituation);
+        situationEditText.setText(moodEvent.getSituation());
+
+        if (Objects.equals(moodEvent.getRadioSituation(), "Alone")) {
+            ((RadioButton) view.findViewById(R.id.radioAlone)).setChecked(true);
+        } else if (Objects.equals(moodEvent.getRadioSituation(), "Two or Several")) {
+            ((RadioButton) view.findViewById(R.id.radioTwoSeveral)).setChecked(true);
+        } else if (Objects.equals(moodEvent.getRadioSituation(), "A Crowd")) {
+            ((RadioButton) view.findViewById(R.id.radioCrowd)).setChecked(true);
+        }else if (Objects.equals(moodEvent.getRadioSituation(), "None")) {
+            ((RadioButton) view.findViewById(R.id.radioNone)).setChecked(true);
+        }
+    }
+
     // Method to use current location
     private void setCurrentLocation() {
         // Ensure the fragment's view is available
@@ -519,7 +537,8 @@ public class InputDialog extends DialogFragment {
         }
 
         // Request the current location
-        fusedLocationClient.getCurrentLocation(LocationRequest.PRIORITY_HIGH_ACCURACY, null)
+        // A fix from the last minute is close enough to tag a mood; otherwise a balanced-power request is made
+        LocationService.getInstance(requireContext()).getLocation(MOOD_LOCATION_MAX_AGE_MS)
                 .addOnSuccessListener(location -> {
                     // Hide the progress bar once a response is received
                     progressBar.setVisibility(View.GONE);
@@ -583,6 +602,9 @@ public class InputDialog extends DialogFragment {
                 sendResultToParent(tempMoodEvent);
                 return;
             }
+            if (stageImageIfOffline(tempMoodEvent)) {
+                return;
+            }
             // Image upload code remains unchanged...
             StorageReference storageRef = storage.getReference();
             StorageReference imageRef = storageRef.child("mood_images/" + UUID.randomUUID() + ".jpg");
@@ -608,6 +630,9 @@ public class InputDialog extends DialogFragment {
             sendResultToParent(newMoodEvent);
             return;
         }
+        if (stageImageIfOffline(newMoodEvent)) {
+            return;
+        }
         // Continue with image upload (code remains unchanged)
         StorageReference storageRef = storage.getReference();
         StorageReference imageRef = storageRef.child("mood_images/" + UUID.randomUUID() + ".jpg");
@@ -626,7 +651,7 @@ public class InputDialog extends DialogFragment {
 
 
     private void uploadImage(MoodEvent moodEvent) {
-        if (imageUri != null) {
+        if (imageUri != null && !stageImageIfOffline(moodEvent)) {
             StorageReference storageRef = storage.getReference();
             StorageReference imageRef = storageRef.child("mood_images/" + UUID.randomUUID() + ".jpg");
 
@@ -645,9 +670,25 @@ public class InputDialog extends DialogFragment {
                         // Still send the event with its original image URL
                         sendResultToParent(finalMoodEvent);
                     });
-        } else {
+        } else if (imageUri == null) {
             // No new image to upload, send result immediately
             sendResultToParent(moodEvent);
         }
     }
+
+    // Storage uploads stall while offline, so the picked image is staged locally
+    // and uploaded by the MoodOutbox when the mood is replayed
+    private boolean stageImageIfOffline(MoodEvent event) {
+        MoodOutbox outbox = MoodOutbox.getInstance(requireContext());
+        if (outbox.isOnline()) return false;
+
+        String stagedUri = outbox.stageImage(imageUri);
+        if (stagedUri != null) {
+            event.setImageUri(stagedUri);
+        } else {
+            Toast.makeText(getContext(), "Image could not be saved offline", Toast.LENGTH_SHORT).show();
+        }
+        sendResultToParent(event);
+        return true;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,231 @@
+/**
+ * LocationService - Process-wide provider of the device location, shared by every screen.
+ *
+ * Purpose:
+ * - Replaces the per-screen high-accuracy getCurrentLocation calls that powered up GPS every time
+ *   Dashboard or InputDialog opened, and held up whatever was waiting on the fix.
+ * - Serves a cached fix when it is younger than the caller's staleness limit, then the fused provider's
+ *   last known location, and only then a balanced-power current location request.
+ * - While listeners are registered, receives passive updates (fixes requested by other apps) and notifies
+ *   the listeners whenever a better fix than the cached one arrives.
+ *
+ * Key Features:
+ * - Singleton bound to the application context, so the cache survives fragment recreation.
+ * - isBetterFix decides whether a new fix replaces the cached one, based on age and accuracy.
+ *
+ * Outstanding Issues:
+ * - Callers are still responsible for requesting the location permission; without it every request
+ *   fails with a SecurityException wrapped in the returned Task.
+ * - Listeners are called on the main thread and must be removed in onDestroyView.
+ */
+package com.example.unemployedavengers;
+
+import android.Manifest;
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public final class LocationService {
+    /** Default staleness for callers that only need an approximate position, e.g. proximity filtering. */
+    public static final long DEFAULT_MAX_AGE_MS = 5 * 60 * 1000;
+    private static final long PASSIVE_INTERVAL_MS = 60 * 1000;
+    private static final long SIGNIFICANTLY_NEWER_MS = 2 * 60 * 1000;
+    private static final float SIGNIFICANTLY_LESS_ACCURATE_M = 200f;
+
+    /**
+     * Notified on the main thread when a better fix than the cached one is available.
+     */
+    public interface LocationListener {
+        void onLocationChanged(@NonNull Location location);
+    }
+
+    private static LocationService instance;
+
+    private final Context appContext;
+    private final FusedLocationProviderClient client;
+    private final List<LocationListener> listeners = new CopyOnWriteArrayList<>();
+    private final LocationCallback passiveCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(@NonNull LocationResult result) {
+            for (Location location : result.getLocations()) {
+                accept(location);
+            }
+        }
+    };
+
+    private Location lastFix;
+    private boolean passiveUpdatesActive = false;
+
+    private LocationService(Context context) {
+        appContext = context.getApplicationContext();
+        client = LocationServices.getFusedLocationProviderClient(appContext);
+    }
+
+    /**
+     * @param context Any context; only the application context is kept.
+     * @return The shared LocationService.
+     */
+    public static synchronized LocationService getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new LocationService(context);
+        }
+        return instance;
+    }
+
+    /**
+     * @return true if either coarse or fine location permission has been granted.
+     */
+    public boolean hasPermission() {
+        return ContextCompat.checkSelfPermission(appContext, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED
+                || ContextCompat.checkSelfPermission(appContext, Manifest.permission.ACCESS_COARSE_LOCATION) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /**
+     * Returns the cached fix without touching the location provider.
+     *
+     * @param maxAgeMs The oldest fix the caller accepts, in milliseconds.
+     * @return The cached fix, or null if there is none or it is too old.
+     */
+    @Nullable
+    public Location getCachedLocation(long maxAgeMs) {
+        if (lastFix == null || ageOf(lastFix) > maxAgeMs) {
+            return null;
+        }
+        return lastFix;
+    }
+
+    /**
+     * Gets a location no older than maxAgeMs, using the cheapest source that satisfies it:
+     * the cached fix, then the provider's last known location, then a balanced-power request.
+     * A fix fresh enough is returned even if the cached one is more accurate. If the
+     * balanced-power request yields nothing, the cached stale fix is returned instead.
+     *
+     * @param maxAgeMs The oldest fix the caller accepts, in milliseconds.
+     * @return A {@link Task<Location>} with the location, or null if none is available.
+     */
+    @SuppressLint("MissingPermission")
+    public Task<Location> getLocation(long maxAgeMs) {
+        Location cached = getCachedLocation(maxAgeMs);
+        if (cached != null) {
+            return Tasks.forResult(cached);
+        }
+        if (!hasPermission()) {
+            return Tasks.forException(new SecurityException("Location permission not granted"));
+        }
+
+        return client.getLastLocation().continueWithTask(lastTask -> {
+            Location lastKnown = lastTask.isSuccessful() ? lastTask.getResult() : null;
+            accept(lastKnown);
+            // The cached fix may be more accurate but is already too old, or it would have been
+            // returned above
+            if (lastKnown != null && ageOf(lastKnown) <= maxAgeMs) {
+                return Tasks.forResult(lastKnown);
+            }
+
+            return client.getCurrentLocation(Priority.PRIORITY_BALANCED_POWER_ACCURACY, null)
+                    .continueWith(currentTask -> {
+                        Location current = currentTask.isSuccessful() ? currentTask.getResult() : null;
+                        accept(current);
+                        if (current != null) {
+                            return current;
+                        }
+                        if (lastFix == null && !currentTask.isSuccessful()) {
+                            Exception e = currentTask.getException();
+                            throw e != null ? e : new Exception("Location request cancelled");
+                        }
+                        return lastFix;
+                    });
+        });
+    }
+
+    /**
+     * Registers a listener and starts passive updates if this is the first one.
+     */
+    public void addListener(@NonNull LocationListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+        startPassiveUpdates();
+    }
+
+    /**
+     * Unregisters a listener and stops passive updates once none are left.
+     */
+    public void removeListener(@NonNull LocationListener listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty()) {
+            stopPassiveUpdates();
+        }
+    }
+
+    @SuppressLint("MissingPermission")
+    private void startPassiveUpdates() {
+        if (passiveUpdatesActive || !hasPermission()) return;
+
+        LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_PASSIVE, PASSIVE_INTERVAL_MS).build();
+        client.requestLocationUpdates(request, passiveCallback, Looper.getMainLooper());
+        passiveUpdatesActive = true;
+    }
+
+    private void stopPassiveUpdates() {
+        if (!passiveUpdatesActive) return;
+        client.removeLocationUpdates(passiveCallback);
+        passiveUpdatesActive = false;
+    }
+
+    private void accept(@Nullable Location location) {
+        if (location == null) return;
+        if (lastFix != null && !isBetterFix(ageOf(location), location.getAccuracy(),
+                ageOf(lastFix), lastFix.getAccuracy())) {
+            return;
+        }
+        lastFix = location;
+        for (LocationListener listener : listeners) {
+            listener.onLocationChanged(location);
+        }
+    }
+
+    private static long ageOf(Location location) {
+        return System.currentTimeMillis() - location.getTime();
+    }
+
+    /**
+     * Decides whether a candidate fix should replace the current one. A much newer fix always wins,
+     * a much older one never does; otherwise the more accurate fix wins, and a newer fix is still
+     * accepted when it is only slightly less accurate.
+     *
+     * @param candidateAgeMs Age of the candidate fix in milliseconds.
+     * @param candidateAccuracyM Accuracy radius of the candidate fix in meters.
+     * @param currentAgeMs Age of the current fix in milliseconds.
+     * @param currentAccuracyM Accuracy radius of the current fix in meters.
+     * @return true if the candidate is better.
+     */
+    public static boolean isBetterFix(long candidateAgeMs, float candidateAccuracyM,
+                                      long currentAgeMs, float currentAccuracyM) {
+        long newerBy = currentAgeMs - candidateAgeMs;
+        if (newerBy > SIGNIFICANTLY_NEWER_MS) return true;
+        if (newerBy < -SIGNIFICANTLY_NEWER_MS) return false;
+
+        float accuracyDelta = candidateAccuracyM - currentAccuracyM;
+        if (accuracyDelta < 0) return true;
+        return newerBy > 0 && accuracyDelta <= SIGNIFICANTLY_LESS_ACCURATE_M;
+    }
+}
@@ -15,6 +15,10 @@
  * 2. UI State Management:
  *    - Controls visibility of bottom navigation bar
  *    - Manages app bar (toolbar) display and interactions
+ *    - Badges the notifications icon with the number of pending follow requests. RequestInbox
+ *      watches them with a snapshot listener limited to WATCH_LIMIT (100) requests, started in
+ *      onStart and stopped in onStop; a count() aggregation is only used once there are
+ *      WATCH_LIMIT or more
  *    - Maintains consistent navigation experience
  *
  * 3. Authentication Flow:
@@ -57,24 +61,61 @@ import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.navigation.NavController;
+import androidx.navigation.NavDestination;
 import androidx.navigation.fragment.NavHostFragment;
 import androidx.navigation.ui.NavigationUI;
 import com.example.unemployedavengers.databinding.ActivityMainBinding;
+import com.example.unemployedavengers.implementationDAO.ProfileCounters;
+import com.example.unemployedavengers.implementationDAO.RequestInbox;
+import com.example.unemployedavengers.local.FollowGraphStore;
+import com.example.unemployedavengers.local.MoodOutbox;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.example.unemployedavengers.metrics.FirestoreMeterOverlay;
+import com.example.unemployedavengers.metrics.FragmentTracing;
+import com.example.unemployedavengers.metrics.MetricsRegistry;
 import com.google.android.material.appbar.MaterialToolbar;
+import com.google.android.material.badge.BadgeDrawable;
+import com.google.android.material.badge.BadgeUtils;
+import com.google.android.material.badge.ExperimentalBadgeUtils;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
 
 public class MainActivity extends AppCompatActivity {
     private ActivityMainBinding binding;
     private NavController navController;
     private MaterialToolbar toolbar;
+    private BadgeDrawable requestsBadge;
+    private final RequestInbox.CountListener requestsCountListener = this::showRequestCount;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // Trace every screen's creation, and in debug builds write metric snapshots for
+        // build-to-build comparison; release builds never wake up to write files
+        getSupportFragmentManager().registerFragmentLifecycleCallbacks(new FragmentTracing(), true);
+        if (FirestoreMeterOverlay.isAvailable(this)) {
+            MetricsRegistry.getInstance().startSnapshots(this);
+        }
+
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
+        // Firestore usage is metered in debug builds, where it backs the overlay and the
+        // per-screen read budgets of the instrumented tests
+        if (FirestoreMeterOverlay.isAvailable(this)) {
+            FirestoreMeter.getInstance().setEnabled(true);
+            FirestoreMeterOverlay.attachIfEnabled(this);
+        }
+
+        // Counters must be in their chosen mode before any follow or mood write
+        ProfileCounters.getInstance().restore(this);
+
+        // Replay any mood writes journaled during a previous session
+        MoodOutbox.getInstance(this).replay();
+
         // Set up the Navigation Component with the NavHostFragment
         NavHostFragment navHostFragment = (NavHostFragment) getSupportFragmentManager().findFragmentById(R.id.nav_host_fragment);
         if (navHostFragment != null) {
@@ -107,29 +148,91 @@ public class MainActivity extends AppCompatActivity {
 
         // Manage the visibility of the BottomNavigationView and Toolbar based on the active fragment
         navController.addOnDestinationChangedListener((controller, destination, arguments) -> {
-            if (destination.getId() == R.id.loginFragment ||
-                    destination.getId() == R.id.signUpFragment ||
-                    destination.getId() == R.id.passwordReset1Fragment ||
-                    destination.getId() == R.id.passwordReset2Fragment ||
-                    destination.getId() == R.id.homeFragment) {
+            // Requests made from now on are charged to this screen
+            FirestoreMeter.getInstance().setScreen(getResources().getResourceEntryName(destination.getId()));
+
+            if (isAuthDestination(destination.getId())) {
                 // Hide bottom navigation and toolbar in authentication-related fragments
                 toolbar.setVisibility(View.GONE);
                 binding.bottomNavigation.setVisibility(View.GONE);
+                // Back at sign-in the session is over, and the next one may be another account
+                FollowGraphStore.getInstance().stop();
+                RequestInbox.getInstance().stopWatchingCount();
             } else {
                 // Show bottom navigation and toolbar in other fragments
                 toolbar.setVisibility(View.VISIBLE);
                 binding.bottomNavigation.setVisibility(View.VISIBLE);
+
+                watchRequestCount();
             }
         });
+
+        requestsBadge = BadgeDrawable.create(this);
+        requestsBadge.setVisible(false);
+        RequestInbox.getInstance().addCountListener(requestsCountListener);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        NavDestination destination = navController != null ? navController.getCurrentDestination() : null;
+        if (destination != null && !isAuthDestination(destination.getId())) {
+            watchRequestCount();
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        // The badge is not visible, so stop paying for the watch until the app comes back
+        RequestInbox.getInstance().stopWatchingCount();
+        super.onStop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        RequestInbox.getInstance().removeCountListener(requestsCountListener);
+        if (isFinishing()) {
+            FollowGraphStore.getInstance().stop();
+        }
+        super.onDestroy();
+    }
+
+    // Authentication-related screens, shown while nobody is signed in
+    private static boolean isAuthDestination(int destinationId) {
+        return destinationId == R.id.loginFragment ||
+                destinationId == R.id.signUpFragment ||
+                destinationId == R.id.passwordReset1Fragment ||
+                destinationId == R.id.passwordReset2Fragment ||
+                destinationId == R.id.homeFragment;
+    }
+
+    // Keeps the requests badge current while the signed-in user is in the app
+    private void watchRequestCount() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user != null) {
+            RequestInbox.getInstance().watchCount(user.getUid());
+        }
     }
 
     // Inflates the top navigation menu only for the buttons on the right
+    @OptIn(markerClass = ExperimentalBadgeUtils.class)
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.top_navigation_menu, menu);
+        BadgeUtils.attachBadgeDrawable(requestsBadge, toolbar, R.id.notificationsFragment);
         return true;
     }
 
+    // Shows the number of pending follow requests on the notifications icon
+    private void showRequestCount(long count) {
+        if (count > 0) {
+            requestsBadge.setNumber((int) Math.min(count, Integer.MAX_VALUE));
+            requestsBadge.setVisible(true);
+        } else {
+            requestsBadge.setVisible(false);
+        }
+    }
+
     // Directs the buttons to its corresponding fragments
     @Override
     public boolean onOptionsItemSelected(@NonNull MenuItem item) {
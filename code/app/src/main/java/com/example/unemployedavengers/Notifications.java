@@ -23,7 +23,9 @@
  *    - Handles error states and empty views
  *
  * Technical Implementation:
- * - Uses Firestore for real-time request data
+ * - Gets the requesters from RequestInbox, which listens to the requests subcollection while this
+ *   screen is shown and resolves requester profiles in batched queries
+ * - Accept all / Reject all go through IUserDAO's bulk calls, a few WriteBatch commits in total
  * - Implements custom FollowRequestAdapter
  * - Leverages Firebase Authentication
  * - Follows Fragment lifecycle
@@ -58,98 +60,108 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.Button;
 import android.widget.ListView;
+import android.widget.Toast;
 
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
+import com.example.unemployedavengers.DAO.DAOProvider;
 import com.example.unemployedavengers.DAO.IUserDAO;
 import com.example.unemployedavengers.arrayadapters.FollowRequestAdapter;
-import com.example.unemployedavengers.implementationDAO.UserDAOImplement;
+import com.example.unemployedavengers.implementationDAO.RequestInbox;
 import com.example.unemployedavengers.models.User;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.CollectionReference;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class Notifications extends Fragment {
     private ListView notificationsList;
+    private View bulkActions;
     private IUserDAO userDAO;
     private FirebaseAuth auth;
-    private FirebaseFirestore db;
     private FollowRequestAdapter adapter;
     private List<User> followRequests;
     private String currentUserId;
+    private final RequestInbox.RequestsListener requestsListener = this::showFollowRequests;
 
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.notifications, container, false);
         notificationsList = view.findViewById(R.id.notifications_list);
-        userDAO = new UserDAOImplement();
+        bulkActions = view.findViewById(R.id.bulk_actions);
+        Button acceptAllButton = view.findViewById(R.id.accept_all_button);
+        Button rejectAllButton = view.findViewById(R.id.reject_all_button);
+        userDAO = DAOProvider.getUserDAO();
         auth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
         followRequests = new ArrayList<>();
 
-        adapter = new FollowRequestAdapter(requireContext(), followRequests, "");
-        notificationsList.setAdapter(adapter);
-
         FirebaseUser currentUser = auth.getCurrentUser();
         if (currentUser != null) {
             currentUserId = currentUser.getUid();
-            loadFollowRequests();
         } else {
             Log.e("Notifications", "No user is logged in");
         }
 
+        adapter = new FollowRequestAdapter(requireContext(), followRequests, currentUserId != null ? currentUserId : "");
+        notificationsList.setAdapter(adapter);
+
+        acceptAllButton.setOnClickListener(v -> {
+            if (currentUserId == null || followRequests.isEmpty()) return;
+            userDAO.acceptFollowRequests(requesterIds(), currentUserId)
+                    .addOnSuccessListener(aVoid -> showBulkResult("All follow requests accepted"))
+                    .addOnFailureListener(e -> showBulkResult("Error: " + e.getMessage()));
+        });
+        rejectAllButton.setOnClickListener(v -> {
+            if (currentUserId == null || followRequests.isEmpty()) return;
+            userDAO.rejectFollowRequests(requesterIds(), currentUserId)
+                    .addOnSuccessListener(aVoid -> showBulkResult("All follow requests rejected"))
+                    .addOnFailureListener(e -> showBulkResult("Error: " + e.getMessage()));
+        });
+
+        if (currentUserId != null) {
+            // Delivers the current requests now and again whenever they change
+            RequestInbox.getInstance().addRequestsListener(currentUserId, requestsListener);
+        }
+
         return view;
     }
 
-    private void loadFollowRequests() {
-        if (currentUserId == null) {
-            Log.e("Notifications", "currentUserId is null");
-            return;
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        RequestInbox.getInstance().removeRequestsListener(requestsListener);
+    }
+
+    private void showFollowRequests(List<User> requesters) {
+        if (!isAdded()) return;
+        if (requesters.isEmpty()) {
+            Log.d("Notifications", "No follow requests found");
         }
+        // One refresh for the whole list instead of one per requester
+        followRequests.clear();
+        followRequests.addAll(requesters);
+        adapter.notifyDataSetChanged();
+        bulkActions.setVisibility(requesters.isEmpty() ? View.GONE : View.VISIBLE);
+    }
 
-        CollectionReference requestsRef = db.collection("users").document(currentUserId).collection("requests");
-        requestsRef.get().addOnSuccessListener(queryDocumentSnapshots -> {
-            followRequests.clear();
-
-            if (queryDocumentSnapshots.isEmpty()) {
-                Log.d("Notifications", "No follow requests found");
-                adapter.notifyDataSetChanged();
-                return;
-            }
-
-            for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                String requesterId = document.getId();
-                Log.d("Notifications", "Found follow request from: " + requesterId);
-
-                db.collection("users").document(requesterId).get()
-                        .addOnSuccessListener(userDoc -> {
-                            if (userDoc.exists()) {
-                                User user = userDoc.toObject(User.class);
-                                if (user != null) {
-                                    followRequests.add(user);
-                                    adapter.notifyDataSetChanged();
-                                }
-                            } else {
-                                Log.e("Notifications", "User document does not exist: " + requesterId);
-                            }
-                        })
-                        .addOnFailureListener(e -> Log.e("Notifications", "Error fetching user data", e));
-            }
-
-            adapter = new FollowRequestAdapter(requireContext(), followRequests, currentUserId);
-            notificationsList.setAdapter(adapter);
-        }).addOnFailureListener(e ->
-                Log.e("Notifications", "Failed to load follow requests", e)
-        );
+    private List<String> requesterIds() {
+        List<String> ids = new ArrayList<>();
+        for (User requester : followRequests) {
+            ids.add(requester.getUserId());
+        }
+        return ids;
+    }
+
+    private void showBulkResult(String message) {
+        if (getContext() != null) {
+            Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
+        }
     }
 }
@@ -6,20 +6,34 @@
  *
  * Features:
  * - Displays various user settings options (e.g., notification preferences, privacy settings, etc.).
- * - Currently, no specific settings functionality has been implemented within this fragment.
+ * - In debug builds, toggles the Firestore usage overlay and exports FirestoreMeter's totals to a file.
+ * - In debug builds, switches ProfileCounters to counters maintained on the user documents.
+ * - No user-facing settings have been implemented yet.
  *
 */
 
 package com.example.unemployedavengers;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.Toast;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.widget.SwitchCompat;
 import androidx.fragment.app.Fragment;
 
+import com.example.unemployedavengers.implementationDAO.ProfileCounters;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.example.unemployedavengers.metrics.FirestoreMeterOverlay;
+
+import java.io.File;
+import java.io.IOException;
+
 public class Settings extends Fragment {
 
     @Nullable
@@ -27,4 +41,33 @@ public class Settings extends Fragment {
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         return inflater.inflate(R.layout.settings, container, false);
     }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        if (!FirestoreMeterOverlay.isAvailable(requireContext())) return;
+
+        view.findViewById(R.id.debugSection).setVisibility(View.VISIBLE);
+
+        SwitchCompat overlaySwitch = view.findViewById(R.id.switchFirestoreOverlay);
+        overlaySwitch.setChecked(FirestoreMeterOverlay.isEnabled(requireContext()));
+        overlaySwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                FirestoreMeterOverlay.setEnabled(requireActivity(), isChecked));
+
+        SwitchCompat countersSwitch = view.findViewById(R.id.switchMaintainedCounters);
+        countersSwitch.setChecked(ProfileCounters.getInstance().isMaintained());
+        countersSwitch.setOnCheckedChangeListener((buttonView, isChecked) ->
+                ProfileCounters.getInstance().setMaintained(requireContext(), isChecked));
+
+        Button exportButton = view.findViewById(R.id.btnExportFirestoreUsage);
+        exportButton.setOnClickListener(v -> {
+            try {
+                File file = FirestoreMeter.getInstance().dump(requireContext());
+                Toast.makeText(requireContext(), "Saved to " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+            } catch (IOException e) {
+                Log.e("Settings", "Failed to export Firestore usage", e);
+                Toast.makeText(requireContext(), "Export failed", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
 }
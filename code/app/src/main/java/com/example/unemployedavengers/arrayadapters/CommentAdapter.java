@@ -35,22 +35,20 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
-import androidx.core.content.ContextCompat;
 
 import com.bumptech.glide.Glide;
 import com.example.unemployedavengers.R;
 import com.example.unemployedavengers.implementationDAO.CommentManager;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.example.unemployedavengers.metrics.Span;
 import com.example.unemployedavengers.models.Comment;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
 
 import org.w3c.dom.Text;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -63,6 +61,7 @@ public class CommentAdapter extends ArrayAdapter<Comment> {
     private Map<String, List<Comment>> repliesMap; // Maps parent comment ID to replies
     private Map<String, String> userProfilePictures = new HashMap<>(); // Cache profile pics
     private String user;
+    private final FirestoreMeter meter = FirestoreMeter.getInstance();
     // In CommentAdapter.java
     /**
      * Constructor for CommentAdapter
@@ -92,6 +91,12 @@ public class CommentAdapter extends ArrayAdapter<Comment> {
     @NonNull
     @Override
     public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
+        try (Span ignored = Span.begin("CommentAdapter.getView")) {
+            return bindView(position, convertView, parent);
+        }
+    }
+
+    private View bindView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
         View view = convertView;
         if (view == null) {
             view = LayoutInflater.from(getContext()).inflate(R.layout.comment_item, parent, false);
@@ -115,8 +120,7 @@ public class CommentAdapter extends ArrayAdapter<Comment> {
         contentText.setText(comment.getContent());
 
         // Format timestamp
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-        String formattedTime = sdf.format(new Date(comment.getTimestamp()));
+        String formattedTime = MoodDisplayFormat.formatTimestamp(comment.getTimestamp());
         timestampText.setText(formattedTime);
 
         // Load Profile Picture
@@ -144,7 +148,7 @@ public class CommentAdapter extends ArrayAdapter<Comment> {
 
                 replyUsername.setText(reply.getUsername());
                 replyContent.setText(reply.getContent());
-                String replyFormattedTime = sdf.format(new Date(reply.getTimestamp()));
+                String replyFormattedTime = MoodDisplayFormat.formatTimestamp(reply.getTimestamp());
                 replyTimestamp.setText(replyFormattedTime);
 
                 repliesContainer.addView(replyView);
@@ -156,18 +160,18 @@ public class CommentAdapter extends ArrayAdapter<Comment> {
         DocumentReference commentRef = db.collection("comments").document(comment.getId());
 
         AtomicInteger likes = new AtomicInteger();
-        commentRef.get().addOnSuccessListener(documentSnapshot -> {
+        meter.get("CommentAdapter.likeCount", commentRef).addOnSuccessListener(documentSnapshot -> {
             if (documentSnapshot.getLong("likeCount") != null) {
                 likes.set(Math.toIntExact(documentSnapshot.getLong("likeCount")));
             }  else {
                 likes.set(0);
-                commentRef.update("likeCount", 0);
+                meter.write("CommentAdapter.likeCount", 1, commentRef.update("likeCount", 0));
             }
         });
 
         likesView.setText(String.valueOf(comment.getLikeCount()));
 
-        commentRef.collection("likes").document(user).get().addOnSuccessListener(documentSnapshot -> {
+        meter.get("CommentAdapter.liked", commentRef.collection("likes").document(user)).addOnSuccessListener(documentSnapshot -> {
             final boolean[] isLiked = {documentSnapshot.exists()};
 
             if (isLiked[0]) {
@@ -194,8 +198,8 @@ public class CommentAdapter extends ArrayAdapter<Comment> {
             likeButton.setText("Like");
             likeButton.setCompoundDrawablesWithIntrinsicBounds(R.drawable.ic_thumb_up, 0, 0, 0);
             likesView.setText(String.valueOf(likes.get() - 1));
-            commentRef.collection("likes").document(user).delete().addOnSuccessListener(aVoid -> {
-                commentRef.update("likeCount", com.google.firebase.firestore.FieldValue.increment(-1));
+            meter.write("CommentAdapter.unlike", 1, commentRef.collection("likes").document(user).delete()).addOnSuccessListener(aVoid -> {
+                meter.write("CommentAdapter.unlike", 1, commentRef.update("likeCount", com.google.firebase.firestore.FieldValue.increment(-1)));
                 Log.d("CommentAdapter", "Like removed successfully");
             }).addOnFailureListener(e -> {
                 Log.e("CommentAdapter", "Failed to remove like", e);
@@ -208,8 +212,8 @@ public class CommentAdapter extends ArrayAdapter<Comment> {
             likeData.put("userId", user);
             likeData.put("timestamp", System.currentTimeMillis());
 
-            commentRef.collection("likes").document(user).set(likeData).addOnSuccessListener(aVoid -> {
-                commentRef.update("likeCount", com.google.firebase.firestore.FieldValue.increment(1));
+            meter.write("CommentAdapter.like", 1, commentRef.collection("likes").document(user).set(likeData)).addOnSuccessListener(aVoid -> {
+                meter.write("CommentAdapter.like", 1, commentRef.update("likeCount", com.google.firebase.firestore.FieldValue.increment(1)));
                 Log.d("CommentAdapter", "Like added successfully");
             }).addOnFailureListener(e -> {
                 Log.e("CommentAdapter", "Failed to add like", e);
@@ -220,7 +224,7 @@ public class CommentAdapter extends ArrayAdapter<Comment> {
     private void fetchUserProfilePicture(String userId, ImageView profileImage) {
         FirebaseFirestore db = FirebaseFirestore.getInstance();
         DocumentReference userDocRef = db.collection("users").document(userId);
-        userDocRef.get().addOnSuccessListener(documentSnapshot -> {
+        meter.get("CommentAdapter.avatar", userDocRef).addOnSuccessListener(documentSnapshot -> {
             if (documentSnapshot.exists()) {
                 String profilePicUrl = documentSnapshot.getString("avatar");
                 if (profilePicUrl != null && !profilePicUrl.isEmpty()) {
@@ -32,9 +32,9 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.example.unemployedavengers.DAO.DAOProvider;
 import com.example.unemployedavengers.DAO.IUserDAO;
 import com.example.unemployedavengers.R;
-import com.example.unemployedavengers.implementationDAO.UserDAOImplement;
 import com.example.unemployedavengers.models.User;
 
 import java.util.List;
@@ -47,7 +47,7 @@ public class FollowRequestAdapter extends ArrayAdapter<User> {
     public FollowRequestAdapter(Context context, List<User> requests, String currentUserId) {
         super(context, R.layout.follow_item, requests);
         this.requests = requests;
-        this.userDAO = new UserDAOImplement();
+        this.userDAO = DAOProvider.getUserDAO();
         this.currentUserId = currentUserId;
     }
 
@@ -24,7 +24,6 @@
 package com.example.unemployedavengers.arrayadapters;
 
 import android.content.Context;
-import android.graphics.Color;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -36,10 +35,11 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.core.content.ContextCompat;
 
 import com.bumptech.glide.Glide;
 import com.example.unemployedavengers.R;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.example.unemployedavengers.metrics.Span;
 import com.example.unemployedavengers.models.MoodEvent;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
@@ -47,11 +47,8 @@ import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 public class FollowedUserMoodEventAdapter extends ArrayAdapter<MoodEvent> {
@@ -87,6 +84,12 @@ public class FollowedUserMoodEventAdapter extends ArrayAdapter<MoodEvent> {
     @NonNull
     @Override
     public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
+        try (Span ignored = Span.begin("FollowedUserMoodEventAdapter.getView")) {
+            return bindView(position, convertView, parent);
+        }
+    }
+
+    private View bindView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
         View view = convertView;
         if (view == null) {
             view = LayoutInflater.from(getContext()).inflate(R.layout.followed_user_mood_items, parent, false);
@@ -103,11 +106,10 @@ public class FollowedUserMoodEventAdapter extends ArrayAdapter<MoodEvent> {
 
         // Set the mood text and apply color
         moodText.setText(moodEvent.getMood());
-        moodText.setTextColor(getMoodColor(getContext(), moodEvent.getMood()));
+        moodText.setTextColor(MoodColors.forMood(getContext(), moodEvent.getMood()));
 
         // Format and set the date
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-        String formattedTime = sdf.format(new Date(moodEvent.getTime()));
+        String formattedTime = MoodDisplayFormat.formatTimestamp(moodEvent.getTime());
         dateText.setText(formattedTime);
 
         // Set username
@@ -121,7 +123,8 @@ public class FollowedUserMoodEventAdapter extends ArrayAdapter<MoodEvent> {
 
             ImageView image = (ImageView) view.findViewById(R.id.profileIcon);
 
-            userDocRef.get().addOnSuccessListener(documentSnapshot -> {
+            FirestoreMeter meter = FirestoreMeter.getInstance();
+            meter.get("FollowedUserMoodEventAdapter.avatar", userDocRef).addOnSuccessListener(documentSnapshot -> {
                 if (documentSnapshot.exists()) {
                     String profilePicUrl = documentSnapshot.getString("avatar");
                     if (profilePicUrl != null && !profilePicUrl.isEmpty()) {
@@ -132,7 +135,7 @@ public class FollowedUserMoodEventAdapter extends ArrayAdapter<MoodEvent> {
                 Log.e("CommentAdapter", "Failed to load profile picture", e);
             });
 
-            userDocRef.get()
+            meter.get("FollowedUserMoodEventAdapter.username", userDocRef)
                     .addOnSuccessListener(new OnSuccessListener<DocumentSnapshot>() {
                         @Override
                         public void onSuccess(DocumentSnapshot documentSnapshot) {
@@ -165,19 +168,4 @@ public class FollowedUserMoodEventAdapter extends ArrayAdapter<MoodEvent> {
         return view;
     }
 
-    // Method to return a color based on mood
-    private int getMoodColor(Context context, String mood) {
-        String lowerMood = mood.toLowerCase(); // Normalize case
-
-        if (lowerMood.contains("anger")) return Color.RED;
-        if (lowerMood.contains("confusion")) return ContextCompat.getColor(context, R.color.orange);
-        if (lowerMood.contains("disgust")) return Color.GREEN;
-        if (lowerMood.contains("fear")) return Color.BLUE;
-        if (lowerMood.contains("happiness")) return ContextCompat.getColor(context, R.color.baby_blue);
-        if (lowerMood.contains("sadness")) return Color.GRAY;
-        if (lowerMood.contains("shame")) return ContextCompat.getColor(context, R.color.yellow);
-        if (lowerMood.contains("surprise")) return ContextCompat.getColor(context, R.color.pink);
-
-        return ContextCompat.getColor(context, R.color.black); // Default color
-    }
 }
\ No newline at end of file
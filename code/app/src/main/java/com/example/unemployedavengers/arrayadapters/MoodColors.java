@@ -0,0 +1,46 @@
+/**
+ * MoodColors - Text color for each mood, shared by the mood lists and the mood detail screen.
+ */
+
+package com.example.unemployedavengers.arrayadapters;
+
+import android.content.Context;
+import android.graphics.Color;
+
+import androidx.core.content.ContextCompat;
+
+import com.example.unemployedavengers.R;
+
+public final class MoodColors {
+
+    private MoodColors() {
+    }
+
+    /**
+     * @param context Context used to resolve color resources.
+     * @param mood The mood text.
+     * @return The color the mood is shown in.
+     */
+    public static int forMood(Context context, String mood) {
+        switch (MoodDisplayFormat.moodCategory(mood)) {
+            case MoodDisplayFormat.ANGER:
+                return Color.RED;
+            case MoodDisplayFormat.CONFUSION:
+                return ContextCompat.getColor(context, R.color.orange);
+            case MoodDisplayFormat.DISGUST:
+                return Color.GREEN;
+            case MoodDisplayFormat.FEAR:
+                return Color.BLUE;
+            case MoodDisplayFormat.HAPPINESS:
+                return ContextCompat.getColor(context, R.color.baby_blue);
+            case MoodDisplayFormat.SADNESS:
+                return Color.GRAY;
+            case MoodDisplayFormat.SHAME:
+                return ContextCompat.getColor(context, R.color.yellow);
+            case MoodDisplayFormat.SURPRISE:
+                return ContextCompat.getColor(context, R.color.pink);
+            default:
+                return ContextCompat.getColor(context, R.color.black); // Default color
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * MoodDisplayFormat - Pure helpers for how moods are shown in lists and details.
+ *
+ * Purpose:
+ * - Keeps the timestamp format and the mood-to-category rule in one place instead of a copy per
+ *   adapter, and free of Android dependencies so the benchmarks module can measure them.
+ *
+ * Key Features:
+ * - formatTimestamp reuses one SimpleDateFormat per thread instead of creating one per row.
+ * - moodCategory applies the same substring rules the adapters used, in the same order.
+ *
+ * Outstanding Issues:
+ * - The cached formatter keeps the locale it was created with until the thread ends.
+ */
+
+package com.example.unemployedavengers.arrayadapters;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+public final class MoodDisplayFormat {
+    public static final int UNKNOWN = -1;
+    public static final int ANGER = 0;
+    public static final int CONFUSION = 1;
+    public static final int DISGUST = 2;
+    public static final int FEAR = 3;
+    public static final int HAPPINESS = 4;
+    public static final int SADNESS = 5;
+    public static final int SHAME = 6;
+    public static final int SURPRISE = 7;
+
+    private static final String[] MOOD_KEYS = {"anger", "confusion", "disgust", "fear", "happiness", "sadness", "shame", "surprise"};
+
+    private static final ThreadLocal<SimpleDateFormat> TIMESTAMP_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+        }
+    };
+
+    private MoodDisplayFormat() {
+    }
+
+    /**
+     * @param time Milliseconds since the epoch.
+     * @return The time as yyyy-MM-dd HH:mm in the default time zone.
+     */
+    public static String formatTimestamp(long time) {
+        return TIMESTAMP_FORMAT.get().format(new Date(time));
+    }
+
+    /**
+     * @param mood The mood text, e.g. "Happiness 😊".
+     * @return One of the mood constants, or UNKNOWN.
+     */
+    public static int moodCategory(String mood) {
+        if (mood == null) return UNKNOWN;
+        String lowerMood = mood.toLowerCase(); // Normalize case
+        for (int i = 0; i < MOOD_KEYS.length; i++) {
+            if (lowerMood.contains(MOOD_KEYS[i])) return i;
+        }
+        return UNKNOWN;
+    }
+}
@@ -6,6 +6,7 @@
  * - Displays the mood and its timestamp for each event.
  * - Applies color styling to the mood text based on the mood type (e.g., red for anger, blue for fear).
  * - Utilizes `SimpleDateFormat` to format the timestamp for each `MoodEvent` for better readability.
+ * - Shows the outbox sync state (pending, syncing, failed) of moods that have not reached Firestore yet.
  *
  * Design Pattern:
  * - Implements the `ArrayAdapter` design pattern to efficiently display a list of objects in a `ListView`.
@@ -21,30 +22,29 @@
 package com.example.unemployedavengers.arrayadapters;
 
 import android.content.Context;
-import android.graphics.Color;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import android.widget.ArrayAdapter;
 
-import androidx.core.content.ContextCompat;
-
 import com.example.unemployedavengers.R;
 
 
+import com.example.unemployedavengers.local.OutboxOperation;
+import com.example.unemployedavengers.metrics.Span;
 import com.example.unemployedavengers.models.MoodEvent;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 
 /*
  An array adapter that takes moodevent objects and format them according to mood_event.xml (showing only mood and date)
  */
 
 public class MoodEventArrayAdapter extends ArrayAdapter<MoodEvent> {
+    private Map<String, String> syncStates = new HashMap<>();
 
     //Constructor
     public  MoodEventArrayAdapter(Context context, List<MoodEvent> moodEvents) {
@@ -52,8 +52,24 @@ public class MoodEventArrayAdapter extends ArrayAdapter<MoodEvent> {
     }
 
 
+    /**
+     * Sets the outbox state of each unsynced mood, keyed by mood id. Moods not in the map are shown as synced.
+     *
+     * @param syncStates Mood id to OutboxOperation state.
+     */
+    public void setSyncStates(Map<String, String> syncStates) {
+        this.syncStates = syncStates != null ? syncStates : new HashMap<>();
+        notifyDataSetChanged();
+    }
+
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
+        try (Span ignored = Span.begin("MoodEventArrayAdapter.getView")) {
+            return bindView(position, convertView, parent);
+        }
+    }
+
+    private View bindView(int position, View convertView, ViewGroup parent) {
         MoodEvent moodEvent = getItem(position);
 
         if (convertView == null) {
@@ -62,36 +78,36 @@ public class MoodEventArrayAdapter extends ArrayAdapter<MoodEvent> {
 
         TextView moodTextView = convertView.findViewById(R.id.mood_text);
         TextView timeTextView = convertView.findViewById(R.id.date_text);
+        TextView syncStateTextView = convertView.findViewById(R.id.sync_state_text);
 
         if (moodEvent != null) {
             moodTextView.setText(moodEvent.getMood());
-            moodTextView.setTextColor(getMoodColor(getContext(), moodEvent.getMood()));
+            moodTextView.setTextColor(MoodColors.forMood(getContext(), moodEvent.getMood()));
 
-            // Format time using SimpleDateFormat
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-            String formattedTime = sdf.format(new Date(moodEvent.getTime()));
+            // Format time
+            String formattedTime = MoodDisplayFormat.formatTimestamp(moodEvent.getTime());
             timeTextView.setText(formattedTime);
+
+            String syncState = moodEvent.getId() != null ? syncStates.get(moodEvent.getId()) : null;
+            if (syncState == null) {
+                syncStateTextView.setVisibility(View.GONE);
+            } else {
+                syncStateTextView.setText(getSyncStateLabel(syncState));
+                syncStateTextView.setVisibility(View.VISIBLE);
+            }
         }
 
         return convertView;
     }
 
-    // Method to return a color based on mood
-    private int getMoodColor(Context context, String mood) {
-        String lowerMood = mood.toLowerCase(); // Normalize case
-        //select colour
-        if (lowerMood.contains("anger")) return Color.RED;
-        if (lowerMood.contains("confusion")) return ContextCompat.getColor(context, R.color.orange);
-        if (lowerMood.contains("disgust")) return Color.GREEN;
-        if (lowerMood.contains("fear")) return Color.BLUE;
-        if (lowerMood.contains("happiness")) return ContextCompat.getColor(context, R.color.baby_blue);
-        if (lowerMood.contains("sadness")) return Color.GRAY;
-        if (lowerMood.contains("shame")) return ContextCompat.getColor(context, R.color.yellow);
-        if (lowerMood.contains("surprise")) return ContextCompat.getColor(context, R.color.pink);
-
-        return ContextCompat.getColor(context, R.color.black); // Default color
+    // Method to return the label shown for an outbox state
+    private String getSyncStateLabel(String syncState) {
+        if (OutboxOperation.STATE_SYNCING.equals(syncState)) return "Syncing";
+        if (OutboxOperation.STATE_FAILED.equals(syncState)) return "Sync failed";
+        return "Pending sync";
     }
 
 
+
 }
 
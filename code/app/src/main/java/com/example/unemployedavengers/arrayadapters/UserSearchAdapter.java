@@ -0,0 +1,98 @@
+/**
+ * UserSearchAdapter - A custom ArrayAdapter for the rows of a user search.
+ *
+ * Purpose:
+ * - Displays each matching user's username together with whether the signed-in user already
+ *   follows them or has asked to.
+ *
+ * Key Features:
+ * - Statuses arrive after the rows, from one IUserDAO.getFollowStatuses call for the whole result
+ *   list; rows without a status yet show only the username.
+ * - Rows of friend suggestions instead say how many of the user's followees follow them.
+ *
+ * Outstanding Issues:
+ * - Rows are not recycled through a ViewHolder, as with the other adapters.
+ */
+
+package com.example.unemployedavengers.arrayadapters;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.unemployedavengers.R;
+import com.example.unemployedavengers.models.User;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class UserSearchAdapter extends ArrayAdapter<User> {
+    private final Map<String, String> statuses = new HashMap<>();
+    private final Map<String, Integer> mutualCounts = new HashMap<>();
+
+    public UserSearchAdapter(Context context, List<User> users) {
+        super(context, R.layout.search_item, users);
+    }
+
+    /**
+     * @param statuses Follow status by user ID, as returned by IUserDAO.getFollowStatuses.
+     */
+    public void setStatuses(@NonNull Map<String, String> statuses) {
+        this.statuses.clear();
+        this.statuses.putAll(statuses);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * @param mutualCounts Number of the signed-in user's followees who follow each user, by user
+     *                     ID, as in SuggestionStore.Suggestion.
+     */
+    public void setMutualCounts(@NonNull Map<String, Integer> mutualCounts) {
+        this.mutualCounts.clear();
+        this.mutualCounts.putAll(mutualCounts);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * @return "following", "requested" or "none", or null if it has not been resolved.
+     */
+    @Nullable
+    public String getStatus(@NonNull String userId) {
+        return statuses.get(userId);
+    }
+
+    @NonNull
+    @Override
+    public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
+        if (convertView == null) {
+            convertView = LayoutInflater.from(getContext()).inflate(R.layout.search_item, parent, false);
+        }
+
+        User user = getItem(position);
+
+        TextView usernameText = convertView.findViewById(R.id.username_text);
+        TextView statusText = convertView.findViewById(R.id.follow_status_text);
+
+        usernameText.setText(user.getUsername());
+
+        String status = statuses.get(user.getUserId());
+        if ("following".equals(status)) {
+            statusText.setText("Following");
+        } else if ("requested".equals(status)) {
+            statusText.setText("Requested");
+        } else if (mutualCounts.containsKey(user.getUserId())) {
+            statusText.setText("Followed by " + mutualCounts.get(user.getUserId()) + " you follow");
+        } else {
+            statusText.setText("");
+        }
+
+        return convertView;
+    }
+}
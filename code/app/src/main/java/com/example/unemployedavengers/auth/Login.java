@@ -52,10 +52,10 @@ import androidx.navigation.NavController;
 import androidx.navigation.Navigation;
 
 import com.example.unemployedavengers.BaseFragment;
+import com.example.unemployedavengers.DAO.DAOProvider;
 import com.example.unemployedavengers.DAO.IUserDAO;
 import com.example.unemployedavengers.R;
 import com.example.unemployedavengers.databinding.LogInBinding;
-import com.example.unemployedavengers.implementationDAO.UserDAOImplement;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreSettings;
 
@@ -84,7 +84,7 @@ public class Login extends BaseFragment {
         super.onViewCreated(view, savedInstanceState);
 
         // Initialize the User Data Access Object
-        userDAO = new UserDAOImplement();
+        userDAO = DAOProvider.getUserDAO();
 
         // Configure Firestore for offline persistence
         FirebaseFirestore db = FirebaseFirestore.getInstance();
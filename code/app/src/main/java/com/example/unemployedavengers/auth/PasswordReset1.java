@@ -39,10 +39,10 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
 
+import com.example.unemployedavengers.DAO.DAOProvider;
 import com.example.unemployedavengers.DAO.IUserDAO;
 import com.example.unemployedavengers.R;
 import com.example.unemployedavengers.databinding.PasswordReset1Binding;
-import com.example.unemployedavengers.implementationDAO.UserDAOImplement;
 
 public class PasswordReset1 extends Fragment {
     private PasswordReset1Binding binding;
@@ -71,7 +71,7 @@ public class PasswordReset1 extends Fragment {
         // Handle the "Next" button click for password reset process
         binding.btnNext.setOnClickListener(v -> {
             String userName = binding.etUsername.getText().toString().trim();
-            userDAO = new UserDAOImplement();
+            userDAO = DAOProvider.getUserDAO();
 
             // Check if the user exists
             userDAO.checkUserExists(userName)
@@ -41,10 +41,10 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
 
+import com.example.unemployedavengers.DAO.DAOProvider;
 import com.example.unemployedavengers.DAO.IUserDAO;
 import com.example.unemployedavengers.R;
 import com.example.unemployedavengers.databinding.PasswordReset2Binding;
-import com.example.unemployedavengers.implementationDAO.UserDAOImplement;
 import com.google.android.gms.tasks.Task;
 
 public class PasswordReset2 extends Fragment {
@@ -95,7 +95,7 @@ public class PasswordReset2 extends Fragment {
             }
 
             // Reset the password using the DAO
-            userDAO = new UserDAOImplement();
+            userDAO = DAOProvider.getUserDAO();
             Task<Void> resetTask = userDAO.resetPassword(userName, password);
             resetTask.addOnSuccessListener(aVoid -> {
                 Toast.makeText(getContext(), "Reset Successful!", Toast.LENGTH_SHORT).show();
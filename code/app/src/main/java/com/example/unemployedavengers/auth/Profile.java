@@ -4,11 +4,15 @@
  * Purpose:
  * - Manages user profile interactions, such as updating the username, password, and avatar.
  * - Retrieves and displays the current user's profile data (username and avatar).
+ * - Shows the user's follower, followee and mood counts from ProfileCounters, without reading
+ *   those subcollections.
  * - Provides secure authentication operations using the UserDAO interface for actions like changing the username or password.
  * - Integrates with Firebase Storage to upload and display the user's avatar.
  *
  * Features:
  * - Allows users to change their username and password through dialog boxes with validation.
+ * - After a rename, starts UsernamePropagation to copy the new name onto the user's moods and
+ *   comments, and says so once it is done.
  * - Supports avatar selection through a media picker, with file size restrictions and upload to Firebase Storage.
  * - Displays the current avatar using Glide for image loading and caching.
  * - Uses a custom `UserDAO` implementation to interact with the backend and Firebase.
@@ -52,11 +56,15 @@ import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
 
 import com.bumptech.glide.Glide;
+import com.example.unemployedavengers.DAO.DAOProvider;
 import com.example.unemployedavengers.DAO.IUserDAO;
 import com.example.unemployedavengers.R;
 import com.example.unemployedavengers.databinding.ProfileBinding;
-import com.example.unemployedavengers.implementationDAO.UserDAOImplement;
+import com.example.unemployedavengers.implementationDAO.ProfileCounters;
+import com.example.unemployedavengers.implementationDAO.UsernamePropagation;
 import com.example.unemployedavengers.models.User;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 
@@ -70,6 +78,11 @@ public class Profile extends Fragment {
     private Uri imageUri;
     private ActivityResultLauncher<String> permissionLauncher;
     private ImageView imagePreview;
+    private final UsernamePropagation.Listener propagationListener = progress -> {
+        if (progress.done && getContext() != null) {
+            Toast.makeText(getContext(), "Your new username now shows on " + progress.updated + " moods and comments", Toast.LENGTH_SHORT).show();
+        }
+    };
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater,
@@ -90,12 +103,15 @@ public class Profile extends Fragment {
         binding.tvProfileUsername.setText(username);
 
         storage = FirebaseStorage.getInstance(); // Image Storage
+        UsernamePropagation.getInstance(requireContext()).addListener(propagationListener);
         imagePreview = binding.profilePicturePlaceholder;
 
         // Image Preview
-        userDAO = new UserDAOImplement();
+        userDAO = DAOProvider.getUserDAO();
         userDAO.getCurrentUserProfile()
                 .addOnSuccessListener(user -> {
+                    if (binding == null) return;
+                    showCounts(user.getUserId());
                     if (user.getAvatar() != null && !user.getAvatar().isEmpty()) {
                         Glide.with(requireContext())
                                 .load(Uri.parse(user.getAvatar()))
@@ -124,15 +140,23 @@ public class Profile extends Fragment {
 
             btnSubmitUsername.setOnClickListener(following -> {
                 String newUsername = etNewUsername.getText().toString().trim();
-                userDAO = new UserDAOImplement();
+                userDAO = DAOProvider.getUserDAO();
 
                 if (!newUsername.isEmpty()) {
+                    UsernamePropagation propagation = UsernamePropagation.getInstance(requireContext());
                     userDAO.changeUsername(newUsername)
                             .addOnSuccessListener(exists -> {
                                 SharedPreferences.Editor editor = sharedPreferences.edit();
                                 editor.putString("username", newUsername);
                                 editor.apply();
-                                binding.tvProfileUsername.setText(newUsername);
+                                if (binding != null) {
+                                    binding.tvProfileUsername.setText(newUsername);
+                                }
+                                // Old moods and comments still carry the previous name
+                                FirebaseUser firebaseUser = FirebaseAuth.getInstance().getCurrentUser();
+                                if (firebaseUser != null) {
+                                    propagation.start(firebaseUser.getUid(), newUsername);
+                                }
                                 Toast.makeText(getContext(), "User name changed to: " + newUsername, Toast.LENGTH_LONG).show();
                             })
                             .addOnFailureListener(e -> {
@@ -159,7 +183,7 @@ public class Profile extends Fragment {
 
             btnSubmitPassword.setOnClickListener(following -> {
                 String newPassword = etNewPassword.getText().toString().trim();
-                userDAO = new UserDAOImplement();
+                userDAO = DAOProvider.getUserDAO();
 
                 if (!newPassword.isEmpty()) {
                     userDAO.getCurrentUserProfile()
@@ -188,6 +212,15 @@ public class Profile extends Fragment {
                 imagePickerLauncher.launch(new Intent(MediaStore.ACTION_PICK_IMAGES)));
     }
 
+    private void showCounts(String userId) {
+        if (userId == null) return;
+        ProfileCounters.getInstance().get(userId)
+                .addOnSuccessListener(counts -> {
+                    if (binding == null) return;
+                    binding.tvProfileCounts.setText(counts.describe());
+                });
+    }
+
     private void setupImagePickerLaunchers() {
         imagePickerLauncher = registerForActivityResult(
                 new ActivityResultContracts.StartActivityForResult(),
@@ -242,6 +275,7 @@ public class Profile extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        UsernamePropagation.getInstance(requireContext()).removeListener(propagationListener);
         // Prevent memory leaks by nullifying the binding
         binding = null;
     }
@@ -35,10 +35,10 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
 
+import com.example.unemployedavengers.DAO.DAOProvider;
 import com.example.unemployedavengers.DAO.IUserDAO;
 import com.example.unemployedavengers.R;
 import com.example.unemployedavengers.databinding.SignUpBinding;
-import com.example.unemployedavengers.implementationDAO.UserDAOImplement;
 import com.google.android.gms.tasks.Task;
 
 public class SignUp extends Fragment {
@@ -61,7 +61,7 @@ public class SignUp extends Fragment {
         super.onViewCreated(view, savedInstanceState);
 
         // Initialize the User Data Access Object
-        userDAO = new UserDAOImplement();
+        userDAO = DAOProvider.getUserDAO();
 
         // Navigate back to Home fragment when Back button is clicked
         binding.btnBack.setOnClickListener(v -> {
@@ -0,0 +1,73 @@
+/**
+ * AppExecutors - The executors Task continuations run on.
+ *
+ * Purpose:
+ * - Keeps deserialization, sorting and filtering off the main thread. Task continuations run on
+ *   the main thread unless given an executor, so anything heavier than handing over a result is
+ *   continued on background() instead.
+ *
+ * Key Features:
+ * - background() is a bounded pool: 2 to 4 low-priority threads and a queue of 128 tasks. When
+ *   the queue is full the submitting thread runs the work itself rather than dropping it.
+ * - main() posts to the main thread; results reach views through it (see ViewScope).
+ * - The queue depth is exported as the "executor.background.queued" gauge.
+ *
+ * Outstanding Issues:
+ * - Threads are never shut down; the pool lives as long as the process.
+ */
+
+package com.example.unemployedavengers.concurrent;
+
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.metrics.MetricsRegistry;
+import com.google.android.gms.tasks.TaskExecutors;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class AppExecutors {
+    private static final int THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final int QUEUE_CAPACITY = 128;
+
+    private static ThreadPoolExecutor background;
+
+    private AppExecutors() {
+    }
+
+    /**
+     * @return The shared pool for deserializing and transforming results.
+     */
+    @NonNull
+    public static synchronized Executor background() {
+        if (background == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            background = new ThreadPoolExecutor(THREADS, THREADS, 30, TimeUnit.SECONDS, queue, runnable -> {
+                Thread thread = new Thread(() -> {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }, "app-background-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+            background.allowCoreThreadTimeOut(true);
+            MetricsRegistry.getInstance().gauge("executor.background.queued", queue::size);
+        }
+        return background;
+    }
+
+    /**
+     * @return Posts to the main thread.
+     */
+    @NonNull
+    public static Executor main() {
+        return TaskExecutors.MAIN_THREAD;
+    }
+}
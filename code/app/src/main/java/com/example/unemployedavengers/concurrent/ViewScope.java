@@ -0,0 +1,125 @@
+/**
+ * ViewScope - Runs a screen's data processing in the background and hands results to its view.
+ *
+ * Purpose:
+ * - Lets a fragment sort, filter or convert what it loaded without blocking the main thread, and
+ *   makes sure results arriving after the view is gone are dropped instead of touching it.
+ *
+ * Key Features:
+ * - transform() and compute() run work on the background executor; once the scope is cancelled
+ *   the work is skipped and the resulting Task is cancelled.
+ * - deliver() posts the final result to the main thread and only calls back while the scope is
+ *   active, so callbacks no longer need to check for a null binding.
+ * - Work started through one scope runs one piece at a time, in order, so a slow earlier load
+ *   never replaces the result of a newer one on screen.
+ * - of(fragment) ties the scope to the fragment's view lifecycle; it is cancelled in onDestroyView.
+ *
+ * Outstanding Issues:
+ * - A transform that is already running is not interrupted; its result is discarded.
+ */
+
+package com.example.unemployedavengers.concurrent;
+
+import androidx.annotation.NonNull;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+public final class ViewScope {
+    private final Executor background;
+    private final Executor main;
+    private volatile boolean active = true;
+    // Work of one scope runs in the order it was started
+    private Task<?> last = Tasks.forResult(null);
+
+    /**
+     * Work that turns a loaded value into what the screen shows.
+     */
+    public interface Transform<T, R> {
+        R apply(T value) throws Exception;
+    }
+
+    /**
+     * @param lifecycle The scope is cancelled when this reaches DESTROYED.
+     * @param background Runs transforms.
+     * @param main Runs deliveries; must be the thread views are touched on.
+     */
+    public ViewScope(@NonNull Lifecycle lifecycle, @NonNull Executor background, @NonNull Executor main) {
+        this.background = background;
+        this.main = main;
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            active = false;
+            return;
+        }
+        lifecycle.addObserver((LifecycleEventObserver) (source, event) -> {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                cancel();
+            }
+        });
+    }
+
+    /**
+     * Creates a scope for the fragment's current view. Call from onViewCreated or later.
+     */
+    @NonNull
+    public static ViewScope of(@NonNull Fragment fragment) {
+        return new ViewScope(fragment.getViewLifecycleOwner().getLifecycle(), AppExecutors.background(), AppExecutors.main());
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Drops every result that has not been delivered yet.
+     */
+    public void cancel() {
+        active = false;
+    }
+
+    /**
+     * @param source The load to continue from; its failure is passed through unchanged.
+     * @param transform Runs on the background executor with the loaded value.
+     * @return The transformed value, or a cancelled Task if the scope ended first.
+     */
+    @NonNull
+    public synchronized <T, R> Task<R> transform(@NonNull Task<T> source, @NonNull Transform<T, R> transform) {
+        Task<R> result = Tasks.whenAll(last, source).continueWithTask(background, ignored -> {
+            if (!active || source.isCanceled()) {
+                return Tasks.forCanceled();
+            }
+            if (!source.isSuccessful()) {
+                return Tasks.forException(source.getException());
+            }
+            return Tasks.forResult(transform.apply(source.getResult()));
+        });
+        last = result;
+        return result;
+    }
+
+    /**
+     * Runs work on the background executor, e.g. filtering a copy of what is on screen.
+     */
+    @NonNull
+    public <R> Task<R> compute(@NonNull Callable<R> work) {
+        return transform(Tasks.forResult(null), ignored -> work.call());
+    }
+
+    /**
+     * Calls the listener on the main thread when the task completes, unless the scope has ended.
+     */
+    public <T> void deliver(@NonNull Task<T> task, @NonNull OnCompleteListener<T> listener) {
+        task.addOnCompleteListener(main, done -> {
+            if (active && !done.isCanceled()) {
+                listener.onComplete(done);
+            }
+        });
+    }
+}
@@ -10,7 +10,8 @@
  * Architecture:
  * - Follows MVVM pattern using FriendMoodEventsViewModel
  * - Uses Firestore for real-time data
- * - Implements efficient loading with pagination (limit 10 docs per user)
+ * - Aggregate view reads from the local mirror kept by FollowedMoodSync, which only fetches
+ *   followees whose moods changed since the last visit
  *
  * Outstanding Issues/TODOs:
  * 1. No pagination/infinite scrolling implementation for large mood histories
@@ -42,26 +43,32 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
 
+import com.example.unemployedavengers.DAO.DAOProvider;
+import com.example.unemployedavengers.DAO.IMoodEventDAO;
 import com.example.unemployedavengers.Filter;
 import com.example.unemployedavengers.R;
 import com.example.unemployedavengers.arrayadapters.FollowedUserMoodEventAdapter;
 
 import com.example.unemployedavengers.databinding.FollowedUserMoodEventsBinding;
+import com.example.unemployedavengers.local.CachedReads;
+import com.example.unemployedavengers.local.FollowGraphStore;
+import com.example.unemployedavengers.local.FollowedMoodSync;
+import com.example.unemployedavengers.local.ReadPolicy;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.example.unemployedavengers.metrics.FragmentTracing;
+import com.example.unemployedavengers.metrics.Span;
 import com.example.unemployedavengers.models.FriendMoodEventsViewModel;
 import com.example.unemployedavengers.models.MoodEvent;
 import com.example.unemployedavengers.models.MoodEventsViewModel;
-import com.example.unemployedavengers.models.User;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -79,6 +86,9 @@ public class FollowedUserMoodEvents extends Fragment {
     private ArrayList<MoodEvent> filteredMoodList;
     private FollowedUserMoodEventAdapter filteredMoodAdapter;
     private List<String> followedUserIds;
+    private FollowedMoodSync followedMoodSync;
+    private IMoodEventDAO moodEventDAO;
+    private boolean followedMoodsSynced = false;
     private boolean isFiltered = false;
     private boolean isMood, isReason,isWeek, seeAllSelect;
 
@@ -96,6 +106,8 @@ public class FollowedUserMoodEvents extends Fragment {
 
         // Initialize FirebaseFirestore
         db = FirebaseFirestore.getInstance();
+        followedMoodSync = FollowedMoodSync.getInstance(requireContext());
+        moodEventDAO = DAOProvider.getMoodEventDAO();
         userIdToUsernameMap = new HashMap<>();
 
         // Get current user ID from SharedPreferences
@@ -161,9 +173,10 @@ public class FollowedUserMoodEvents extends Fragment {
                 ArrayList<MoodEvent> filterMoodList = new ArrayList<>(followedUserMoodEvents);
                 if (seeAll||(!mood&&!reason&&!recentWeek)) {
                     isFiltered = false;
-                    loadMoodEvents(followedUserIds);
+                    loadMoodEvents();
                 } else {
                     isFiltered = true;
+                    Span filterSpan = Span.begin("FollowedUserMoodEvents.filter");
                     if (mood) {
                         ArrayList<MoodEvent> filteredByMood = new ArrayList<>();
                         for (MoodEvent event : filterMoodList) {
@@ -197,6 +210,7 @@ public class FollowedUserMoodEvents extends Fragment {
                         }
                         filterMoodList = filteredByWeek;
                     }
+                    filterSpan.end();
 
                     // Get the username for each mood event
                     for (MoodEvent event : filterMoodList) {
@@ -205,7 +219,7 @@ public class FollowedUserMoodEvents extends Fragment {
                             FirebaseFirestore db = FirebaseFirestore.getInstance();
                             DocumentReference userDocRef = db.collection("users").document(userId);
 
-                            userDocRef.get()
+                            FirestoreMeter.getInstance().get("FollowedUserMoodEvents.username", userDocRef)
                                     .addOnSuccessListener(new OnSuccessListener<DocumentSnapshot>() {
                                         @Override
                                         public void onSuccess(DocumentSnapshot documentSnapshot) {
@@ -294,62 +308,43 @@ public class FollowedUserMoodEvents extends Fragment {
         binding.progressBar.setVisibility(View.VISIBLE);
         binding.emptyStateMessage.setVisibility(View.GONE);
 
-        followedUserMoodEvents.clear();
-
-        // Get the user's mood events
-        db.collection("users")
-                .document(userId)
-                .collection("moods")
-                .orderBy("time", Query.Direction.DESCENDING) // Sort by time descending (newest first)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    // Check if the fragment is still active
-                    if (binding == null) {
-                        return;
-                    }
-
-                    for (QueryDocumentSnapshot doc : querySnapshot) {
-                        MoodEvent moodEvent = doc.toObject(MoodEvent.class);
-
-                        // Only add public mood events
-                        // If publicStatus doesn't exist or is true, show the mood
-                        Boolean isPublic = doc.contains("publicStatus") ?
-                                doc.getBoolean("publicStatus") : true;
-
-                        if (isPublic != null && isPublic) {
-                            // Set the user ID so we can display the username
-                            moodEvent.setUserId(userId);
+        // Get the user's public mood events, from the cache first and again if the server copy differs
+        moodEventDAO.getPublicMoodEvents(userId, ReadPolicy.CACHE_THEN_NETWORK, (moodEvents, fromCache) -> {
+            // Check if the fragment is still active
+            if (binding == null) {
+                return;
+            }
 
-                            // Set username for the mood event for easier access later
-                            if (userIdToUsernameMap.containsKey(userId)) {
-                                moodEvent.setUserName(userIdToUsernameMap.get(userId));
-                            }
+            followedUserMoodEvents.clear();
+            for (MoodEvent moodEvent : moodEvents) {
+                // Set username for the mood event for easier access later
+                if (userIdToUsernameMap.containsKey(userId)) {
+                    moodEvent.setUserName(userIdToUsernameMap.get(userId));
+                }
 
-                            followedUserMoodEvents.add(moodEvent);
-                        }
-                    }
+                followedUserMoodEvents.add(moodEvent);
+            }
 
-                    // Sort all mood events by time in reverse chronological order
-                    Collections.sort(followedUserMoodEvents, (event1, event2) ->
-                            Long.compare(event2.getTime(), event1.getTime())
-                    );
+            // Sort all mood events by time in reverse chronological order
+            Collections.sort(followedUserMoodEvents, (event1, event2) ->
+                    Long.compare(event2.getTime(), event1.getTime())
+            );
 
-                    updateUI();
-                })
-                .addOnFailureListener(e -> {
-                    // Check if the fragment is still active
-                    if (binding == null) {
-                        return;
-                    }
+            updateUI();
+        }, e -> {
+            // Check if the fragment is still active
+            if (binding == null) {
+                return;
+            }
 
-                    binding.progressBar.setVisibility(View.GONE);
-                    binding.emptyStateMessage.setText("Error loading mood events");
-                    binding.emptyStateMessage.setVisibility(View.VISIBLE);
+            binding.progressBar.setVisibility(View.GONE);
+            binding.emptyStateMessage.setText("Error loading mood events");
+            binding.emptyStateMessage.setVisibility(View.VISIBLE);
 
-                    if (getContext() != null) {
-                        Toast.makeText(getContext(), "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    }
-                });
+            if (getContext() != null) {
+                Toast.makeText(getContext(), "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     /**
@@ -374,188 +369,137 @@ public class FollowedUserMoodEvents extends Fragment {
             return;
         }
 
-        db.collection("users")
-                .document(currentUserId)
-                .collection("following")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    // Check if the fragment is still active
-                    if (binding == null) {
-                        return;
-                    }
+        // Show the moods stored on disk while the following list and the sync are loading
+        loadMoodEvents();
 
-                    followedUserIds = new ArrayList<>();
+        // The followees are already in memory once Dashboard has started tracking the user
+        FollowGraphStore followGraph = FollowGraphStore.getInstance();
+        if (followGraph.isTracking(currentUserId)) {
+            onFollowedUserIds(new ArrayList<>(followGraph.getFollowing()));
+            return;
+        }
 
-                    for (DocumentSnapshot document : querySnapshot.getDocuments()) {
-                        String followedId = document.getString("followedId");
-                        if (followedId != null) {
-                            followedUserIds.add(followedId);
-                        }
-                    }
+        Query followingQuery = db.collection("users").document(currentUserId).collection("following");
+        CachedReads.get("FollowedUserMoodEvents.following", followingQuery, ReadPolicy.CACHE_THEN_NETWORK, (querySnapshot, fromCache) -> {
+            // Check if the fragment is still active
+            if (binding == null) {
+                return;
+            }
 
-                    if (followedUserIds.isEmpty()) {
-                        if (binding == null) return;
+            List<String> ids = new ArrayList<>();
 
-                        binding.progressBar.setVisibility(View.GONE);
-                        binding.emptyStateMessage.setText("You're not following anyone yet");
-                        binding.emptyStateMessage.setVisibility(View.VISIBLE);
-                        binding.followedUsersListView.setVisibility(View.GONE);
-                    } else {
-                        // Load usernames for all followed users
-                        loadUsernames(followedUserIds);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    // Check if the fragment is still active
-                    if (binding == null) {
-                        return;
-                    }
+            for (DocumentSnapshot document : querySnapshot.getDocuments()) {
+                String followedId = document.getString("followedId");
+                if (followedId != null) {
+                    ids.add(followedId);
+                }
+            }
 
-                    binding.progressBar.setVisibility(View.GONE);
-                    binding.emptyStateMessage.setText("Error loading following data");
-                    binding.emptyStateMessage.setVisibility(View.VISIBLE);
-                    if (getContext() != null) {
-                        Toast.makeText(getContext(), "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    }
-                });
+            onFollowedUserIds(ids);
+        }, e -> {
+            // Check if the fragment is still active
+            if (binding == null) {
+                return;
+            }
+
+            binding.progressBar.setVisibility(View.GONE);
+            binding.emptyStateMessage.setText("Error loading following data");
+            binding.emptyStateMessage.setVisibility(View.VISIBLE);
+            if (getContext() != null) {
+                Toast.makeText(getContext(), "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     /**
-     * Loads usernames for all followed users
-     * @param userIds List of user IDs to load usernames for
+     * Shows the empty state or syncs the moods of the given followees.
+     * @param ids The users the current user follows
      */
-    private void loadUsernames(List<String> userIds) {
-        int[] completedCount = {0}; // Use array to allow modification in lambda
-
-        for (String userId : userIds) {
-            db.collection("users")
-                    .document(userId)
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        // Check if the fragment is still active
-                        if (binding == null) {
-                            return;
-                        }
+    private void onFollowedUserIds(List<String> ids) {
+        followedUserIds = ids;
 
-                        User user = documentSnapshot.toObject(User.class);
-                        if (user != null && user.getUsername() != null) {
-                            // Store username mapping
-                            userIdToUsernameMap.put(userId, user.getUsername());
-                        }
-
-                        completedCount[0]++;
+        if (followedUserIds.isEmpty()) {
+            binding.progressBar.setVisibility(View.GONE);
+            binding.emptyStateMessage.setText("You're not following anyone yet");
+            binding.emptyStateMessage.setVisibility(View.VISIBLE);
+            binding.followedUsersListView.setVisibility(View.GONE);
+        } else {
+            syncFollowedMoods(followedUserIds);
+        }
+    }
 
-                        // When all usernames are loaded, load the mood events
-                        if (completedCount[0] >= userIds.size()) {
-                            loadMoodEvents(userIds);
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        // Check if the fragment is still active
-                        if (binding == null) {
-                            return;
-                        }
+    /**
+     * Brings the local mirror of followed users' moods up to date. FollowedMoodSync only reads
+     * followees that posted or changed a mood since the last sync.
+     * @param userIds List of user IDs to sync mood events for
+     */
+    private void syncFollowedMoods(List<String> userIds) {
+        followedMoodSync.sync(currentUserId, userIds).addOnCompleteListener(syncTask -> {
+            // Check if the fragment is still active
+            if (binding == null) {
+                return;
+            }
 
-                        completedCount[0]++;
+            if (!syncTask.isSuccessful()) {
+                Log.e("FollowedUserMoodEvents", "Error syncing followed mood events", syncTask.getException());
+                if (followedUserMoodEvents.isEmpty()) {
+                    binding.progressBar.setVisibility(View.GONE);
+                    binding.emptyStateMessage.setText("Error loading mood events");
+                    binding.emptyStateMessage.setVisibility(View.VISIBLE);
+                }
+                return;
+            }
 
-                        // Continue loading even if some usernames fail
-                        if (completedCount[0] >= userIds.size()) {
-                            loadMoodEvents(userIds);
-                        }
-                    });
-        }
+            followedMoodsSynced = true;
+            if (Boolean.TRUE.equals(syncTask.getResult())) {
+                loadMoodEvents();
+            } else {
+                updateUI();
+            }
+        });
     }
 
     /**
-     * Loads mood events from all followed users
-     * Only shows public mood events
-     * @param userIds List of user IDs to load mood events for
+     * Loads the 3 most recent public mood events of every followed user from the local mirror
      */
-    private void loadMoodEvents(List<String> userIds) {
+    private void loadMoodEvents() {
         // Check if the fragment is still active
-        if (binding == null) {
+        if (binding == null || currentUserId == null) {
             return;
         }
 
-        followedUserMoodEvents.clear();
-        int[] completedCount = {0}; // Use array to allow modification in lambda
-
-        for (String userId : userIds) {
-            // Get all mood events and filter client-side if needed
-            db.collection("users")
-                    .document(userId)
-                    .collection("moods")
-                    .orderBy("time", Query.Direction.DESCENDING) // Sort by time descending (newest first)
-                    .limit(10) // Get more than we need in case some are private
-                    .get()
-                    .addOnSuccessListener(querySnapshot -> {
-                        // Check if the fragment is still active
-                        if (binding == null) {
-                            return;
-                        }
-
-                        int count = 0;
-                        for (QueryDocumentSnapshot doc : querySnapshot) {
-                            MoodEvent moodEvent = doc.toObject(MoodEvent.class);
-
-                            // Only add public mood events
-                            // If publicStatus doesn't exist or is true, show the mood
-                            Boolean isPublic = doc.contains("publicStatus") ?
-                                    doc.getBoolean("publicStatus") : true;
-
-                            if (isPublic != null && isPublic) {
-                                // Set the user ID so we can display the username
-                                moodEvent.setUserId(userId);
-
-                                // Set username for the mood event for easier access later
-                                if (userIdToUsernameMap.containsKey(userId)) {
-                                    moodEvent.setUserName(userIdToUsernameMap.get(userId));
-                                }
-
-                                followedUserMoodEvents.add(moodEvent);
-                                count++;
-
-                                // Only take the 3 most recent public moods
-                                if (count >= 3) {
-                                    break;
-                                }
-                            }
-                        }
-
-                        completedCount[0]++;
-
-                        // When all mood events are loaded, update the UI
-                        if (completedCount[0] >= userIds.size()) {
-                            // Sort all mood events by time in reverse chronological order
-                            Collections.sort(followedUserMoodEvents, new Comparator<MoodEvent>() {
-                                @Override
-                                public int compare(MoodEvent event1, MoodEvent event2) {
-                                    // Compare in reverse order for descending sort (newest first)
-                                    return Long.compare(event2.getTime(), event1.getTime());
-                                }
-                            });
-
-                            updateUI();
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        // Check if the fragment is still active
-                        if (binding == null) {
-                            return;
-                        }
-
-                        completedCount[0]++;
+        followedMoodSync.getUsernames(currentUserId).addOnSuccessListener(usernames -> {
+            if (binding == null) {
+                return;
+            }
+            userIdToUsernameMap.putAll(usernames);
 
-                        // Continue updating UI even if some mood events fail to load
-                        if (completedCount[0] >= userIds.size()) {
-                            updateUI();
-                        }
-                    });
-        }
+            followedMoodSync.getFeed(currentUserId, 3).addOnCompleteListener(feedTask -> {
+                // Check if the fragment is still active
+                if (binding == null) {
+                    return;
+                }
+                if (!feedTask.isSuccessful()) {
+                    Log.e("FollowedUserMoodEvents", "Error reading followed mood events", feedTask.getException());
+                    return;
+                }
 
-        binding.followedUsersListView.setAdapter(moodAdapter);
-        moodAdapter.notifyDataSetChanged();
+                followedUserMoodEvents.clear();
+                for (MoodEvent moodEvent : feedTask.getResult()) {
+                    // Set username for the mood event for easier access later
+                    if (userIdToUsernameMap.containsKey(moodEvent.getUserId())) {
+                        moodEvent.setUserName(userIdToUsernameMap.get(moodEvent.getUserId()));
+                    }
+                    followedUserMoodEvents.add(moodEvent);
+                }
 
+                binding.followedUsersListView.setAdapter(moodAdapter);
+                // Keep the progress bar up instead of an empty state until the first sync is done
+                if (followedMoodsSynced || !followedUserMoodEvents.isEmpty()) {
+                    updateUI();
+                }
+            });
+        });
     }
 
     /**
@@ -585,6 +529,7 @@ public class FollowedUserMoodEvents extends Fragment {
             binding.emptyStateMessage.setVisibility(View.GONE);
             binding.followedUsersListView.setVisibility(View.VISIBLE);
         }
+        FragmentTracing.reportFirstContent(this);
     }
 
     @Override
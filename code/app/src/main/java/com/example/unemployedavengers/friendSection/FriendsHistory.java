@@ -11,6 +11,16 @@
  * Design Pattern:
  * - This fragment follows a typical MVP (Model-View-Presenter) pattern by separating UI logic and business logic.
  *
+ * The following list comes from FollowGraphStore when it tracks the user, and otherwise, like the followed users'
+ * details, is read through CachedReads, so a warm open shows the cached list immediately and only redraws if the
+ * server copy differs.
+ *
+ * The header shows the user's follower, followee and mood counts from ProfileCounters' count() aggregations
+ * instead of the length of the downloaded list.
+ *
+ * Followees who follow back are marked as mutual. The marks come from one IUserDAO.getRelationships call for the
+ * whole list, which makes no reads while FollowGraphStore tracks the user.
+ *
  * Outstanding Issues:
  * - Loading followed users and their details could be optimized to reduce the number of separate calls to Firestore.
  * - There is no loading or progress indicator during data fetch, which may confuse users if the list takes time to load.
@@ -35,16 +45,24 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
 
+import com.example.unemployedavengers.DAO.DAOProvider;
 import com.example.unemployedavengers.R;
 import com.example.unemployedavengers.databinding.FriendsHistoryBinding;
+import com.example.unemployedavengers.implementationDAO.ProfileCounters;
+import com.example.unemployedavengers.local.CachedReads;
+import com.example.unemployedavengers.local.FollowGraphStore;
+import com.example.unemployedavengers.local.Relationships;
+import com.example.unemployedavengers.local.ReadPolicy;
 import com.example.unemployedavengers.models.User;
-import com.google.android.gms.tasks.Task;
-import com.google.android.gms.tasks.Tasks;
+import com.example.unemployedavengers.models.UserMapper;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class FriendsHistory extends Fragment {
     private FriendsHistoryBinding binding;
@@ -52,6 +70,8 @@ public class FriendsHistory extends Fragment {
     private String currentUserId;
     private List<User> followedUsers;
     private ArrayAdapter<String> friendsAdapter;
+    // Incremented by every list shown, so relationships resolved for an older list are dropped
+    private int listGeneration;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater,
@@ -89,6 +109,11 @@ public class FriendsHistory extends Fragment {
 
         // Load friends list
         loadFriendsList();
+        ProfileCounters.getInstance().get(currentUserId)
+                .addOnSuccessListener(counts -> {
+                    if (binding == null) return;
+                    binding.friendsCounts.setText(counts.describe());
+                });
 
         binding.friendsButton.setOnClickListener(v -> {
             Navigation.findNavController(v).navigate(R.id.action_friendsHistoryFragment_to_userSearchFragment);
@@ -102,98 +127,118 @@ public class FriendsHistory extends Fragment {
     }
 
     private void loadFriendsList() {
-        db.collection("users")
-                .document(currentUserId)
-                .collection("following")
-                .get()
-                .addOnCompleteListener(task -> {
-                    // Check if the fragment is still active
-                    if (binding == null) {
-                        return;
-                    }
-
-                    if (task.isSuccessful()) {
-                        if (task.getResult().isEmpty()) {
-                            updateUIForEmptyFriendsList();
-                            return;
-                        }
-
-                        List<String> followedUserIds = new ArrayList<>();
-                        for (DocumentSnapshot doc : task.getResult().getDocuments()) {
-                            String followedUserId = doc.getString("followedId");
-                            if (followedUserId != null) {
-                                followedUserIds.add(followedUserId);
-                            }
-                        }
-
-                        // Only fetch details if we have followed user IDs
-                        if (!followedUserIds.isEmpty()) {
-                            fetchFollowedUsersDetails(followedUserIds);
-                        } else {
-                            updateUIForEmptyFriendsList();
-                        }
-                    } else {
-                        updateUIForEmptyFriendsList();
-                    }
-                });
-    }
-
-    private void fetchFollowedUsersDetails(List<String> followedUserIds) {
-        List<Task<DocumentSnapshot>> tasks = new ArrayList<>();
-
-        for (String userId : followedUserIds) {
-            Task<DocumentSnapshot> task = db.collection("users")
-                    .document(userId)
-                    .get();
-            tasks.add(task);
+        // The followees are already in memory once Dashboard has started tracking the user
+        FollowGraphStore followGraph = FollowGraphStore.getInstance();
+        if (followGraph.isTracking(currentUserId)) {
+            List<DocumentReference> followedUserRefs = new ArrayList<>();
+            for (String followedUserId : followGraph.getFollowing()) {
+                followedUserRefs.add(db.collection("users").document(followedUserId));
+            }
+            if (followedUserRefs.isEmpty()) {
+                updateUIForEmptyFriendsList();
+            } else {
+                fetchFollowedUsersDetails(followedUserRefs);
+            }
+            return;
         }
 
-        Tasks.whenAllComplete(tasks)
-                .addOnSuccessListener(taskResults -> {
-                    // Check if the fragment is still active
-                    if (binding == null) {
-                        return;
-                    }
-
-                    followedUsers.clear();
-                    friendsAdapter.clear();
-
-                    for (Object resultTask : taskResults) {
-                        Task<DocumentSnapshot> task = (Task<DocumentSnapshot>) resultTask;
-                        try {
-                            if (task.isSuccessful()) {
-                                DocumentSnapshot documentSnapshot = task.getResult();
-
-                                if (documentSnapshot != null && documentSnapshot.exists()) {
-                                    User user = documentSnapshot.toObject(User.class);
-
-                                    if (user != null) {
-                                        followedUsers.add(user);
-                                        friendsAdapter.add(user.getUsername());
-                                    }
-                                }
-                            }
-                        } catch (Exception e) {
-                            // Handle exception silently in production
-                        }
-                    }
+        // Served from the cache first, then again only if the server copy differs
+        Query followingQuery = db.collection("users").document(currentUserId).collection("following");
+        CachedReads.get("FriendsHistory.following", followingQuery, ReadPolicy.CACHE_THEN_NETWORK, (querySnapshot, fromCache) -> {
+            // Check if the fragment is still active
+            if (binding == null) {
+                return;
+            }
+
+            if (querySnapshot.isEmpty()) {
+                updateUIForEmptyFriendsList();
+                return;
+            }
+
+            List<DocumentReference> followedUserRefs = new ArrayList<>();
+            for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
+                String followedUserId = doc.getString("followedId");
+                if (followedUserId != null) {
+                    followedUserRefs.add(db.collection("users").document(followedUserId));
+                }
+            }
+
+            // Only fetch details if we have followed user IDs
+            if (!followedUserRefs.isEmpty()) {
+                fetchFollowedUsersDetails(followedUserRefs);
+            } else {
+                updateUIForEmptyFriendsList();
+            }
+        }, e -> {
+            // Check if the fragment is still active
+            if (binding == null) {
+                return;
+            }
+
+            updateUIForEmptyFriendsList();
+        });
+    }
 
-                    // Update UI
-                    if (followedUsers.isEmpty()) {
-                        updateUIForEmptyFriendsList();
-                    } else {
-                        updateUIWithFriendsList();
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    // Check if the fragment is still active
-                    if (binding == null) {
-                        return;
+    private void fetchFollowedUsersDetails(List<DocumentReference> followedUserRefs) {
+        CachedReads.getAll("FriendsHistory.followedUsers", followedUserRefs, ReadPolicy.CACHE_THEN_NETWORK, (documentSnapshots, fromCache) -> {
+            // Check if the fragment is still active
+            if (binding == null) {
+                return;
+            }
+
+            followedUsers.clear();
+            friendsAdapter.clear();
+
+            List<String> followedUserIds = new ArrayList<>();
+            for (DocumentSnapshot documentSnapshot : documentSnapshots) {
+                if (documentSnapshot.exists()) {
+                    User user = UserMapper.fromMap(documentSnapshot.getData());
+
+                    if (user != null) {
+                        followedUsers.add(user);
+                        followedUserIds.add(user.getUserId());
+                        friendsAdapter.add(user.getUsername());
                     }
+                }
+            }
+            markMutualFollows(followedUserIds, ++listGeneration);
+
+            // Update UI
+            if (followedUsers.isEmpty()) {
+                updateUIForEmptyFriendsList();
+            } else {
+                updateUIWithFriendsList();
+            }
+        }, e -> {
+            // Check if the fragment is still active
+            if (binding == null) {
+                return;
+            }
+
+            updateUIForEmptyFriendsList();
+        });
+    }
 
-                    updateUIForEmptyFriendsList();
+    /**
+     * Relabels the rows of followees who follow back, once their relationships are known.
+     */
+    private void markMutualFollows(List<String> followedUserIds, int generation) {
+        if (followedUserIds.isEmpty()) return;
+        DAOProvider.getUserDAO().getRelationships(currentUserId, followedUserIds)
+                .addOnSuccessListener(relationships -> {
+                    if (binding == null || generation != listGeneration) return;
+                    showRelationships(relationships);
                 });
+    }
 
+    private void showRelationships(Map<String, String> relationships) {
+        friendsAdapter.setNotifyOnChange(false);
+        friendsAdapter.clear();
+        for (User user : followedUsers) {
+            boolean mutual = Relationships.MUTUAL.equals(relationships.get(user.getUserId()));
+            friendsAdapter.add(mutual ? user.getUsername() + " \u00B7 Mutual" : user.getUsername());
+        }
+        friendsAdapter.notifyDataSetChanged();
     }
 
     private void updateUIForEmptyFriendsList() {
@@ -202,6 +247,7 @@ public class FriendsHistory extends Fragment {
             return;
         }
 
+        listGeneration++;
         friendsAdapter.clear();
         Toast.makeText(getContext(), "You haven't followed any users yet", Toast.LENGTH_SHORT).show();
     }
@@ -8,6 +8,7 @@
  *
  * Key Features:
  * - Display mood event details (mood, time, reason, situation, and image).
+ * - Loads the situation and image of moods passed in as summaries once the rest is shown.
  * - Allow users to add top-level comments or replies to existing comments.
  * - Display comments and replies dynamically from Firebase Firestore.
  * - Handle comment deletion and update the UI accordingly.
@@ -30,7 +31,6 @@ import static android.view.View.VISIBLE;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.graphics.drawable.Drawable;
-import android.graphics.Color;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.util.Log;
@@ -53,21 +53,24 @@ import androidx.navigation.Navigation;
 
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.request.target.Target;
+import com.example.unemployedavengers.DAO.DAOProvider;
 import com.example.unemployedavengers.R;
 import com.example.unemployedavengers.arrayadapters.CommentAdapter;
+import com.example.unemployedavengers.arrayadapters.MoodColors;
+import com.example.unemployedavengers.arrayadapters.MoodDisplayFormat;
+import com.example.unemployedavengers.concurrent.ViewScope;
 import com.example.unemployedavengers.databinding.MoodDetailBinding;
 import com.example.unemployedavengers.implementationDAO.CommentManager;
+import com.example.unemployedavengers.implementationDAO.CommentThreads;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
 import com.example.unemployedavengers.models.Comment;
 import com.example.unemployedavengers.models.MoodEvent;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -126,6 +129,7 @@ public class MoodDetailFragment extends Fragment {
             source = getArguments().getString("source");
             if (moodEvent != null) {
                 displayMoodEvent();
+                loadDetail();
                 loadComments();
             }
         }
@@ -187,7 +191,7 @@ public class MoodDetailFragment extends Fragment {
 
         FirebaseFirestore db = FirebaseFirestore.getInstance();
         DocumentReference userDocRef = db.collection("users").document(moodEvent.getUserId());
-        userDocRef.get().addOnSuccessListener(documentSnapshot -> {
+        FirestoreMeter.getInstance().get("MoodDetailFragment.avatar", userDocRef).addOnSuccessListener(documentSnapshot -> {
             if (documentSnapshot.exists()) {
                 String profilePicUrl = documentSnapshot.getString("avatar");
                 if (profilePicUrl != null && !profilePicUrl.isEmpty()) {
@@ -204,11 +208,10 @@ public class MoodDetailFragment extends Fragment {
         binding.tvMoodType.setText(moodEvent.getMood());
 
         // Set appropriate mood color based on mood type
-        binding.tvMoodType.setTextColor(getMoodColor(requireContext(), moodEvent.getMood()));
+        binding.tvMoodType.setTextColor(MoodColors.forMood(requireContext(), moodEvent.getMood()));
 
         // Format timestamp
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
-        String formattedTime = sdf.format(new Date(moodEvent.getTime()));
+        String formattedTime = MoodDisplayFormat.formatTimestamp(moodEvent.getTime());
         binding.tvMoodTime.setText(formattedTime);
 
         // Set username
@@ -245,25 +248,22 @@ public class MoodDetailFragment extends Fragment {
         }
     }
 
+
     /**
-     * Helper method to set consistent mood colors based on mood type
-     * @param context Application context
-     * @param mood The mood string to determine color for
-     * @return The appropriate color for the mood
+     * List screens pass moods read from their summary; the situation and image are fetched here
+     * and the mood is shown again once they arrive.
      */
-    private int getMoodColor(Context context, String mood) {
-        String lowerMood = mood.toLowerCase(); // Normalize case
-
-        if (lowerMood.contains("anger")) return Color.RED;
-        if (lowerMood.contains("confusion")) return ContextCompat.getColor(context, R.color.orange);
-        if (lowerMood.contains("disgust")) return Color.GREEN;
-        if (lowerMood.contains("fear")) return Color.BLUE;
-        if (lowerMood.contains("happiness")) return ContextCompat.getColor(context, R.color.baby_blue);
-        if (lowerMood.contains("sadness")) return Color.GRAY;
-        if (lowerMood.contains("shame")) return ContextCompat.getColor(context, R.color.yellow);
-        if (lowerMood.contains("surprise")) return ContextCompat.getColor(context, R.color.pink);
-
-        return ContextCompat.getColor(context, R.color.black); // Default color
+    private void loadDetail() {
+        if (!moodEvent.needsDetail()) {
+            return;
+        }
+        ViewScope.of(this).deliver(DAOProvider.getMoodEventDAO().loadDetail(moodEvent), task -> {
+            if (task.isSuccessful()) {
+                displayMoodEvent();
+            } else {
+                Log.e("MoodDetailFragment", "Failed to load mood detail", task.getException());
+            }
+        });
     }
 
     private void loadComments() {
@@ -271,10 +271,12 @@ public class MoodDetailFragment extends Fragment {
             return;
         }
 
-        commentManager.getCommentsForMoodEvent(moodEvent.getId(), false)
-                .addOnSuccessListener(topLevelComments -> {
+        // One query for every comment, grouped here, instead of one more query per comment for its replies
+        commentManager.getCommentsForMoodEvent(moodEvent.getId(), true)
+                .addOnSuccessListener(allComments -> {
+                    CommentThreads threads = CommentThreads.build(allComments);
                     comments.clear();
-                    comments.addAll(topLevelComments);
+                    comments.addAll(threads.topLevel);
 
                     // Update comment count
                     View view = getView();
@@ -283,9 +285,10 @@ public class MoodDetailFragment extends Fragment {
                         commentCount.setText(String.valueOf(comments.size()));
                     }
 
-                    // Load replies for each comment
-                    for (Comment comment : comments) {
-                        loadRepliesForComment(comment.getId());
+                    repliesMap.clear();
+                    repliesMap.putAll(threads.replies);
+                    for (Map.Entry<String, List<Comment>> thread : threads.replies.entrySet()) {
+                        commentAdapter.setReplies(thread.getKey(), thread.getValue());
                     }
 
                     commentAdapter.notifyDataSetChanged();
@@ -9,6 +9,10 @@
  * - Fetches the logged-in user's profile and the selected user's profile.
  * - Displays the selected user's profile picture and username.
  * - Handles follow requests and updates the UI accordingly.
+ * - Uses the follow status passed in by UserSearch, if any, instead of looking it up again.
+ * - Shows the selected user's follower, followee and mood counts from ProfileCounters.
+ * - Marks a user who follows back, or follows without being followed, from
+ *   IUserDAO.getRelationships, which also gives the follow status when none was passed in.
  *
  * Outstanding Issues:
  * - Error handling: If fetching user data fails, UI feedback could be improved.
@@ -31,14 +35,20 @@ import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
 
 import com.bumptech.glide.Glide;
+import com.example.unemployedavengers.DAO.DAOProvider;
 import com.example.unemployedavengers.DAO.IUserDAO;
 import com.example.unemployedavengers.R;
 import com.example.unemployedavengers.databinding.UserProfileBinding;
-import com.example.unemployedavengers.implementationDAO.UserDAOImplement;
+import com.example.unemployedavengers.implementationDAO.ProfileCounters;
+import com.example.unemployedavengers.local.CachedReads;
+import com.example.unemployedavengers.local.ReadPolicy;
+import com.example.unemployedavengers.local.Relationships;
 import com.example.unemployedavengers.models.User;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
 
+import java.util.Collections;
+
 public class UserProfile extends Fragment {
     private UserProfileBinding binding;
     private IUserDAO userDAO;
@@ -57,9 +67,10 @@ public class UserProfile extends Fragment {
     public void onViewCreated(@NonNull View view,
                               @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
-        userDAO = new UserDAOImplement();
+        userDAO = DAOProvider.getUserDAO();
 
         String selectedUsername = getArguments() != null ? getArguments().getString("selectedUsername") : null;
+        String knownStatus = getArguments() != null ? getArguments().getString("followStatus") : null;
 
         if (selectedUsername == null) {
             Toast.makeText(getContext(), "No user selected", Toast.LENGTH_SHORT).show();
@@ -75,42 +86,46 @@ public class UserProfile extends Fragment {
                 viewedUser = target;
 
                 if (viewedUser != null) {
+                    if (binding == null) return;
                     binding.userUsername.setText(viewedUser.getUsername());
+                    ProfileCounters.getInstance().get(viewedUser.getUserId())
+                            .addOnSuccessListener(counts -> {
+                                if (binding == null) return;
+                                binding.userCounts.setText(counts.describe());
+                            });
 
                     FirebaseFirestore db = FirebaseFirestore.getInstance();
                     DocumentReference userDocRef = db.collection("users").document(viewedUser.getUserId());
-                    userDocRef.get().addOnSuccessListener(documentSnapshot -> {
+                    // Show the cached avatar right away; reload it only if the server has a different one
+                    CachedReads.get("UserProfile.user", userDocRef, ReadPolicy.CACHE_THEN_NETWORK, (documentSnapshot, fromCache) -> {
+                        if (binding == null) return;
                         if (documentSnapshot.exists()) {
                             String profilePicUrl = documentSnapshot.getString("avatar");
                             if (profilePicUrl != null && !profilePicUrl.isEmpty()) {
                                 Glide.with(requireContext()).load(profilePicUrl).into(userImage);
                             }
                         }
-                    }).addOnFailureListener(e -> {
+                    }, e -> {
                         Log.e("CommentAdapter", "Failed to load profile picture", e);
                     });
 
 
-                    userDAO.getFollowStatus(currentUser.getUserId(), viewedUser.getUserId())
-                            .addOnSuccessListener(status -> {
-                                switch (status) {
-                                    case "following":
-                                        binding.followButton.setText("Following");
-                                        binding.followButton.setEnabled(false);
-                                        break;
-                                    case "requested":
-                                        binding.followButton.setText("Requested");
-                                        binding.followButton.setEnabled(false);
-                                        break;
-                                    case "none":
-                                        binding.followButton.setText("Follow");
-                                        binding.followButton.setVisibility(View.VISIBLE);
-                                        setupFollowLogic();
-                                        break;
+                    if (knownStatus != null) {
+                        showFollowStatus(knownStatus);
+                    }
+                    String viewedUserId = viewedUser.getUserId();
+                    userDAO.getRelationships(currentUser.getUserId(), Collections.singletonList(viewedUserId))
+                            .addOnSuccessListener(relationships -> {
+                                String relationship = relationships.get(viewedUserId);
+                                showRelationship(relationship);
+                                if (knownStatus == null) {
+                                    showFollowStatus(followStatusOf(relationship));
                                 }
                             })
                             .addOnFailureListener(e -> {
-                                Toast.makeText(getContext(), "Error checking follow status", Toast.LENGTH_SHORT).show();
+                                if (knownStatus == null) {
+                                    Toast.makeText(getContext(), "Error checking follow status", Toast.LENGTH_SHORT).show();
+                                }
                             });
 
                 } else {
@@ -124,6 +139,48 @@ public class UserProfile extends Fragment {
         );
     }
 
+    private void showRelationship(String relationship) {
+        if (binding == null) return;
+        if (Relationships.MUTUAL.equals(relationship)) {
+            binding.userRelationship.setText("Mutual");
+            binding.userRelationship.setVisibility(View.VISIBLE);
+        } else if (Relationships.FOLLOWER.equals(relationship)) {
+            binding.userRelationship.setText("Follows you");
+            binding.userRelationship.setVisibility(View.VISIBLE);
+        } else {
+            binding.userRelationship.setVisibility(View.GONE);
+        }
+    }
+
+    // Mutual is a follow that is followed back
+    private static String followStatusOf(String relationship) {
+        if (Relationships.MUTUAL.equals(relationship) || Relationships.FOLLOWING.equals(relationship)) {
+            return "following";
+        } else if (Relationships.REQUESTED.equals(relationship)) {
+            return "requested";
+        }
+        return "none";
+    }
+
+    private void showFollowStatus(String status) {
+        if (binding == null) return;
+        switch (status) {
+            case "following":
+                binding.followButton.setText("Following");
+                binding.followButton.setEnabled(false);
+                break;
+            case "requested":
+                binding.followButton.setText("Requested");
+                binding.followButton.setEnabled(false);
+                break;
+            case "none":
+                binding.followButton.setText("Follow");
+                binding.followButton.setVisibility(View.VISIBLE);
+                setupFollowLogic();
+                break;
+        }
+    }
+
     private void setupFollowLogic() {
         binding.followButton.setOnClickListener(v -> {
             if (currentUser == null || viewedUser == null) {
@@ -3,7 +3,14 @@
  *
  * Key functionalities:
  * - Allows the current user to input a search query (username).
- * - Queries the user database for matching usernames and displays the results.
+ * - Searches as the user types: keystrokes are debounced, results are capped at RESULT_LIMIT and
+ *   results of a superseded search are dropped.
+ * - Prefixes that narrow an earlier complete search are answered from the session's UsernameTrie
+ *   without another query.
+ * - Marks results the user already follows or has requested, resolved for the whole list with one
+ *   getFollowStatuses call, and hands the status on to UserProfile.
+ * - While the search text is empty, shows SuggestionStore's friend suggestions from disk, each
+ *   with the number of followees who follow them, and refreshes them when they are due.
  * - Allows the user to select a username from the search results to view their profile.
  * - Provides feedback for invalid or failed searches.
  *
@@ -17,7 +24,6 @@
  *    - Potential crash if `getContext()` is null when displaying Toast messages.
  *
  * 3. Performance Optimization:
- *    - Searching a large user database might cause lag. Implement a debounce mechanism to delay execution until typing stops.
  *    - Consider using a `RecyclerView` instead of `ListView` for better performance with large datasets.
  *
  * 4. Navigation Issue:
@@ -26,11 +32,16 @@
 
 package com.example.unemployedavengers.friendSection;
 
+import android.content.Context;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.ArrayAdapter;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -38,18 +49,48 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.Navigation;
 
+import com.example.unemployedavengers.DAO.DAOProvider;
 import com.example.unemployedavengers.DAO.IUserDAO;
 import com.example.unemployedavengers.R;
+import com.example.unemployedavengers.arrayadapters.UserSearchAdapter;
 import com.example.unemployedavengers.databinding.UserSearchBinding;
-import com.example.unemployedavengers.implementationDAO.UserDAOImplement;
+import com.example.unemployedavengers.local.SuggestionStore;
 import com.example.unemployedavengers.models.User;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class  UserSearch extends Fragment {
+    private static final long DEBOUNCE_MS = 300;
+    private static final int RESULT_LIMIT = 20;
+    // Usernames seen earlier are trusted for this long before the trie is rebuilt
+    private static final long SESSION_MAX_AGE_MS = 10 * 60 * 1000;
+
+    // Shared by every UserSearch of the signed-in user
+    private static final UsernameTrie sessionTrie = new UsernameTrie();
+    private static String sessionUserId;
+    private static long sessionStartedAt;
+
     private UserSearchBinding binding;
     private IUserDAO userDAO;
+    private String currentUserId;
+    private UserSearchAdapter adapter;
+    private SuggestionStore suggestionStore;
+    private final SuggestionStore.Listener suggestionsListener = userId -> {
+        if (binding != null && userId.equals(currentUserId)
+                && binding.etUsername.getText().toString().trim().isEmpty()) {
+            // Drops any search still running for text since cleared
+            searchGeneration++;
+            showSuggestions();
+        }
+    };
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable debouncedSearch = () -> search(false);
+    // Incremented by every search, so results of superseded searches are dropped
+    private int searchGeneration;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater,
@@ -63,48 +104,150 @@ public class  UserSearch extends Fragment {
     public void onViewCreated(@NonNull View view,
                               @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
-        userDAO = new UserDAOImplement();
+        userDAO = DAOProvider.getUserDAO();
+        currentUserId = requireContext().getSharedPreferences("user_preferences", Context.MODE_PRIVATE)
+                .getString("userID", null);
+        startSession(currentUserId);
+        suggestionStore = SuggestionStore.getInstance(requireContext());
+        suggestionStore.addListener(suggestionsListener);
+        if (currentUserId != null) {
+            showSuggestions();
+            suggestionStore.refreshIfDue(currentUserId);
+        }
 
         binding.searchButton.setOnClickListener(v -> {
-            String searchQuery = binding.etUsername.getText().toString().trim();
-            if (searchQuery.isEmpty()) {
-                Toast.makeText(getContext(), "Please enter a username to search", Toast.LENGTH_SHORT).show();
-                return;
+            handler.removeCallbacks(debouncedSearch);
+            search(true);
+        });
+
+        binding.etUsername.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
             }
 
-            userDAO.searchUsers(searchQuery)
-                    .addOnSuccessListener(userList -> {
-                        List<String> usernames = new ArrayList<>();
-                        for (User user : userList) {
-                            usernames.add(user.getUsername());
-                        }
-
-                        ArrayAdapter<String> adapter = new ArrayAdapter<>(
-                                getContext(),
-                                R.layout.search_item,
-                                R.id.username_text,
-                                usernames
-                        );
-                        binding.searchList.setAdapter(adapter);
-                    })
-                    .addOnFailureListener(e -> {
-                        Toast.makeText(getContext(), "Search failed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    });
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                // Wait for a pause in typing before searching
+                handler.removeCallbacks(debouncedSearch);
+                handler.postDelayed(debouncedSearch, DEBOUNCE_MS);
+            }
         });
 
         binding.searchList.setOnItemClickListener((parent, v, position, id) -> {
-            String selectedUsername = (String) parent.getItemAtPosition(position);
+            User selectedUser = (User) parent.getItemAtPosition(position);
 
             Bundle bundle = new Bundle();
-            bundle.putString("selectedUsername", selectedUsername);
+            bundle.putString("selectedUsername", selectedUser.getUsername());
+            // Spares UserProfile its own status read when the list already has it
+            String status = adapter != null ? adapter.getStatus(selectedUser.getUserId()) : null;
+            if (status != null) {
+                bundle.putString("followStatus", status);
+            }
 
             Navigation.findNavController(v).navigate(R.id.action_userSearch_to_userProfile, bundle);
         });
     }
 
+    // The trie is only reused by the same user, and only while it is fresh
+    private static synchronized void startSession(String userId) {
+        long now = SystemClock.elapsedRealtime();
+        if (!Objects.equals(userId, sessionUserId) || now - sessionStartedAt > SESSION_MAX_AGE_MS) {
+            sessionTrie.clear();
+            sessionUserId = userId;
+            sessionStartedAt = now;
+        }
+    }
+
+    /**
+     * Searches for the text currently entered.
+     *
+     * @param explicit true when the search button was pressed, false when typing paused.
+     */
+    private void search(boolean explicit) {
+        if (binding == null) return;
+        String prefix = binding.etUsername.getText().toString().trim();
+        int generation = ++searchGeneration;
+        if (prefix.isEmpty()) {
+            if (explicit) {
+                Toast.makeText(getContext(), "Please enter a username to search", Toast.LENGTH_SHORT).show();
+            }
+            showSuggestions();
+            return;
+        }
+
+        if (sessionTrie.isComplete(prefix)) {
+            showResults(sessionTrie.find(prefix, RESULT_LIMIT), generation);
+            return;
+        }
+
+        userDAO.searchUsers(prefix, RESULT_LIMIT)
+                .addOnSuccessListener(userList -> {
+                    sessionTrie.addAll(userList);
+                    if (userList.size() < RESULT_LIMIT) {
+                        sessionTrie.markComplete(prefix);
+                    }
+                    if (generation == searchGeneration) {
+                        showResults(userList, generation);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    if (generation == searchGeneration && getContext() != null) {
+                        Toast.makeText(getContext(), "Search failed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    private void showResults(List<User> userList, int generation) {
+        if (binding == null) return;
+        UserSearchAdapter resultsAdapter = new UserSearchAdapter(requireContext(), new ArrayList<>(userList));
+        adapter = resultsAdapter;
+        binding.searchList.setAdapter(resultsAdapter);
+        if (userList.isEmpty() || currentUserId == null) return;
+
+        // One bulk lookup for every row instead of two reads per row
+        List<String> userIds = new ArrayList<>();
+        for (User user : userList) {
+            userIds.add(user.getUserId());
+        }
+        userDAO.getFollowStatuses(currentUserId, userIds)
+                .addOnSuccessListener(statuses -> {
+                    if (generation == searchGeneration) {
+                        resultsAdapter.setStatuses(statuses);
+                    }
+                });
+    }
+
+    /**
+     * Shows the stored friend suggestions; they already leave out users followed or requested.
+     */
+    private void showSuggestions() {
+        if (binding == null || currentUserId == null) return;
+        List<User> users = new ArrayList<>();
+        Map<String, Integer> mutualCounts = new HashMap<>();
+        for (SuggestionStore.Suggestion suggestion : suggestionStore.getSuggestions(currentUserId)) {
+            User user = new User();
+            user.setUserId(suggestion.userId);
+            user.setUsername(suggestion.username);
+            users.add(user);
+            mutualCounts.put(suggestion.userId, suggestion.mutualCount);
+        }
+        UserSearchAdapter suggestionsAdapter = new UserSearchAdapter(requireContext(), users);
+        suggestionsAdapter.setMutualCounts(mutualCounts);
+        adapter = suggestionsAdapter;
+        binding.searchList.setAdapter(suggestionsAdapter);
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        suggestionStore.removeListener(suggestionsListener);
+        handler.removeCallbacks(debouncedSearch);
+        // Searches still running must not touch the destroyed view
+        searchGeneration++;
         binding = null;
     }
 }
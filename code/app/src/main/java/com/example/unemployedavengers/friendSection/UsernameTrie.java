@@ -0,0 +1,131 @@
+/**
+ * UsernameTrie - Prefix tree of the users already returned by username searches in this session.
+ *
+ * Purpose:
+ * - Lets type-ahead search in UserSearch answer a narrowing prefix ("al" -> "ali") from memory
+ *   once a search for a shorter prefix is known to have returned every match.
+ *
+ * Key Features:
+ * - Users are keyed by UserMapper.normalize of their username and children are kept in
+ *   character order, so matches come out in the same order as Firestore's
+ *   orderBy(UserMapper.USERNAME_LOWER), and prefixes are matched ignoring case.
+ * - markComplete records prefixes whose search was not cut off by its limit; isComplete is true
+ *   for those prefixes and every longer prefix that starts with one of them.
+ * - No Android or Firebase dependencies.
+ *
+ * Outstanding Issues:
+ * - Users created or renamed after a prefix was marked complete are missed until the trie is
+ *   cleared; UserSearch clears it when the session ends or grows old.
+ */
+
+package com.example.unemployedavengers.friendSection;
+
+import com.example.unemployedavengers.models.User;
+import com.example.unemployedavengers.models.UserMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public final class UsernameTrie {
+
+    private static final class Node {
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        // Users whose username ends at this node, by user id
+        final Map<String, User> users = new HashMap<>();
+        boolean complete;
+    }
+
+    private Node root = new Node();
+    private int size;
+
+    /**
+     * Adds users returned by a search; a user already present is replaced.
+     */
+    public synchronized void addAll(List<User> users) {
+        for (User user : users) {
+            if (user.getUsername() == null || user.getUserId() == null) continue;
+            String key = UserMapper.normalize(user.getUsername());
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            }
+            if (node.users.put(user.getUserId(), user) == null) {
+                size++;
+            }
+        }
+    }
+
+    /**
+     * Records that every user whose username starts with prefix has been added.
+     */
+    public synchronized void markComplete(String prefix) {
+        prefix = UserMapper.normalize(prefix);
+        Node node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+        }
+        node.complete = true;
+    }
+
+    /**
+     * @return true if the trie holds every user whose username starts with prefix.
+     */
+    public synchronized boolean isComplete(String prefix) {
+        prefix = UserMapper.normalize(prefix);
+        Node node = root;
+        if (node.complete) return true;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.children.get(prefix.charAt(i));
+            if (node == null) {
+                // Nothing below here was seen, but an ancestor may still have been complete
+                return false;
+            }
+            if (node.complete) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param prefix The start of the username.
+     * @param limit The maximum number of users to return.
+     * @return Users whose username starts with prefix, in username order.
+     */
+    public synchronized List<User> find(String prefix, int limit) {
+        prefix = UserMapper.normalize(prefix);
+        List<User> matches = new ArrayList<>();
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node != null) {
+            collect(node, limit, matches);
+        }
+        return matches;
+    }
+
+    private static void collect(Node node, int limit, List<User> matches) {
+        for (User user : node.users.values()) {
+            if (matches.size() >= limit) return;
+            matches.add(user);
+        }
+        for (Node child : node.children.values()) {
+            if (matches.size() >= limit) return;
+            collect(child, limit, matches);
+        }
+    }
+
+    /**
+     * @return The number of users held.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        root = new Node();
+        size = 0;
+    }
+}
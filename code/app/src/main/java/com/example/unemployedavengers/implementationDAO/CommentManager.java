@@ -26,7 +26,10 @@
 
 package com.example.unemployedavengers.implementationDAO;
 
+import com.example.unemployedavengers.concurrent.AppExecutors;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
 import com.example.unemployedavengers.models.Comment;
+import com.example.unemployedavengers.models.CommentMapper;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.CollectionReference;
@@ -44,6 +47,7 @@ import java.util.List;
 public class CommentManager {
     private static final String TAG = "CommentManager";
     private final FirebaseFirestore db;
+    private final FirestoreMeter meter = FirestoreMeter.getInstance();
 
     public CommentManager() {
         db = FirebaseFirestore.getInstance();
@@ -71,14 +75,14 @@ public class CommentManager {
                     .orderBy("timestamp", Query.Direction.DESCENDING);
         }
 
-        return query.get().continueWith(task -> {
+        return meter.get("CommentManager.getCommentsForMoodEvent", query).continueWith(AppExecutors.background(), task -> {
             if (!task.isSuccessful()) {
                 throw task.getException();
             }
 
             List<Comment> comments = new ArrayList<>();
             for (QueryDocumentSnapshot document : task.getResult()) {
-                Comment comment = document.toObject(Comment.class);
+                Comment comment = CommentMapper.fromMap(document.getData());
                 comment.setId(document.getId());
                 comments.add(comment);
             }
@@ -94,18 +98,17 @@ public class CommentManager {
      * @return Task containing list of reply comments
      */
     public Task<List<Comment>> getRepliesForComment(String parentId) {
-        return db.collection("comments")
+        return meter.get("CommentManager.getRepliesForComment", db.collection("comments")
                 .whereEqualTo("parentId", parentId)
-                .orderBy("timestamp", Query.Direction.ASCENDING)
-                .get()
-                .continueWith(task -> {
+                .orderBy("timestamp", Query.Direction.ASCENDING))
+                .continueWith(AppExecutors.background(), task -> {
                     if (!task.isSuccessful()) {
                         throw task.getException();
                     }
 
                     List<Comment> replies = new ArrayList<>();
                     for (QueryDocumentSnapshot document : task.getResult()) {
-                        Comment reply = document.toObject(Comment.class);
+                        Comment reply = CommentMapper.fromMap(document.getData());
                         reply.setId(document.getId());
                         replies.add(reply);
                     }
@@ -123,7 +126,7 @@ public class CommentManager {
     public Task<Void> addComment(Comment comment) {
         CollectionReference commentsRef = db.collection("comments");
 
-        return commentsRef.add(comment)
+        return meter.write("CommentManager.addComment", 1, commentsRef.add(CommentMapper.toMap(comment)))
                 .continueWithTask(task -> {
                     if (!task.isSuccessful()) {
                         throw task.getException();
@@ -135,15 +138,16 @@ public class CommentManager {
                     // If this is a reply, update the parent comment's replyIds
                     if (comment.getParentId() != null) {
                         DocumentReference parentRef = commentsRef.document(comment.getParentId());
-                        return parentRef.get().continueWithTask(parentTask -> {
+                        return meter.get("CommentManager.addComment", parentRef).continueWithTask(parentTask -> {
                             if (!parentTask.isSuccessful()) {
                                 throw parentTask.getException();
                             }
 
-                            Comment parentComment = parentTask.getResult().toObject(Comment.class);
+                            Comment parentComment = CommentMapper.fromMap(parentTask.getResult().getData());
                             if (parentComment != null) {
                                 parentComment.addReplyId(commentRef.getId());
-                                return parentRef.update("replyIds", parentComment.getReplyIds());
+                                return meter.write("CommentManager.addComment", 1,
+                                        parentRef.update("replyIds", parentComment.getReplyIds()));
                             }
 
                             return Tasks.forResult(null);
@@ -163,12 +167,12 @@ public class CommentManager {
     public Task<Void> deleteComment(String commentId) {
         DocumentReference commentRef = db.collection("comments").document(commentId);
 
-        return commentRef.get().continueWithTask(task -> {
+        return meter.get("CommentManager.deleteComment", commentRef).continueWithTask(task -> {
             if (!task.isSuccessful()) {
                 throw task.getException();
             }
 
-            Comment comment = task.getResult().toObject(Comment.class);
+            Comment comment = CommentMapper.fromMap(task.getResult().getData());
             if (comment == null) {
                 return null;
             }
@@ -177,35 +181,37 @@ public class CommentManager {
             if (comment.getReplyIds() != null && !comment.getReplyIds().isEmpty()) {
                 List<Task<Void>> deleteTasks = new ArrayList<>();
                 for (String replyId : comment.getReplyIds()) {
-                    deleteTasks.add(db.collection("comments").document(replyId).delete());
+                    deleteTasks.add(meter.write("CommentManager.deleteComment", 1,
+                            db.collection("comments").document(replyId).delete()));
                 }
 
                 // Wait for all reply deletions to complete, then delete the parent comment
-                return Tasks.whenAll(deleteTasks).continueWithTask(t -> commentRef.delete());
+                return Tasks.whenAll(deleteTasks).continueWithTask(t -> meter.write("CommentManager.deleteComment", 1, commentRef.delete()));
             }
 
             // If it's a reply, update the parent's replyIds
             if (comment.getParentId() != null) {
                 DocumentReference parentRef = db.collection("comments").document(comment.getParentId());
-                return parentRef.get().continueWithTask(parentTask -> {
+                return meter.get("CommentManager.deleteComment", parentRef).continueWithTask(parentTask -> {
                     if (!parentTask.isSuccessful() || !parentTask.getResult().exists()) {
                         // Parent doesn't exist, just delete the comment
-                        return commentRef.delete();
+                        return meter.write("CommentManager.deleteComment", 1, commentRef.delete());
                     }
 
-                    Comment parentComment = parentTask.getResult().toObject(Comment.class);
+                    Comment parentComment = CommentMapper.fromMap(parentTask.getResult().getData());
                     if (parentComment != null && parentComment.getReplyIds() != null) {
                         parentComment.getReplyIds().remove(commentId);
-                        return parentRef.update("replyIds", parentComment.getReplyIds())
-                                .continueWithTask(t -> commentRef.delete());
+                        return meter.write("CommentManager.deleteComment", 1,
+                                        parentRef.update("replyIds", parentComment.getReplyIds()))
+                                .continueWithTask(t -> meter.write("CommentManager.deleteComment", 1, commentRef.delete()));
                     }
 
-                    return commentRef.delete();
+                    return meter.write("CommentManager.deleteComment", 1, commentRef.delete());
                 });
             }
 
             // Simple case: no replies, not a reply
-            return commentRef.delete();
+            return meter.write("CommentManager.deleteComment", 1, commentRef.delete());
         });
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+/**
+ * CommentThreads - Assembles one flat list of a mood's comments into top-level comments and replies.
+ *
+ * Purpose:
+ * - Lets MoodDetailFragment load every comment of a mood with one query instead of one query for
+ *   the top-level comments plus one per comment for its replies.
+ *
+ * Key Features:
+ * - Top-level comments are ordered newest first, replies oldest first, as the two queries did.
+ * - Replies whose parent is not in the list are dropped, since there is nowhere to show them.
+ * - No Android or Firebase dependencies, so the benchmarks module can measure it.
+ */
+
+package com.example.unemployedavengers.implementationDAO;
+
+import com.example.unemployedavengers.models.Comment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class CommentThreads {
+    public final List<Comment> topLevel;
+    public final Map<String, List<Comment>> replies;
+
+    private CommentThreads(List<Comment> topLevel, Map<String, List<Comment>> replies) {
+        this.topLevel = topLevel;
+        this.replies = replies;
+    }
+
+    /**
+     * @param comments Every comment of one mood event, in any order.
+     * @return The comments grouped into threads.
+     */
+    public static CommentThreads build(List<Comment> comments) {
+        List<Comment> topLevel = new ArrayList<>();
+        Map<String, List<Comment>> replies = new HashMap<>();
+        for (Comment comment : comments) {
+            if (comment.getParentId() == null) {
+                topLevel.add(comment);
+            }
+        }
+        for (Comment comment : topLevel) {
+            replies.put(comment.getId(), new ArrayList<>());
+        }
+        for (Comment comment : comments) {
+            if (comment.getParentId() != null) {
+                List<Comment> thread = replies.get(comment.getParentId());
+                if (thread != null) {
+                    thread.add(comment);
+                }
+            }
+        }
+
+        Collections.sort(topLevel, (comment1, comment2) -> Long.compare(comment2.getTimestamp(), comment1.getTimestamp()));
+        for (List<Comment> thread : replies.values()) {
+            Collections.sort(thread, (comment1, comment2) -> Long.compare(comment1.getTimestamp(), comment2.getTimestamp()));
+        }
+        return new CommentThreads(topLevel, replies);
+    }
+}
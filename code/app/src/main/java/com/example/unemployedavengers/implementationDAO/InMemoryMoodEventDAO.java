@@ -0,0 +1,191 @@
+/**
+ * InMemoryMoodEventDAO - IMoodEventDAO backed by in-process maps instead of Firestore.
+ *
+ * Purpose:
+ * - Lets screens, sync engines and benchmarks run against realistic data without a network or
+ *   a Firebase project. Install it with DAOProvider.setMoodEventDAO before any screen is opened.
+ *
+ * Key Features:
+ * - Same ordering and filtering rules as MoodEventDAOImplement (most recent first, public and
+ *   located only for map tiles).
+ * - Every operation completes immediately and is reported to DAOMetrics, so read counts can be
+ *   compared with the Firestore implementation.
+ * - Thread safe; stored moods are kept per owner in insertion order.
+ *
+ * Outstanding Issues:
+ * - Stored MoodEvent objects are shared with callers, so callers must not modify returned moods
+ *   they did not save themselves.
+ */
+
+package com.example.unemployedavengers.implementationDAO;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.DAO.DAOMetrics;
+import com.example.unemployedavengers.DAO.IMoodEventDAO;
+import com.example.unemployedavengers.local.CachedReads;
+import com.example.unemployedavengers.local.ReadPolicy;
+import com.example.unemployedavengers.maps.ViewportTileCache;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class InMemoryMoodEventDAO implements IMoodEventDAO {
+    private final Map<String, Map<String, MoodEvent>> moodsByUser = new HashMap<>();
+    private final DAOMetrics metrics;
+
+    public InMemoryMoodEventDAO() {
+        this(DAOMetrics.NONE);
+    }
+
+    /**
+     * @param metrics Receives read and write counts.
+     */
+    public InMemoryMoodEventDAO(@NonNull DAOMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String newMoodEventId(@NonNull String userId) {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, 20);
+    }
+
+    @Override
+    public Task<List<MoodEvent>> getMoodEvents(@NonNull String userId) {
+        List<MoodEvent> moodEvents = sortedByTime(snapshotOf(userId));
+        metrics.onRead("getMoodEvents", moodEvents.size(), false, 0);
+        return Tasks.forResult(moodEvents);
+    }
+
+    @Override
+    public Task<Long> countMoodEvents(@NonNull String userId) {
+        long count = snapshotOf(userId).size();
+        metrics.onRead("countMoodEvents", 1, false, 0);
+        return Tasks.forResult(count);
+    }
+
+    @Override
+    public Task<List<MoodEvent>> getRecentMoodEvents(@NonNull String userId, int limit) {
+        List<MoodEvent> moodEvents = sortedByTime(snapshotOf(userId));
+        List<MoodEvent> recent = new ArrayList<>(moodEvents.subList(0, Math.min(limit, moodEvents.size())));
+        metrics.onRead("getRecentMoodEvents", recent.size(), false, 0);
+        return Tasks.forResult(recent);
+    }
+
+    @Override
+    public Task<List<MoodEvent>> getMoodEventsUpdatedSince(@NonNull String userId, long updatedAt) {
+        List<MoodEvent> changed = new ArrayList<>();
+        for (MoodEvent moodEvent : snapshotOf(userId)) {
+            if (moodEvent.getUpdatedAt() > updatedAt) {
+                changed.add(moodEvent);
+            }
+        }
+        metrics.onRead("getMoodEventsUpdatedSince", changed.size(), false, 0);
+        return Tasks.forResult(changed);
+    }
+
+    @Override
+    public Task<List<MoodEvent>> getPublicMoodEventsInTiles(@NonNull List<String> userIds, @NonNull List<String> tileKeys) {
+        List<MoodEvent> located = new ArrayList<>();
+        for (String userId : userIds) {
+            for (MoodEvent moodEvent : snapshotOf(userId)) {
+                if (moodEvent.getPublicStatus() && moodEvent.getHasLocation()
+                        && !Collections.disjoint(tileKeys,
+                        ViewportTileCache.keysFor(moodEvent.getLatitude(), moodEvent.getLongitude()))) {
+                    located.add(moodEvent);
+                }
+            }
+        }
+        metrics.onRead("getPublicMoodEventsInTiles", located.size(), false, 0);
+        return Tasks.forResult(located);
+    }
+
+    @Override
+    public void getPublicMoodEvents(@NonNull String userId, @NonNull ReadPolicy policy,
+                                    @NonNull CachedReads.ReadListener<List<MoodEvent>> listener,
+                                    @NonNull OnFailureListener failureListener) {
+        List<MoodEvent> publicMoods = new ArrayList<>();
+        for (MoodEvent moodEvent : sortedByTime(snapshotOf(userId))) {
+            if (moodEvent.getPublicStatus()) {
+                publicMoods.add(moodEvent);
+            }
+        }
+        metrics.onRead("getPublicMoodEvents", publicMoods.size(), false, 0);
+        // There is no separate cache to serve first, so every policy gets a single delivery
+        listener.onRead(publicMoods, false);
+    }
+
+    @Override
+    public Task<MoodEvent> loadDetail(@NonNull MoodEvent moodEvent) {
+        // Moods are kept whole, so there is never a detail to fetch
+        moodEvent.setNeedsDetail(false);
+        return Tasks.forResult(moodEvent);
+    }
+
+    @Override
+    public Task<Void> saveMoodEvent(@NonNull String userId, @NonNull MoodEvent moodEvent) {
+        if (moodEvent.getId() == null) {
+            moodEvent.setId(newMoodEventId(userId));
+        }
+        if (moodEvent.getUserId() == null) {
+            moodEvent.setUserId(userId);
+        }
+        synchronized (moodsByUser) {
+            Map<String, MoodEvent> moods = moodsByUser.get(userId);
+            if (moods == null) {
+                moods = new LinkedHashMap<>();
+                moodsByUser.put(userId, moods);
+            }
+            moods.put(moodEvent.getId(), moodEvent);
+        }
+        metrics.onWrite("saveMoodEvent", 1, 0);
+        return Tasks.forResult(null);
+    }
+
+    @Override
+    public Task<Void> deleteMoodEvent(@NonNull String userId, @NonNull String moodEventId) {
+        synchronized (moodsByUser) {
+            Map<String, MoodEvent> moods = moodsByUser.get(userId);
+            if (moods != null) {
+                moods.remove(moodEventId);
+            }
+        }
+        metrics.onWrite("deleteMoodEvent", 1, 0);
+        return Tasks.forResult(null);
+    }
+
+    @Override
+    public void invalidate(@NonNull String userId) {
+        // Nothing is cached
+    }
+
+    /**
+     * Removes every stored mood event.
+     */
+    public void clear() {
+        synchronized (moodsByUser) {
+            moodsByUser.clear();
+        }
+    }
+
+    private List<MoodEvent> snapshotOf(String userId) {
+        synchronized (moodsByUser) {
+            Map<String, MoodEvent> moods = moodsByUser.get(userId);
+            return moods != null ? new ArrayList<>(moods.values()) : new ArrayList<>();
+        }
+    }
+
+    private static List<MoodEvent> sortedByTime(List<MoodEvent> moodEvents) {
+        Collections.sort(moodEvents, (event1, event2) -> Long.compare(event2.getTime(), event1.getTime()));
+        return moodEvents;
+    }
+}
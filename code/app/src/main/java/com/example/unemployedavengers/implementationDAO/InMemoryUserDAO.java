@@ -0,0 +1,488 @@
+/**
+ * InMemoryUserDAO - IUserDAO backed by in-process maps instead of FirebaseAuth and Firestore.
+ *
+ * Purpose:
+ * - Lets the sign-in, search, follow and request flows run without a network, so their throughput
+ *   and latency can be measured reproducibly on a laptop. Install it with DAOProvider.setUserDAO.
+ *
+ * Key Features:
+ * - Same rules as UserDAOImplement: usernames map to lower-case dummy emails, lookups and
+ *   prefix search ignore case, prefix search excludes the signed-in user, accepting a request
+ *   moves it into following/followers.
+ * - Artificial latency (base plus uniform jitter) is applied to every operation on a single
+ *   scheduler thread, so operations still complete in the order they were issued.
+ * - Failure injection: a fraction of operations fail with an exception instead of running.
+ * - Latency and failures come from a seeded Random, so experiments can be repeated exactly.
+ * - addUser and addFollow seed large graphs (e.g. 100k synthetic users) without going through
+ *   sign-up, and every operation is reported to DAOMetrics.
+ *
+ * Outstanding Issues:
+ * - With no latency, operations complete before the call returns; real Tasks never do.
+ */
+
+package com.example.unemployedavengers.implementationDAO;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.unemployedavengers.DAO.DAOMetrics;
+import com.example.unemployedavengers.DAO.IUserDAO;
+import com.example.unemployedavengers.local.Relationships;
+import com.example.unemployedavengers.models.User;
+import com.example.unemployedavengers.models.UserMapper;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class InMemoryUserDAO implements IUserDAO {
+    private final DAOMetrics metrics;
+    private final Random random;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "InMemoryUserDAO");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guarded by this
+    private final Map<String, User> usersById = new HashMap<>();
+    private final Map<String, String> idsByEmail = new HashMap<>();
+    // Keyed by UserMapper.normalize, like the usernames reservations
+    private final TreeMap<String, Set<String>> idsByUsername = new TreeMap<>();
+    private final Map<String, Set<String>> following = new HashMap<>();
+    private final Map<String, Set<String>> followers = new HashMap<>();
+    private final Map<String, Set<String>> requests = new HashMap<>();
+    private String currentUserId;
+    private long baseLatencyMs;
+    private long jitterMs;
+    private double failureRate;
+
+    public InMemoryUserDAO() {
+        this(DAOMetrics.NONE, 0L);
+    }
+
+    /**
+     * @param metrics Receives read and write counts with the injected latency.
+     * @param seed Seed for latency jitter and injected failures.
+     */
+    public InMemoryUserDAO(@NonNull DAOMetrics metrics, long seed) {
+        this.metrics = metrics;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Delays every operation by baseMs plus a uniformly random 0..jitterMs.
+     *
+     * @param baseMs Minimum delay in milliseconds.
+     * @param jitterMs Maximum extra delay in milliseconds.
+     */
+    public synchronized void setLatency(long baseMs, long jitterMs) {
+        this.baseLatencyMs = Math.max(0L, baseMs);
+        this.jitterMs = Math.max(0L, jitterMs);
+    }
+
+    /**
+     * @param failureRate Fraction of operations, between 0 and 1, that fail instead of running.
+     */
+    public synchronized void setFailureRate(double failureRate) {
+        this.failureRate = Math.min(1.0, Math.max(0.0, failureRate));
+    }
+
+    /**
+     * Stores a user directly, without signing in as them.
+     *
+     * @param userId The user's id.
+     * @param username The user's username.
+     * @param password The user's password.
+     * @return The stored user.
+     */
+    public synchronized User addUser(@NonNull String userId, @NonNull String username, @NonNull String password) {
+        User user = new User(userId, username, dummyEmailOf(username), password, "");
+        usersById.put(userId, user);
+        idsByEmail.put(user.getDummyEmail(), userId);
+        indexUsername(username, userId);
+        return copyOf(user);
+    }
+
+    /**
+     * Makes followerId follow followedId directly, without a request.
+     */
+    public synchronized void addFollow(@NonNull String followerId, @NonNull String followedId) {
+        setOf(following, followerId).add(followedId);
+        setOf(followers, followedId).add(followerId);
+    }
+
+    /**
+     * Signs in as a stored user without checking their password.
+     *
+     * @param userId The user to act as, or null to sign out.
+     */
+    public synchronized void signInAs(@Nullable String userId) {
+        currentUserId = userId;
+    }
+
+    /**
+     * @return The ids the user follows.
+     */
+    public synchronized Set<String> getFollowing(@NonNull String userId) {
+        return new HashSet<>(setOf(following, userId));
+    }
+
+    /**
+     * @return The ids that have a pending request to follow the user.
+     */
+    public synchronized Set<String> getRequests(@NonNull String userId) {
+        return new HashSet<>(setOf(requests, userId));
+    }
+
+    /**
+     * Stops the scheduler thread; operations issued afterwards never complete.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public Task<Void> signUpUser(@NonNull String username, @NonNull String password) {
+        return run("signUpUser", true, () -> {
+            if (UserMapper.reservationId(username) == null) {
+                throw new Exception("That username cannot be used.");
+            }
+            String email = dummyEmailOf(username);
+            if (idsByEmail.containsKey(email)) {
+                throw new Exception("The email address is already in use by another account.");
+            }
+            if (password.length() < 6) {
+                throw new Exception("Password should be at least 6 characters");
+            }
+            String userId = UUID.randomUUID().toString().replace("-", "").substring(0, 28);
+            User user = new User(userId, username, email, password, "");
+            usersById.put(userId, user);
+            idsByEmail.put(email, userId);
+            indexUsername(username, userId);
+            // Creating an account signs into it, like FirebaseAuth
+            currentUserId = userId;
+            return null;
+        });
+    }
+
+    @Override
+    public Task<Void> signInUser(@NonNull String username, @NonNull String password) {
+        return run("signInUser", false, () -> {
+            User user = usersById.get(idsByEmail.get(dummyEmailOf(username)));
+            if (user == null || !password.equals(user.getPassword())) {
+                throw new Exception("The supplied auth credential is incorrect.");
+            }
+            currentUserId = user.getUserId();
+            return null;
+        });
+    }
+
+    @Override
+    public Task<Boolean> checkUserExists(@NonNull String username) {
+        return run("checkUserExists", false, () -> {
+            Set<String> ids = idsByUsername.get(UserMapper.normalize(username));
+            return ids != null && !ids.isEmpty();
+        });
+    }
+
+    @Override
+    public Task<Void> changePassword(@NonNull User user, @NonNull String newPassword) {
+        return run("changePassword", true, () -> {
+            User currentUser = requireCurrentUser("User not logged in");
+            if (!currentUser.getDummyEmail().equals(user.getDummyEmail())) {
+                throw new Exception("Authenticated user does not match the username provided");
+            }
+            currentUser.setPassword(newPassword);
+            return null;
+        });
+    }
+
+    @Override
+    public Task<Void> resetPassword(@NonNull String username, @NonNull String newPassword) {
+        return run("resetPassword", true, () -> {
+            Set<String> ids = idsByUsername.get(UserMapper.normalize(username));
+            if (ids == null || ids.isEmpty()) {
+                throw new Exception("User record not found in Firestore.");
+            }
+            User user = usersById.get(ids.iterator().next());
+            user.setPassword(newPassword);
+            currentUserId = user.getUserId();
+            return null;
+        });
+    }
+
+    @Override
+    public Task<Void> changeUsername(@NonNull String newUsername) {
+        return run("changeUsername", true, () -> {
+            User currentUser = requireCurrentUser("No user is signed in.");
+            if (UserMapper.reservationId(newUsername) == null) {
+                throw new Exception("That username cannot be used.");
+            }
+            String newEmail = dummyEmailOf(newUsername);
+            String owner = idsByEmail.get(newEmail);
+            if (owner != null && !owner.equals(currentUser.getUserId())) {
+                throw new Exception("The email address is already in use by another account.");
+            }
+            idsByEmail.remove(currentUser.getDummyEmail());
+            unindexUsername(currentUser.getUsername(), currentUser.getUserId());
+            currentUser.setUsername(newUsername);
+            currentUser.setDummyEmail(newEmail);
+            idsByEmail.put(newEmail, currentUser.getUserId());
+            indexUsername(newUsername, currentUser.getUserId());
+            return null;
+        });
+    }
+
+    @Override
+    public Task<User> getCurrentUserProfile() {
+        return run("getCurrentUserProfile", false, () -> copyOf(requireCurrentUser("No user signed in")));
+    }
+
+    @Override
+    public Task<Void> requestFollow(@NonNull String requesterId, @NonNull String targetId) {
+        return run("requestFollow", true, () -> {
+            setOf(requests, targetId).add(requesterId);
+            return null;
+        });
+    }
+
+    @Override
+    public Task<Void> acceptFollowRequest(@NonNull String requesterId, @NonNull String targetId) {
+        return run("acceptFollowRequest", true, () -> {
+            setOf(requests, targetId).remove(requesterId);
+            setOf(following, requesterId).add(targetId);
+            setOf(followers, targetId).add(requesterId);
+            return null;
+        });
+    }
+
+    @Override
+    public Task<Void> rejectFollowRequest(@NonNull String requesterId, @NonNull String targetId) {
+        return run("rejectFollowRequest", true, () -> {
+            setOf(requests, targetId).remove(requesterId);
+            return null;
+        });
+    }
+
+    @Override
+    public Task<Void> acceptFollowRequests(@NonNull Collection<String> requesterIds, @NonNull String targetId) {
+        return run("acceptFollowRequests", true, () -> {
+            for (String requesterId : requesterIds) {
+                setOf(requests, targetId).remove(requesterId);
+                setOf(following, requesterId).add(targetId);
+                setOf(followers, targetId).add(requesterId);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Task<Void> rejectFollowRequests(@NonNull Collection<String> requesterIds, @NonNull String targetId) {
+        return run("rejectFollowRequests", true, () -> {
+            setOf(requests, targetId).removeAll(requesterIds);
+            return null;
+        });
+    }
+
+    @Override
+    public Task<Void> unfollowUser(@NonNull String followerId, @NonNull String followedId) {
+        return run("unfollowUser", true, () -> {
+            setOf(following, followerId).remove(followedId);
+            setOf(followers, followedId).remove(followerId);
+            return null;
+        });
+    }
+
+    @Override
+    public Task<List<User>> searchUsers(@NonNull String query) {
+        return run("searchUsers", false, () -> {
+            String currentUid = requireCurrentUser("No user signed in").getUserId();
+            List<User> matches = new ArrayList<>();
+            // Same range as the Firestore query: startAt(prefix).endAt(prefix + "\uf8ff") on usernameLower
+            String prefix = UserMapper.normalize(query);
+            for (Set<String> ids : idsByUsername.subMap(prefix, true, prefix + "\uf8ff", true).values()) {
+                for (String id : ids) {
+                    if (!id.equals(currentUid)) {
+                        matches.add(copyOf(usersById.get(id)));
+                    }
+                }
+            }
+            return matches;
+        });
+    }
+
+    @Override
+    public Task<List<User>> searchUsers(@NonNull String prefix, int limit) {
+        return run("searchUsers", false, () -> {
+            String currentUid = requireCurrentUser("No user signed in").getUserId();
+            List<User> matches = new ArrayList<>();
+            String normalized = UserMapper.normalize(prefix);
+            for (Set<String> ids : idsByUsername.subMap(normalized, true, normalized + "\uf8ff", true).values()) {
+                for (String id : ids) {
+                    if (matches.size() < limit && !id.equals(currentUid)) {
+                        matches.add(copyOf(usersById.get(id)));
+                    }
+                }
+            }
+            return matches;
+        });
+    }
+
+    @Override
+    public Task<User> getUserByUsername(@NonNull String username) {
+        return run("getUserByUsername", false, () -> {
+            Set<String> ids = idsByUsername.get(UserMapper.normalize(username));
+            return ids == null || ids.isEmpty() ? null : copyOf(usersById.get(ids.iterator().next()));
+        });
+    }
+
+    @Override
+    public Task<Void> updateUserAvatar(@NonNull String avatarUrl) {
+        return run("updateUserAvatar", true, () -> {
+            requireCurrentUser("No user signed in").setAvatar(avatarUrl);
+            return null;
+        });
+    }
+
+    @Override
+    public Task<String> getFollowStatus(@NonNull String requesterId, @NonNull String targetId) {
+        return run("getFollowStatus", false, () -> {
+            if (setOf(following, requesterId).contains(targetId)) {
+                return "following";
+            } else if (setOf(requests, targetId).contains(requesterId)) {
+                return "requested";
+            }
+            return "none";
+        });
+    }
+
+    @Override
+    public Task<Map<String, String>> getFollowStatuses(@NonNull String requesterId, @NonNull Collection<String> targetIds) {
+        return run("getFollowStatuses", false, () -> {
+            Map<String, String> statuses = new HashMap<>();
+            for (String targetId : targetIds) {
+                if (setOf(following, requesterId).contains(targetId)) {
+                    statuses.put(targetId, "following");
+                } else if (setOf(requests, targetId).contains(requesterId)) {
+                    statuses.put(targetId, "requested");
+                } else {
+                    statuses.put(targetId, "none");
+                }
+            }
+            return statuses;
+        });
+    }
+
+    @Override
+    public Task<Map<String, String>> getRelationships(@NonNull String userId, @NonNull Collection<String> targetIds) {
+        return run("getRelationships", false, () -> {
+            // Only the targets' requests matter, so the rest of the requests map is not scanned
+            List<String> requested = new ArrayList<>();
+            for (String targetId : targetIds) {
+                if (setOf(requests, targetId).contains(userId)) {
+                    requested.add(targetId);
+                }
+            }
+            return Relationships.of(setOf(following, userId), setOf(followers, userId), requested)
+                    .classify(targetIds);
+        });
+    }
+
+    /**
+     * Runs one operation under the lock after the injected latency, or fails it.
+     */
+    private <T> Task<T> run(String operation, boolean write, Callable<T> body) {
+        long latencyMs;
+        boolean fail;
+        synchronized (this) {
+            latencyMs = baseLatencyMs + (jitterMs > 0 ? (long) (random.nextDouble() * (jitterMs + 1)) : 0L);
+            fail = failureRate > 0 && random.nextDouble() < failureRate;
+        }
+
+        Callable<T> guarded = () -> {
+            if (write) {
+                metrics.onWrite(operation, 1, latencyMs);
+            } else {
+                metrics.onRead(operation, 1, false, latencyMs);
+            }
+            if (fail) {
+                throw new Exception("Injected failure in " + operation);
+            }
+            synchronized (this) {
+                return body.call();
+            }
+        };
+
+        if (latencyMs == 0) {
+            try {
+                return Tasks.forResult(guarded.call());
+            } catch (Exception e) {
+                return Tasks.forException(e);
+            }
+        }
+
+        TaskCompletionSource<T> result = new TaskCompletionSource<>();
+        scheduler.schedule(() -> {
+            try {
+                result.setResult(guarded.call());
+            } catch (Exception e) {
+                result.setException(e);
+            }
+        }, latencyMs, TimeUnit.MILLISECONDS);
+        return result.getTask();
+    }
+
+    private User requireCurrentUser(String message) throws Exception {
+        User user = currentUserId != null ? usersById.get(currentUserId) : null;
+        if (user == null) {
+            throw new Exception(message);
+        }
+        return user;
+    }
+
+    private void indexUsername(String username, String userId) {
+        setOf(idsByUsername, UserMapper.normalize(username)).add(userId);
+    }
+
+    private void unindexUsername(String username, String userId) {
+        Set<String> ids = idsByUsername.get(UserMapper.normalize(username));
+        if (ids != null) {
+            ids.remove(userId);
+            if (ids.isEmpty()) {
+                idsByUsername.remove(UserMapper.normalize(username));
+            }
+        }
+    }
+
+    private static Set<String> setOf(Map<String, Set<String>> map, String key) {
+        Set<String> set = map.get(key);
+        if (set == null) {
+            set = new HashSet<>();
+            map.put(key, set);
+        }
+        return set;
+    }
+
+    private static String dummyEmailOf(String username) {
+        return username.toLowerCase() + "@example.com";
+    }
+
+    private static User copyOf(User user) {
+        return new User(user.getUserId(), user.getUsername(), user.getDummyEmail(), user.getPassword(), user.getAvatar());
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * MoodDetailMigration - Splits moods stored whole into a summary and a detail document, and adds
+ * map tile keys to located summaries.
+ *
+ * Purpose:
+ * - Moods written before the split keep their situation, radio situation and image in
+ *   users/{id}/moods, so every list page still downloads them. This job moves those fields into
+ *   users/{id}/moodDetails and marks the summary with MoodEventMapper.HAS_DETAIL.
+ * - Located moods written before tile keys existed have no MoodEventMapper.TILES, so
+ *   FriendsViewportLoader cannot find them. This job adds them.
+ *
+ * Key Features:
+ * - Pages through a user's moods by document id, PAGE_SIZE at a time, and only touches moods
+ *   that are not split yet or are located without tiles; a run that is cut short resumes where
+ *   it left off.
+ * - Each page is moved in one transaction that re-reads the moods first, so a mood rewritten by
+ *   MoodOutbox in the meantime is left alone.
+ * - updatedAt is not changed, so incremental syncs and conflict resolution see no edit.
+ * - migrateOnce records the VERSION of the last finished run per user and does nothing on later
+ *   calls until VERSION is raised; users migrated by version 1 page through once more for tiles.
+ *
+ * Outstanding Issues:
+ * - Each client only migrates its own user's moods; moods of users who never open a new app
+ *   version stay whole (they are still read correctly) and do not show on friends' maps.
+ */
+package com.example.unemployedavengers.implementationDAO;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.maps.ViewportTileCache;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.example.unemployedavengers.models.MoodEventMapper;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class MoodDetailMigration {
+    private static final String TAG = "MoodDetailMigration";
+    private static final String PREFS = "mood_detail_migration";
+    private static final int PAGE_SIZE = 100;
+    // 1: summary/detail split; 2: tile keys on located summaries
+    private static final int VERSION = 2;
+
+    private static MoodDetailMigration instance;
+
+    private final SharedPreferences preferences;
+    private final FirebaseFirestore db;
+    // One run at a time, so two screens starting it do not migrate the same page twice
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private MoodDetailMigration(Context context, FirebaseFirestore db) {
+        this.preferences = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.db = db;
+    }
+
+    /**
+     * @param context Any context; only the application context is kept.
+     * @return The shared MoodDetailMigration.
+     */
+    public static synchronized MoodDetailMigration getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new MoodDetailMigration(context, FirebaseFirestore.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Migrates a user's moods unless a previous run already finished. Failures are logged and
+     * the next call tries again.
+     *
+     * @param userId The owner of the moods.
+     */
+    public void migrateOnce(@NonNull String userId) {
+        if (preferences.getInt(versionKey(userId), 0) >= VERSION) return;
+        migrate(userId).addOnCompleteListener(executor, task -> {
+            if (task.isSuccessful()) {
+                Log.i(TAG, "Migrated " + task.getResult() + " moods of " + userId);
+                preferences.edit().putInt(versionKey(userId), VERSION).apply();
+            } else {
+                Log.w(TAG, "Mood detail migration failed", task.getException());
+            }
+        });
+    }
+
+    /**
+     * Splits every mood of a user that is still stored whole and adds tiles to every located
+     * summary without them.
+     *
+     * @param userId The owner of the moods.
+     * @return A {@link Task<Integer>} with the number of moods changed.
+     */
+    public Task<Integer> migrate(@NonNull String userId) {
+        return Tasks.call(executor, () -> {
+            CollectionReference moods = db.collection("users").document(userId).collection("moods");
+            CollectionReference details = db.collection("users").document(userId).collection("moodDetails");
+            int migrated = 0;
+            DocumentSnapshot last = null;
+            while (true) {
+                Query page = moods.orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+                if (last != null) {
+                    page = page.startAfter(last);
+                }
+                QuerySnapshot snapshot = Tasks.await(FirestoreMeter.getInstance().get("MoodDetailMigration.page", page));
+                if (snapshot.isEmpty()) {
+                    return migrated;
+                }
+
+                List<DocumentReference> outdated = new ArrayList<>();
+                for (DocumentSnapshot document : snapshot.getDocuments()) {
+                    if (!document.contains(MoodEventMapper.HAS_DETAIL) || needsTiles(document)) {
+                        outdated.add(document.getReference());
+                    }
+                }
+                if (!outdated.isEmpty()) {
+                    migrated += Tasks.await(db.runTransaction(transaction -> {
+                        // Transactions need every read before the first write
+                        List<DocumentSnapshot> current = new ArrayList<>();
+                        for (DocumentReference ref : outdated) {
+                            current.add(transaction.get(ref));
+                        }
+                        int changed = 0;
+                        for (DocumentSnapshot document : current) {
+                            if (!document.exists()) {
+                                continue;
+                            }
+                            MoodEvent moodEvent = MoodEventMapper.fromMap(document.getData());
+                            if (!document.contains(MoodEventMapper.HAS_DETAIL)) {
+                                transaction.set(details.document(document.getId()), MoodEventMapper.toDetailMap(moodEvent));
+                                transaction.update(document.getReference(), summaryUpdate(moodEvent));
+                                changed++;
+                            } else if (needsTiles(document)) {
+                                transaction.update(document.getReference(), MoodEventMapper.TILES,
+                                        ViewportTileCache.keysFor(moodEvent.getLatitude(), moodEvent.getLongitude()));
+                                changed++;
+                            }
+                        }
+                        return changed;
+                    }));
+                }
+
+                if (snapshot.size() < PAGE_SIZE) {
+                    return migrated;
+                }
+                last = snapshot.getDocuments().get(snapshot.size() - 1);
+            }
+        });
+    }
+
+    private static boolean needsTiles(DocumentSnapshot document) {
+        return Boolean.TRUE.equals(document.getBoolean("hasLocation")) && !document.contains(MoodEventMapper.TILES);
+    }
+
+    private static Map<String, Object> summaryUpdate(MoodEvent moodEvent) {
+        Map<String, Object> update = new HashMap<>();
+        for (String field : MoodEventMapper.DETAIL_FIELDS) {
+            update.put(field, FieldValue.delete());
+        }
+        update.put(MoodEventMapper.HAS_DETAIL, true);
+        if (moodEvent.getHasLocation()) {
+            update.put(MoodEventMapper.TILES, ViewportTileCache.keysFor(moodEvent.getLatitude(), moodEvent.getLongitude()));
+        }
+        return update;
+    }
+
+    private static String versionKey(String userId) {
+        return userId + ".version";
+    }
+}
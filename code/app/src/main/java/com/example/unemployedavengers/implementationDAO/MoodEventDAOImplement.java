@@ -0,0 +1,324 @@
+/**
+ * MoodEventDAOImplement - Firestore implementation of IMoodEventDAO.
+ *
+ * Design Pattern:
+ * - Implements Data Access Object (DAO) pattern, alongside UserDAOImplement
+ * - Caching and metrics are injected (MoodEventCache, DAOMetrics) and default to none
+ *
+ * Key Responsibilities:
+ * - Builds every users/{id}/moods and collection group "moods" query in one place
+ * - Maps documents to MoodEvents, filling in the document id and owner id
+ * - Stores each mood as a summary in users/{id}/moods, which every query reads, and its
+ *   situation, radio situation and image in users/{id}/moodDetails, loaded only by loadDetail
+ *
+ * Technical Implementation:
+ * - saveMoodEvent and deleteMoodEvent commit one mood at a time in a transaction that also
+ *   advances the owner's lastMoodAt, as MoodOutbox does. Screens write through MoodOutbox,
+ *   which adds last-writer-wins and offline replay; these are for callers that need neither.
+ * - Identical reads issued while one is still running share its Task instead of querying again.
+ * - Reads and writes are reported to DAOMetrics with document counts and timings.
+ * - A mood's summary and detail are always written and deleted in the same transaction. A mood
+ *   whose detail was never loaded only has its summary rewritten, so its detail is left as it was.
+ *
+ * Outstanding Issues/TODOs:
+ * 1. Deduplicated callers share the same MoodEvent objects (in fresh lists)
+ *
+ * Dependencies:
+ * - Cloud Firestore SDK
+ * - IMoodEventDAO interface contract
+ * - MoodEvent model class
+ *
+ * @see IMoodEventDAO
+ */
+
+package com.example.unemployedavengers.implementationDAO;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.DAO.DAOMetrics;
+import com.example.unemployedavengers.DAO.IMoodEventDAO;
+import com.example.unemployedavengers.DAO.MoodEventCache;
+import com.example.unemployedavengers.concurrent.AppExecutors;
+import com.example.unemployedavengers.local.CachedReads;
+import com.example.unemployedavengers.local.ReadPolicy;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.example.unemployedavengers.metrics.Span;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.example.unemployedavengers.models.MoodEventMapper;
+import com.example.unemployedavengers.models.ProfileCounts;
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+public class MoodEventDAOImplement implements IMoodEventDAO {
+    private final FirebaseFirestore db;
+    private final MoodEventCache cache;
+    private final DAOMetrics metrics;
+    private final FirestoreMeter meter = FirestoreMeter.getInstance();
+    private final Map<String, Task<List<MoodEvent>>> inFlight = new ConcurrentHashMap<>();
+
+    public MoodEventDAOImplement() {
+        this(FirebaseFirestore.getInstance(), MoodEventCache.NONE, DAOMetrics.NONE);
+    }
+
+    /**
+     * @param db The Firestore instance to use.
+     * @param cache Cache for read results; MoodEventCache.NONE to disable.
+     * @param metrics Receives read and write counts; DAOMetrics.NONE to disable.
+     */
+    public MoodEventDAOImplement(@NonNull FirebaseFirestore db, @NonNull MoodEventCache cache, @NonNull DAOMetrics metrics) {
+        this.db = db;
+        this.cache = cache;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String newMoodEventId(@NonNull String userId) {
+        return moodsOf(userId).document().getId();
+    }
+
+    @Override
+    public Task<List<MoodEvent>> getMoodEvents(@NonNull String userId) {
+        return read(userId + "|all", "getMoodEvents", true,
+                () -> moodsOf(userId).orderBy("time", Query.Direction.DESCENDING));
+    }
+
+    @Override
+    public Task<Long> countMoodEvents(@NonNull String userId) {
+        long start = SystemClock.elapsedRealtime();
+        return moodsOf(userId).count().get(AggregateSource.SERVER).continueWith(task -> {
+            long elapsedMs = SystemClock.elapsedRealtime() - start;
+            if (!task.isSuccessful()) {
+                throw task.getException();
+            }
+            long count = task.getResult().getCount();
+            // Billed as one read per 1000 index entries counted
+            int billed = (int) Math.max(1, (count + 999) / 1000);
+            meter.recordRead("MoodEventDAO.countMoodEvents", billed, 0, false, elapsedMs);
+            metrics.onRead("countMoodEvents", billed, false, elapsedMs);
+            return count;
+        });
+    }
+
+    @Override
+    public Task<List<MoodEvent>> getRecentMoodEvents(@NonNull String userId, int limit) {
+        return read(userId + "|recent|" + limit, "getRecentMoodEvents", true,
+                () -> moodsOf(userId).orderBy("time", Query.Direction.DESCENDING).limit(limit));
+    }
+
+    @Override
+    public Task<List<MoodEvent>> getMoodEventsUpdatedSince(@NonNull String userId, long updatedAt) {
+        return read(userId + "|since|" + updatedAt, "getMoodEventsUpdatedSince", true,
+                () -> moodsOf(userId).whereGreaterThan("updatedAt", updatedAt));
+    }
+
+    @Override
+    public Task<List<MoodEvent>> getPublicMoodEventsInTiles(@NonNull List<String> userIds, @NonNull List<String> tileKeys) {
+        // Spans several owners, so it is deduplicated but never cached. Only located summaries
+        // carry tiles, and private moods are filtered on the server, so nothing read is discarded
+        String key = "tiles|" + userIds + "|" + tileKeys;
+        return read(key, "getPublicMoodEventsInTiles", false, () -> db.collectionGroup("moods")
+                .whereEqualTo("publicStatus", true)
+                .whereIn("userId", userIds)
+                .whereArrayContainsAny(MoodEventMapper.TILES, tileKeys));
+    }
+
+    @Override
+    public void getPublicMoodEvents(@NonNull String userId, @NonNull ReadPolicy policy,
+                                    @NonNull CachedReads.ReadListener<List<MoodEvent>> listener,
+                                    @NonNull OnFailureListener failureListener) {
+        long start = SystemClock.elapsedRealtime();
+        Query query = moodsOf(userId).orderBy("time", Query.Direction.DESCENDING);
+        // Snapshots are converted in the background one after another, so the cached result is
+        // still delivered before the server one
+        Task<?>[] previous = {Tasks.forResult(null)};
+        CachedReads.get("MoodEventDAO.getPublicMoodEvents", query, policy, (snapshot, fromCache) -> {
+            metrics.onRead("getPublicMoodEvents", snapshot.size(), fromCache, SystemClock.elapsedRealtime() - start);
+            Task<List<MoodEvent>> converted = previous[0].continueWith(AppExecutors.background(), done -> {
+                List<MoodEvent> publicMoods = new ArrayList<>();
+                for (MoodEvent moodEvent : toMoodEvents(snapshot)) {
+                    if (moodEvent.getPublicStatus()) {
+                        publicMoods.add(moodEvent);
+                    }
+                }
+                return publicMoods;
+            });
+            previous[0] = converted;
+            converted.addOnCompleteListener(AppExecutors.main(), task -> {
+                if (task.isSuccessful()) {
+                    listener.onRead(task.getResult(), fromCache);
+                } else {
+                    failureListener.onFailure(task.getException());
+                }
+            });
+        }, failureListener);
+    }
+
+    @Override
+    public Task<MoodEvent> loadDetail(@NonNull MoodEvent moodEvent) {
+        if (!moodEvent.needsDetail()) {
+            return Tasks.forResult(moodEvent);
+        }
+        DocumentReference ref = detailsOf(moodEvent.getUserId()).document(moodEvent.getId());
+        return meter.get("MoodEventDAO.loadDetail", ref).continueWith(AppExecutors.background(), task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException();
+            }
+            MoodEventMapper.applyDetail(moodEvent, task.getResult().getData());
+            return moodEvent;
+        });
+    }
+
+    @Override
+    public Task<Void> saveMoodEvent(@NonNull String userId, @NonNull MoodEvent moodEvent) {
+        if (moodEvent.getId() == null) {
+            moodEvent.setId(newMoodEventId(userId));
+        }
+        DocumentReference ref = moodsOf(userId).document(moodEvent.getId());
+        Map<String, Object> summary = MoodEventMapper.toSummaryMap(moodEvent);
+        if (moodEvent.needsDetail()) {
+            return write("saveMoodEvent", userId, ref, false, moodEvent.getUpdatedAt(), 1,
+                    transaction -> transaction.set(ref, summary));
+        }
+        DocumentReference detailRef = detailsOf(userId).document(moodEvent.getId());
+        Map<String, Object> detail = MoodEventMapper.toDetailMap(moodEvent);
+        return write("saveMoodEvent", userId, ref, false, moodEvent.getUpdatedAt(), 2,
+                transaction -> transaction.set(ref, summary).set(detailRef, detail));
+    }
+
+    @Override
+    public Task<Void> deleteMoodEvent(@NonNull String userId, @NonNull String moodEventId) {
+        DocumentReference ref = moodsOf(userId).document(moodEventId);
+        DocumentReference detailRef = detailsOf(userId).document(moodEventId);
+        return write("deleteMoodEvent", userId, ref, true, System.currentTimeMillis(), 2,
+                transaction -> transaction.delete(ref).delete(detailRef));
+    }
+
+    @Override
+    public void invalidate(@NonNull String userId) {
+        cache.invalidateUser(userId);
+    }
+
+    private interface MoodWrite {
+        void apply(Transaction transaction);
+    }
+
+    /**
+     * Applies one mood's writes and advances the owner's lastMoodAt in the same transaction, the
+     * way MoodOutbox does on replay, so FollowedMoodSync and ProfileCounters see the change. When
+     * ProfileCounters are maintained, the mood is read first and the owner's mood counter only
+     * moves if the write creates or deletes it.
+     */
+    private Task<Void> write(String operation, String userId, DocumentReference moodRef, boolean deleting,
+                             long updatedAt, int writes, MoodWrite write) {
+        DocumentReference userRef = db.collection("users").document(userId);
+        boolean maintained = ProfileCounters.getInstance().isMaintained();
+        // Reads issued after this write must not be answered from the cache
+        cache.invalidateUser(userId);
+        long start = SystemClock.elapsedRealtime();
+        Span span = Span.beginAsync("MoodEventDAO." + operation);
+        Task<Void> committed = db.runTransaction(transaction -> {
+            Long current = transaction.get(userRef).getLong("lastMoodAt");
+            boolean existed = maintained && transaction.get(moodRef).exists();
+            write.apply(transaction);
+            // lastMoodAt only moves forward, even if this device's clock is behind
+            Map<String, Object> update = new HashMap<>();
+            update.put("lastMoodAt", Math.max((current != null ? current : 0L) + 1, updatedAt));
+            if (maintained && existed == deleting) {
+                update.putAll(ProfileCounters.increment(ProfileCounts.MOODS, deleting ? -1 : 1));
+            }
+            transaction.set(userRef, update, SetOptions.merge());
+            return null;
+        });
+        return meter.write("MoodEventDAO." + operation, writes + 1, committed).addOnCompleteListener(task -> {
+            span.end();
+            long elapsedMs = SystemClock.elapsedRealtime() - start;
+            meter.recordRead("MoodEventDAO." + operation, maintained ? 2 : 1, 0, false, elapsedMs);
+            metrics.onWrite(operation, writes + 1, elapsedMs);
+            cache.invalidateUser(userId);
+            ProfileCounters.getInstance().invalidate(userId);
+        });
+    }
+
+    private Task<List<MoodEvent>> read(String key, String operation, boolean cacheable,
+                                       Supplier<Query> query) {
+        List<MoodEvent> cached = cacheable ? cache.get(key) : null;
+        if (cached != null) {
+            metrics.onRead(operation, cached.size(), true, 0);
+            return Tasks.forResult(cached);
+        }
+
+        Task<List<MoodEvent>> running = inFlight.get(key);
+        if (running == null) {
+            long start = SystemClock.elapsedRealtime();
+            Span span = Span.beginAsync("MoodEventDAO." + operation);
+            running = meter.get("MoodEventDAO." + operation, query.get()).continueWith(AppExecutors.background(), task -> {
+                span.end();
+                if (!task.isSuccessful()) {
+                    throw task.getException();
+                }
+                QuerySnapshot snapshot = task.getResult();
+                metrics.onRead(operation, snapshot.size(), snapshot.getMetadata().isFromCache(),
+                        SystemClock.elapsedRealtime() - start);
+                List<MoodEvent> moodEvents = toMoodEvents(snapshot);
+                if (cacheable) {
+                    cache.put(key, moodEvents);
+                }
+                return moodEvents;
+            });
+            inFlight.put(key, running);
+            running.addOnCompleteListener(done -> inFlight.remove(key));
+        }
+        // Every caller gets its own list, since screens sort and filter in place
+        return running.continueWith(task -> new ArrayList<>(task.getResult()));
+    }
+
+    private static List<MoodEvent> toMoodEvents(QuerySnapshot snapshot) {
+        try (Span ignored = Span.begin("MoodEventDAO.deserialize")) {
+            return deserialize(snapshot);
+        }
+    }
+
+    private static List<MoodEvent> deserialize(QuerySnapshot snapshot) {
+        List<MoodEvent> moodEvents = new ArrayList<>();
+        for (DocumentSnapshot document : snapshot.getDocuments()) {
+            MoodEvent moodEvent = MoodEventMapper.fromMap(document.getData());
+            if (moodEvent == null) continue;
+            if (moodEvent.getId() == null) {
+                moodEvent.setId(document.getId());
+            }
+            if (moodEvent.getUserId() == null) {
+                // users/{userId}/moods/{id}
+                moodEvent.setUserId(document.getReference().getParent().getParent().getId());
+            }
+            moodEvents.add(moodEvent);
+        }
+        return moodEvents;
+    }
+
+    private CollectionReference moodsOf(String userId) {
+        return db.collection("users").document(userId).collection("moods");
+    }
+
+    private CollectionReference detailsOf(String userId) {
+        return db.collection("users").document(userId).collection("moodDetails");
+    }
+}
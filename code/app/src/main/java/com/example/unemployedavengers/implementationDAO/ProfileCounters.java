@@ -0,0 +1,278 @@
+/**
+ * ProfileCounters - Follower, followee and mood counts for profile headers.
+ *
+ * Purpose:
+ * - Counting a user's followers, followees or moods used to mean downloading the whole
+ *   subcollection. get() answers with count() aggregations instead, each billed as one read per
+ *   1000 documents counted, and keeps the answer for TTL_MS.
+ *
+ * Key Features:
+ * - Aggregation mode (the default): three count() queries per user, run together; concurrent
+ *   get() calls for one user share them.
+ * - Maintained mode, switched on from Settings and kept in shared preferences: the ProfileCounts
+ *   fields on users/{id} are moved in the same transaction that changes a follow (through
+ *   commitFollowChange) or a mood (MoodOutbox and MoodEventDAOImplement), and get() reads that one
+ *   document. A user whose counters were never seeded is counted with aggregations once and
+ *   seeded with the result.
+ * - Increments are idempotent: each transaction reads the followers document or the mood first
+ *   and only counts a change of state, so a repeated accept, unfollow or delete moves nothing.
+ * - Every write that changes a count calls invalidate(), whatever the mode.
+ *
+ * Outstanding Issues:
+ * - Maintained mode must be on for every client that writes, or the counters drift.
+ * - A follow or mood written between a seed's aggregations and its write is lost from the seed;
+ *   the seed is only written if no other seed got there first.
+ * - Follow changes in maintained mode are transactions with one read each, so accepting many
+ *   requests costs one transaction per request instead of shared batches.
+ * - Counts of other users can be up to TTL_MS behind writes made on other devices.
+ */
+package com.example.unemployedavengers.implementationDAO;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.metrics.DocumentSize;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.example.unemployedavengers.models.ProfileCounts;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ProfileCounters {
+    private static final long TTL_MS = 30_000;
+    private static final String PREFS = "profile_counters";
+    private static final String KEY_MAINTAINED = "maintained";
+
+    private static class Entry {
+        final ProfileCounts counts;
+        final long storedAt;
+
+        Entry(ProfileCounts counts, long storedAt) {
+            this.counts = counts;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private static ProfileCounters instance;
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final FirestoreMeter meter = FirestoreMeter.getInstance();
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Task<ProfileCounts>> inFlight = new HashMap<>();
+    private volatile boolean maintained;
+
+    /**
+     * The writes of a follow change, applied inside commitFollowChange's transaction.
+     */
+    public interface FollowWrites {
+        void apply(@NonNull Transaction transaction);
+    }
+
+    private ProfileCounters() {
+    }
+
+    /**
+     * @return The shared ProfileCounters.
+     */
+    public static synchronized ProfileCounters getInstance() {
+        if (instance == null) {
+            instance = new ProfileCounters();
+        }
+        return instance;
+    }
+
+    /**
+     * Turns maintained mode on if it was switched on before. Called once at startup.
+     */
+    public void restore(@NonNull Context context) {
+        maintained = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE).getBoolean(KEY_MAINTAINED, false);
+    }
+
+    /**
+     * Remembers the choice and turns maintained counters on or off for the writes and reads
+     * made from now on.
+     */
+    public synchronized void setMaintained(@NonNull Context context, boolean maintained) {
+        context.getSharedPreferences(PREFS, Context.MODE_PRIVATE).edit().putBoolean(KEY_MAINTAINED, maintained).apply();
+        this.maintained = maintained;
+        entries.clear();
+        inFlight.clear();
+    }
+
+    public boolean isMaintained() {
+        return maintained;
+    }
+
+    /**
+     * @param userId Any user.
+     * @return A {@link Task<ProfileCounts>} with the user's counts, from memory if they were
+     *         fetched less than TTL_MS ago.
+     */
+    public synchronized Task<ProfileCounts> get(@NonNull String userId) {
+        Entry entry = entries.get(userId);
+        if (entry != null && System.currentTimeMillis() - entry.storedAt < TTL_MS) {
+            return Tasks.forResult(entry.counts);
+        }
+        Task<ProfileCounts> running = inFlight.get(userId);
+        if (running != null) {
+            return running;
+        }
+
+        Task<ProfileCounts> fetch = maintained ? readMaintained(userId) : aggregate(userId, false);
+        inFlight.put(userId, fetch);
+        fetch.addOnCompleteListener(task -> {
+            synchronized (this) {
+                // An invalidate() while this was running already removed it
+                if (inFlight.get(userId) != fetch) return;
+                inFlight.remove(userId);
+                if (task.isSuccessful()) {
+                    entries.put(userId, new Entry(task.getResult(), System.currentTimeMillis()));
+                }
+            }
+        });
+        return fetch;
+    }
+
+    /**
+     * Drops a user's counts after a write that changes them.
+     */
+    public synchronized void invalidate(@NonNull String userId) {
+        entries.remove(userId);
+        inFlight.remove(userId);
+    }
+
+    /**
+     * Runs the writes of one follow starting or ending in a transaction that first reads the
+     * followers document, and moves both users' counters only if the relationship changes. Used
+     * in maintained mode in place of the follow batches.
+     *
+     * @param following true for a follow being accepted, false for an unfollow.
+     * @param writes The number of writes apply adds, for FirestoreMeter.
+     * @return A {@link Task<Void>} that completes once the transaction has committed.
+     */
+    public Task<Void> commitFollowChange(@NonNull String label, @NonNull String followerId, @NonNull String followedId,
+                                         boolean following, int writes, @NonNull FollowWrites apply) {
+        DocumentReference relationshipRef = userRef(followedId).collection("followers").document(followerId);
+        // Bytes read and documents written, reported once the transaction is done
+        long[] usage = new long[2];
+        long start = SystemClock.elapsedRealtime();
+        Task<Void> commit = db.runTransaction(transaction -> {
+            DocumentSnapshot relationship = transaction.get(relationshipRef);
+            usage[0] = DocumentSize.estimate(relationshipRef.getPath(), relationship.getData());
+            usage[1] = writes;
+            apply.apply(transaction);
+            long delta = followDelta(relationship.exists(), following);
+            if (delta != 0) {
+                transaction.set(userRef(followerId), increment(ProfileCounts.FOLLOWING, delta), SetOptions.merge());
+                transaction.set(userRef(followedId), increment(ProfileCounts.FOLLOWERS, delta), SetOptions.merge());
+                usage[1] += 2;
+            }
+            return null;
+        });
+        return commit.addOnCompleteListener(task -> {
+            long elapsedMs = SystemClock.elapsedRealtime() - start;
+            meter.recordRead(label, 1, usage[0], false, elapsedMs);
+            if (task.isSuccessful()) {
+                meter.recordWrite(label, (int) usage[1], elapsedMs);
+            }
+        });
+    }
+
+    /**
+     * @param existed Whether the relationship existed when the transaction read it.
+     * @param following Whether the write leaves the relationship in place.
+     * @return How much the follow counters move: 1, -1, or 0 when the state does not change.
+     */
+    public static long followDelta(boolean existed, boolean following) {
+        if (existed == following) return 0;
+        return following ? 1 : -1;
+    }
+
+    /**
+     * @return A merge update that moves one counter by delta.
+     */
+    public static Map<String, Object> increment(@NonNull String field, long delta) {
+        Map<String, Object> update = new HashMap<>();
+        update.put(field, FieldValue.increment(delta));
+        return update;
+    }
+
+    private Task<ProfileCounts> readMaintained(String userId) {
+        return meter.get("ProfileCounters.user", userRef(userId)).continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException();
+            }
+            ProfileCounts counts = ProfileCounts.fromUserData(task.getResult().getData());
+            return counts != null ? Tasks.forResult(counts) : aggregate(userId, true);
+        });
+    }
+
+    /**
+     * Counts the three subcollections with count() aggregations, optionally seeding the
+     * maintained counters with the result.
+     */
+    private Task<ProfileCounts> aggregate(String userId, boolean seed) {
+        DocumentReference user = userRef(userId);
+        long started = System.currentTimeMillis();
+        Task<AggregateQuerySnapshot> followers = user.collection("followers").count().get(AggregateSource.SERVER);
+        Task<AggregateQuerySnapshot> following = user.collection("following").count().get(AggregateSource.SERVER);
+        Task<AggregateQuerySnapshot> moods = user.collection("moods").count().get(AggregateSource.SERVER);
+        return Tasks.whenAll(followers, following, moods).continueWith(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException();
+            }
+            // Each aggregation is billed as one read per 1000 documents counted
+            meter.recordRead("ProfileCounters.count", 3, 0L, false, System.currentTimeMillis() - started);
+            ProfileCounts counts = new ProfileCounts(followers.getResult().getCount(),
+                    following.getResult().getCount(), moods.getResult().getCount());
+            if (seed) {
+                seed(userId, counts);
+            }
+            return counts;
+        });
+    }
+
+    /**
+     * Writes aggregated counts as the user's counters, in a transaction that leaves a user some
+     * other client seeded in the meantime alone.
+     */
+    private void seed(String userId, ProfileCounts counts) {
+        DocumentReference user = userRef(userId);
+        long start = SystemClock.elapsedRealtime();
+        Task<Boolean> seeding = db.runTransaction(transaction -> {
+            if (ProfileCounts.fromUserData(transaction.get(user).getData()) != null) {
+                return false;
+            }
+            Map<String, Object> data = new HashMap<>();
+            data.put(ProfileCounts.FOLLOWERS, counts.getFollowers());
+            data.put(ProfileCounts.FOLLOWING, counts.getFollowing());
+            data.put(ProfileCounts.MOODS, counts.getMoods());
+            data.put(ProfileCounts.SEEDED_AT, System.currentTimeMillis());
+            transaction.set(user, data, SetOptions.merge());
+            return true;
+        });
+        seeding.addOnCompleteListener(task -> {
+            long elapsedMs = SystemClock.elapsedRealtime() - start;
+            meter.recordRead("ProfileCounters.seed", 1, 0L, false, elapsedMs);
+            if (task.isSuccessful() && Boolean.TRUE.equals(task.getResult())) {
+                meter.recordWrite("ProfileCounters.seed", 1, elapsedMs);
+            }
+        });
+    }
+
+    private DocumentReference userRef(String userId) {
+        return db.collection("users").document(userId);
+    }
+}
@@ -0,0 +1,307 @@
+/**
+ * RequestInbox - The signed-in user's incoming follow requests and their count.
+ *
+ * Purpose:
+ * - Notifications used to read users/{id}/requests and then each requester's user document on
+ *   every open, and nothing showed that requests were waiting until the screen was opened.
+ *   RequestInbox keeps the list live while Notifications shows it, and keeps a count for the
+ *   badge MainActivity puts on the notifications icon.
+ *
+ * Key Features:
+ * - While a requests listener is registered, a snapshot listener on users/{id}/requests keeps
+ *   the list current; it is removed with the last listener.
+ * - Requester profiles are resolved with whereIn queries on the users collection, MAX_IN_CLAUSE
+ *   ids at a time, and kept for the session, so a new request only reads its own requester.
+ * - While the user is signed in and the app is in the foreground, watchCount() keeps a second,
+ *   lighter snapshot listener that reads at most WATCH_LIMIT requests and no profiles, so the
+ *   badge follows new requests without the screen being opened. Past WATCH_LIMIT the count
+ *   comes from a count() aggregation instead, one read per 1000 requests. While the full list
+ *   is shown, the count comes from its snapshots.
+ * - Listeners are notified on the main thread; the class must only be used from the main thread.
+ *
+ * Outstanding Issues:
+ * - Requester profiles are not refreshed during a session, so a rename shows on the next start.
+ * - The count watch reads up to WATCH_LIMIT documents each time it is started, e.g. whenever the
+ *   app returns to the foreground.
+ */
+package com.example.unemployedavengers.implementationDAO;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.example.unemployedavengers.models.User;
+import com.example.unemployedavengers.models.UserMapper;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class RequestInbox {
+    private static final String TAG = "RequestInbox";
+    private static final int MAX_IN_CLAUSE = 30;
+    // Above this many pending requests the count watch falls back to a count() aggregation
+    private static final int WATCH_LIMIT = 100;
+
+    /**
+     * Receives the requesters of the pending requests, oldest request first.
+     */
+    public interface RequestsListener {
+        void onRequestsChanged(@NonNull List<User> requesters);
+    }
+
+    /**
+     * Receives the number of pending requests.
+     */
+    public interface CountListener {
+        void onCountChanged(long count);
+    }
+
+    private static RequestInbox instance;
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final FirestoreMeter meter = FirestoreMeter.getInstance();
+    private final List<RequestsListener> requestsListeners = new ArrayList<>();
+    private final List<CountListener> countListeners = new ArrayList<>();
+    private final Map<String, User> profiles = new HashMap<>();
+
+    private String userId;
+    private ListenerRegistration registration;
+    private ListenerRegistration countRegistration;
+    private List<String> requesterIds;
+    private long count;
+
+    private RequestInbox() {
+    }
+
+    /**
+     * @return The shared RequestInbox.
+     */
+    public static synchronized RequestInbox getInstance() {
+        if (instance == null) {
+            instance = new RequestInbox();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts delivering a user's requests to listener, starting the snapshot listener if it is
+     * the first one. The current list, if known, is delivered straight away.
+     *
+     * @param userId The signed-in user.
+     */
+    public void addRequestsListener(@NonNull String userId, @NonNull RequestsListener listener) {
+        switchUser(userId);
+        requestsListeners.add(listener);
+        if (registration == null) {
+            Query requests = requestsOf(userId).orderBy("requestedAt");
+            registration = requests.addSnapshotListener(meter.listener("RequestInbox.requests", (snapshot, error) -> {
+                if (error != null) {
+                    Log.w(TAG, "Listening to follow requests failed", error);
+                    return;
+                }
+                if (snapshot != null && userId.equals(this.userId)) {
+                    onSnapshot(snapshot);
+                }
+            }));
+        } else if (requesterIds != null) {
+            listener.onRequestsChanged(knownRequesters());
+        }
+    }
+
+    /**
+     * Stops delivering requests to listener; the snapshot listener stops with the last one.
+     */
+    public void removeRequestsListener(@NonNull RequestsListener listener) {
+        requestsListeners.remove(listener);
+        if (requestsListeners.isEmpty() && registration != null) {
+            registration.remove();
+            registration = null;
+        }
+    }
+
+    public void addCountListener(@NonNull CountListener listener) {
+        countListeners.add(listener);
+        listener.onCountChanged(count);
+    }
+
+    public void removeCountListener(@NonNull CountListener listener) {
+        countListeners.remove(listener);
+    }
+
+    /**
+     * Keeps a user's request count current until stopWatchingCount(). Does nothing if it is
+     * already watching that user.
+     *
+     * @param userId The signed-in user.
+     */
+    public void watchCount(@NonNull String userId) {
+        switchUser(userId);
+        if (countRegistration != null) return;
+        Query requests = requestsOf(userId).limit(WATCH_LIMIT);
+        countRegistration = requests.addSnapshotListener(meter.listener("RequestInbox.count", (snapshot, error) -> {
+            if (error != null) {
+                Log.w(TAG, "Watching follow requests failed", error);
+                return;
+            }
+            // While the full list is listened to, its snapshots keep the count
+            if (snapshot == null || !userId.equals(this.userId) || registration != null) return;
+            // An empty snapshot from the cache may just mean nothing was fetched yet
+            if (snapshot.getMetadata().isFromCache() && snapshot.isEmpty()) return;
+            if (snapshot.size() < WATCH_LIMIT) {
+                setCount(snapshot.size());
+            } else {
+                countOnServer(userId);
+            }
+        }));
+    }
+
+    /**
+     * Stops the count watch; the last count is kept.
+     */
+    public void stopWatchingCount() {
+        if (countRegistration != null) {
+            countRegistration.remove();
+            countRegistration = null;
+        }
+    }
+
+    /**
+     * Counts a user's pending requests with a count() aggregation. Failures, e.g. when offline,
+     * keep the last count.
+     */
+    private void countOnServer(String userId) {
+        long started = System.currentTimeMillis();
+        requestsOf(userId).count().get(AggregateSource.SERVER).addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.w(TAG, "Counting follow requests failed", task.getException());
+                return;
+            }
+            // An aggregation is billed as one read per 1000 entries counted
+            meter.recordRead("RequestInbox.count", 1, 0L, false, System.currentTimeMillis() - started);
+            if (userId.equals(this.userId) && registration == null) {
+                setCount(task.getResult().getCount());
+            }
+        });
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    private void onSnapshot(QuerySnapshot snapshot) {
+        List<String> ids = new ArrayList<>();
+        for (DocumentSnapshot document : snapshot.getDocuments()) {
+            ids.add(document.getId());
+        }
+        requesterIds = ids;
+        // An empty snapshot from the cache may just mean nothing was fetched yet
+        if (!snapshot.getMetadata().isFromCache() || !snapshot.isEmpty()) {
+            setCount(ids.size());
+        }
+
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            if (!profiles.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            publish();
+            return;
+        }
+
+        String owner = userId;
+        loadProfiles(missing).addOnCompleteListener(task -> {
+            if (!owner.equals(userId)) return;
+            if (!task.isSuccessful()) {
+                Log.w(TAG, "Loading requesters failed", task.getException());
+            }
+            publish();
+        });
+    }
+
+    /**
+     * Reads the user documents of ids, MAX_IN_CLAUSE per query, into profiles.
+     */
+    private Task<Void> loadProfiles(List<String> ids) {
+        CollectionReference users = db.collection("users");
+        List<Task<QuerySnapshot>> reads = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += MAX_IN_CLAUSE) {
+            List<String> chunk = new ArrayList<>(ids.subList(i, Math.min(i + MAX_IN_CLAUSE, ids.size())));
+            reads.add(meter.get("RequestInbox.requesters", users.whereIn(FieldPath.documentId(), chunk))
+                    .addOnSuccessListener(result -> {
+                        for (DocumentSnapshot document : result.getDocuments()) {
+                            User user = UserMapper.fromMap(document.getData());
+                            if (user != null) {
+                                profiles.put(document.getId(), user);
+                            }
+                        }
+                    }));
+        }
+        return Tasks.whenAll(reads);
+    }
+
+    private void publish() {
+        List<User> requesters = knownRequesters();
+        for (RequestsListener listener : new ArrayList<>(requestsListeners)) {
+            listener.onRequestsChanged(requesters);
+        }
+    }
+
+    /**
+     * @return The requesters whose profile is loaded, in request order; a requester whose user
+     *         document no longer exists is left out.
+     */
+    private List<User> knownRequesters() {
+        List<User> requesters = new ArrayList<>();
+        for (String id : requesterIds) {
+            User user = profiles.get(id);
+            if (user != null) {
+                requesters.add(user);
+            }
+        }
+        return requesters;
+    }
+
+    private void setCount(long count) {
+        if (this.count == count) return;
+        this.count = count;
+        for (CountListener listener : new ArrayList<>(countListeners)) {
+            listener.onCountChanged(count);
+        }
+    }
+
+    /**
+     * Forgets everything about the previous user when a different one signs in.
+     */
+    private void switchUser(String userId) {
+        if (Objects.equals(userId, this.userId)) return;
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        stopWatchingCount();
+        this.userId = userId;
+        requesterIds = null;
+        profiles.clear();
+        setCount(0);
+    }
+
+    private CollectionReference requestsOf(String userId) {
+        return db.collection("users").document(userId).collection("requests");
+    }
+}
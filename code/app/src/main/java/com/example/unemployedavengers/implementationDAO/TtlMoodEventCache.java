@@ -0,0 +1,92 @@
+/**
+ * TtlMoodEventCache - Bounded MoodEventCache whose entries expire after a fixed time.
+ *
+ * Purpose:
+ * - Lets MoodEventDAOImplement answer repeated reads (e.g. switching back and forth between
+ *   screens) from memory for a short while.
+ *
+ * Key Features:
+ * - Least recently used entries are evicted beyond maxEntries.
+ * - Entries older than ttlMs are treated as missing.
+ * - Returns copies of cached lists, since screens sort and filter in place.
+ */
+
+package com.example.unemployedavengers.implementationDAO;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.unemployedavengers.DAO.MoodEventCache;
+import com.example.unemployedavengers.models.MoodEvent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+public class TtlMoodEventCache implements MoodEventCache {
+
+    private static class Entry {
+        final List<MoodEvent> moodEvents;
+        final long storedAt;
+
+        Entry(List<MoodEvent> moodEvents, long storedAt) {
+            this.moodEvents = moodEvents;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private final long ttlMs;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> entries;
+
+    public TtlMoodEventCache(int maxEntries, long ttlMs) {
+        this(maxEntries, ttlMs, System::currentTimeMillis);
+    }
+
+    /**
+     * @param maxEntries Number of results kept before the least recently used is evicted.
+     * @param ttlMs How long a result stays valid.
+     * @param clock Source of the current time in milliseconds.
+     */
+    public TtlMoodEventCache(int maxEntries, long ttlMs, @NonNull LongSupplier clock) {
+        this.ttlMs = ttlMs;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Nullable
+    @Override
+    public synchronized List<MoodEvent> get(@NonNull String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (clock.getAsLong() - entry.storedAt >= ttlMs) {
+            entries.remove(key);
+            return null;
+        }
+        return new ArrayList<>(entry.moodEvents);
+    }
+
+    @Override
+    public synchronized void put(@NonNull String key, @NonNull List<MoodEvent> moodEvents) {
+        entries.put(key, new Entry(new ArrayList<>(moodEvents), clock.getAsLong()));
+    }
+
+    @Override
+    public synchronized void invalidateUser(@NonNull String userId) {
+        String prefix = userId + "|";
+        Iterator<String> keys = entries.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(prefix)) {
+                keys.remove();
+            }
+        }
+    }
+}
@@ -11,6 +11,13 @@
  * - Manages authentication state and user sessions
  * - Handles social graph operations (following/unfollowing)
  * - Implements atomic operations using Firestore batches
+ * - Keeps the usernames/{name} reservations (keyed by UserMapper.normalize) that make usernames
+ *   unique regardless of case and let lookups by username read one document
+ * - Reports successful follow writes to FollowGraphStore and answers follow-status and
+ *   relationship checks for the user it tracks from there
+ * - Commits follow changes through ProfileCounters.commitFollowChange when counters are
+ *   maintained, so the counters move in the same transaction, and drops the counts cached for
+ *   both users once a follow change commits
  *
  * Technical Implementation:
  * - Wraps Firebase Authentication for credential management
@@ -29,6 +36,8 @@
  * 3. No rate limiting for follow operations
  * 4. No transaction retry logic for failed operations
  * 5. Avatar updates don't verify image URL validity
+ * 6. Accounts from before username reservations are found by the old equality query until
+ *    UsernameIndexMigration reserves their name, and are missing from search until then
  *
  * Dependencies:
  * - Firebase Authentication SDK
@@ -52,37 +61,67 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 
 import com.example.unemployedavengers.DAO.IUserDAO;
+import com.example.unemployedavengers.concurrent.AppExecutors;
+import com.example.unemployedavengers.local.FollowGraphStore;
+import com.example.unemployedavengers.local.Relationships;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
 import com.example.unemployedavengers.models.User;
+import com.example.unemployedavengers.models.UserMapper;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
 import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class UserDAOImplement implements IUserDAO {
 
     private final FirebaseAuth auth;
     private final FirebaseFirestore db;
+    private static final String USERNAME_TAKEN = "The username is already taken.";
+    private static final String USERNAME_INVALID = "That username cannot be used.";
+    // Firestore allows at most 30 values in a whereIn filter
+    private static final int MAX_IN_CLAUSE = 30;
+    private static final int MAX_BATCH_WRITES = 500;
+
+    private final FirestoreMeter meter = FirestoreMeter.getInstance();
+    private final FollowGraphStore followGraph = FollowGraphStore.getInstance();
+    private final ProfileCounters counters = ProfileCounters.getInstance();
 
     public UserDAOImplement() {
-        auth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
+        this(FirebaseAuth.getInstance(), FirebaseFirestore.getInstance());
+    }
+
+    /**
+     * @param auth The FirebaseAuth instance to use, e.g. one pointed at the Auth emulator.
+     * @param db The Firestore instance to use, e.g. one pointed at the Firestore emulator.
+     */
+    public UserDAOImplement(@NonNull FirebaseAuth auth, @NonNull FirebaseFirestore db) {
+        this.auth = auth;
+        this.db = db;
     }
 
     /**
      * Registers a new user in Firebase Authentication and stores user details in Firestore.
      * <p>
      * Since Firebase Authentication requires an email, a dummy email is generated using the username.
-     * After user creation, the details are stored in the Firestore database.
+     * After user creation, the username is reserved and the details are stored in the Firestore
+     * database in one transaction; if the name turns out to be reserved, the new account is deleted.
      * </p>
      *
      * @param username The desired username for the user.
@@ -95,6 +134,10 @@ public class UserDAOImplement implements IUserDAO {
     @Override
     public Task<Void> signUpUser(@NonNull final String username, @NonNull final String password) {
         final String dummyEmail = username.toLowerCase() + "@example.com";
+        final DocumentReference reservation = reservationOf(username);
+        if (reservation == null) {
+            return Tasks.forException(new Exception(USERNAME_INVALID));
+        }
 
         // Create user with dummyEmail and password
         return auth.createUserWithEmailAndPassword(dummyEmail, password)
@@ -114,9 +157,26 @@ public class UserDAOImplement implements IUserDAO {
                     // Create a User object
                     User user = new User(userId, username, dummyEmail, password, "");
 
-                    // Store user in Firestore
+                    // Reserve the name and store the user together, so two sign-ups for names
+                    // that differ only in case cannot both succeed
                     DocumentReference userDoc = db.collection("users").document(userId);
-                    return userDoc.set(user);
+                    Task<Void> store = db.runTransaction(transaction -> {
+                        DocumentSnapshot existing = transaction.get(reservation);
+                        if (existing.exists() && !userId.equals(existing.getString("uid"))) {
+                            throw new FirebaseFirestoreException(USERNAME_TAKEN, FirebaseFirestoreException.Code.ALREADY_EXISTS);
+                        }
+                        transaction.set(reservation, reservationData(userId, username));
+                        transaction.set(userDoc, storedData(user));
+                        return null;
+                    });
+                    return meter.write("UserDAO.signUpUser", 2, store)
+                            .continueWithTask(storeTask -> {
+                                if (storeTask.isSuccessful()) {
+                                    return storeTask;
+                                }
+                                // Do not leave an account behind that has no profile
+                                return firebaseUser.delete().continueWithTask(deleteTask -> storeTask);
+                            });
                 });
     }
 
@@ -152,8 +212,8 @@ public class UserDAOImplement implements IUserDAO {
     /**
      * Checks if a user exists in Firestore.
      * <p>
-     * This method queries the Firestore database for a document in the "users" collection
-     * where the "username" field matches the provided username.
+     * This method reads the username's reservation, ignoring case. Only when there is none does it
+     * query the "users" collection for a document whose "username" field matches exactly.
      * </p>
      *
      * @param username The username to check for existence.
@@ -165,19 +225,30 @@ public class UserDAOImplement implements IUserDAO {
      */
     @Override
     public Task<Boolean> checkUserExists(@NonNull String username) {
-        // Query the database to check if the user exists
-        return db.collection("users")
-                .whereEqualTo("username", username)
-                .limit(1)
-                .get()
-                .continueWith(task -> {
-                    if (!task.isSuccessful() || task.getResult() == null) {
+        DocumentReference reservation = reservationOf(username);
+        Task<DocumentSnapshot> read = reservation != null
+                ? meter.get("UserDAO.checkUserExists", reservation)
+                : Tasks.forResult(null);
+        return read.continueWithTask(task -> {
+                    if (!task.isSuccessful()) {
                         throw task.getException() != null
                                 ? task.getException()
                                 : new Exception("Error fetching user record.");
                     }
-                    // If the query returns at least one document, the user exists.
-                    return !task.getResult().isEmpty();
+                    if (task.getResult() != null && task.getResult().exists()) {
+                        return Tasks.forResult(true);
+                    }
+                    // Accounts from before reservations may not have one yet
+                    return meter.get("UserDAO.checkUserExists", legacyQuery(username))
+                            .continueWith(queryTask -> {
+                                if (!queryTask.isSuccessful() || queryTask.getResult() == null) {
+                                    throw queryTask.getException() != null
+                                            ? queryTask.getException()
+                                            : new Exception("Error fetching user record.");
+                                }
+                                // If the query returns at least one document, the user exists.
+                                return !queryTask.getResult().isEmpty();
+                            });
                 });
     }
     /**
@@ -221,7 +292,7 @@ public class UserDAOImplement implements IUserDAO {
                     DocumentReference userDoc = db.collection("users").document(uid);
                     Map<String, Object> updates = new HashMap<>();
                     updates.put("password", newPassword);
-                    return userDoc.update(updates);
+                    return meter.write("UserDAO.changePassword", 1, userDoc.update(updates));
                 });
     }
 
@@ -241,7 +312,7 @@ public class UserDAOImplement implements IUserDAO {
         DocumentReference userDoc = db.collection("users").document(uid);
         Map<String, Object> updates = new HashMap<>();
         updates.put("avatar", avatarUrl);
-        return userDoc.update(updates)
+        return meter.write("UserDAO.updateUserAvatar", 1, userDoc.update(updates))
                 .addOnSuccessListener(aVoid -> {
                     // Log or perform further operations if needed.
                     Log.d("UserDAOImplement", "Avatar updated successfully.");
@@ -256,7 +327,7 @@ public class UserDAOImplement implements IUserDAO {
      * Resets the password of a user in Firebase Authentication and updates it in Firestore.
      * <p>
      * This method follows these steps:
-     * - Queries Firestore to check if the username exists.
+     * - Looks up the user document through the username's reservation.
      * - Retrieves the stored password from Firestore.
      * - Signs in the user using Firebase Authentication with the retrieved password.
      * - Retrieves the user's profile from Firestore.
@@ -274,17 +345,14 @@ public class UserDAOImplement implements IUserDAO {
     public Task<Void> resetPassword(@NonNull String username, @NonNull String newPassword) {
         final String dummyEmail = username.toLowerCase() + "@example.com";
 
-        return db.collection("users")
-                .whereEqualTo("username", username)
-                .limit(1)
-                .get()
+        return findUserDocument("UserDAO.resetPassword", username)
                 .continueWithTask(task -> {
-                    if (!task.isSuccessful() || task.getResult() == null || task.getResult().isEmpty()) {
+                    if (!task.isSuccessful() || task.getResult() == null || !task.getResult().exists()) {
                         throw new Exception("User record not found in Firestore.");
                     }
 
                     // Retrieve the stored password from Firestore
-                    String storedPassword = task.getResult().getDocuments().get(0).getString("password");
+                    String storedPassword = task.getResult().getString("password");
                     if (storedPassword == null) {
                         throw new Exception("Stored password not found.");
                     }
@@ -330,11 +398,11 @@ public class UserDAOImplement implements IUserDAO {
         DocumentReference userDoc = db.collection("users").document(userId);
 
         // Fetch the user profile from Firestore and convert it to a User object
-        return userDoc.get().continueWith(task -> {
+        return meter.get("UserDAO.getCurrentUserProfile", userDoc).continueWith(AppExecutors.background(), task -> {
             if (!task.isSuccessful() || task.getResult() == null) {
                 throw new Exception("Failed to fetch user profile");
             }
-            return task.getResult().toObject(User.class);
+            return UserMapper.fromMap(task.getResult().getData());
         });
     }
 
@@ -344,7 +412,9 @@ public class UserDAOImplement implements IUserDAO {
      * This method:
      * - Generates a new dummy email based on the new username.
      * - Updates the user's email in Firebase Authentication.
-     * - Updates the username and dummy email in Firestore.
+     * - In one transaction, moves the user's reservation to the new name and updates the username
+     *   and dummy email in Firestore. If the new name is reserved by someone else, the email is
+     *   changed back and the task fails.
      * </p>
      *
      * @param newUsername The new username to be assigned to the user.
@@ -363,6 +433,12 @@ public class UserDAOImplement implements IUserDAO {
             return Tasks.forException(new Exception("No user is signed in."));
         }
 
+        final DocumentReference newReservation = reservationOf(newUsername);
+        if (newReservation == null) {
+            return Tasks.forException(new Exception(USERNAME_INVALID));
+        }
+        final String oldDummyEmail = currentUser.getEmail();
+
         // Update the user's email in Firebase Authentication
         return currentUser.updateEmail(newDummyEmail)
                 .continueWithTask(task -> {
@@ -370,13 +446,39 @@ public class UserDAOImplement implements IUserDAO {
                         throw task.getException();
                     }
 
-                    // Update the username and dummy email in Firestore
+                    // Move the reservation and update the username and dummy email in Firestore
                     String uid = currentUser.getUid();
                     DocumentReference userDoc = db.collection("users").document(uid);
-                    Map<String, Object> updates = new HashMap<>();
-                    updates.put("username", newUsername);
-                    updates.put("dummyEmail", newDummyEmail);
-                    return userDoc.update(updates);
+                    Task<Void> rename = db.runTransaction(transaction -> {
+                        DocumentSnapshot user = transaction.get(userDoc);
+                        String oldUsername = user.getString("username");
+                        DocumentReference oldReservation = oldUsername != null ? reservationOf(oldUsername) : null;
+                        DocumentSnapshot old = oldReservation != null ? transaction.get(oldReservation) : null;
+                        DocumentSnapshot existing = transaction.get(newReservation);
+                        if (existing.exists() && !uid.equals(existing.getString("uid"))) {
+                            throw new FirebaseFirestoreException(USERNAME_TAKEN, FirebaseFirestoreException.Code.ALREADY_EXISTS);
+                        }
+
+                        // A change of case only keeps the same reservation
+                        if (old != null && !old.getId().equals(newReservation.getId()) && uid.equals(old.getString("uid"))) {
+                            transaction.delete(oldReservation);
+                        }
+                        transaction.set(newReservation, reservationData(uid, newUsername));
+                        Map<String, Object> updates = new HashMap<>();
+                        updates.put("username", newUsername);
+                        updates.put(UserMapper.USERNAME_LOWER, UserMapper.normalize(newUsername));
+                        updates.put("dummyEmail", newDummyEmail);
+                        transaction.update(userDoc, updates);
+                        return null;
+                    });
+                    return meter.write("UserDAO.changeUsername", 3, rename)
+                            .continueWithTask(renameTask -> {
+                                if (renameTask.isSuccessful() || oldDummyEmail == null) {
+                                    return renameTask;
+                                }
+                                // Keep signing in under the old name working
+                                return currentUser.updateEmail(oldDummyEmail).continueWithTask(revertTask -> renameTask);
+                            });
                 });
     }
 
@@ -409,7 +511,8 @@ public class UserDAOImplement implements IUserDAO {
         requestData.put("requesterId", requesterId); // Store requester ID
 
         // Store the follow request in Firestore
-        return requestDocRef.set(requestData);
+        return meter.write("UserDAO.requestFollow", 1, requestDocRef.set(requestData))
+                .addOnSuccessListener(aVoid -> followGraph.onFollowRequested(requesterId, targetId));
     }
 
 
@@ -461,15 +564,28 @@ public class UserDAOImplement implements IUserDAO {
         followerData.put("followerId", requesterId);
         followerData.put("followedAt", timestamp);
 
-        // Use a Firestore batch to execute all operations atomically
-        WriteBatch batch = db.batch();
-        batch.delete(requestDocRef); // Remove the follow request
-        batch.set(followerFollowingRef, followingData); // Add target to requester's following list
-        batch.set(followedFollowersRef, followerData); // Add requester to target's followers list
+        Task<Void> commit;
+        if (counters.isMaintained()) {
+            // A transaction instead of a batch, so the counters only move if the follow is new
+            commit = counters.commitFollowChange("UserDAO.acceptFollowRequest", requesterId, targetId, true, 3,
+                    transaction -> transaction.delete(requestDocRef)
+                            .set(followerFollowingRef, followingData)
+                            .set(followedFollowersRef, followerData));
+        } else {
+            // Use a Firestore batch to execute all operations atomically
+            WriteBatch batch = db.batch();
+            batch.delete(requestDocRef); // Remove the follow request
+            batch.set(followerFollowingRef, followingData); // Add target to requester's following list
+            batch.set(followedFollowersRef, followerData); // Add requester to target's followers list
+            commit = meter.write("UserDAO.acceptFollowRequest", 3, batch.commit());
+        }
 
-        return batch.commit()
+        return commit
                 .addOnSuccessListener(aVoid -> {
                     Log.d("FollowRequest", "Follow request accepted successfully");
+                    followGraph.onFollowAccepted(requesterId, targetId);
+                    counters.invalidate(requesterId);
+                    counters.invalidate(targetId);
                 })
                 .addOnFailureListener(e -> {
                     Log.e("FollowRequest", "Failed to accept follow request", e);
@@ -499,10 +615,103 @@ public class UserDAOImplement implements IUserDAO {
                 .document(requesterId);
 
         // Delete the follow request document
-        return requestDocRef.delete();
+        return meter.write("UserDAO.rejectFollowRequest", 1, requestDocRef.delete())
+                .addOnSuccessListener(aVoid -> followGraph.onFollowRejected(requesterId, targetId));
     }
 
 
+    /**
+     * Accepts many follow requests at once.
+     * <p>
+     * Each request takes the same three writes as {@link #acceptFollowRequest}; requests are
+     * packed into WriteBatches of up to MAX_BATCH_WRITES writes, which are committed together.
+     * When counters are maintained, each request is its own transaction instead, since the
+     * counters depend on what each one reads. A request is only recorded in FollowGraphStore
+     * once its batch or transaction has committed.
+     * </p>
+     *
+     * @param requesterIds The user IDs of the users who sent the follow requests.
+     * @param targetId The user ID of the user accepting them.
+     * @return A {@link Task<Void>} that fails if any of the batches failed.
+     */
+    @Override
+    public Task<Void> acceptFollowRequests(@NonNull Collection<String> requesterIds, @NonNull String targetId) {
+        if (counters.isMaintained()) {
+            List<Task<Void>> commits = new ArrayList<>();
+            for (String requesterId : new LinkedHashSet<>(requesterIds)) {
+                commits.add(acceptFollowRequest(requesterId, targetId));
+            }
+            return Tasks.whenAll(commits);
+        }
+        return commitInBatches("UserDAO.acceptFollowRequests", new ArrayList<>(new LinkedHashSet<>(requesterIds)), 3,
+                (batch, requesterId) -> {
+                    long timestamp = System.currentTimeMillis();
+                    Map<String, Object> followingData = new HashMap<>();
+                    followingData.put("followedId", targetId);
+                    followingData.put("followedAt", timestamp);
+                    Map<String, Object> followerData = new HashMap<>();
+                    followerData.put("followerId", requesterId);
+                    followerData.put("followedAt", timestamp);
+
+                    batch.delete(db.collection("users").document(targetId).collection("requests").document(requesterId));
+                    batch.set(db.collection("users").document(requesterId).collection("following").document(targetId), followingData);
+                    batch.set(db.collection("users").document(targetId).collection("followers").document(requesterId), followerData);
+                },
+                requesterId -> {
+                    followGraph.onFollowAccepted(requesterId, targetId);
+                    counters.invalidate(requesterId);
+                    counters.invalidate(targetId);
+                });
+    }
+
+    /**
+     * Rejects many follow requests at once by deleting up to MAX_BATCH_WRITES request documents
+     * per WriteBatch.
+     *
+     * @param requesterIds The user IDs of the users who sent the follow requests.
+     * @param targetId The user ID of the user rejecting them.
+     * @return A {@link Task<Void>} that fails if any of the batches failed.
+     */
+    @Override
+    public Task<Void> rejectFollowRequests(@NonNull Collection<String> requesterIds, @NonNull String targetId) {
+        return commitInBatches("UserDAO.rejectFollowRequests", new ArrayList<>(new LinkedHashSet<>(requesterIds)), 1,
+                (batch, requesterId) -> batch.delete(db.collection("users").document(targetId)
+                        .collection("requests").document(requesterId)),
+                requesterId -> followGraph.onFollowRejected(requesterId, targetId));
+    }
+
+    /**
+     * Adds the writes of one item of a bulk operation to a batch.
+     */
+    private interface BatchItem {
+        void addTo(WriteBatch batch, String id);
+    }
+
+    /**
+     * Commits the writes of every id, writesPerId at a time, in as few batches as possible.
+     *
+     * @param onCommitted Called for every id of a batch once that batch has committed.
+     */
+    private Task<Void> commitInBatches(String label, List<String> ids, int writesPerId, BatchItem item,
+                                       Consumer<String> onCommitted) {
+        int idsPerBatch = MAX_BATCH_WRITES / writesPerId;
+        List<Task<Void>> commits = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += idsPerBatch) {
+            List<String> chunk = new ArrayList<>(ids.subList(i, Math.min(i + idsPerBatch, ids.size())));
+            WriteBatch batch = db.batch();
+            for (String id : chunk) {
+                item.addTo(batch, id);
+            }
+            commits.add(meter.write(label, chunk.size() * writesPerId, batch.commit())
+                    .addOnSuccessListener(aVoid -> {
+                        for (String id : chunk) {
+                            onCommitted.accept(id);
+                        }
+                    }));
+        }
+        return Tasks.whenAll(commits);
+    }
+
     /**
      * Unfollows a user by removing the follow relationship from Firestore.
      * <p>
@@ -532,12 +741,25 @@ public class UserDAOImplement implements IUserDAO {
                 .collection("followers")
                 .document(followerId);
 
-        // Use a Firestore batch to execute both deletions atomically
-        WriteBatch batch = db.batch();
-        batch.delete(followerFollowingRef); // Remove from follower's "following"
-        batch.delete(followedFollowersRef); // Remove from followed user's "followers"
+        Task<Void> commit;
+        if (counters.isMaintained()) {
+            // A transaction instead of a batch, so a repeated unfollow does not move the counters again
+            commit = counters.commitFollowChange("UserDAO.unfollowUser", followerId, followedId, false, 2,
+                    transaction -> transaction.delete(followerFollowingRef).delete(followedFollowersRef));
+        } else {
+            // Use a Firestore batch to execute both deletions atomically
+            WriteBatch batch = db.batch();
+            batch.delete(followerFollowingRef); // Remove from follower's "following"
+            batch.delete(followedFollowersRef); // Remove from followed user's "followers"
+            commit = meter.write("UserDAO.unfollowUser", 2, batch.commit()); // Execute the batch operation
+        }
 
-        return batch.commit(); // Execute the batch operation
+        return commit
+                .addOnSuccessListener(aVoid -> {
+                    followGraph.onUnfollowed(followerId, followedId);
+                    counters.invalidate(followerId);
+                    counters.invalidate(followedId);
+                });
     }
 
 
@@ -547,8 +769,9 @@ public class UserDAOImplement implements IUserDAO {
      * <p>
      * This method:
      * - Queries the Firestore "users" collection for usernames matching the search term.
-     * - Retrieves the current user's profile to exclude them from the search results.
-     * - Uses Firestore's `orderBy` and range filtering (`startAt` and `endAt`) to efficiently find matching users.
+     * - Excludes the currently signed-in user, taken from the auth session rather than read from Firestore.
+     * - Uses Firestore's `orderBy` and range filtering (`startAt` and `endAt`) on the lower-cased
+     *   username to efficiently find matching users, ignoring case.
      * - Returns a list of users who match the search query, excluding the currently signed-in user.
      * </p>
      *
@@ -559,43 +782,55 @@ public class UserDAOImplement implements IUserDAO {
      */
     @Override
     public Task<List<User>> searchUsers(@NonNull String userName) {
-        // Query Firestore for users whose usernames match the search term
-        Task<QuerySnapshot> queryTask = db.collection("users")
-                .orderBy("username")
-                .startAt(userName)
-                .endAt(userName + "\uf8ff") // Firestore range filtering to get usernames that start with the given term
-                .get();
-
-        // Retrieve the current user's profile to exclude them from the results
-        Task<User> currentUserTask = getCurrentUserProfile();
-
-        // Execute both tasks and process results when all tasks complete successfully
-        return Tasks.whenAllSuccess(queryTask, currentUserTask)
-                .continueWith(task -> {
-                    // Extract the results from both tasks
-                    List<Object> results = task.getResult();
-                    QuerySnapshot querySnapshot = (QuerySnapshot) results.get(0); // Retrieved user list
-                    User currentUser = (User) results.get(1); // Current user profile
-                    String currentUid = currentUser.getUserId();
-
-                    // Filter out the current user and add matching users to the result list
-                    List<User> userList = new ArrayList<>();
-                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                        User user = doc.toObject(User.class);
-                        if (user != null && !user.getUserId().equals(currentUid)) {
-                            userList.add(user);
-                        }
-                    }
-                    return userList;
-                });
+        // Firestore range filtering to get usernames that start with the given term
+        String prefix = UserMapper.normalize(userName);
+        return searchUsers(db.collection("users")
+                .orderBy(UserMapper.USERNAME_LOWER)
+                .startAt(prefix)
+                .endAt(prefix + "\uf8ff"), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Task<List<User>> searchUsers(@NonNull String prefix, int limit) {
+        // One extra document, so that dropping the current user still leaves limit results
+        String normalized = UserMapper.normalize(prefix);
+        return searchUsers(db.collection("users")
+                .orderBy(UserMapper.USERNAME_LOWER)
+                .startAt(normalized)
+                .endAt(normalized + "\uf8ff")
+                .limit(limit + 1L), limit);
+    }
+
+    private Task<List<User>> searchUsers(Query query, int limit) {
+        // The signed-in user comes from the auth session, so no profile read is needed to exclude them
+        FirebaseUser firebaseUser = auth.getCurrentUser();
+        if (firebaseUser == null) {
+            return Tasks.forException(new Exception("No user signed in"));
+        }
+        String currentUid = firebaseUser.getUid();
+
+        return meter.get("UserDAO.searchUsers", query).continueWith(AppExecutors.background(), task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException();
+            }
+            // Filter out the current user and add matching users to the result list
+            List<User> userList = new ArrayList<>();
+            for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                User user = UserMapper.fromMap(doc.getData());
+                if (user != null && !currentUid.equals(user.getUserId()) && userList.size() < limit) {
+                    userList.add(user);
+                }
+            }
+            return userList;
+        });
     }
 
     /**
      * Retrieves a user from Firestore based on their username.
      * <p>
      * This method:
-     * - Queries the Firestore "users" collection for a document where the "username" field matches the given username.
-     * - Limits the query to return only one document.
+     * - Reads the username's reservation, ignoring case, and then the user document it points to.
+     * - Falls back to querying the "users" collection for an exact "username" match when there is no reservation.
      * - Converts the retrieved Firestore document into a {@link User} object.
      * - Returns {@code null} if no matching user is found.
      * </p>
@@ -607,20 +842,84 @@ public class UserDAOImplement implements IUserDAO {
      */
     @Override
     public Task<User> getUserByUsername(@NonNull String username) {
-        return db.collection("users")
-                .whereEqualTo("username", username) // Query Firestore for the given username
-                .limit(1) // Limit the query to return only one user
-                .get()
-                .continueWith(task -> {
-                    if (!task.isSuccessful() || task.getResult() == null || task.getResult().isEmpty()) {
+        return findUserDocument("UserDAO.getUserByUsername", username)
+                .continueWith(AppExecutors.background(), task -> {
+                    if (!task.isSuccessful() || task.getResult() == null || !task.getResult().exists()) {
                         return null; // Return null if the user is not found
                     }
-                    return task.getResult().getDocuments().get(0).toObject(User.class); // Convert Firestore document to User object
+                    return UserMapper.fromMap(task.getResult().getData()); // Convert Firestore document to User object
                 });
     }
 
+    /**
+     * Finds a user's document by username: the reservation and then the user document, or the
+     * old equality query for accounts that have no reservation yet.
+     *
+     * @return The user's document, or null if there is no such user.
+     */
+    private Task<DocumentSnapshot> findUserDocument(String label, String username) {
+        DocumentReference reservation = reservationOf(username);
+        Task<DocumentSnapshot> read = reservation != null ? meter.get(label, reservation) : Tasks.forResult(null);
+        return read.continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException();
+            }
+            String uid = task.getResult() != null ? task.getResult().getString("uid") : null;
+            if (uid != null) {
+                return meter.get(label, db.collection("users").document(uid));
+            }
+            return meter.get(label, legacyQuery(username)).continueWith(queryTask -> {
+                if (!queryTask.isSuccessful()) {
+                    throw queryTask.getException();
+                }
+                return queryTask.getResult().isEmpty() ? null : queryTask.getResult().getDocuments().get(0);
+            });
+        });
+    }
+
+    private Query legacyQuery(String username) {
+        return db.collection("users").whereEqualTo("username", username).limit(1);
+    }
+
+    /**
+     * @return The username's reservation, or null if the name cannot be a document id.
+     */
+    private DocumentReference reservationOf(String username) {
+        String id = UserMapper.reservationId(username);
+        return id != null ? db.collection("usernames").document(id) : null;
+    }
+
+    private static Map<String, Object> reservationData(String userId, String username) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("uid", userId);
+        data.put("username", username);
+        return data;
+    }
+
+    /**
+     * @return The user's fields plus the lower-cased username that search runs over.
+     */
+    static Map<String, Object> storedData(User user) {
+        Map<String, Object> data = UserMapper.toMap(user);
+        data.put(UserMapper.USERNAME_LOWER, UserMapper.normalize(user.getUsername()));
+        return data;
+    }
+
+    /**
+     * Returns whether requesterId follows targetId, has asked to, or neither.
+     * <p>
+     * When FollowGraphStore tracks requesterId the answer comes from its sets without a read;
+     * otherwise the request and following documents are read.
+     * </p>
+     *
+     * @return A {@link Task<String>} with "following", "requested" or "none".
+     */
     @Override
     public Task<String> getFollowStatus(@NonNull String requesterId, @NonNull String targetId) {
+        if (followGraph.isTracking(requesterId)) {
+            return Tasks.forResult(followGraph.followStatus(targetId));
+        }
+
         DocumentReference requestDoc = db.collection("users")
                 .document(targetId)
                 .collection("requests")
@@ -631,8 +930,8 @@ public class UserDAOImplement implements IUserDAO {
                 .collection("following")
                 .document(targetId);
 
-        Task<DocumentSnapshot> requestTask = requestDoc.get();
-        Task<DocumentSnapshot> followTask = followDoc.get();
+        Task<DocumentSnapshot> requestTask = meter.get("UserDAO.getFollowStatus", requestDoc);
+        Task<DocumentSnapshot> followTask = meter.get("UserDAO.getFollowStatus", followDoc);
 
         return Tasks.whenAllSuccess(requestTask, followTask)
                 .continueWith(task -> {
@@ -649,4 +948,127 @@ public class UserDAOImplement implements IUserDAO {
                 });
     }
 
+    /**
+     * Resolves the follow status of many targets with two whereIn queries per MAX_IN_CLAUSE
+     * targets instead of two document reads per target.
+     * <p>
+     * This method:
+     * - Answers from FollowGraphStore without reading when it tracks requesterId.
+     * - Otherwise queries the requester's "following" subcollection by document ID, and the
+     *   targets' "requests" subcollections with a collection group query on the request paths.
+     * - Runs every chunk at once and merges the results in the background.
+     * </p>
+     *
+     * @param requesterId The user ID of the person initiating the follow.
+     * @param targetIds The user IDs of the target people.
+     * @return A {@link Task} with "following", "requested" or "none" for every target ID.
+     */
+    @Override
+    public Task<Map<String, String>> getFollowStatuses(@NonNull String requesterId, @NonNull Collection<String> targetIds) {
+        List<String> targets = new ArrayList<>(new LinkedHashSet<>(targetIds));
+        if (followGraph.isTracking(requesterId)) {
+            Map<String, String> statuses = new HashMap<>();
+            for (String targetId : targets) {
+                statuses.put(targetId, followGraph.followStatus(targetId));
+            }
+            return Tasks.forResult(statuses);
+        }
+        if (targets.isEmpty()) {
+            return Tasks.forResult(new HashMap<>());
+        }
+
+        CollectionReference following = db.collection("users").document(requesterId).collection("following");
+        List<Task<QuerySnapshot>> followingReads = new ArrayList<>();
+        List<Task<QuerySnapshot>> requestReads = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i += MAX_IN_CLAUSE) {
+            List<String> chunk = new ArrayList<>(targets.subList(i, Math.min(i + MAX_IN_CLAUSE, targets.size())));
+            // Collection group queries filter on the full path of the request documents
+            List<String> requestPaths = new ArrayList<>();
+            for (String targetId : chunk) {
+                requestPaths.add("users/" + targetId + "/requests/" + requesterId);
+            }
+            followingReads.add(meter.get("UserDAO.getFollowStatuses", following.whereIn(FieldPath.documentId(), chunk)));
+            requestReads.add(meter.get("UserDAO.getFollowStatuses", db.collectionGroup("requests")
+                    .whereIn(FieldPath.documentId(), requestPaths)));
+        }
+
+        List<Task<QuerySnapshot>> reads = new ArrayList<>(followingReads);
+        reads.addAll(requestReads);
+        return Tasks.whenAll(reads).continueWith(AppExecutors.background(), task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException();
+            }
+            Map<String, String> statuses = new HashMap<>();
+            for (String targetId : targets) {
+                statuses.put(targetId, "none");
+            }
+            for (Task<QuerySnapshot> read : requestReads) {
+                for (DocumentSnapshot request : read.getResult().getDocuments()) {
+                    // users/{targetId}/requests/{requesterId}
+                    statuses.put(request.getReference().getParent().getParent().getId(), "requested");
+                }
+            }
+            // Following wins over a request left behind
+            for (Task<QuerySnapshot> read : followingReads) {
+                for (DocumentSnapshot followed : read.getResult().getDocuments()) {
+                    statuses.put(followed.getId(), "following");
+                }
+            }
+            return statuses;
+        });
+    }
+
+    /**
+     * Resolves how userId relates to many targets, for mutual-follow badges on lists.
+     * <p>
+     * This method:
+     * - Answers from FollowGraphStore's sorted id arrays without reading when it tracks userId.
+     * - Otherwise resolves the follow statuses as getFollowStatuses does and adds one whereIn
+     *   query on the user's "followers" subcollection per MAX_IN_CLAUSE targets.
+     * </p>
+     *
+     * @param userId The user whose follow graph is consulted.
+     * @param targetIds The other users.
+     * @return A {@link Task} with Relationships.MUTUAL, FOLLOWING, REQUESTED, FOLLOWER or NONE
+     *         for every target ID.
+     */
+    @Override
+    public Task<Map<String, String>> getRelationships(@NonNull String userId, @NonNull Collection<String> targetIds) {
+        if (followGraph.isTracking(userId)) {
+            return Tasks.forResult(followGraph.getRelationships().classify(targetIds));
+        }
+        List<String> targets = new ArrayList<>(new LinkedHashSet<>(targetIds));
+        if (targets.isEmpty()) {
+            return Tasks.forResult(new HashMap<>());
+        }
+
+        CollectionReference followers = db.collection("users").document(userId).collection("followers");
+        List<Task<QuerySnapshot>> followerReads = new ArrayList<>();
+        for (int i = 0; i < targets.size(); i += MAX_IN_CLAUSE) {
+            List<String> chunk = new ArrayList<>(targets.subList(i, Math.min(i + MAX_IN_CLAUSE, targets.size())));
+            followerReads.add(meter.get("UserDAO.getRelationships", followers.whereIn(FieldPath.documentId(), chunk)));
+        }
+        Task<Map<String, String>> statusesRead = getFollowStatuses(userId, targets);
+
+        List<Task<?>> reads = new ArrayList<>(followerReads);
+        reads.add(statusesRead);
+        return Tasks.whenAll(reads).continueWith(AppExecutors.background(), task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException();
+            }
+            Map<String, String> relationships = new HashMap<>(statusesRead.getResult());
+            for (Task<QuerySnapshot> read : followerReads) {
+                for (DocumentSnapshot follower : read.getResult().getDocuments()) {
+                    String status = relationships.get(follower.getId());
+                    if (Relationships.FOLLOWING.equals(status)) {
+                        relationships.put(follower.getId(), Relationships.MUTUAL);
+                    } else if (Relationships.NONE.equals(status)) {
+                        relationships.put(follower.getId(), Relationships.FOLLOWER);
+                    }
+                }
+            }
+            return relationships;
+        });
+    }
+
 }
@@ -0,0 +1,185 @@
+/**
+ * UsernameIndexMigration - Reserves the usernames of accounts created before reservations, and
+ * backfills lastMoodAt on their user document.
+ *
+ * Purpose:
+ * - Accounts signed up before usernames/{name} existed have no reservation and no lower-cased
+ *   username field, so UserDAOImplement has to find them with an equality query and prefix
+ *   search does not see them. This job adds both for the signed-in user.
+ * - Users whose moods were all written before lastMoodAt existed have none, so FollowedMoodSync
+ *   re-seeds them on every sync of every follower. This job sets it from their newest mood.
+ *
+ * Key Features:
+ * - One transaction re-reads the user and the reservation, so it never takes a name another
+ *   account reserved in the meantime and does nothing if the user was already reserved.
+ * - The lower-cased name is written even when another account differing only in case holds the
+ *   reservation, so a finished run always leaves the user searchable.
+ * - lastMoodAt is only written when the transaction finds none, so a mood written since the
+ *   newest mood was read keeps the value MoodOutbox gave it. Users without moods get 1, which
+ *   marks them as backfilled.
+ * - The transaction's reads and writes are reported to FirestoreMeter.
+ * - migrateOnce records the VERSION of the last finished run per user and does nothing on later
+ *   calls until VERSION is raised.
+ *
+ * Outstanding Issues:
+ * - Each client only reserves its own user's name; users who never open a new app version keep
+ *   being found by the equality query only.
+ */
+package com.example.unemployedavengers.implementationDAO;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.metrics.DocumentSize;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.example.unemployedavengers.models.UserMapper;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class UsernameIndexMigration {
+    private static final String TAG = "UsernameIndexMigration";
+    private static final String PREFS = "username_index_migration";
+    // 1: username reservation; 2: lastMoodAt backfill
+    private static final int VERSION = 2;
+
+    private static UsernameIndexMigration instance;
+
+    private final SharedPreferences preferences;
+    private final FirebaseFirestore db;
+
+    private UsernameIndexMigration(Context context, FirebaseFirestore db) {
+        this.preferences = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.db = db;
+    }
+
+    /**
+     * @param context Any context; only the application context is kept.
+     * @return The shared UsernameIndexMigration.
+     */
+    public static synchronized UsernameIndexMigration getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new UsernameIndexMigration(context, FirebaseFirestore.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Reserves a user's name and backfills lastMoodAt unless a previous run already finished.
+     * Failures are logged and the next call tries again.
+     *
+     * @param userId The signed-in user.
+     */
+    public void migrateOnce(@NonNull String userId) {
+        if (preferences.getInt(versionKey(userId), 0) >= VERSION) return;
+        migrate(userId).addOnCompleteListener(task -> {
+            if (task.isSuccessful()) {
+                if (Boolean.TRUE.equals(task.getResult())) {
+                    Log.i(TAG, "Reserved the username of " + userId);
+                }
+                preferences.edit().putInt(versionKey(userId), VERSION).apply();
+            } else {
+                Log.w(TAG, "Username index migration failed", task.getException());
+            }
+        });
+    }
+
+    private static String versionKey(String userId) {
+        return userId + ".version";
+    }
+
+    /**
+     * Stores a user's lower-cased name and reserves it, whichever of the two is missing. The
+     * lower-cased name is stored even when another account holds the reservation, so the user
+     * still shows up in prefix search. Sets lastMoodAt from the newest mood if there is none.
+     *
+     * @param userId The signed-in user.
+     * @return A {@link Task<Boolean>} that is true if the reservation was added.
+     */
+    public Task<Boolean> migrate(@NonNull String userId) {
+        DocumentReference userDoc = db.collection("users").document(userId);
+        Query newest = userDoc.collection("moods").orderBy("updatedAt", Query.Direction.DESCENDING).limit(1);
+        return FirestoreMeter.getInstance().get("UsernameIndexMigration.newestMood", newest)
+                .continueWithTask(task -> {
+                    QuerySnapshot moods = task.getResult();
+                    Long updatedAt = moods.isEmpty() ? null : moods.getDocuments().get(0).getLong("updatedAt");
+                    return migrate(userDoc, Math.max(1L, updatedAt != null ? updatedAt : 0L));
+                });
+    }
+
+    private Task<Boolean> migrate(DocumentReference userDoc, long newestUpdatedAt) {
+        String userId = userDoc.getId();
+        // Documents read, bytes read and documents written, reported once the transaction is done
+        long[] usage = new long[3];
+        long start = SystemClock.elapsedRealtime();
+        Task<Boolean> migration = db.runTransaction(transaction -> {
+            DocumentSnapshot user = transaction.get(userDoc);
+            usage[0] = 1;
+            usage[1] = DocumentSize.estimate(userDoc.getPath(), user.getData());
+            usage[2] = 0;
+            // Transactions read everything first, so the reservation is read before any write
+            String username = user.getString("username");
+            String id = username != null ? UserMapper.reservationId(username) : null;
+            DocumentReference reservation = id != null ? db.collection("usernames").document(id) : null;
+            DocumentSnapshot existing = null;
+            if (reservation != null) {
+                existing = transaction.get(reservation);
+                usage[0]++;
+                usage[1] += DocumentSize.estimate(reservation.getPath(), existing.getData());
+            }
+
+            // Both user fields go in one write
+            Map<String, Object> userUpdates = new HashMap<>();
+            if (user.exists() && user.getLong("lastMoodAt") == null) {
+                userUpdates.put("lastMoodAt", newestUpdatedAt);
+            }
+            if (id != null) {
+                String lower = UserMapper.normalize(username);
+                if (!lower.equals(user.getString(UserMapper.USERNAME_LOWER))) {
+                    userUpdates.put(UserMapper.USERNAME_LOWER, lower);
+                }
+            }
+            if (!userUpdates.isEmpty()) {
+                transaction.set(userDoc, userUpdates, SetOptions.merge());
+                usage[2]++;
+            }
+
+            if (existing == null) {
+                return false;
+            }
+            if (existing.exists()) {
+                if (!userId.equals(existing.getString("uid"))) {
+                    // Another account differing only in case holds it; leave the reservation as it is
+                    Log.w(TAG, "Username " + id + " is reserved by another user");
+                }
+                return false;
+            }
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("uid", userId);
+            data.put("username", username);
+            transaction.set(reservation, data);
+            usage[2]++;
+            return true;
+        });
+        return migration.addOnCompleteListener(task -> {
+            long elapsedMs = SystemClock.elapsedRealtime() - start;
+            FirestoreMeter meter = FirestoreMeter.getInstance();
+            meter.recordRead("UsernameIndexMigration.migrate", (int) usage[0], usage[1], false, elapsedMs);
+            if (task.isSuccessful()) {
+                meter.recordWrite("UsernameIndexMigration.migrate", (int) usage[2], elapsedMs);
+            }
+        });
+    }
+}
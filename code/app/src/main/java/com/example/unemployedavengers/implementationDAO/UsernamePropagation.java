@@ -0,0 +1,353 @@
+/**
+ * UsernamePropagation - Copies a changed username onto the user's moods and comments.
+ *
+ * Purpose:
+ * - The username is stored on every mood (MoodEvent.userName) and comment (Comment.username)
+ *   a user wrote, and changeUsername only updates users/{id}, so old moods and comments kept
+ *   showing the old name. This job rewrites those copies after a rename.
+ *
+ * Key Features:
+ * - Pages through users/{id}/moods, then the user's documents in comments, by document id,
+ *   PAGE_SIZE at a time; each page is one WriteBatch (at most 500 writes) that only updates
+ *   documents still showing another name.
+ * - Rewritten moods get a newer updatedAt and each page advances lastMoodAt on the user document,
+ *   so LocalMoodStore's incremental sync and followers' FollowedMoodSync pick up the new name.
+ * - Journaled MoodOutbox payloads are renamed when a run starts. Moods with operations still
+ *   waiting to sync are left to the replay, which writes the new name; a newer updatedAt here
+ *   would make last-writer-wins drop those edits.
+ * - The target name, phase and last document id are checkpointed in SharedPreferences after
+ *   every committed page, so a run cut short by process death resumes where it left off.
+ * - Batches are spaced so the job writes at most maxWritesPerSecond documents per second.
+ * - Progress is reported to listeners on the main thread after every page.
+ * - A newer rename supersedes a running one, which stops at its next page; the new run starts
+ *   from the first mood again.
+ *
+ * Outstanding Issues:
+ * - Edits journaled on another device before the rename still carry the old name there.
+ * - A journaled operation that ends up FAILED and is never retried leaves its mood on the old name.
+ */
+package com.example.unemployedavengers.implementationDAO;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.local.MoodOutbox;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class UsernamePropagation {
+    private static final String TAG = "UsernamePropagation";
+    private static final String PREFS = "username_propagation";
+    // One page is one batch, so it must stay within Firestore's 500 writes per batch together
+    // with the lastMoodAt write
+    private static final int PAGE_SIZE = 499;
+    private static final int DEFAULT_WRITES_PER_SECOND = 100;
+
+    public static final String PHASE_MOODS = "moods";
+    public static final String PHASE_COMMENTS = "comments";
+
+    /**
+     * Notified on the main thread after every page of a run.
+     */
+    public interface Listener {
+        void onProgress(@NonNull Progress progress);
+    }
+
+    /**
+     * How far a run got.
+     */
+    public static final class Progress {
+        public final String userId;
+        public final String username;
+        /** PHASE_MOODS or PHASE_COMMENTS: the documents being rewritten. */
+        public final String phase;
+        /** Documents rewritten so far by this rename, across restarts. */
+        public final long updated;
+        public final boolean done;
+
+        Progress(String userId, String username, String phase, long updated, boolean done) {
+            this.userId = userId;
+            this.username = username;
+            this.phase = phase;
+            this.updated = updated;
+            this.done = done;
+        }
+    }
+
+    private static UsernamePropagation instance;
+
+    private final SharedPreferences preferences;
+    private final FirebaseFirestore db;
+    private final FirestoreMeter meter = FirestoreMeter.getInstance();
+    private final MoodOutbox outbox;
+    // One run at a time, so two screens resuming it do not rewrite the same page twice
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Bumped by start(); a run stops, without checkpointing, once it no longer matches
+    private final AtomicInteger generation = new AtomicInteger();
+    // Bumped by cancel(); a run stops after checkpointing its current page
+    private final AtomicInteger cancellations = new AtomicInteger();
+    private volatile int maxWritesPerSecond = DEFAULT_WRITES_PER_SECOND;
+
+    private UsernamePropagation(Context context, FirebaseFirestore db) {
+        this.preferences = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.db = db;
+        this.outbox = MoodOutbox.getInstance(context);
+    }
+
+    /**
+     * @param context Any context; only the application context is kept.
+     * @return The shared UsernamePropagation.
+     */
+    public static synchronized UsernamePropagation getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new UsernamePropagation(context, FirebaseFirestore.getInstance());
+        }
+        return instance;
+    }
+
+    public void addListener(@NonNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sets the write rate runs are throttled to, e.g. higher for emulator tests.
+     */
+    public void setMaxWritesPerSecond(int maxWritesPerSecond) {
+        this.maxWritesPerSecond = Math.max(1, maxWritesPerSecond);
+    }
+
+    /**
+     * Records a rename and starts copying it, replacing any rename of the user still in progress.
+     *
+     * @param userId The renamed user.
+     * @param username The new name.
+     * @return A {@link Task<Progress>} with the final progress, or null if the run was
+     *         superseded or cancelled before it finished.
+     */
+    public Task<Progress> start(@NonNull String userId, @NonNull String username) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            preferences.edit()
+                    .putString(usernameKey(userId), username)
+                    .putString(phaseKey(userId), PHASE_MOODS)
+                    .remove(cursorKey(userId))
+                    .putLong(updatedKey(userId), 0L)
+                    .commit();
+        }
+        // Checkpointed, so a failed run is retried by the next resumePending()
+        return resume(userId).addOnFailureListener(e -> Log.w(TAG, "Username propagation failed", e));
+    }
+
+    /**
+     * Continues a rename of the user that did not finish. Failures are logged and the next call
+     * tries again.
+     *
+     * @param userId The signed-in user.
+     */
+    public void resumePending(@NonNull String userId) {
+        if (!preferences.contains(usernameKey(userId))) return;
+        resume(userId).addOnCompleteListener(task -> {
+            if (!task.isSuccessful()) {
+                Log.w(TAG, "Username propagation failed", task.getException());
+            } else if (task.getResult() != null) {
+                Log.i(TAG, "Renamed " + task.getResult().updated + " moods and comments of " + userId);
+            }
+        });
+    }
+
+    /**
+     * Continues the user's pending rename from its last checkpoint.
+     *
+     * @return A {@link Task<Progress>} with the final progress, or null if nothing was pending
+     *         or the run was superseded or cancelled before it finished.
+     */
+    public Task<Progress> resume(@NonNull String userId) {
+        int runGeneration = generation.get();
+        int runCancellations = cancellations.get();
+        return Tasks.call(executor, () -> propagate(userId, runGeneration, runCancellations));
+    }
+
+    /**
+     * Stops the running rename after its current page; its checkpoint is kept for resume().
+     */
+    public void cancel() {
+        cancellations.incrementAndGet();
+    }
+
+    private Progress propagate(String userId, int runGeneration, int runCancellations) throws Exception {
+        String username;
+        String phase;
+        String cursor;
+        long updated;
+        synchronized (this) {
+            if (runGeneration != generation.get() || runCancellations != cancellations.get()) return null;
+            username = preferences.getString(usernameKey(userId), null);
+            if (username == null) return null;
+            phase = preferences.getString(phaseKey(userId), PHASE_MOODS);
+            cursor = preferences.getString(cursorKey(userId), null);
+            updated = preferences.getLong(updatedKey(userId), 0L);
+        }
+
+        Set<String> journaled = Tasks.await(outbox.renameInPayloads(userId, username));
+        DocumentReference userRef = db.collection("users").document(userId);
+        long lastMoodAt = 0L;
+        if (PHASE_MOODS.equals(phase)) {
+            Long current = Tasks.await(meter.get("UsernamePropagation.user", userRef)).getLong("lastMoodAt");
+            lastMoodAt = current != null ? current : 0L;
+        }
+
+        while (true) {
+            if (runGeneration != generation.get()) return null;
+            Query page = pageQuery(userId, phase);
+            if (cursor != null) {
+                page = page.startAfter(cursor);
+            }
+            QuerySnapshot snapshot = Tasks.await(meter.get("UsernamePropagation." + phase, page));
+
+            boolean moods = PHASE_MOODS.equals(phase);
+            String field = moods ? "userName" : "username";
+            WriteBatch batch = db.batch();
+            int writes = 0;
+            long now = System.currentTimeMillis();
+            long pageUpdatedAt = 0L;
+            for (DocumentSnapshot document : snapshot.getDocuments()) {
+                if (username.equals(document.getString(field))) continue;
+                if (moods && journaled.contains(document.getId())) continue;
+                if (moods) {
+                    // Newer than the server copy even if this device's clock is behind
+                    Long previous = document.getLong("updatedAt");
+                    long updatedAt = Math.max(now, previous != null ? previous + 1 : 0L);
+                    batch.update(document.getReference(), field, username, "updatedAt", updatedAt);
+                    pageUpdatedAt = Math.max(pageUpdatedAt, updatedAt);
+                } else {
+                    batch.update(document.getReference(), field, username);
+                }
+                writes++;
+            }
+            long started = SystemClock.elapsedRealtime();
+            if (writes > 0) {
+                int batchWrites = writes;
+                if (moods) {
+                    // lastMoodAt only moves forward, as in MoodOutbox
+                    lastMoodAt = Math.max(lastMoodAt + 1, pageUpdatedAt);
+                    batch.set(userRef, Collections.singletonMap("lastMoodAt", lastMoodAt), SetOptions.merge());
+                    batchWrites++;
+                }
+                Tasks.await(meter.write("UsernamePropagation." + phase, batchWrites, batch.commit()));
+            }
+            updated += writes;
+
+            boolean done = false;
+            if (snapshot.size() < PAGE_SIZE) {
+                if (PHASE_MOODS.equals(phase)) {
+                    phase = PHASE_COMMENTS;
+                    cursor = null;
+                } else {
+                    done = true;
+                }
+            } else {
+                cursor = snapshot.getDocuments().get(snapshot.size() - 1).getId();
+            }
+
+            synchronized (this) {
+                // A newer rename reset the checkpoint; leave it alone
+                if (runGeneration != generation.get()) return null;
+                SharedPreferences.Editor editor = preferences.edit();
+                if (done) {
+                    editor.remove(usernameKey(userId)).remove(phaseKey(userId))
+                            .remove(cursorKey(userId)).remove(updatedKey(userId));
+                } else {
+                    editor.putString(phaseKey(userId), phase).putLong(updatedKey(userId), updated);
+                    if (cursor != null) {
+                        editor.putString(cursorKey(userId), cursor);
+                    } else {
+                        editor.remove(cursorKey(userId));
+                    }
+                }
+                // Synchronously, so the checkpoint survives the process dying right after
+                editor.commit();
+            }
+
+            Progress progress = new Progress(userId, username, phase, updated, done);
+            notifyListeners(progress);
+            if (done) {
+                return progress;
+            }
+            if (runCancellations != cancellations.get()) {
+                return null;
+            }
+            throttle(writes, started);
+        }
+    }
+
+    private Query pageQuery(String userId, String phase) {
+        Query query = PHASE_MOODS.equals(phase)
+                ? db.collection("users").document(userId).collection("moods")
+                : db.collection("comments").whereEqualTo("userId", userId);
+        return query.orderBy(FieldPath.documentId()).limit(PAGE_SIZE);
+    }
+
+    /**
+     * Waits until writes documents fit in maxWritesPerSecond, counted from started.
+     */
+    private void throttle(int writes, long started) throws InterruptedException {
+        long minimumMs = writes * 1000L / maxWritesPerSecond;
+        long waitMs = minimumMs - (SystemClock.elapsedRealtime() - started);
+        if (waitMs > 0) {
+            Thread.sleep(waitMs);
+        }
+    }
+
+    private void notifyListeners(Progress progress) {
+        mainHandler.post(() -> {
+            for (Listener listener : listeners) {
+                listener.onProgress(progress);
+            }
+        });
+    }
+
+    private static String usernameKey(String userId) {
+        return userId + ".username";
+    }
+
+    private static String phaseKey(String userId) {
+        return userId + ".phase";
+    }
+
+    private static String cursorKey(String userId) {
+        return userId + ".cursor";
+    }
+
+    private static String updatedKey(String userId) {
+        return userId + ".updated";
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * CachedReads - Stale-while-revalidate reads of Firestore documents and queries.
+ *
+ * Purpose:
+ * - Screens used to wait for the server on every open even though Firestore persistence is enabled.
+ *   With ReadPolicy.CACHE_THEN_NETWORK the cached copy is delivered immediately and the server copy
+ *   is delivered afterwards only if its content differs, so warm opens do not wait on the network.
+ *
+ * Key Features:
+ * - One listener receives every emission, flagged with whether it came from the cache.
+ * - Content is compared by document id and field values, so metadata-only changes do not re-render.
+ * - Empty cached query results are skipped: the cache cannot tell "no results" from "never fetched".
+ * - If revalidation fails after a cached copy was delivered, the failure is only logged.
+ * - Every fetch goes through FirestoreMeter under the caller's label.
+ *
+ * Outstanding Issues:
+ * - Callers must check that their view is still alive in the listener, as with plain Tasks.
+ */
+package com.example.unemployedavengers.local;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.google.android.gms.tasks.OnFailureListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+public final class CachedReads {
+    private static final String TAG = "CachedReads";
+
+    /**
+     * Receives each result of a read; called once or, for CACHE_THEN_NETWORK, up to twice.
+     */
+    public interface ReadListener<T> {
+        void onRead(@NonNull T result, boolean fromCache);
+    }
+
+    private CachedReads() {
+    }
+
+    /**
+     * Reads a single document.
+     *
+     * @param label Call-site label for FirestoreMeter.
+     * @param ref The document to read.
+     * @param policy Where to serve the read from.
+     * @param listener Receives the document.
+     * @param failureListener Called if no copy could be delivered at all.
+     */
+    public static void get(@NonNull String label, @NonNull DocumentReference ref, @NonNull ReadPolicy policy,
+                           @NonNull ReadListener<DocumentSnapshot> listener, @NonNull OnFailureListener failureListener) {
+        read(source -> FirestoreMeter.getInstance().get(label, ref, source), CachedReads::contentOf, snapshot -> true, policy, listener, failureListener);
+    }
+
+    /**
+     * Reads the results of a query.
+     *
+     * @param label Call-site label for FirestoreMeter.
+     * @param query The query to run.
+     * @param policy Where to serve the read from.
+     * @param listener Receives the query results.
+     * @param failureListener Called if no copy could be delivered at all.
+     */
+    public static void get(@NonNull String label, @NonNull Query query, @NonNull ReadPolicy policy,
+                           @NonNull ReadListener<QuerySnapshot> listener, @NonNull OnFailureListener failureListener) {
+        read(source -> FirestoreMeter.getInstance().get(label, query, source), snapshot -> contentOf(snapshot.getDocuments()), snapshot -> !snapshot.isEmpty(),
+                policy, listener, failureListener);
+    }
+
+    /**
+     * Reads several documents at once. Documents that could not be read are left out of the result.
+     *
+     * @param label Call-site label for FirestoreMeter.
+     * @param refs The documents to read.
+     * @param policy Where to serve the read from.
+     * @param listener Receives the documents that were read, in the order of refs.
+     * @param failureListener Called if no copy could be delivered at all.
+     */
+    public static void getAll(@NonNull String label, @NonNull List<DocumentReference> refs, @NonNull ReadPolicy policy,
+                              @NonNull ReadListener<List<DocumentSnapshot>> listener, @NonNull OnFailureListener failureListener) {
+        read(source -> getAll(label, refs, source), CachedReads::contentOf,
+                snapshots -> refs.isEmpty() || !snapshots.isEmpty(), policy, listener, failureListener);
+    }
+
+    private static Task<List<DocumentSnapshot>> getAll(String label, List<DocumentReference> refs, Source source) {
+        FirestoreMeter meter = FirestoreMeter.getInstance();
+        List<Task<DocumentSnapshot>> tasks = new ArrayList<>();
+        for (DocumentReference ref : refs) {
+            tasks.add(meter.get(label, ref, source));
+        }
+        return Tasks.whenAllComplete(tasks).continueWith(done -> {
+            List<DocumentSnapshot> snapshots = new ArrayList<>();
+            Exception firstError = null;
+            for (Task<DocumentSnapshot> task : tasks) {
+                if (task.isSuccessful()) {
+                    snapshots.add(task.getResult());
+                } else if (firstError == null) {
+                    firstError = task.getException();
+                }
+            }
+            if (snapshots.isEmpty() && firstError != null) {
+                throw firstError;
+            }
+            return snapshots;
+        });
+    }
+
+    private static <T> void read(Function<Source, Task<T>> fetch, Function<T, Object> content, Predicate<T> usableFromCache,
+                                 ReadPolicy policy, ReadListener<T> listener, OnFailureListener failureListener) {
+        switch (policy) {
+            case CACHE_ONLY:
+                fetch.apply(Source.CACHE)
+                        .addOnSuccessListener(result -> listener.onRead(result, true))
+                        .addOnFailureListener(failureListener);
+                break;
+            case NETWORK_ONLY:
+                fetch.apply(Source.SERVER)
+                        .addOnSuccessListener(result -> listener.onRead(result, false))
+                        .addOnFailureListener(failureListener);
+                break;
+            case CACHE_THEN_NETWORK:
+            default:
+                fetch.apply(Source.CACHE).addOnCompleteListener(cacheTask -> {
+                    Object cachedContent = null;
+                    if (cacheTask.isSuccessful() && usableFromCache.test(cacheTask.getResult())) {
+                        cachedContent = content.apply(cacheTask.getResult());
+                        listener.onRead(cacheTask.getResult(), true);
+                    }
+
+                    Object delivered = cachedContent;
+                    fetch.apply(Source.SERVER)
+                            .addOnSuccessListener(result -> {
+                                if (hasChanged(delivered, content.apply(result))) {
+                                    listener.onRead(result, false);
+                                }
+                            })
+                            .addOnFailureListener(e -> {
+                                if (delivered == null) {
+                                    failureListener.onFailure(e);
+                                } else {
+                                    Log.w(TAG, "Revalidation failed, keeping the cached copy", e);
+                                }
+                            });
+                });
+                break;
+        }
+    }
+
+    private static Object contentOf(DocumentSnapshot snapshot) {
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put(snapshot.getId(), snapshot.exists() ? snapshot.getData() : null);
+        return content;
+    }
+
+    private static Object contentOf(List<? extends DocumentSnapshot> snapshots) {
+        Map<String, Object> content = new LinkedHashMap<>();
+        for (DocumentSnapshot snapshot : snapshots) {
+            content.put(snapshot.getId(), snapshot.exists() ? snapshot.getData() : null);
+        }
+        return content;
+    }
+
+    /**
+     * @param delivered Content of the copy already delivered, or null if none was.
+     * @param revalidated Content of the copy just read from the server, keyed by document id in result order.
+     * @return true if the server copy has to be delivered.
+     */
+    public static boolean hasChanged(Object delivered, Object revalidated) {
+        if (delivered == null) return true;
+        if (delivered instanceof Map && revalidated instanceof Map) {
+            // Order matters for query results, so compare entry by entry
+            return !new ArrayList<>(((Map<?, ?>) delivered).entrySet())
+                    .equals(new ArrayList<>(((Map<?, ?>) revalidated).entrySet()));
+        }
+        return !delivered.equals(revalidated);
+    }
+}
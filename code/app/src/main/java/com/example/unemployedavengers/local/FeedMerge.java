@@ -0,0 +1,49 @@
+/**
+ * FeedMerge - Pure helpers that shape the followed-users feed.
+ *
+ * Purpose:
+ * - latestPerUser: turns the mirrored moods of every followee into the feed FollowedUserMoodEvents
+ *   shows, the latest few per followee ordered by time.
+ *
+ * Key Features:
+ * - No Android or Firebase dependencies, so it is unit tested directly and measured by the
+ *   benchmarks module.
+ */
+package com.example.unemployedavengers.local;
+
+import com.example.unemployedavengers.models.MoodEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public final class FeedMerge {
+
+    private FeedMerge() {
+    }
+
+    /**
+     * Keeps the first moods of each user and orders the result by time.
+     *
+     * @param moods Moods grouped by user, most recent first within each user.
+     * @param perUser How many moods to keep per user.
+     * @return The kept moods, most recent first.
+     */
+    public static List<MoodEvent> latestPerUser(List<MoodEvent> moods, int perUser) {
+        List<MoodEvent> latest = new ArrayList<>();
+        String currentUser = null;
+        int count = 0;
+        for (MoodEvent moodEvent : moods) {
+            if (currentUser == null || !currentUser.equals(moodEvent.getUserId())) {
+                currentUser = moodEvent.getUserId();
+                count = 0;
+            }
+            if (count < perUser) {
+                latest.add(moodEvent);
+                count++;
+            }
+        }
+        Collections.sort(latest, (event1, event2) -> Long.compare(event2.getTime(), event1.getTime()));
+        return latest;
+    }
+}
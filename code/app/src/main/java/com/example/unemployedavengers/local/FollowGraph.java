@@ -0,0 +1,126 @@
+/**
+ * FollowGraph - The signed-in user's side of the follow graph, held as id sets.
+ *
+ * Purpose:
+ * - Backs FollowGraphStore, so follow-status checks and the list of followees are set lookups
+ *   instead of reads of the following, followers and requests subcollections.
+ *
+ * Key Features:
+ * - Three sets: users followed, followers, and users with a pending request from this user.
+ * - Every change that alters a set bumps the version, so callers can tell whether anything moved
+ *   since they last looked; changes that leave the sets as they were do not.
+ * - No Android or Firebase dependencies.
+ *
+ * Outstanding Issues:
+ * - Not thread-safe on its own; FollowGraphStore synchronizes access.
+ */
+package com.example.unemployedavengers.local;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public final class FollowGraph {
+    public static final String STATUS_FOLLOWING = "following";
+    public static final String STATUS_REQUESTED = "requested";
+    public static final String STATUS_NONE = "none";
+
+    /**
+     * The sets kept for the signed-in user; key names the set on disk.
+     */
+    public enum Kind {
+        FOLLOWING("following"),
+        FOLLOWERS("followers"),
+        REQUESTED("requested");
+
+        public final String key;
+
+        Kind(String key) {
+            this.key = key;
+        }
+    }
+
+    private final Map<Kind, Set<String>> sets = new EnumMap<>(Kind.class);
+    private long version;
+
+    public FollowGraph() {
+        for (Kind kind : Kind.values()) {
+            sets.put(kind, new HashSet<>());
+        }
+    }
+
+    /**
+     * Replaces a whole set, e.g. with the ids of a snapshot.
+     *
+     * @return true if the set changed.
+     */
+    public boolean replace(Kind kind, Collection<String> ids) {
+        Set<String> set = sets.get(kind);
+        if (set.size() == ids.size() && set.containsAll(ids)) {
+            return false;
+        }
+        set.clear();
+        set.addAll(ids);
+        version++;
+        return true;
+    }
+
+    /**
+     * @return true if the id was not in the set yet.
+     */
+    public boolean add(Kind kind, String id) {
+        if (!sets.get(kind).add(id)) {
+            return false;
+        }
+        version++;
+        return true;
+    }
+
+    /**
+     * @return true if the id was in the set.
+     */
+    public boolean remove(Kind kind, String id) {
+        if (!sets.get(kind).remove(id)) {
+            return false;
+        }
+        version++;
+        return true;
+    }
+
+    public boolean contains(Kind kind, String id) {
+        return sets.get(kind).contains(id);
+    }
+
+    /**
+     * @return A copy of the set.
+     */
+    public Set<String> get(Kind kind) {
+        return new HashSet<>(sets.get(kind));
+    }
+
+    /**
+     * @param targetId The user whose relation to the signed-in user is wanted.
+     * @return STATUS_FOLLOWING, STATUS_REQUESTED or STATUS_NONE, as IUserDAO.getFollowStatus.
+     */
+    public String followStatus(String targetId) {
+        if (contains(Kind.FOLLOWING, targetId)) {
+            return STATUS_FOLLOWING;
+        } else if (contains(Kind.REQUESTED, targetId)) {
+            return STATUS_REQUESTED;
+        }
+        return STATUS_NONE;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Restores the version saved with the sets, so it keeps increasing across restarts.
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
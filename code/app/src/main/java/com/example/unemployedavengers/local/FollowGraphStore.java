@@ -0,0 +1,327 @@
+/**
+ * FollowGraphStore - The signed-in user's following, followers and sent requests, in memory and
+ * on disk.
+ *
+ * Purpose:
+ * - Dashboard, FollowedUserMoodEvents, FriendsHistory and FriendsViewportLoader used to read the
+ *   whole following subcollection on every open, and every profile view read two documents for
+ *   its follow status. With the graph kept here, feeds start from the stored followees without a
+ *   network round trip and UserDAOImplement answers follow-status checks from the sets.
+ *
+ * Key Features:
+ * - start() restores the user's sets from SharedPreferences and attaches snapshot listeners to
+ *   users/{id}/following, users/{id}/followers and the requests this user sent (a collection
+ *   group query on requesterId), so changes made on other devices or by other users arrive live.
+ *   Dashboard starts it for the signed-in user; MainActivity stops it when the sign-in screens
+ *   are shown again or the activity finishes, so no listeners outlive the session.
+ * - UserDAOImplement applies its own follow, accept, reject and unfollow writes as soon as they
+ *   succeed, before the listeners see them.
+ * - Each change bumps the FollowGraph version, is saved with it, and is reported to listeners on
+ *   the main thread.
+ * - getRelationships() gives the sets as sorted arrays for mutual, fan and pending lookups.
+ * - Empty snapshots from the cache are ignored: the cache cannot tell "none" from "never fetched".
+ *
+ * Outstanding Issues:
+ * - Until the first server snapshot arrives, answers come from the copy saved at the end of the
+ *   last session and can be behind changes made while the app was closed.
+ * - Listeners must be removed in onDestroyView.
+ */
+package com.example.unemployedavengers.local;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+public class FollowGraphStore {
+    private static final String TAG = "FollowGraphStore";
+    private static final String PREFS = "follow_graph";
+
+    /**
+     * Notified on the main thread whenever one of the sets changes.
+     */
+    public interface Listener {
+        void onFollowGraphChanged(long version);
+    }
+
+    private static FollowGraphStore instance;
+
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final FirestoreMeter meter = FirestoreMeter.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final List<ListenerRegistration> registrations = new ArrayList<>();
+
+    // Guarded by this
+    private SharedPreferences preferences;
+    private String userId;
+    private FollowGraph graph = new FollowGraph();
+    private final Set<FollowGraph.Kind> synced = EnumSet.noneOf(FollowGraph.Kind.class);
+    private boolean restored;
+    // Whether every set has been written for this user, so a restore finds them all
+    private boolean onDisk;
+    // Built on demand and kept until the graph moves past the version it was built from
+    private Relationships relationships;
+    private FollowGraph relationshipsGraph;
+    private long relationshipsVersion;
+
+    private FollowGraphStore() {
+    }
+
+    /**
+     * @return The shared FollowGraphStore; it tracks nobody until start() is called.
+     */
+    public static synchronized FollowGraphStore getInstance() {
+        if (instance == null) {
+            instance = new FollowGraphStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts tracking a user, restoring their sets from disk. Does nothing if the user is already
+     * tracked; a different user replaces the previous one.
+     *
+     * @param context Any context; only the application context is kept.
+     * @param userId The signed-in user.
+     */
+    public synchronized void start(@NonNull Context context, @NonNull String userId) {
+        if (userId.equals(this.userId)) return;
+        stop();
+
+        preferences = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.userId = userId;
+        graph = new FollowGraph();
+        restored = preferences.contains(versionKey(userId));
+        onDisk = restored;
+        if (restored) {
+            for (FollowGraph.Kind kind : FollowGraph.Kind.values()) {
+                graph.replace(kind, preferences.getStringSet(setKey(userId, kind), new HashSet<>()));
+            }
+            graph.setVersion(preferences.getLong(versionKey(userId), 0L));
+        }
+
+        DocumentReference user = db.collection("users").document(userId);
+        listen(FollowGraph.Kind.FOLLOWING, "FollowGraphStore.following", user.collection("following"),
+                DocumentSnapshot::getId);
+        listen(FollowGraph.Kind.FOLLOWERS, "FollowGraphStore.followers", user.collection("followers"),
+                DocumentSnapshot::getId);
+        // Requests live under the target, users/{targetId}/requests/{requesterId}
+        listen(FollowGraph.Kind.REQUESTED, "FollowGraphStore.requested",
+                db.collectionGroup("requests").whereEqualTo("requesterId", userId),
+                document -> document.getReference().getParent().getParent().getId());
+    }
+
+    /**
+     * Detaches the snapshot listeners and forgets the tracked user; their sets stay on disk.
+     */
+    public synchronized void stop() {
+        for (ListenerRegistration registration : registrations) {
+            registration.remove();
+        }
+        registrations.clear();
+        userId = null;
+        synced.clear();
+        restored = false;
+        onDisk = false;
+    }
+
+    public void addListener(@NonNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return true if userId is tracked and its sets were restored from disk or received from
+     *         Firestore, so the getters below can be used instead of reading Firestore.
+     */
+    public synchronized boolean isTracking(@NonNull String userId) {
+        return userId.equals(this.userId) && (restored || synced.containsAll(EnumSet.allOf(FollowGraph.Kind.class)));
+    }
+
+    /**
+     * @return The ids the tracked user follows.
+     */
+    public synchronized Set<String> getFollowing() {
+        return graph.get(FollowGraph.Kind.FOLLOWING);
+    }
+
+    /**
+     * @return The ids following the tracked user.
+     */
+    public synchronized Set<String> getFollowers() {
+        return graph.get(FollowGraph.Kind.FOLLOWERS);
+    }
+
+    /**
+     * @return The ids the tracked user has sent a pending follow request to.
+     */
+    public synchronized Set<String> getRequested() {
+        return graph.get(FollowGraph.Kind.REQUESTED);
+    }
+
+    /**
+     * @return The tracked user's followers, followees and requests as sorted id arrays. The same
+     *         instance is returned until the graph changes, so badging a long list costs one
+     *         merge and no copies of the sets.
+     */
+    public synchronized Relationships getRelationships() {
+        if (relationships == null || relationshipsGraph != graph || relationshipsVersion != graph.getVersion()) {
+            relationships = Relationships.of(graph.get(FollowGraph.Kind.FOLLOWING),
+                    graph.get(FollowGraph.Kind.FOLLOWERS), graph.get(FollowGraph.Kind.REQUESTED));
+            relationshipsGraph = graph;
+            relationshipsVersion = graph.getVersion();
+        }
+        return relationships;
+    }
+
+    /**
+     * @param targetId Another user.
+     * @return "following", "requested" or "none", as IUserDAO.getFollowStatus.
+     */
+    public synchronized String followStatus(@NonNull String targetId) {
+        return graph.followStatus(targetId);
+    }
+
+    public synchronized long getVersion() {
+        return graph.getVersion();
+    }
+
+    /**
+     * Records a follow request that was written successfully.
+     */
+    public void onFollowRequested(@NonNull String requesterId, @NonNull String targetId) {
+        update(requesterId, FollowGraph.Kind.REQUESTED, targetId, true);
+    }
+
+    /**
+     * Records an accepted request: the requester now follows the target.
+     */
+    public void onFollowAccepted(@NonNull String requesterId, @NonNull String targetId) {
+        update(requesterId, FollowGraph.Kind.REQUESTED, targetId, false);
+        update(requesterId, FollowGraph.Kind.FOLLOWING, targetId, true);
+        update(targetId, FollowGraph.Kind.FOLLOWERS, requesterId, true);
+    }
+
+    /**
+     * Records a rejected request.
+     */
+    public void onFollowRejected(@NonNull String requesterId, @NonNull String targetId) {
+        update(requesterId, FollowGraph.Kind.REQUESTED, targetId, false);
+    }
+
+    /**
+     * Records that followerId stopped following followedId.
+     */
+    public void onUnfollowed(@NonNull String followerId, @NonNull String followedId) {
+        update(followerId, FollowGraph.Kind.FOLLOWING, followedId, false);
+        update(followedId, FollowGraph.Kind.FOLLOWERS, followerId, false);
+    }
+
+    /**
+     * Adds or removes an id in one of owner's sets, if owner is the tracked user.
+     */
+    private void update(String owner, FollowGraph.Kind kind, String id, boolean add) {
+        long version;
+        synchronized (this) {
+            if (!owner.equals(userId)) return;
+            boolean changed = add ? graph.add(kind, id) : graph.remove(kind, id);
+            if (!changed) return;
+            version = save(kind);
+        }
+        notifyListeners(version);
+    }
+
+    private void listen(FollowGraph.Kind kind, String label, Query query, Function<DocumentSnapshot, String> idOf) {
+        String owner = userId;
+        registrations.add(query.addSnapshotListener(meter.listener(label, (snapshot, error) -> {
+            if (error != null) {
+                Log.w(TAG, "Listening to " + kind.key + " failed", error);
+                return;
+            }
+            if (snapshot != null) {
+                onSnapshot(owner, kind, snapshot, idOf);
+            }
+        })));
+    }
+
+    private void onSnapshot(String owner, FollowGraph.Kind kind, QuerySnapshot snapshot, Function<DocumentSnapshot, String> idOf) {
+        boolean fromCache = snapshot.getMetadata().isFromCache();
+        if (fromCache && snapshot.isEmpty()) return;
+
+        Set<String> ids = new HashSet<>();
+        for (DocumentSnapshot document : snapshot.getDocuments()) {
+            ids.add(idOf.apply(document));
+        }
+
+        long version;
+        synchronized (this) {
+            // A snapshot that was in flight when the user changed
+            if (!owner.equals(userId)) return;
+            if (!fromCache) {
+                synced.add(kind);
+            }
+            boolean changed = graph.replace(kind, ids);
+            if (!changed && onDisk) return;
+            version = save(kind);
+            if (!changed) return;
+        }
+        notifyListeners(version);
+    }
+
+    /**
+     * Saves one set and the version; the caller holds the lock.
+     */
+    private long save(FollowGraph.Kind kind) {
+        SharedPreferences.Editor editor = preferences.edit()
+                .putStringSet(setKey(userId, kind), graph.get(kind))
+                .putLong(versionKey(userId), graph.getVersion());
+        if (!onDisk) {
+            // Write every set once, so a restore never finds the version without the others
+            for (FollowGraph.Kind other : FollowGraph.Kind.values()) {
+                editor.putStringSet(setKey(userId, other), graph.get(other));
+            }
+            onDisk = true;
+        }
+        editor.apply();
+        return graph.getVersion();
+    }
+
+    private void notifyListeners(long version) {
+        mainHandler.post(() -> {
+            for (Listener listener : listeners) {
+                listener.onFollowGraphChanged(version);
+            }
+        });
+    }
+
+    private static String setKey(String userId, FollowGraph.Kind kind) {
+        return userId + "." + kind.key;
+    }
+
+    private static String versionKey(String userId) {
+        return userId + ".version";
+    }
+}
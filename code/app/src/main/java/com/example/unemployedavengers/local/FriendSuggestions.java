@@ -0,0 +1,112 @@
+/**
+ * FriendSuggestions - Ranks second-degree connections by how many of the user's followees
+ * follow them.
+ *
+ * Purpose:
+ * - Backs the "people you may know" list of SuggestionStore: the candidates are the users followed
+ *   by the people the user follows, and a candidate followed by more of them ranks higher.
+ *
+ * Key Features:
+ * - Every followee's following list is a sorted id array, so the lists are merged k ways with a
+ *   heap: equal ids arrive together and their run length is the candidate's mutual count. This
+ *   is the size of the intersection of the user's following with the candidate's followers,
+ *   computed for every candidate at once in O(n log k) for n ids in k lists.
+ * - The user, the users they already follow and any excluded ids (e.g. pending requests) are
+ *   skipped with binary searches.
+ * - Ties are broken by user id, so the same lists always give the same ranking.
+ * - No Android or Firebase dependencies.
+ */
+package com.example.unemployedavengers.local;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public final class FriendSuggestions {
+
+    /**
+     * A suggested user and the number of the user's followees who follow them.
+     */
+    public static final class Candidate {
+        public final String userId;
+        public final int mutualCount;
+
+        public Candidate(String userId, int mutualCount) {
+            this.userId = userId;
+            this.mutualCount = mutualCount;
+        }
+    }
+
+    // Position of the merge in one list
+    private static final class Cursor {
+        final String[] ids;
+        int index;
+
+        Cursor(String[] ids) {
+            this.ids = ids;
+        }
+
+        String current() {
+            return ids[index];
+        }
+    }
+
+    private FriendSuggestions() {
+    }
+
+    /**
+     * @param selfId The user suggestions are for.
+     * @param following Ids the user follows, as SortedIds.of.
+     * @param followeesFollowing One id array per followee, as SortedIds.of: who they follow.
+     * @param excluded Ids never to suggest, as SortedIds.of.
+     * @param limit Maximum number of candidates returned.
+     * @return The best candidates, highest mutual count first.
+     */
+    public static List<Candidate> rank(String selfId, String[] following, Collection<String[]> followeesFollowing,
+                                       String[] excluded, int limit) {
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Math.max(1, followeesFollowing.size()),
+                (a, b) -> a.current().compareTo(b.current()));
+        for (String[] ids : followeesFollowing) {
+            if (ids.length > 0) {
+                heap.add(new Cursor(ids));
+            }
+        }
+
+        // Keeps the best `limit` candidates seen so far, worst on top
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Math.max(1, limit + 1),
+                (a, b) -> compare(b, a));
+        while (!heap.isEmpty()) {
+            String id = heap.peek().current();
+            int count = 0;
+            while (!heap.isEmpty() && heap.peek().current().equals(id)) {
+                Cursor cursor = heap.poll();
+                count++;
+                if (++cursor.index < cursor.ids.length) {
+                    heap.add(cursor);
+                }
+            }
+            if (id.equals(selfId) || SortedIds.contains(following, id) || SortedIds.contains(excluded, id)) {
+                continue;
+            }
+            best.add(new Candidate(id, count));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Candidate> ranked = new ArrayList<>(best);
+        ranked.sort(FriendSuggestions::compare);
+        return ranked;
+    }
+
+    /**
+     * Higher mutual count first, then lower user id.
+     */
+    private static int compare(Candidate a, Candidate b) {
+        if (a.mutualCount != b.mutualCount) {
+            return Integer.compare(b.mutualCount, a.mutualCount);
+        }
+        return a.userId.compareTo(b.userId);
+    }
+}
@@ -0,0 +1,182 @@
+/**
+ * LocalDatabase - The app's on-device SQLite database.
+ *
+ * Purpose:
+ * - Holds data that has to survive process death independently of Firestore's own cache:
+ *   the mood event outbox used by MoodOutbox and the mood history mirror used by LocalMoodStore.
+ *
+ * Key Features:
+ * - Single shared SQLiteOpenHelper bound to the application context.
+ * - Schema changes are applied step by step in onUpgrade, one block per version.
+ *
+ * Tables:
+ * - outbox: journal of mood create/update/delete operations waiting to be written to Firestore,
+ *   replayed in seq order. op_id is the operation's idempotency key.
+ * - moods: mirror of users/{id}/moods, one row per (user_id, id), indexed by time for history queries.
+ *   needs_detail marks rows mirrored from a summary whose situation and image were never loaded.
+ * - moods_fts: FTS4 index over the reason and situation of moods, kept in step by triggers.
+ * - mood_sync: per-user updatedAt watermark and time of the last reconciliation, by count or by
+ *   a full read.
+ * - followee_sync: per (owner, followee) updatedAt watermark, the followee's lastMoodAt as last
+ *   seen and the time of the last re-seed or count check, used by FollowedMoodSync. Followees'
+ *   public moods are mirrored in the moods table.
+ *
+ * Outstanding Issues:
+ * - Queries run on the caller's thread; callers are expected to stay off the main thread for bulk work.
+ */
+package com.example.unemployedavengers.local;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import androidx.annotation.NonNull;
+
+public class LocalDatabase extends SQLiteOpenHelper {
+    private static final String DATABASE_NAME = "mood_tracker.db";
+    private static final int DATABASE_VERSION = 5;
+
+    public static final String TABLE_OUTBOX = "outbox";
+    public static final String COL_SEQ = "seq";
+    public static final String COL_OP_ID = "op_id";
+    public static final String COL_USER_ID = "user_id";
+    public static final String COL_MOOD_ID = "mood_id";
+    public static final String COL_OP_TYPE = "op_type";
+    public static final String COL_PAYLOAD = "payload";
+    public static final String COL_UPDATED_AT = "updated_at";
+    public static final String COL_STATE = "state";
+    public static final String COL_ATTEMPTS = "attempts";
+    public static final String COL_LAST_ERROR = "last_error";
+
+    public static final String TABLE_MOODS = "moods";
+    public static final String TABLE_MOODS_FTS = "moods_fts";
+    public static final String COL_LOCAL_ID = "local_id";
+    public static final String COL_ID = "id";
+    public static final String COL_USER_NAME = "user_name";
+    public static final String COL_MOOD = "mood";
+    public static final String COL_REASON = "reason";
+    public static final String COL_SITUATION = "situation";
+    public static final String COL_RADIO_SITUATION = "radio_situation";
+    public static final String COL_IMAGE_URI = "image_uri";
+    public static final String COL_TIME = "time";
+    public static final String COL_PUBLIC_STATUS = "public_status";
+    public static final String COL_LATITUDE = "latitude";
+    public static final String COL_LONGITUDE = "longitude";
+    public static final String COL_HAS_LOCATION = "has_location";
+    public static final String COL_NEEDS_DETAIL = "needs_detail";
+
+    public static final String TABLE_MOOD_SYNC = "mood_sync";
+    public static final String COL_WATERMARK = "watermark";
+    public static final String COL_FULL_SYNC_AT = "full_sync_at";
+
+    public static final String TABLE_FOLLOWEE_SYNC = "followee_sync";
+    public static final String COL_OWNER_ID = "owner_id";
+    public static final String COL_FOLLOWEE_ID = "followee_id";
+    public static final String COL_LAST_MOOD_AT = "last_mood_at";
+    public static final String COL_RECONCILED_AT = "reconciled_at";
+
+    private static LocalDatabase instance;
+
+    private LocalDatabase(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    /**
+     * @param context Any context; only the application context is kept.
+     * @return The shared LocalDatabase.
+     */
+    public static synchronized LocalDatabase getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new LocalDatabase(context);
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_OUTBOX + " ("
+                + COL_SEQ + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + COL_OP_ID + " TEXT NOT NULL UNIQUE, "
+                + COL_USER_ID + " TEXT NOT NULL, "
+                + COL_MOOD_ID + " TEXT NOT NULL, "
+                + COL_OP_TYPE + " TEXT NOT NULL, "
+                + COL_PAYLOAD + " BLOB, "
+                + COL_UPDATED_AT + " INTEGER NOT NULL, "
+                + COL_STATE + " TEXT NOT NULL, "
+                + COL_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_LAST_ERROR + " TEXT)");
+        db.execSQL("CREATE INDEX idx_outbox_user ON " + TABLE_OUTBOX + " (" + COL_USER_ID + ", " + COL_SEQ + ")");
+        createMoodTables(db);
+        createFolloweeSyncTable(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            createMoodTables(db);
+        }
+        if (oldVersion < 3) {
+            createFolloweeSyncTable(db);
+        }
+        if (oldVersion < 4 && oldVersion >= 2) {
+            // Version 2 and 3 mood tables were created without the column
+            db.execSQL("ALTER TABLE " + TABLE_MOODS + " ADD COLUMN " + COL_NEEDS_DETAIL + " INTEGER NOT NULL DEFAULT 0");
+        }
+        if (oldVersion < 5 && oldVersion >= 3) {
+            // Followees synced before then count as never re-seeded, so the next sync re-seeds them
+            db.execSQL("ALTER TABLE " + TABLE_FOLLOWEE_SYNC + " ADD COLUMN " + COL_RECONCILED_AT + " INTEGER NOT NULL DEFAULT 0");
+        }
+    }
+
+    private static void createMoodTables(SQLiteDatabase db) {
+        // local_id is an explicit INTEGER PRIMARY KEY so the FTS docids stay stable across VACUUM
+        db.execSQL("CREATE TABLE " + TABLE_MOODS + " ("
+                + COL_LOCAL_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + COL_ID + " TEXT NOT NULL, "
+                + COL_USER_ID + " TEXT NOT NULL, "
+                + COL_USER_NAME + " TEXT, "
+                + COL_MOOD + " TEXT, "
+                + COL_REASON + " TEXT, "
+                + COL_SITUATION + " TEXT, "
+                + COL_RADIO_SITUATION + " TEXT, "
+                + COL_IMAGE_URI + " TEXT, "
+                + COL_TIME + " INTEGER NOT NULL, "
+                + COL_UPDATED_AT + " INTEGER NOT NULL, "
+                + COL_PUBLIC_STATUS + " INTEGER NOT NULL, "
+                + COL_LATITUDE + " REAL, "
+                + COL_LONGITUDE + " REAL, "
+                + COL_HAS_LOCATION + " INTEGER NOT NULL, "
+                + COL_NEEDS_DETAIL + " INTEGER NOT NULL DEFAULT 0, "
+                + "UNIQUE (" + COL_USER_ID + ", " + COL_ID + "))");
+        db.execSQL("CREATE INDEX idx_moods_user_time ON " + TABLE_MOODS + " (" + COL_USER_ID + ", " + COL_TIME + " DESC)");
+
+        db.execSQL("CREATE VIRTUAL TABLE " + TABLE_MOODS_FTS + " USING fts4(content=\"" + TABLE_MOODS + "\", "
+                + COL_REASON + ", " + COL_SITUATION + ")");
+        db.execSQL("CREATE TRIGGER moods_bu BEFORE UPDATE ON " + TABLE_MOODS + " BEGIN "
+                + "DELETE FROM " + TABLE_MOODS_FTS + " WHERE docid = old." + COL_LOCAL_ID + "; END");
+        db.execSQL("CREATE TRIGGER moods_bd BEFORE DELETE ON " + TABLE_MOODS + " BEGIN "
+                + "DELETE FROM " + TABLE_MOODS_FTS + " WHERE docid = old." + COL_LOCAL_ID + "; END");
+        db.execSQL("CREATE TRIGGER moods_au AFTER UPDATE ON " + TABLE_MOODS + " BEGIN "
+                + "INSERT INTO " + TABLE_MOODS_FTS + " (docid, " + COL_REASON + ", " + COL_SITUATION + ") "
+                + "VALUES (new." + COL_LOCAL_ID + ", new." + COL_REASON + ", new." + COL_SITUATION + "); END");
+        db.execSQL("CREATE TRIGGER moods_ai AFTER INSERT ON " + TABLE_MOODS + " BEGIN "
+                + "INSERT INTO " + TABLE_MOODS_FTS + " (docid, " + COL_REASON + ", " + COL_SITUATION + ") "
+                + "VALUES (new." + COL_LOCAL_ID + ", new." + COL_REASON + ", new." + COL_SITUATION + "); END");
+
+        db.execSQL("CREATE TABLE " + TABLE_MOOD_SYNC + " ("
+                + COL_USER_ID + " TEXT PRIMARY KEY, "
+                + COL_WATERMARK + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_FULL_SYNC_AT + " INTEGER NOT NULL DEFAULT 0)");
+    }
+
+    private static void createFolloweeSyncTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_FOLLOWEE_SYNC + " ("
+                + COL_OWNER_ID + " TEXT NOT NULL, "
+                + COL_FOLLOWEE_ID + " TEXT NOT NULL, "
+                + COL_USER_NAME + " TEXT, "
+                + COL_WATERMARK + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_LAST_MOOD_AT + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_RECONCILED_AT + " INTEGER NOT NULL DEFAULT 0, "
+                + "PRIMARY KEY (" + COL_OWNER_ID + ", " + COL_FOLLOWEE_ID + "))");
+    }
+}
@@ -0,0 +1,373 @@
+/**
+ * LocalMoodStore - On-device mirror of a user's mood history, with full-text search over reasons.
+ *
+ * Purpose:
+ * - Lets History, Dashboard and the personal map render straight from disk on open instead of
+ *   rebuilding the list from Firestore every time.
+ * - Keeps the mirror current with incremental syncs: only moods whose updatedAt is newer than the
+ *   stored watermark are read from Firestore.
+ * - Answers reason searches through the moods_fts FTS4 index instead of splitting strings in memory.
+ *   Every searched word matches as a prefix of a word in the reason, ignoring case, so "deadl"
+ *   finds "deadline"; MoodFilterHelper, which History falls back to, matches whole words only.
+ *
+ * Key Features:
+ * - All database work runs on a single background thread; results come back as Tasks.
+ * - The first sync reads the whole collection. After that, once a day, the number of moods on
+ *   the server is taken with one count() aggregation and compared with the mirror; only when
+ *   they differ is the whole collection read again, so that moods deleted on another device
+ *   (invisible to an updatedAt query) are dropped from the mirror.
+ * - The count check waits while the outbox holds changes of the user, which the server has not
+ *   seen yet and the two counts would disagree on.
+ * - MoodOutbox writes through to the mirror when a change is journaled, so local edits show up
+ *   before they reach Firestore.
+ * - Moods synced from summary documents are stored with needs_detail set, except that a summary
+ *   of the same version as a row that already has its detail leaves that detail in place.
+ *
+ * Outstanding Issues:
+ * - Moods written by older app versions without updatedAt are only picked up by full reads, and
+ *   a delete on another device together with such a mood leaves the counts equal.
+ */
+package com.example.unemployedavengers.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.DAO.DAOProvider;
+import com.example.unemployedavengers.DAO.IMoodEventDAO;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class LocalMoodStore {
+    private static final long RECONCILE_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+
+    private static LocalMoodStore instance;
+
+    private final LocalDatabase database;
+    private final IMoodEventDAO moodEventDAO = DAOProvider.getMoodEventDAO();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private LocalMoodStore(Context context) {
+        database = LocalDatabase.getInstance(context);
+    }
+
+    /**
+     * @param context Any context; only the application context is kept.
+     * @return The shared LocalMoodStore.
+     */
+    public static synchronized LocalMoodStore getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new LocalMoodStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Reads a user's moods from disk, most recent first.
+     *
+     * @param userId The owner of the moods.
+     * @return A {@link Task<List<MoodEvent>>} with the stored moods.
+     */
+    public Task<List<MoodEvent>> getMoods(@NonNull String userId) {
+        return Tasks.call(executor, () -> queryMoods(
+                "SELECT * FROM " + LocalDatabase.TABLE_MOODS
+                        + " WHERE " + LocalDatabase.COL_USER_ID + " = ?"
+                        + " ORDER BY " + LocalDatabase.COL_TIME + " DESC",
+                new String[]{userId}));
+    }
+
+    /**
+     * Finds a user's moods whose reason contains every word of the search text (as a word prefix).
+     *
+     * @param userId The owner of the moods.
+     * @param text The text typed by the user.
+     * @return A {@link Task<List<MoodEvent>>} with the matching moods, most recent first.
+     */
+    public Task<List<MoodEvent>> searchReasons(@NonNull String userId, String text) {
+        String match = buildMatchQuery(LocalDatabase.COL_REASON, text);
+        if (match == null) {
+            return Tasks.forResult(new ArrayList<>());
+        }
+        return Tasks.call(executor, () -> queryMoods(
+                "SELECT m.* FROM " + LocalDatabase.TABLE_MOODS + " m"
+                        + " JOIN " + LocalDatabase.TABLE_MOODS_FTS + " f ON f.docid = m." + LocalDatabase.COL_LOCAL_ID
+                        + " WHERE " + LocalDatabase.TABLE_MOODS_FTS + " MATCH ?"
+                        + " AND m." + LocalDatabase.COL_USER_ID + " = ?"
+                        + " ORDER BY m." + LocalDatabase.COL_TIME + " DESC",
+                new String[]{match, userId}));
+    }
+
+    /**
+     * Brings the mirror up to date with Firestore. Reads only moods changed since the last sync,
+     * except for the first sync and for reconciliations whose count check finds a difference.
+     *
+     * @param userId The owner of the moods.
+     * @return A {@link Task<Boolean>} that is true if anything in the mirror changed.
+     */
+    public Task<Boolean> sync(@NonNull String userId) {
+        return Tasks.call(executor, () -> readSyncState(userId))
+                .continueWithTask(stateTask -> {
+                    long[] state = stateTask.getResult();
+                    if (state[1] == 0) {
+                        // Nothing mirrored to compare with yet
+                        return fullSync(userId, state[0]);
+                    }
+                    return moodEventDAO.getMoodEventsUpdatedSince(userId, state[0])
+                            .continueWith(executor, queryTask -> applySync(userId, false, state[0], queryTask.getResult()))
+                            .continueWithTask(deltaTask -> {
+                                boolean changed = deltaTask.getResult();
+                                if (System.currentTimeMillis() - state[1] <= RECONCILE_INTERVAL_MS) {
+                                    return Tasks.forResult(changed);
+                                }
+                                return reconcile(userId).continueWith(reconcileTask -> reconcileTask.getResult() || changed);
+                            });
+                });
+    }
+
+    private Task<Boolean> fullSync(String userId, long watermark) {
+        return moodEventDAO.getMoodEvents(userId)
+                .continueWith(executor, queryTask -> applySync(userId, true, watermark, queryTask.getResult()));
+    }
+
+    /**
+     * Counts the user's moods on the server with one count() aggregation and reads the whole
+     * collection only if the mirror holds a different number. Does nothing while the outbox holds
+     * changes of the user, so the check runs again on the next sync.
+     *
+     * @return A {@link Task<Boolean>} that is true if anything in the mirror changed.
+     */
+    private Task<Boolean> reconcile(String userId) {
+        return moodEventDAO.countMoodEvents(userId).continueWithTask(executor, countTask -> {
+            long onServer = countTask.getResult();
+            if (hasPendingChanges(userId)) {
+                return Tasks.forResult(false);
+            }
+            if (countMoods(userId) == onServer) {
+                markReconciled(userId, System.currentTimeMillis());
+                return Tasks.forResult(false);
+            }
+            return fullSync(userId, readSyncState(userId)[0]);
+        });
+    }
+
+    /**
+     * Writes a journaled change to the mirror. Called by MoodOutbox on its own thread.
+     *
+     * @param type One of the OutboxOperation TYPE_ constants.
+     * @param userId The owner of the mood.
+     * @param moodEvent The mood as it looks after the change.
+     */
+    void applyLocalChange(String type, String userId, MoodEvent moodEvent) {
+        SQLiteDatabase sql = database.getWritableDatabase();
+        if (OutboxOperation.TYPE_DELETE.equals(type)) {
+            sql.delete(LocalDatabase.TABLE_MOODS, LocalDatabase.COL_USER_ID + " = ? AND " + LocalDatabase.COL_ID + " = ?",
+                    new String[]{userId, moodEvent.getId()});
+        } else {
+            upsert(sql, userId, moodEvent);
+        }
+    }
+
+    private boolean applySync(String userId, boolean full, long watermark, List<MoodEvent> moodEvents) {
+        SQLiteDatabase sql = database.getWritableDatabase();
+        long newWatermark = watermark;
+        boolean changed = false;
+
+        sql.beginTransaction();
+        try {
+            Set<String> seen = new HashSet<>();
+            for (MoodEvent moodEvent : moodEvents) {
+                seen.add(moodEvent.getId());
+                upsert(sql, userId, moodEvent);
+                newWatermark = Math.max(newWatermark, moodEvent.getUpdatedAt());
+                changed = true;
+            }
+
+            if (full) {
+                // Keep moods the outbox has not written yet; they are missing from the server for now
+                try (Cursor cursor = sql.query(LocalDatabase.TABLE_OUTBOX, new String[]{LocalDatabase.COL_MOOD_ID},
+                        LocalDatabase.COL_USER_ID + " = ?", new String[]{userId}, null, null, null)) {
+                    while (cursor.moveToNext()) {
+                        seen.add(cursor.getString(0));
+                    }
+                }
+
+                // Drop moods that no longer exist on the server
+                List<String> stale = new ArrayList<>();
+                try (Cursor cursor = sql.query(LocalDatabase.TABLE_MOODS, new String[]{LocalDatabase.COL_ID},
+                        LocalDatabase.COL_USER_ID + " = ?", new String[]{userId}, null, null, null)) {
+                    while (cursor.moveToNext()) {
+                        String id = cursor.getString(0);
+                        if (!seen.contains(id)) stale.add(id);
+                    }
+                }
+                for (String id : stale) {
+                    sql.delete(LocalDatabase.TABLE_MOODS, LocalDatabase.COL_USER_ID + " = ? AND " + LocalDatabase.COL_ID + " = ?",
+                            new String[]{userId, id});
+                    changed = true;
+                }
+            }
+
+            ContentValues values = new ContentValues();
+            values.put(LocalDatabase.COL_USER_ID, userId);
+            values.put(LocalDatabase.COL_WATERMARK, newWatermark);
+            if (full) {
+                values.put(LocalDatabase.COL_FULL_SYNC_AT, System.currentTimeMillis());
+            } else {
+                values.put(LocalDatabase.COL_FULL_SYNC_AT, readSyncState(userId)[1]);
+            }
+            sql.insertWithOnConflict(LocalDatabase.TABLE_MOOD_SYNC, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+
+            sql.setTransactionSuccessful();
+        } finally {
+            sql.endTransaction();
+        }
+        return changed;
+    }
+
+    // Update-then-insert rather than INSERT OR REPLACE, whose implicit delete skips the FTS triggers
+    static void upsert(SQLiteDatabase sql, String userId, MoodEvent moodEvent) {
+        if (moodEvent.needsDetail() && updateSummary(sql, userId, moodEvent)) {
+            return;
+        }
+        ContentValues values = summaryValues(userId, moodEvent);
+        values.put(LocalDatabase.COL_SITUATION, moodEvent.getSituation());
+        values.put(LocalDatabase.COL_RADIO_SITUATION, moodEvent.getRadioSituation());
+        values.put(LocalDatabase.COL_IMAGE_URI, moodEvent.getImageUri());
+        values.put(LocalDatabase.COL_NEEDS_DETAIL, moodEvent.needsDetail() ? 1 : 0);
+
+        int updated = sql.update(LocalDatabase.TABLE_MOODS, values,
+                LocalDatabase.COL_USER_ID + " = ? AND " + LocalDatabase.COL_ID + " = ?",
+                new String[]{userId, moodEvent.getId()});
+        if (updated == 0) {
+            sql.insert(LocalDatabase.TABLE_MOODS, null, values);
+        }
+    }
+
+    // A summary of the same version as a row that already has its detail leaves the detail in place
+    private static boolean updateSummary(SQLiteDatabase sql, String userId, MoodEvent moodEvent) {
+        return sql.update(LocalDatabase.TABLE_MOODS, summaryValues(userId, moodEvent),
+                LocalDatabase.COL_USER_ID + " = ? AND " + LocalDatabase.COL_ID + " = ? AND "
+                        + LocalDatabase.COL_UPDATED_AT + " = ? AND " + LocalDatabase.COL_NEEDS_DETAIL + " = 0",
+                new String[]{userId, moodEvent.getId(), String.valueOf(moodEvent.getUpdatedAt())}) > 0;
+    }
+
+    private static ContentValues summaryValues(String userId, MoodEvent moodEvent) {
+        ContentValues values = new ContentValues();
+        values.put(LocalDatabase.COL_ID, moodEvent.getId());
+        values.put(LocalDatabase.COL_USER_ID, userId);
+        values.put(LocalDatabase.COL_USER_NAME, moodEvent.getUserName());
+        values.put(LocalDatabase.COL_MOOD, moodEvent.getMood());
+        values.put(LocalDatabase.COL_REASON, moodEvent.getReason());
+        values.put(LocalDatabase.COL_TIME, moodEvent.getTime());
+        values.put(LocalDatabase.COL_UPDATED_AT, moodEvent.getUpdatedAt());
+        values.put(LocalDatabase.COL_PUBLIC_STATUS, moodEvent.getPublicStatus() ? 1 : 0);
+        values.put(LocalDatabase.COL_LATITUDE, moodEvent.getLatitude());
+        values.put(LocalDatabase.COL_LONGITUDE, moodEvent.getLongitude());
+        values.put(LocalDatabase.COL_HAS_LOCATION, moodEvent.getHasLocation() ? 1 : 0);
+        return values;
+    }
+
+    private boolean hasPendingChanges(String userId) {
+        return DatabaseUtils.queryNumEntries(database.getReadableDatabase(), LocalDatabase.TABLE_OUTBOX,
+                LocalDatabase.COL_USER_ID + " = ?", new String[]{userId}) > 0;
+    }
+
+    private long countMoods(String userId) {
+        return DatabaseUtils.queryNumEntries(database.getReadableDatabase(), LocalDatabase.TABLE_MOODS,
+                LocalDatabase.COL_USER_ID + " = ?", new String[]{userId});
+    }
+
+    private void markReconciled(String userId, long reconciledAt) {
+        ContentValues values = new ContentValues();
+        values.put(LocalDatabase.COL_FULL_SYNC_AT, reconciledAt);
+        database.getWritableDatabase().update(LocalDatabase.TABLE_MOOD_SYNC, values,
+                LocalDatabase.COL_USER_ID + " = ?", new String[]{userId});
+    }
+
+    private long[] readSyncState(String userId) {
+        try (Cursor cursor = database.getReadableDatabase().query(LocalDatabase.TABLE_MOOD_SYNC,
+                new String[]{LocalDatabase.COL_WATERMARK, LocalDatabase.COL_FULL_SYNC_AT},
+                LocalDatabase.COL_USER_ID + " = ?", new String[]{userId}, null, null, null)) {
+            if (cursor.moveToFirst()) {
+                return new long[]{cursor.getLong(0), cursor.getLong(1)};
+            }
+        }
+        return new long[]{0L, 0L};
+    }
+
+    List<MoodEvent> queryMoods(String sqlQuery, String[] args) {
+        List<MoodEvent> moods = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(sqlQuery, args)) {
+            int id = cursor.getColumnIndexOrThrow(LocalDatabase.COL_ID);
+            int userId = cursor.getColumnIndexOrThrow(LocalDatabase.COL_USER_ID);
+            int userName = cursor.getColumnIndexOrThrow(LocalDatabase.COL_USER_NAME);
+            int mood = cursor.getColumnIndexOrThrow(LocalDatabase.COL_MOOD);
+            int reason = cursor.getColumnIndexOrThrow(LocalDatabase.COL_REASON);
+            int situation = cursor.getColumnIndexOrThrow(LocalDatabase.COL_SITUATION);
+            int radioSituation = cursor.getColumnIndexOrThrow(LocalDatabase.COL_RADIO_SITUATION);
+            int imageUri = cursor.getColumnIndexOrThrow(LocalDatabase.COL_IMAGE_URI);
+            int time = cursor.getColumnIndexOrThrow(LocalDatabase.COL_TIME);
+            int updatedAt = cursor.getColumnIndexOrThrow(LocalDatabase.COL_UPDATED_AT);
+            int publicStatus = cursor.getColumnIndexOrThrow(LocalDatabase.COL_PUBLIC_STATUS);
+            int latitude = cursor.getColumnIndexOrThrow(LocalDatabase.COL_LATITUDE);
+            int longitude = cursor.getColumnIndexOrThrow(LocalDatabase.COL_LONGITUDE);
+            int hasLocation = cursor.getColumnIndexOrThrow(LocalDatabase.COL_HAS_LOCATION);
+            int needsDetail = cursor.getColumnIndexOrThrow(LocalDatabase.COL_NEEDS_DETAIL);
+
+            while (cursor.moveToNext()) {
+                MoodEvent moodEvent = new MoodEvent();
+                moodEvent.setId(cursor.getString(id));
+                moodEvent.setUserId(cursor.getString(userId));
+                moodEvent.setUserName(cursor.getString(userName));
+                moodEvent.setMood(cursor.getString(mood));
+                moodEvent.setReason(cursor.getString(reason));
+                moodEvent.setSituation(cursor.getString(situation));
+                moodEvent.setRadioSituation(cursor.getString(radioSituation));
+                moodEvent.setImageUri(cursor.getString(imageUri));
+                moodEvent.setTime(cursor.getLong(time));
+                moodEvent.setUpdatedAt(cursor.getLong(updatedAt));
+                moodEvent.setPublicStatus(cursor.getInt(publicStatus) != 0);
+                moodEvent.setLatitude(cursor.getDouble(latitude));
+                moodEvent.setLongitude(cursor.getDouble(longitude));
+                moodEvent.setHasLocation(cursor.getInt(hasLocation) != 0);
+                moodEvent.setNeedsDetail(cursor.getInt(needsDetail) != 0);
+                moodEvent.setExisted(true);
+                moods.add(moodEvent);
+            }
+        }
+        return moods;
+    }
+
+    /**
+     * Turns free text into an FTS MATCH expression that requires every word, as a prefix, in one
+     * column. Unlike MoodFilterHelper's whole-word match, "run" also matches "running".
+     *
+     * @param column The FTS column to search.
+     * @param text The text typed by the user.
+     * @return The MATCH expression, or null if the text has no searchable words.
+     */
+    public static String buildMatchQuery(String column, String text) {
+        if (text == null) return null;
+        StringBuilder match = new StringBuilder();
+        // FTS operators and quotes are dropped so user input cannot break the expression
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            if (match.length() > 0) match.append(' ');
+            match.append(column).append(':').append(word).append('*');
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+}
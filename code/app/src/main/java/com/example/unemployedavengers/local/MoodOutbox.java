@@ -0,0 +1,558 @@
+/**
+ * MoodOutbox - Persistent write-ahead journal for mood event creates, updates and deletes.
+ *
+ * Purpose:
+ * - Screens write moods to the outbox instead of straight to Firestore, so writes survive process
+ *   death while offline and the UI can tell which moods are still waiting to sync.
+ * - Replays journaled operations in order once connectivity is available, in batches applied by
+ *   one Firestore transaction each.
+ *
+ * Key Features:
+ * - Every operation gets a unique op id (its idempotency key) and new moods get their document id on
+ *   the client, so replaying an operation twice writes the same document.
+ * - Conflicts are resolved by last-writer-wins on updatedAt (falling back to time for moods written
+ *   before updatedAt existed): a journaled write only lands if it is newer than the server copy.
+ * - Images picked while offline are staged in app storage and uploaded during replay, before the
+ *   mood that references them is written.
+ * - Replay is triggered by enqueuing and by the default network becoming available.
+ * - Journaled changes are written through to LocalMoodStore straight away.
+ * - renameInPayloads puts a new username on journaled moods, for UsernamePropagation.
+ * - Each mood is written as a summary in moods and a detail document in moodDetails, the layout
+ *   MoodEventDAOImplement reads.
+ * - Each replay that changes a user's moods also advances lastMoodAt on their user document,
+ *   which FollowedMoodSync uses to skip followees with nothing new. When ProfileCounters are
+ *   maintained, the same write moves the user's mood counter by the moods that the transaction
+ *   read as missing and created, or as present and deleted, so a replayed operation counts once.
+ *
+ * Outstanding Issues:
+ * - A batch that keeps failing is marked FAILED after MAX_ATTEMPTS and skipped by later replays
+ *   until retryFailed is called.
+ * - Listeners are notified on the main thread and must be removed in onDestroyView.
+ */
+package com.example.unemployedavengers.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.DAO.DAOProvider;
+import com.example.unemployedavengers.DAO.IMoodEventDAO;
+import com.example.unemployedavengers.implementationDAO.ProfileCounters;
+import com.example.unemployedavengers.metrics.DocumentSize;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.example.unemployedavengers.models.MoodEventMapper;
+import com.example.unemployedavengers.models.ProfileCounts;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageReference;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class MoodOutbox {
+    private static final String TAG = "MoodOutbox";
+    private static final int BATCH_SIZE = 20;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final String STAGED_IMAGE_DIR = "outbox_images";
+
+    /**
+     * Notified on the main thread whenever operations are added, change state or finish syncing.
+     */
+    public interface Listener {
+        void onOutboxChanged();
+    }
+
+    private static MoodOutbox instance;
+
+    private final Context appContext;
+    private final LocalDatabase database;
+    private final FirebaseFirestore db = FirebaseFirestore.getInstance();
+    private final IMoodEventDAO moodEventDAO = DAOProvider.getMoodEventDAO();
+    private final FirebaseStorage storage = FirebaseStorage.getInstance();
+    // A single thread keeps journal writes and replays in submission order
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean replayQueued = new AtomicBoolean(false);
+
+    private volatile boolean online;
+
+    private MoodOutbox(Context context) {
+        appContext = context.getApplicationContext();
+        database = LocalDatabase.getInstance(appContext);
+
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) appContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+        online = connectivityManager.getActiveNetwork() != null;
+        connectivityManager.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                online = true;
+                replay();
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                online = false;
+            }
+        });
+    }
+
+    /**
+     * @param context Any context; only the application context is kept.
+     * @return The shared MoodOutbox.
+     */
+    public static synchronized MoodOutbox getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new MoodOutbox(context);
+        }
+        return instance;
+    }
+
+    /**
+     * @return true if a network is currently available.
+     */
+    public boolean isOnline() {
+        return online;
+    }
+
+    public void addListener(@NonNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Journals a new mood. Assigns the document id on the client if the mood has none.
+     *
+     * @param userId The owner of the mood.
+     * @param moodEvent The mood to create.
+     * @return The document id of the mood.
+     */
+    public String enqueueCreate(@NonNull String userId, @NonNull MoodEvent moodEvent) {
+        if (moodEvent.getId() == null) {
+            moodEvent.setId(moodEventDAO.newMoodEventId(userId));
+        }
+        moodEvent.setExisted(true);
+        enqueue(OutboxOperation.TYPE_CREATE, userId, moodEvent);
+        return moodEvent.getId();
+    }
+
+    /**
+     * Journals an edit to an existing mood.
+     */
+    public void enqueueUpdate(@NonNull String userId, @NonNull MoodEvent moodEvent) {
+        enqueue(OutboxOperation.TYPE_UPDATE, userId, moodEvent);
+    }
+
+    /**
+     * Journals the deletion of a mood.
+     */
+    public void enqueueDelete(@NonNull String userId, @NonNull MoodEvent moodEvent) {
+        enqueue(OutboxOperation.TYPE_DELETE, userId, moodEvent);
+    }
+
+    private void enqueue(String type, String userId, MoodEvent moodEvent) {
+        moodEvent.setUserId(userId);
+        moodEvent.setUpdatedAt(System.currentTimeMillis());
+
+        ContentValues values = new ContentValues();
+        values.put(LocalDatabase.COL_OP_ID, UUID.randomUUID().toString());
+        values.put(LocalDatabase.COL_USER_ID, userId);
+        values.put(LocalDatabase.COL_MOOD_ID, moodEvent.getId());
+        values.put(LocalDatabase.COL_OP_TYPE, type);
+        values.put(LocalDatabase.COL_PAYLOAD, serialize(moodEvent));
+        values.put(LocalDatabase.COL_UPDATED_AT, moodEvent.getUpdatedAt());
+        values.put(LocalDatabase.COL_STATE, OutboxOperation.STATE_PENDING);
+
+        executor.execute(() -> {
+            database.getWritableDatabase().insertWithOnConflict(LocalDatabase.TABLE_OUTBOX, null, values,
+                    SQLiteDatabase.CONFLICT_IGNORE);
+            // Write through to the local mirror so the change shows up before it is synced
+            MoodEvent snapshot = deserialize(values.getAsByteArray(LocalDatabase.COL_PAYLOAD));
+            if (snapshot != null) {
+                LocalMoodStore.getInstance(appContext).applyLocalChange(type, userId, snapshot);
+            }
+            notifyListeners();
+        });
+        replay();
+    }
+
+    /**
+     * Copies a picked image into app storage so it can be uploaded when the mood is replayed.
+     *
+     * @param source The content Uri returned by the image picker.
+     * @return A file Uri to store as the mood's imageUri, or null if the copy failed.
+     */
+    public String stageImage(@NonNull Uri source) {
+        File dir = new File(appContext.getFilesDir(), STAGED_IMAGE_DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            return null;
+        }
+        File target = new File(dir, UUID.randomUUID() + ".jpg");
+        try (InputStream in = appContext.getContentResolver().openInputStream(source);
+             OutputStream out = new FileOutputStream(target)) {
+            if (in == null) return null;
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to stage image", e);
+            return null;
+        }
+        return Uri.fromFile(target).toString();
+    }
+
+    /**
+     * Loads the operations of a user that have not been synced yet, in seq order.
+     *
+     * @param userId The owner of the moods.
+     * @return A {@link Task<List<OutboxOperation>>} with the pending and failed operations.
+     */
+    public Task<List<OutboxOperation>> getPendingOperations(@NonNull String userId) {
+        return Tasks.call(executor, () -> query(LocalDatabase.COL_USER_ID + " = ?", new String[]{userId}, -1));
+    }
+
+    /**
+     * Puts a new username on the user's journaled creates and updates, so a replay after a rename
+     * does not write the old name back. Runs on the journal thread, after every operation already
+     * enqueued and before the next replay batch.
+     *
+     * @param userId The renamed user.
+     * @param username The new name.
+     * @return A {@link Task<Set<String>>} with the ids of the moods that still have operations
+     *         waiting to sync; their replay will write the new name.
+     */
+    public Task<Set<String>> renameInPayloads(@NonNull String userId, @NonNull String username) {
+        return Tasks.call(executor, () -> {
+            Set<String> moodIds = new HashSet<>();
+            SQLiteDatabase sql = database.getWritableDatabase();
+            sql.beginTransaction();
+            try {
+                for (OutboxOperation operation : query(LocalDatabase.COL_USER_ID + " = ?", new String[]{userId}, -1)) {
+                    moodIds.add(operation.moodId);
+                    if (operation.isDelete() || operation.payload == null
+                            || username.equals(operation.payload.getUserName())) {
+                        continue;
+                    }
+                    operation.payload.setUserName(username);
+                    ContentValues values = new ContentValues();
+                    values.put(LocalDatabase.COL_PAYLOAD, serialize(operation.payload));
+                    sql.update(LocalDatabase.TABLE_OUTBOX, values,
+                            LocalDatabase.COL_OP_ID + " = ?", new String[]{operation.opId});
+                }
+                sql.setTransactionSuccessful();
+            } finally {
+                sql.endTransaction();
+            }
+            return moodIds;
+        });
+    }
+
+    /**
+     * Moves every FAILED operation back to PENDING and starts a replay.
+     */
+    public void retryFailed() {
+        executor.execute(() -> {
+            ContentValues values = new ContentValues();
+            values.put(LocalDatabase.COL_STATE, OutboxOperation.STATE_PENDING);
+            values.put(LocalDatabase.COL_ATTEMPTS, 0);
+            database.getWritableDatabase().update(LocalDatabase.TABLE_OUTBOX, values,
+                    LocalDatabase.COL_STATE + " = ?", new String[]{OutboxOperation.STATE_FAILED});
+            notifyListeners();
+        });
+        replay();
+    }
+
+    /**
+     * Starts replaying pending operations if a network is available.
+     */
+    public void replay() {
+        // One queued replay is enough; it drains everything journaled before it runs
+        if (!online || !replayQueued.compareAndSet(false, true)) return;
+        executor.execute(() -> {
+            replayQueued.set(false);
+            replayPending();
+        });
+    }
+
+    private void replayPending() {
+        while (online) {
+            List<OutboxOperation> batch = query(LocalDatabase.COL_STATE + " != ?",
+                    new String[]{OutboxOperation.STATE_FAILED}, BATCH_SIZE);
+            if (batch.isEmpty()) return;
+
+            setState(batch, OutboxOperation.STATE_SYNCING, null, false);
+            try {
+                List<OutboxOperation> collapsed = OutboxMerge.collapse(batch);
+                for (OutboxOperation operation : collapsed) {
+                    uploadStagedImage(operation);
+                }
+                // Documents and bytes read, and documents written, by the attempt that committed
+                long[] usage = new long[3];
+                long start = System.nanoTime();
+                Tasks.await(db.runTransaction(transaction -> {
+                    List<DocumentReference> refs = new ArrayList<>();
+                    List<DocumentSnapshot> snapshots = new ArrayList<>();
+                    // Transactions need every read before the first write
+                    for (OutboxOperation operation : collapsed) {
+                        DocumentReference ref = db.collection("users").document(operation.userId)
+                                .collection("moods").document(operation.moodId);
+                        refs.add(ref);
+                        snapshots.add(transaction.get(ref));
+                    }
+                    Map<String, Long> lastMoodAt = new HashMap<>();
+                    for (OutboxOperation operation : collapsed) {
+                        if (!lastMoodAt.containsKey(operation.userId)) {
+                            Long current = transaction.get(db.collection("users").document(operation.userId)).getLong("lastMoodAt");
+                            lastMoodAt.put(operation.userId, current != null ? current : 0L);
+                        }
+                    }
+
+                    usage[0] = refs.size() + lastMoodAt.size();
+                    usage[1] = 0;
+                    for (int i = 0; i < refs.size(); i++) {
+                        usage[1] += DocumentSize.estimate(refs.get(i).getPath(), snapshots.get(i).getData());
+                    }
+                    usage[2] = 0;
+
+                    Map<String, Long> advanced = new HashMap<>();
+                    // Change in each user's number of moods, for maintained ProfileCounters
+                    Map<String, Long> moodDelta = new HashMap<>();
+                    for (int i = 0; i < collapsed.size(); i++) {
+                        OutboxOperation operation = collapsed.get(i);
+                        if (!OutboxMerge.shouldApply(operation.updatedAt, serverUpdatedAt(snapshots.get(i)))) {
+                            continue;
+                        }
+                        // The summary and its detail document always change together
+                        DocumentReference detailRef = db.collection("users").document(operation.userId)
+                                .collection("moodDetails").document(operation.moodId);
+                        boolean existed = snapshots.get(i).exists();
+                        if (operation.isDelete()) {
+                            transaction.delete(refs.get(i));
+                            transaction.delete(detailRef);
+                            usage[2] += 2;
+                            if (existed) {
+                                moodDelta.merge(operation.userId, -1L, Long::sum);
+                            }
+                        } else {
+                            if (!existed) {
+                                moodDelta.merge(operation.userId, 1L, Long::sum);
+                            }
+                            transaction.set(refs.get(i), MoodEventMapper.toSummaryMap(operation.payload));
+                            usage[2]++;
+                            if (!operation.payload.needsDetail()) {
+                                transaction.set(detailRef, MoodEventMapper.toDetailMap(operation.payload));
+                                usage[2]++;
+                            }
+                        }
+                        // lastMoodAt only moves forward, even if this device's clock is behind
+                        long next = Math.max(lastMoodAt.get(operation.userId) + 1, operation.updatedAt);
+                        Long pending = advanced.get(operation.userId);
+                        advanced.put(operation.userId, pending != null ? Math.max(pending, next) : next);
+                    }
+                    // Lets FollowedMoodSync skip users whose moods have not changed
+                    boolean maintained = ProfileCounters.getInstance().isMaintained();
+                    for (Map.Entry<String, Long> entry : advanced.entrySet()) {
+                        Map<String, Object> update = new HashMap<>();
+                        update.put("lastMoodAt", entry.getValue());
+                        Long delta = moodDelta.get(entry.getKey());
+                        if (maintained && delta != null && delta != 0) {
+                            update.putAll(ProfileCounters.increment(ProfileCounts.MOODS, delta));
+                        }
+                        transaction.set(db.collection("users").document(entry.getKey()), update, SetOptions.merge());
+                    }
+                    usage[2] += advanced.size();
+                    return null;
+                }));
+                long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                FirestoreMeter meter = FirestoreMeter.getInstance();
+                meter.recordRead("MoodOutbox.replay", (int) usage[0], usage[1], false, elapsedMs);
+                meter.recordWrite("MoodOutbox.replay", (int) usage[2], elapsedMs);
+                delete(batch);
+                for (OutboxOperation operation : collapsed) {
+                    moodEventDAO.invalidate(operation.userId);
+                    ProfileCounters.getInstance().invalidate(operation.userId);
+                }
+                cleanUpStagedImages();
+            } catch (Exception e) {
+                Log.e(TAG, "Outbox replay failed", e);
+                setState(batch, OutboxOperation.STATE_PENDING, e.getMessage(), true);
+                notifyListeners();
+                // Keep the order: later operations wait until this batch goes through
+                return;
+            }
+            notifyListeners();
+        }
+    }
+
+    private static Long serverUpdatedAt(DocumentSnapshot snapshot) {
+        if (!snapshot.exists()) return null;
+        Long updatedAt = snapshot.getLong("updatedAt");
+        if (updatedAt != null && updatedAt > 0) return updatedAt;
+        Long time = snapshot.getLong("time");
+        return time != null ? time : 0L;
+    }
+
+    private void uploadStagedImage(OutboxOperation operation) throws Exception {
+        if (operation.isDelete() || operation.payload == null) return;
+        String imageUri = operation.payload.getImageUri();
+        if (imageUri == null || !imageUri.startsWith("file:")) return;
+
+        // Named after the op id so a retried upload overwrites instead of duplicating
+        StorageReference imageRef = storage.getReference().child("mood_images/" + operation.opId + ".jpg");
+        Tasks.await(imageRef.putFile(Uri.parse(imageUri)));
+        Uri downloadUri = Tasks.await(imageRef.getDownloadUrl());
+        operation.payload.setImageUri(downloadUri.toString());
+
+        ContentValues values = new ContentValues();
+        values.put(LocalDatabase.COL_PAYLOAD, serialize(operation.payload));
+        database.getWritableDatabase().update(LocalDatabase.TABLE_OUTBOX, values,
+                LocalDatabase.COL_OP_ID + " = ?", new String[]{operation.opId});
+    }
+
+    private void cleanUpStagedImages() {
+        File dir = new File(appContext.getFilesDir(), STAGED_IMAGE_DIR);
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        // Staged files are only referenced by unsynced payloads; drop any that no row points to
+        List<OutboxOperation> remaining = query(null, null, -1);
+        for (File file : files) {
+            String uri = Uri.fromFile(file).toString();
+            boolean referenced = false;
+            for (OutboxOperation other : remaining) {
+                if (other.payload != null && uri.equals(other.payload.getImageUri())) {
+                    referenced = true;
+                    break;
+                }
+            }
+            if (!referenced && !file.delete()) {
+                Log.w(TAG, "Could not delete staged image " + file);
+            }
+        }
+    }
+
+    private List<OutboxOperation> query(String selection, String[] args, int limit) {
+        List<OutboxOperation> operations = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().query(LocalDatabase.TABLE_OUTBOX, null,
+                selection, args, null, null, LocalDatabase.COL_SEQ + " ASC",
+                limit > 0 ? String.valueOf(limit) : null)) {
+            while (cursor.moveToNext()) {
+                operations.add(new OutboxOperation(
+                        cursor.getLong(cursor.getColumnIndexOrThrow(LocalDatabase.COL_SEQ)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(LocalDatabase.COL_OP_ID)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(LocalDatabase.COL_USER_ID)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(LocalDatabase.COL_MOOD_ID)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(LocalDatabase.COL_OP_TYPE)),
+                        deserialize(cursor.getBlob(cursor.getColumnIndexOrThrow(LocalDatabase.COL_PAYLOAD))),
+                        cursor.getLong(cursor.getColumnIndexOrThrow(LocalDatabase.COL_UPDATED_AT)),
+                        cursor.getString(cursor.getColumnIndexOrThrow(LocalDatabase.COL_STATE)),
+                        cursor.getInt(cursor.getColumnIndexOrThrow(LocalDatabase.COL_ATTEMPTS))));
+            }
+        }
+        return operations;
+    }
+
+    private void setState(List<OutboxOperation> operations, String state, String error, boolean countAttempt) {
+        SQLiteDatabase sql = database.getWritableDatabase();
+        sql.beginTransaction();
+        try {
+            for (OutboxOperation operation : operations) {
+                ContentValues values = new ContentValues();
+                int attempts = countAttempt ? operation.attempts + 1 : operation.attempts;
+                values.put(LocalDatabase.COL_STATE, attempts >= MAX_ATTEMPTS ? OutboxOperation.STATE_FAILED : state);
+                values.put(LocalDatabase.COL_ATTEMPTS, attempts);
+                if (error != null) {
+                    values.put(LocalDatabase.COL_LAST_ERROR, error);
+                }
+                sql.update(LocalDatabase.TABLE_OUTBOX, values, LocalDatabase.COL_OP_ID + " = ?",
+                        new String[]{operation.opId});
+            }
+            sql.setTransactionSuccessful();
+        } finally {
+            sql.endTransaction();
+        }
+        notifyListeners();
+    }
+
+    private void delete(List<OutboxOperation> operations) {
+        SQLiteDatabase sql = database.getWritableDatabase();
+        sql.beginTransaction();
+        try {
+            for (OutboxOperation operation : operations) {
+                sql.delete(LocalDatabase.TABLE_OUTBOX, LocalDatabase.COL_OP_ID + " = ?",
+                        new String[]{operation.opId});
+            }
+            sql.setTransactionSuccessful();
+        } finally {
+            sql.endTransaction();
+        }
+    }
+
+    private void notifyListeners() {
+        mainHandler.post(() -> {
+            for (Listener listener : listeners) {
+                listener.onOutboxChanged();
+            }
+        });
+    }
+
+    private static byte[] serialize(MoodEvent moodEvent) {
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+             ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(moodEvent);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("MoodEvent could not be serialized", e);
+        }
+    }
+
+    private static MoodEvent deserialize(byte[] payload) {
+        if (payload == null) return null;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (MoodEvent) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            Log.e(TAG, "Dropping unreadable outbox payload", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * OutboxMerge - Pure helpers that combine outbox operations with each other and with loaded moods.
+ *
+ * Purpose:
+ * - collapse: reduces a replay batch to the final operation per mood, so a transaction reads and
+ *   writes each document once.
+ * - applyPending: layers pending operations over the moods loaded from Firestore, so screens show
+ *   unsynced creates and edits and hide unsynced deletes.
+ * - shouldApply: the last-writer-wins rule used during replay.
+ *
+ * Key Features:
+ * - No Android or Firebase dependencies, so the rules are unit tested directly.
+ */
+package com.example.unemployedavengers.local;
+
+import com.example.unemployedavengers.models.MoodEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class OutboxMerge {
+
+    private OutboxMerge() {
+    }
+
+    /**
+     * Keeps only the last operation for each mood, preserving the order in which moods first appear.
+     *
+     * @param operations Operations in seq order.
+     * @return The final operation per mood.
+     */
+    public static List<OutboxOperation> collapse(List<OutboxOperation> operations) {
+        Map<String, OutboxOperation> latest = new LinkedHashMap<>();
+        for (OutboxOperation operation : operations) {
+            latest.put(operation.userId + "/" + operation.moodId, operation);
+        }
+        return new ArrayList<>(latest.values());
+    }
+
+    /**
+     * Decides whether a journaled write should overwrite the server copy. Equal timestamps mean
+     * the operation was already applied by an earlier, interrupted replay.
+     *
+     * @param operationUpdatedAt Client time of the journaled change.
+     * @param serverUpdatedAt Time of the last change on the server, or null if the document does not exist.
+     * @return true if the journaled write is newer.
+     */
+    public static boolean shouldApply(long operationUpdatedAt, Long serverUpdatedAt) {
+        return serverUpdatedAt == null || operationUpdatedAt > serverUpdatedAt;
+    }
+
+    /**
+     * Layers pending operations over the moods loaded from Firestore.
+     *
+     * @param loaded Moods returned by Firestore.
+     * @param pending Outbox operations in seq order.
+     * @return The moods as they will look once the outbox is replayed.
+     */
+    public static List<MoodEvent> applyPending(List<MoodEvent> loaded, List<OutboxOperation> pending) {
+        Map<String, MoodEvent> byId = new LinkedHashMap<>();
+        List<MoodEvent> withoutId = new ArrayList<>();
+        for (MoodEvent event : loaded) {
+            if (event.getId() != null) {
+                byId.put(event.getId(), event);
+            } else {
+                withoutId.add(event);
+            }
+        }
+        for (OutboxOperation operation : pending) {
+            if (operation.isDelete()) {
+                byId.remove(operation.moodId);
+            } else if (operation.payload != null) {
+                byId.put(operation.moodId, operation.payload);
+            }
+        }
+        List<MoodEvent> merged = new ArrayList<>(byId.values());
+        merged.addAll(withoutId);
+        return merged;
+    }
+
+    /**
+     * @param pending Outbox operations in seq order.
+     * @return The sync state of the latest operation per mood id.
+     */
+    public static Map<String, String> syncStates(List<OutboxOperation> pending) {
+        Map<String, String> states = new HashMap<>();
+        for (OutboxOperation operation : pending) {
+            states.put(operation.moodId, operation.state);
+        }
+        return states;
+    }
+}
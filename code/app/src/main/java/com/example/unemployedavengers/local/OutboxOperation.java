@@ -0,0 +1,55 @@
+/**
+ * OutboxOperation - One journaled mood event write waiting in the outbox.
+ *
+ * Purpose:
+ * - Mirrors a row of the outbox table: what to do (CREATE, UPDATE or DELETE), to which mood,
+ *   the mood as it should look afterwards, and how far the replay got.
+ *
+ * Key Fields:
+ * - opId: idempotency key of the operation, unique in the outbox.
+ * - updatedAt: client time of the change, compared with the server copy for last-writer-wins.
+ * - state: PENDING, SYNCING or FAILED; synced operations are removed from the outbox.
+ */
+package com.example.unemployedavengers.local;
+
+import com.example.unemployedavengers.models.MoodEvent;
+
+public class OutboxOperation {
+    public static final String TYPE_CREATE = "CREATE";
+    public static final String TYPE_UPDATE = "UPDATE";
+    public static final String TYPE_DELETE = "DELETE";
+
+    public static final String STATE_PENDING = "PENDING";
+    public static final String STATE_SYNCING = "SYNCING";
+    public static final String STATE_FAILED = "FAILED";
+
+    public final long seq;
+    public final String opId;
+    public final String userId;
+    public final String moodId;
+    public final String type;
+    public final MoodEvent payload;
+    public final long updatedAt;
+    public final String state;
+    public final int attempts;
+
+    public OutboxOperation(long seq, String opId, String userId, String moodId, String type,
+                           MoodEvent payload, long updatedAt, String state, int attempts) {
+        this.seq = seq;
+        this.opId = opId;
+        this.userId = userId;
+        this.moodId = moodId;
+        this.type = type;
+        this.payload = payload;
+        this.updatedAt = updatedAt;
+        this.state = state;
+        this.attempts = attempts;
+    }
+
+    /**
+     * @return true if this operation removes the mood.
+     */
+    public boolean isDelete() {
+        return TYPE_DELETE.equals(type);
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * ReadPolicy - Where a Firestore read made through CachedReads is served from.
+ *
+ * - CACHE_ONLY: Firestore's on-device cache only; fails if the data was never fetched.
+ * - CACHE_THEN_NETWORK: the cached copy straight away, then the server copy if it differs.
+ * - NETWORK_ONLY: the server only; fails while offline.
+ */
+package com.example.unemployedavengers.local;
+
+public enum ReadPolicy {
+    CACHE_ONLY,
+    CACHE_THEN_NETWORK,
+    NETWORK_ONLY
+}
@@ -0,0 +1,107 @@
+/**
+ * SortedIds - Set operations on sorted, duplicate-free arrays of user ids.
+ *
+ * Purpose:
+ * - Follower and followee lists are compared often (mutuals, fans, suggestions). Held as sorted
+ *   arrays they take a fraction of the memory of a HashSet and two lists are compared in one
+ *   linear merge.
+ *
+ * Key Features:
+ * - of() builds the canonical form; every other method expects arrays built by it.
+ * - intersect(), difference() and intersectionSize() walk both arrays once, O(n + m).
+ * - contains() is a binary search, O(log n).
+ * - No Android or Firebase dependencies.
+ */
+package com.example.unemployedavengers.local;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+public final class SortedIds {
+
+    private SortedIds() {
+    }
+
+    /**
+     * @param ids Any ids, in any order, possibly repeated.
+     * @return The ids sorted, each once.
+     */
+    public static String[] of(Collection<String> ids) {
+        String[] sorted = ids.toArray(new String[0]);
+        Arrays.sort(sorted);
+        int size = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (size == 0 || !sorted[i].equals(sorted[size - 1])) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    public static boolean contains(String[] sorted, String id) {
+        return Arrays.binarySearch(sorted, id) >= 0;
+    }
+
+    /**
+     * @return The ids in both a and b, sorted.
+     */
+    public static String[] intersect(String[] a, String[] b) {
+        String[] result = new String[Math.min(a.length, b.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            int order = a[i].compareTo(b[j]);
+            if (order == 0) {
+                result[size++] = a[i];
+                i++;
+                j++;
+            } else if (order < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * @return The ids in a but not in b, sorted.
+     */
+    public static String[] difference(String[] a, String[] b) {
+        String[] result = new String[a.length];
+        int size = 0;
+        int j = 0;
+        for (String id : a) {
+            while (j < b.length && b[j].compareTo(id) < 0) {
+                j++;
+            }
+            if (j == b.length || !b[j].equals(id)) {
+                result[size++] = id;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * @return How many ids are in both a and b, without building the intersection.
+     */
+    public static int intersectionSize(String[] a, String[] b) {
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            int order = a[i].compareTo(b[j]);
+            if (order == 0) {
+                size++;
+                i++;
+                j++;
+            } else if (order < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return size;
+    }
+}
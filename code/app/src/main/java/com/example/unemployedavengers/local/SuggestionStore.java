@@ -0,0 +1,342 @@
+/**
+ * SuggestionStore - "People you may know" for the signed-in user, kept on disk.
+ *
+ * Purpose:
+ * - The only way to find people used to be prefix search. SuggestionStore suggests the users
+ *   followed by the people the user follows, ranked by FriendSuggestions, and answers from disk
+ *   so the list shows instantly.
+ *
+ * Key Features:
+ * - The expansion is bounded: it stops at the second degree, covers a window of at most
+ *   MAX_EXPANDED_FOLLOWEES of the user's followees, and reads at most MAX_FOLLOWING_PER_USER ids
+ *   of each. The window moves on by FOLLOWEES_PER_REFRESH each refresh, so users following more
+ *   than the cap still have every followee considered in turn.
+ * - Refreshes are incremental: each re-reads only the FOLLOWEES_PER_REFRESH followee lists
+ *   fetched longest ago (those that just entered the window come first) and re-ranks with the
+ *   lists kept from earlier refreshes. refreshIfDue() runs one at most every
+ *   REFRESH_INTERVAL_MS, so a day costs at most
+ *   (24h / REFRESH_INTERVAL_MS) x (FOLLOWEES_PER_REFRESH list queries + one username query).
+ * - Usernames are read again on every refresh, so renamed users show their new name.
+ * - The user's own following and requests come from FollowGraphStore, without reads, and are
+ *   filtered out again whenever suggestions are read, so following someone hides them at once.
+ * - Refreshes run on a background thread; listeners are notified on the main thread.
+ *
+ * Outstanding Issues:
+ * - Nothing is suggested until FollowGraphStore tracks the user.
+ * - With more followees than the cap, suggestions only reflect the current window; a full
+ *   rotation takes followees / FOLLOWEES_PER_REFRESH refreshes.
+ * - Ids beyond MAX_FOLLOWING_PER_USER of a followee's list, in document id order, are never
+ *   considered.
+ */
+package com.example.unemployedavengers.local;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class SuggestionStore {
+    private static final String TAG = "SuggestionStore";
+    private static final String PREFS = "friend_suggestions";
+    private static final long REFRESH_INTERVAL_MS = 6 * 60 * 60 * 1000L;
+    private static final int MAX_EXPANDED_FOLLOWEES = 50;
+    private static final int FOLLOWEES_PER_REFRESH = 10;
+    private static final int MAX_FOLLOWING_PER_USER = 200;
+    private static final int SUGGESTION_LIMIT = 20;
+    // Firestore allows at most 30 values in a whereIn filter
+    private static final int MAX_IN_CLAUSE = 30;
+
+    /**
+     * A suggested user.
+     */
+    public static final class Suggestion {
+        public final String userId;
+        public final String username;
+        /** How many of the user's followees follow this user. */
+        public final int mutualCount;
+
+        Suggestion(String userId, String username, int mutualCount) {
+            this.userId = userId;
+            this.username = username;
+            this.mutualCount = mutualCount;
+        }
+    }
+
+    /**
+     * Notified on the main thread after a refresh changed a user's suggestions.
+     */
+    public interface Listener {
+        void onSuggestionsChanged(@NonNull String userId);
+    }
+
+    private static SuggestionStore instance;
+
+    private final SharedPreferences preferences;
+    private final FirebaseFirestore db;
+    private final FirestoreMeter meter = FirestoreMeter.getInstance();
+    private final FollowGraphStore followGraph = FollowGraphStore.getInstance();
+    // One refresh at a time, so two screens asking for one do not read the same lists twice
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private SuggestionStore(Context context, FirebaseFirestore db) {
+        this.preferences = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.db = db;
+    }
+
+    /**
+     * @param context Any context; only the application context is kept.
+     * @return The shared SuggestionStore.
+     */
+    public static synchronized SuggestionStore getInstance(@NonNull Context context) {
+        if (instance == null) {
+            instance = new SuggestionStore(context, FirebaseFirestore.getInstance());
+        }
+        return instance;
+    }
+
+    public void addListener(@NonNull Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(@NonNull Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @param userId The signed-in user.
+     * @return The stored suggestions, best first, without anyone the user has followed or
+     *         requested since they were computed. Makes no Firestore reads.
+     */
+    @NonNull
+    public List<Suggestion> getSuggestions(@NonNull String userId) {
+        List<Suggestion> suggestions = new ArrayList<>();
+        String json = preferences.getString(suggestionsKey(userId), null);
+        if (json == null) {
+            return suggestions;
+        }
+        boolean tracking = followGraph.isTracking(userId);
+        try {
+            JSONArray array = new JSONArray(json);
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject item = array.getJSONObject(i);
+                String id = item.getString("id");
+                if (tracking && !FollowGraph.STATUS_NONE.equals(followGraph.followStatus(id))) {
+                    continue;
+                }
+                suggestions.add(new Suggestion(id, item.getString("username"), item.getInt("mutual")));
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "Dropping unreadable suggestions", e);
+            preferences.edit().remove(suggestionsKey(userId)).apply();
+        }
+        return suggestions;
+    }
+
+    /**
+     * Starts a refresh unless the last one was less than REFRESH_INTERVAL_MS ago. Failures are
+     * logged and the next call tries again.
+     *
+     * @param userId The signed-in user.
+     */
+    public void refreshIfDue(@NonNull String userId) {
+        if (!isDue(userId)) return;
+        refresh(userId, true).addOnFailureListener(e -> Log.w(TAG, "Refreshing suggestions failed", e));
+    }
+
+    /**
+     * Re-reads the stalest followee lists and recomputes the suggestions.
+     *
+     * @param userId The signed-in user.
+     * @return A {@link Task<List<Suggestion>>} with the new suggestions; unchanged if
+     *         FollowGraphStore does not track the user yet.
+     */
+    public Task<List<Suggestion>> refresh(@NonNull String userId) {
+        return refresh(userId, false);
+    }
+
+    private Task<List<Suggestion>> refresh(String userId, boolean onlyIfDue) {
+        return Tasks.call(executor, () -> {
+            // Checked again here, since a refresh queued before this one may have just finished
+            if ((onlyIfDue && !isDue(userId)) || !followGraph.isTracking(userId)) {
+                return getSuggestions(userId);
+            }
+            String[] following = SortedIds.of(followGraph.getFollowing());
+            String[] requested = SortedIds.of(followGraph.getRequested());
+            // Fan-out cap: only a window of this many followees is expanded at a time
+            int offset = preferences.getInt(offsetKey(userId), 0);
+            String[] expanded = window(following, offset);
+
+            SharedPreferences.Editor editor = preferences.edit();
+            Set<String> previouslyExpanded = preferences.getStringSet(expandedKey(userId), new HashSet<>());
+            for (String followeeId : previouslyExpanded) {
+                if (!SortedIds.contains(expanded, followeeId)) {
+                    editor.remove(listKey(userId, followeeId)).remove(fetchedAtKey(userId, followeeId));
+                }
+            }
+
+            Map<String, String[]> lists = new HashMap<>();
+            for (String followeeId : expanded) {
+                Set<String> ids = preferences.getStringSet(listKey(userId, followeeId), null);
+                if (ids != null) {
+                    lists.put(followeeId, SortedIds.of(ids));
+                }
+            }
+            for (String followeeId : stalest(userId, expanded)) {
+                QuerySnapshot snapshot = Tasks.await(meter.get("SuggestionStore.following",
+                        db.collection("users").document(followeeId).collection("following").limit(MAX_FOLLOWING_PER_USER)));
+                Set<String> ids = new HashSet<>();
+                for (DocumentSnapshot document : snapshot.getDocuments()) {
+                    ids.add(document.getId());
+                }
+                lists.put(followeeId, SortedIds.of(ids));
+                editor.putStringSet(listKey(userId, followeeId), ids)
+                        .putLong(fetchedAtKey(userId, followeeId), System.currentTimeMillis());
+            }
+
+            List<FriendSuggestions.Candidate> ranked = FriendSuggestions.rank(userId, following, lists.values(),
+                    requested, SUGGESTION_LIMIT);
+            List<Suggestion> suggestions = withUsernames(ranked);
+
+            editor.putStringSet(expandedKey(userId), new HashSet<>(Arrays.asList(expanded)))
+                    .putInt(offsetKey(userId), following.length > MAX_EXPANDED_FOLLOWEES
+                            ? (offset + FOLLOWEES_PER_REFRESH) % following.length : 0)
+                    .putString(suggestionsKey(userId), toJson(suggestions))
+                    .putLong(refreshedAtKey(userId), System.currentTimeMillis())
+                    .apply();
+            mainHandler.post(() -> {
+                for (Listener listener : listeners) {
+                    listener.onSuggestionsChanged(userId);
+                }
+            });
+            return suggestions;
+        });
+    }
+
+    private boolean isDue(String userId) {
+        long refreshedAt = preferences.getLong(refreshedAtKey(userId), 0L);
+        return System.currentTimeMillis() - refreshedAt >= REFRESH_INTERVAL_MS;
+    }
+
+    /**
+     * @param following The user's followees, sorted.
+     * @param offset Where the window starts; it wraps around the end of following.
+     * @return At most MAX_EXPANDED_FOLLOWEES followees starting at offset, sorted.
+     */
+    private static String[] window(String[] following, int offset) {
+        if (following.length <= MAX_EXPANDED_FOLLOWEES) {
+            return following;
+        }
+        String[] window = new String[MAX_EXPANDED_FOLLOWEES];
+        for (int i = 0; i < window.length; i++) {
+            window[i] = following[(offset + i) % following.length];
+        }
+        Arrays.sort(window);
+        return window;
+    }
+
+    /**
+     * @return The followees whose lists are missing or were fetched longest ago, at most
+     *         FOLLOWEES_PER_REFRESH of them.
+     */
+    private List<String> stalest(String userId, String[] expanded) {
+        List<String> order = new ArrayList<>(Arrays.asList(expanded));
+        order.sort((a, b) -> Long.compare(preferences.getLong(fetchedAtKey(userId, a), 0L),
+                preferences.getLong(fetchedAtKey(userId, b), 0L)));
+        return order.subList(0, Math.min(order.size(), FOLLOWEES_PER_REFRESH));
+    }
+
+    /**
+     * Attaches usernames, read with whereIn queries so renames are picked up. Candidates without
+     * a user document are dropped. Runs on the executor.
+     */
+    private List<Suggestion> withUsernames(List<FriendSuggestions.Candidate> ranked) throws Exception {
+        Map<String, String> usernames = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        for (FriendSuggestions.Candidate candidate : ranked) {
+            ids.add(candidate.userId);
+        }
+        for (int i = 0; i < ids.size(); i += MAX_IN_CLAUSE) {
+            List<String> chunk = new ArrayList<>(ids.subList(i, Math.min(i + MAX_IN_CLAUSE, ids.size())));
+            QuerySnapshot snapshot = Tasks.await(meter.get("SuggestionStore.users",
+                    db.collection("users").whereIn(FieldPath.documentId(), chunk)));
+            for (DocumentSnapshot document : snapshot.getDocuments()) {
+                String username = document.getString("username");
+                if (username != null) {
+                    usernames.put(document.getId(), username);
+                }
+            }
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (FriendSuggestions.Candidate candidate : ranked) {
+            String username = usernames.get(candidate.userId);
+            if (username != null) {
+                suggestions.add(new Suggestion(candidate.userId, username, candidate.mutualCount));
+            }
+        }
+        return suggestions;
+    }
+
+    private static String toJson(List<Suggestion> suggestions) throws JSONException {
+        JSONArray array = new JSONArray();
+        for (Suggestion suggestion : suggestions) {
+            array.put(new JSONObject()
+                    .put("id", suggestion.userId)
+                    .put("username", suggestion.username)
+                    .put("mutual", suggestion.mutualCount));
+        }
+        return array.toString();
+    }
+
+    private static String suggestionsKey(String userId) {
+        return userId + ".suggestions";
+    }
+
+    private static String refreshedAtKey(String userId) {
+        return userId + ".refreshedAt";
+    }
+
+    private static String expandedKey(String userId) {
+        return userId + ".expanded";
+    }
+
+    private static String offsetKey(String userId) {
+        return userId + ".offset";
+    }
+
+    private static String listKey(String userId, String followeeId) {
+        return userId + ".following." + followeeId;
+    }
+
+    private static String fetchedAtKey(String userId, String followeeId) {
+        return userId + ".fetchedAt." + followeeId;
+    }
+}
@@ -8,16 +8,17 @@
  * - Each marker represents a mood event with mood text and the username of the person who created it.
  * - Custom markers are generated based on the mood and are color-coded for easy recognition.
  * - The camera zooms to the first mood event's location if available.
+ * - As the camera moves, FriendsViewportLoader fetches followed users' located moods for the visible area,
+ *   which are shown alongside the events from the ViewModel.
  *
  * Key Methods:
  * - onViewCreated: Observes the mood events from the ViewModel and triggers the map update.
- * - onMapReady: Adds mood event markers to the map when it is ready.
+ * - onMapReady: Creates the MarkerSynchronizer that keeps the mood event markers in step with the ViewModel,
+ *   and forwards camera-idle events to the FriendsViewportLoader.
  * - createCustomMarker: Creates a custom bitmap marker that includes the mood and username.
  *
  * Known Issues:
  * - If the list of mood events is empty or null, the camera will not move, but no error is shown to the user.
- * - The method of updating the map (by adding markers for each mood event) could be inefficient if there are too many events.
- * - Memory leaks could potentially occur if markers are not properly cleaned up when the fragment is destroyed, especially if the ViewModel is still active.
  * - The custom markers' layout may be suboptimal on different screen sizes, and future adjustments to their size or text might be necessary.
  *
  * Design Patterns:
@@ -29,6 +30,7 @@
 package com.example.unemployedavengers.maps;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -56,13 +58,21 @@ import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
-import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class FriendsMap extends Fragment implements OnMapReadyCallback {
     private FriendsMapBinding binding;
     private ArrayList<MoodEvent> moodEvents;
+    private List<MoodEvent> viewportEvents = new ArrayList<>();
+    private FriendsViewportLoader viewportLoader;
+    private GoogleMap googleMap;
+    private MarkerSynchronizer markerSynchronizer;
+    private boolean cameraPositioned = false;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater,
@@ -80,18 +90,30 @@ public class FriendsMap extends Fragment implements OnMapReadyCallback {
         // Get the shared ViewModel from the Activity
         FriendMoodEventsViewModel vm = new ViewModelProvider(requireActivity()).get(FriendMoodEventsViewModel.class);
 
+        // Load friends' moods for whatever area the camera shows
+        SharedPreferences sharedPreferences = requireActivity().getSharedPreferences("user_preferences", Context.MODE_PRIVATE);
+        String userID = sharedPreferences.getString("userID", null);
+        if (userID != null) {
+            viewportLoader = new FriendsViewportLoader(FirebaseFirestore.getInstance(), userID, events -> {
+                viewportEvents = events;
+                renderMoodEvents();
+            });
+        }
+
+        // Request the map once; markers are then kept in sync by the MarkerSynchronizer
+        SupportMapFragment mapFragment = (SupportMapFragment)
+                getChildFragmentManager().findFragmentById(R.id.map2_fragment);
+        if (mapFragment != null) {
+            mapFragment.getMapAsync(this);
+        }
+
         // Observe the mood events LiveData
         vm.getMoodEvents().observe(getViewLifecycleOwner(), events -> {
             if (events != null) {
                 Log.d("MapDebug", "reached");
                 // Update the local list (creating a copy if needed)
                 moodEvents = new ArrayList<>(events);
-                // Refresh the map markers by requesting the map asynchronously
-                SupportMapFragment mapFragment = (SupportMapFragment)
-                        getChildFragmentManager().findFragmentById(R.id.map2_fragment);
-                if (mapFragment != null) {
-                    mapFragment.getMapAsync(this);
-                }
+                renderMoodEvents();
             }
         });
     }
@@ -99,29 +121,43 @@ public class FriendsMap extends Fragment implements OnMapReadyCallback {
     @Override
     public void onMapReady(@NonNull GoogleMap googleMap) {
         Log.d("MapDebug", "reached");
-        // Loop through moodEvents and add markers for those with locations
+        this.googleMap = googleMap;
+        markerSynchronizer = new MarkerSynchronizer(googleMap, event ->
+                BitmapDescriptorFactory.fromBitmap(createCustomMarker(getContext(), event.getMood(),event.getUserName())));
+        googleMap.setOnCameraIdleListener(() -> {
+            if (viewportLoader == null || this.googleMap == null) return;
+            viewportLoader.onCameraIdle(this.googleMap.getProjection().getVisibleRegion().latLngBounds,
+                    this.googleMap.getCameraPosition().zoom);
+        });
+        renderMoodEvents();
+    }
+
+    /**
+     * Pushes the latest mood events to the map, merging the ViewModel events with the ones loaded
+     * for the viewport. Only the markers that changed since the last emission are touched; the
+     * camera is moved to the first located event once.
+     */
+    private void renderMoodEvents() {
+        if (markerSynchronizer == null) return;
+
+        Map<String, MoodEvent> merged = new LinkedHashMap<>();
         if (moodEvents != null) {
             for (MoodEvent event : moodEvents) {
-                if (event != null && event.getHasLocation()) {
-                    double lat = event.getLatitude();
-                    double lng = event.getLongitude();
-                    Log.d("MapDebug", "Placing marker at lat=" + lat + ", lng=" + lng);
-
-                    // Create a custom marker bitmap with the mood string
-                    Bitmap markerBitmap = createCustomMarker(getContext(), event.getMood(),event.getUserName());
-
-                    googleMap.addMarker(new MarkerOptions()
-                            .position(new LatLng(lat, lng))
-                            .icon(BitmapDescriptorFactory.fromBitmap(markerBitmap)));
-                }
-            }
-            // Optionally adjust the camera to the first event's location
-            if (!moodEvents.isEmpty() && moodEvents.get(0).getHasLocation()) {
-                double lat = moodEvents.get(0).getLatitude();
-                double lng = moodEvents.get(0).getLongitude();
-                googleMap.moveCamera(CameraUpdateFactory.newLatLngZoom(new LatLng(lat, lng), 10));
+                merged.put(MarkerSynchronizer.keyFor(event), event);
             }
         }
+        for (MoodEvent event : viewportEvents) {
+            merged.put(MarkerSynchronizer.keyFor(event), event);
+        }
+        markerSynchronizer.submit(new ArrayList<>(merged.values()));
+
+        // Optionally adjust the camera to the first event's location
+        if (!cameraPositioned && moodEvents != null && !moodEvents.isEmpty() && moodEvents.get(0).getHasLocation()) {
+            double lat = moodEvents.get(0).getLatitude();
+            double lng = moodEvents.get(0).getLongitude();
+            googleMap.moveCamera(CameraUpdateFactory.newLatLngZoom(new LatLng(lat, lng), 10));
+            cameraPositioned = true;
+        }
     }
 
 
@@ -162,6 +198,17 @@ public class FriendsMap extends Fragment implements OnMapReadyCallback {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (viewportLoader != null) {
+            viewportLoader.release();
+            viewportLoader = null;
+        }
+        viewportEvents = new ArrayList<>();
+        if (markerSynchronizer != null) {
+            markerSynchronizer.clear();
+            markerSynchronizer = null;
+        }
+        googleMap = null;
+        cameraPositioned = false;
         // Prevent memory leaks by nullifying the binding
         binding = null;
     }
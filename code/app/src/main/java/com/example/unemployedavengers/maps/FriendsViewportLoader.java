@@ -0,0 +1,237 @@
+/**
+ * FriendsViewportLoader - Loads followed users' located mood events for the visible part of the map.
+ *
+ * Purpose:
+ * - Lets FriendsMap show every located mood of the people the user follows, not only the latest few
+ *   loaded for the list screens, while only reading the areas the user actually looks at.
+ * - Camera-idle events are debounced, then the visible bounds are split into tiles by ViewportTileCache
+ *   and only the tiles that have not been fetched yet are queried.
+ *
+ * Key Features:
+ * - Located mood summaries carry the keys of the tiles containing them (MoodEventMapper.TILES), so
+ *   the missing tiles are queried directly through IMoodEventDAO's tile read (a collection group
+ *   query on "moods" with whereIn on userId and array-contains-any on the tile keys). Only moods
+ *   inside new tiles are read, and the cost grows with the number of new tiles.
+ * - Firestore allows at most MAX_DISJUNCTIONS userId and tile pairs per query, so followed users
+ *   and tiles are batched to fill each query: with few followees, several tiles share a query.
+ * - Followed users come from FollowGraphStore and follow its listener: unfollowed users' moods
+ *   are removed at once, and following someone new reloads the visible area.
+ *
+ * Known Issues:
+ * - The query needs the composite index on moods (publicStatus, userId, tiles) declared in
+ *   firestore.indexes.json.
+ * - Moods written before tiles existed are only found once their owner's MoodDetailMigration has
+ *   added the tiles.
+ * - Following someone new forgets every fetched tile, so areas already seen are read again for
+ *   all followed users.
+ */
+
+package com.example.unemployedavengers.maps;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.DAO.DAOProvider;
+import com.example.unemployedavengers.DAO.IMoodEventDAO;
+import com.example.unemployedavengers.local.FollowGraphStore;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class FriendsViewportLoader {
+    private static final String TAG = "FriendsViewportLoader";
+    private static final long DEBOUNCE_MS = 300;
+    // Firestore limits a query to 30 disjunctions, here userIds x tile keys
+    private static final int MAX_DISJUNCTIONS = 30;
+
+    /**
+     * Receives every mood event loaded so far each time a new area finishes loading.
+     */
+    public interface Listener {
+        void onMoodEventsLoaded(List<MoodEvent> events);
+    }
+
+    private final FirebaseFirestore db;
+    private final IMoodEventDAO moodEventDAO = DAOProvider.getMoodEventDAO();
+    private final String userId;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final ViewportTileCache tileCache = new ViewportTileCache();
+    private final Map<String, MoodEvent> loadedEvents = new LinkedHashMap<>();
+    private final Runnable loadRunnable = this::loadPendingViewport;
+    private final FollowGraphStore.Listener followGraphListener = version -> onFollowGraphChanged();
+
+    private Listener listener;
+    private List<String> followedUserIds;
+    private boolean loadingFollowed = false;
+    private LatLngBounds pendingBounds;
+    private float pendingZoom;
+
+    public FriendsViewportLoader(@NonNull FirebaseFirestore db, @NonNull String userId, @NonNull Listener listener) {
+        this.db = db;
+        this.userId = userId;
+        this.listener = listener;
+        FollowGraphStore.getInstance().addListener(followGraphListener);
+    }
+
+    /**
+     * Called when the camera stops moving. Loading starts once the camera has been idle for DEBOUNCE_MS.
+     *
+     * @param bounds The visible region of the map.
+     * @param zoom The camera zoom level.
+     */
+    public void onCameraIdle(@NonNull LatLngBounds bounds, float zoom) {
+        pendingBounds = bounds;
+        pendingZoom = zoom;
+        handler.removeCallbacks(loadRunnable);
+        handler.postDelayed(loadRunnable, DEBOUNCE_MS);
+    }
+
+    /**
+     * Stops any pending load and drops the listener. Call this from onDestroyView.
+     */
+    public void release() {
+        handler.removeCallbacks(loadRunnable);
+        FollowGraphStore.getInstance().removeListener(followGraphListener);
+        listener = null;
+    }
+
+    private void loadPendingViewport() {
+        if (listener == null || pendingBounds == null) return;
+
+        if (followedUserIds == null) {
+            loadFollowedUserIds();
+            return;
+        }
+        if (followedUserIds.isEmpty()) return;
+
+        int tileZoom = ViewportTileCache.tileZoomFor(pendingZoom);
+        double south = pendingBounds.southwest.latitude;
+        double north = pendingBounds.northeast.latitude;
+        double west = pendingBounds.southwest.longitude;
+        double east = pendingBounds.northeast.longitude;
+
+        List<ViewportTileCache.Tile> tiles = new ArrayList<>();
+        if (west <= east) {
+            tiles.addAll(ViewportTileCache.tilesFor(south, west, north, east, tileZoom));
+        } else {
+            // The viewport crosses the antimeridian, so cover both sides separately
+            tiles.addAll(ViewportTileCache.tilesFor(south, west, north, 180.0, tileZoom));
+            tiles.addAll(ViewportTileCache.tilesFor(south, -180.0, north, east, tileZoom));
+        }
+
+        List<ViewportTileCache.Tile> missing = tileCache.missing(tiles);
+        if (missing.isEmpty()) return;
+
+        // Mark the tiles up front so overlapping camera moves do not query them twice
+        tileCache.markFetched(missing);
+
+        // Fill each query with as many userId and tile pairs as Firestore allows
+        int usersPerQuery = Math.min(followedUserIds.size(), MAX_DISJUNCTIONS);
+        int tilesPerQuery = Math.max(1, MAX_DISJUNCTIONS / usersPerQuery);
+        for (int t = 0; t < missing.size(); t += tilesPerQuery) {
+            List<ViewportTileCache.Tile> tiles = new ArrayList<>(missing.subList(t, Math.min(t + tilesPerQuery, missing.size())));
+            for (int u = 0; u < followedUserIds.size(); u += usersPerQuery) {
+                List<String> chunk = followedUserIds.subList(u, Math.min(u + usersPerQuery, followedUserIds.size()));
+                queryTiles(tiles, new ArrayList<>(chunk));
+            }
+        }
+    }
+
+    /**
+     * Picks up follows and unfollows: moods of unfollowed users are removed straight away, and a
+     * new followee makes the visible area load again.
+     */
+    private void onFollowGraphChanged() {
+        FollowGraphStore followGraph = FollowGraphStore.getInstance();
+        if (listener == null || !followGraph.isTracking(userId)) return;
+        Set<String> following = followGraph.getFollowing();
+        if (followedUserIds != null && following.equals(new HashSet<>(followedUserIds))) return;
+
+        boolean added = followedUserIds == null || !followedUserIds.containsAll(following);
+        followedUserIds = new ArrayList<>(following);
+
+        boolean removed = false;
+        for (Iterator<MoodEvent> it = loadedEvents.values().iterator(); it.hasNext(); ) {
+            if (!following.contains(it.next().getUserId())) {
+                it.remove();
+                removed = true;
+            }
+        }
+        if (removed) {
+            listener.onMoodEventsLoaded(new ArrayList<>(loadedEvents.values()));
+        }
+        if (added) {
+            // The new followees have nothing loaded in any tile fetched so far
+            tileCache.clear();
+            loadPendingViewport();
+        }
+    }
+
+    private void loadFollowedUserIds() {
+        if (loadingFollowed) return;
+
+        FollowGraphStore followGraph = FollowGraphStore.getInstance();
+        if (followGraph.isTracking(userId)) {
+            followedUserIds = new ArrayList<>(followGraph.getFollowing());
+            loadPendingViewport();
+            return;
+        }
+
+        loadingFollowed = true;
+
+        FirestoreMeter.getInstance().get("FriendsViewportLoader.following", db.collection("users")
+                .document(userId)
+                .collection("following"))
+                .addOnSuccessListener(querySnapshot -> {
+                    loadingFollowed = false;
+                    List<String> ids = new ArrayList<>();
+                    for (DocumentSnapshot document : querySnapshot.getDocuments()) {
+                        String followedId = document.getString("followedId");
+                        if (followedId != null) {
+                            ids.add(followedId);
+                        }
+                    }
+                    followedUserIds = ids;
+                    loadPendingViewport();
+                })
+                .addOnFailureListener(e -> {
+                    loadingFollowed = false;
+                    Log.e(TAG, "Error loading following users", e);
+                });
+    }
+
+    private void queryTiles(List<ViewportTileCache.Tile> tiles, List<String> userIds) {
+        List<String> keys = new ArrayList<>(tiles.size());
+        for (ViewportTileCache.Tile tile : tiles) {
+            keys.add(tile.key());
+        }
+
+        moodEventDAO.getPublicMoodEventsInTiles(userIds, keys)
+                .addOnSuccessListener(moodEvents -> {
+                    if (listener == null || moodEvents.isEmpty()) return;
+
+                    for (MoodEvent moodEvent : moodEvents) {
+                        loadedEvents.put(MarkerSynchronizer.keyFor(moodEvent), moodEvent);
+                    }
+                    listener.onMoodEventsLoaded(new ArrayList<>(loadedEvents.values()));
+                })
+                .addOnFailureListener(e -> {
+                    // Let the tiles be retried on the next camera move
+                    tileCache.forget(tiles);
+                    Log.e(TAG, "Error loading mood events for viewport", e);
+                });
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * MarkerSynchronizer - Keeps the markers on a GoogleMap in step with a list of mood events.
+ *
+ * Purpose:
+ * - Replaces the "add a marker for every event on every emission" approach used by the map fragments.
+ * - Keeps an eventId -> Marker map so each LiveData emission only touches the markers that changed.
+ * - Adds markers for new events, moves markers whose location changed, swaps the icon of markers whose
+ *   mood or username changed, and removes markers for events that disappeared.
+ *
+ * Key Features:
+ * - Emissions are coalesced and applied on the next Choreographer frame, so several quick updates
+ *   only cost one diff.
+ * - At most MAX_OPS_PER_FRAME marker operations run per frame; larger diffs continue on the following frames.
+ * - Marker icons are cached by their mood/username key, so an unchanged icon is never redrawn.
+ * - The diff itself (computePlan) is pure Java and independent of the map, which keeps it unit testable.
+ *
+ * Known Issues:
+ * - Events without an id fall back to a userId/time key; two such events with the same key collapse into one marker.
+ * - The icon cache is bounded but not shared between map fragments.
+ */
+
+package com.example.unemployedavengers.maps;
+
+import android.util.LruCache;
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.models.MoodEvent;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public class MarkerSynchronizer {
+    private static final int MAX_OPS_PER_FRAME = 50;
+    private static final int ICON_CACHE_SIZE = 64;
+
+    /**
+     * Builds the marker icon for a mood event.
+     */
+    public interface IconFactory {
+        BitmapDescriptor createIcon(MoodEvent event);
+    }
+
+    /**
+     * The last applied position and icon key of a marker, used to diff the next emission.
+     */
+    public static final class MarkerState {
+        public final double latitude;
+        public final double longitude;
+        public final String iconKey;
+
+        public MarkerState(double latitude, double longitude, String iconKey) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.iconKey = iconKey;
+        }
+    }
+
+    /**
+     * The marker operations needed to go from the current markers to a new list of events.
+     */
+    public static final class Plan {
+        public final List<MoodEvent> toAdd = new ArrayList<>();
+        public final List<MoodEvent> toMove = new ArrayList<>();
+        public final List<MoodEvent> toRestyle = new ArrayList<>();
+        public final List<String> toRemove = new ArrayList<>();
+
+        public int size() {
+            return toAdd.size() + toMove.size() + toRestyle.size() + toRemove.size();
+        }
+
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+    }
+
+    private final GoogleMap googleMap;
+    private final IconFactory iconFactory;
+    private final Map<String, Marker> markers = new HashMap<>();
+    private final Map<String, MarkerState> states = new HashMap<>();
+    private final LruCache<String, BitmapDescriptor> iconCache = new LruCache<>(ICON_CACHE_SIZE);
+    private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> onFrame();
+
+    private List<MoodEvent> target;
+    private boolean frameScheduled = false;
+
+    public MarkerSynchronizer(@NonNull GoogleMap googleMap, @NonNull IconFactory iconFactory) {
+        this.googleMap = googleMap;
+        this.iconFactory = iconFactory;
+    }
+
+    /**
+     * Queues a new list of events to be shown. Only the latest list submitted before the next
+     * frame is applied.
+     *
+     * @param events The events that should be on the map.
+     */
+    public void submit(List<MoodEvent> events) {
+        target = events != null ? new ArrayList<>(events) : new ArrayList<>();
+        scheduleFrame();
+    }
+
+    /**
+     * Removes every marker and drops any pending update. Call this from onDestroyView.
+     */
+    public void clear() {
+        if (frameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            frameScheduled = false;
+        }
+        for (Marker marker : markers.values()) {
+            marker.remove();
+        }
+        markers.clear();
+        states.clear();
+        iconCache.evictAll();
+        target = null;
+    }
+
+    /**
+     * @return The number of markers currently on the map.
+     */
+    public int getMarkerCount() {
+        return markers.size();
+    }
+
+    private void scheduleFrame() {
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+    }
+
+    private void onFrame() {
+        frameScheduled = false;
+        if (target == null) return;
+
+        Plan plan = computePlan(states, target);
+        int budget = MAX_OPS_PER_FRAME;
+
+        for (int i = 0; i < plan.toRemove.size() && budget > 0; i++, budget--) {
+            String key = plan.toRemove.get(i);
+            Marker marker = markers.remove(key);
+            if (marker != null) marker.remove();
+            states.remove(key);
+        }
+        for (int i = 0; i < plan.toMove.size() && budget > 0; i++, budget--) {
+            MoodEvent event = plan.toMove.get(i);
+            String key = keyFor(event);
+            Marker marker = markers.get(key);
+            if (marker != null) {
+                marker.setPosition(new LatLng(event.getLatitude(), event.getLongitude()));
+                MarkerState old = states.get(key);
+                states.put(key, new MarkerState(event.getLatitude(), event.getLongitude(),
+                        old != null ? old.iconKey : iconKeyFor(event)));
+            }
+        }
+        for (int i = 0; i < plan.toRestyle.size() && budget > 0; i++, budget--) {
+            MoodEvent event = plan.toRestyle.get(i);
+            String key = keyFor(event);
+            Marker marker = markers.get(key);
+            if (marker != null) {
+                marker.setIcon(iconFor(event));
+                MarkerState old = states.get(key);
+                states.put(key, new MarkerState(old != null ? old.latitude : event.getLatitude(),
+                        old != null ? old.longitude : event.getLongitude(), iconKeyFor(event)));
+            }
+        }
+        for (int i = 0; i < plan.toAdd.size() && budget > 0; i++, budget--) {
+            MoodEvent event = plan.toAdd.get(i);
+            Marker marker = googleMap.addMarker(new MarkerOptions()
+                    .position(new LatLng(event.getLatitude(), event.getLongitude()))
+                    .icon(iconFor(event)));
+            if (marker != null) {
+                String key = keyFor(event);
+                markers.put(key, marker);
+                states.put(key, new MarkerState(event.getLatitude(), event.getLongitude(), iconKeyFor(event)));
+            }
+        }
+
+        // Anything left over is picked up by the next frame's diff
+        if (plan.size() > MAX_OPS_PER_FRAME) {
+            scheduleFrame();
+        } else {
+            target = null;
+        }
+    }
+
+    private BitmapDescriptor iconFor(MoodEvent event) {
+        String iconKey = iconKeyFor(event);
+        BitmapDescriptor icon = iconCache.get(iconKey);
+        if (icon == null) {
+            icon = iconFactory.createIcon(event);
+            iconCache.put(iconKey, icon);
+        }
+        return icon;
+    }
+
+    /**
+     * Works out which markers need to be added, moved, restyled or removed.
+     * Events without a location are treated as absent.
+     *
+     * @param current The state of the markers currently on the map, keyed by event key.
+     * @param events The events that should be on the map.
+     * @return The operations that bring the map in line with the events.
+     */
+    public static Plan computePlan(Map<String, MarkerState> current, List<MoodEvent> events) {
+        Plan plan = new Plan();
+        Map<String, MoodEvent> wanted = new LinkedHashMap<>();
+        for (MoodEvent event : events) {
+            if (event != null && event.getHasLocation()) {
+                wanted.put(keyFor(event), event);
+            }
+        }
+
+        for (Map.Entry<String, MoodEvent> entry : wanted.entrySet()) {
+            MoodEvent event = entry.getValue();
+            MarkerState state = current.get(entry.getKey());
+            if (state == null) {
+                plan.toAdd.add(event);
+                continue;
+            }
+            if (state.latitude != event.getLatitude() || state.longitude != event.getLongitude()) {
+                plan.toMove.add(event);
+            }
+            if (!Objects.equals(state.iconKey, iconKeyFor(event))) {
+                plan.toRestyle.add(event);
+            }
+        }
+
+        for (String key : current.keySet()) {
+            if (!wanted.containsKey(key)) {
+                plan.toRemove.add(key);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * @return The key identifying the marker of a mood event.
+     */
+    public static String keyFor(MoodEvent event) {
+        if (event.getId() != null) {
+            return event.getId();
+        }
+        return event.getUserId() + "@" + event.getTime();
+    }
+
+    /**
+     * @return The key identifying the icon of a mood event; events with equal keys share an icon.
+     */
+    public static String iconKeyFor(MoodEvent event) {
+        return event.getMood() + "|" + event.getUserName();
+    }
+}
@@ -17,7 +17,8 @@
  * Methods:
  * - onCreateView: Inflates the layout and sets up the binding for this Fragment.
  * - onViewCreated: Observes mood events from the ViewModel and updates the map markers accordingly.
- * - onMapReady: Adds the mood event markers to the map based on the locations provided.
+ *   If no screen has loaded moods yet, the ViewModel is seeded from the LocalMoodStore.
+ * - onMapReady: Hands the map to a MarkerSynchronizer, which only adds, moves or removes the markers that changed.
  * - createCustomMarker: Creates a custom bitmap for each mood event marker, with the mood influencing the marker's design.
  * - onDestroyView: Nullifies the binding to prevent memory leaks when the view is destroyed.
  *
@@ -36,6 +37,7 @@
 package com.example.unemployedavengers.maps;
 
 import android.content.Context;
+import android.content.SharedPreferences;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -56,6 +58,7 @@ import androidx.lifecycle.ViewModelProvider;
 import com.example.unemployedavengers.R;
 import com.example.unemployedavengers.databinding.PersonalMapBinding;
 import com.example.unemployedavengers.models.MoodEvent;
+import com.example.unemployedavengers.local.LocalMoodStore;
 import com.example.unemployedavengers.models.MoodEventsViewModel;
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
@@ -63,7 +66,6 @@ import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
-import com.google.android.gms.maps.model.MarkerOptions;
 
 import java.util.ArrayList;
 
@@ -71,6 +73,9 @@ public class PersonalMap extends Fragment implements OnMapReadyCallback {
 
     private PersonalMapBinding binding;
     private ArrayList<MoodEvent> moodEvents;
+    private GoogleMap googleMap;
+    private MarkerSynchronizer markerSynchronizer;
+    private boolean cameraPositioned = false;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater,
@@ -88,18 +93,32 @@ public class PersonalMap extends Fragment implements OnMapReadyCallback {
         // Get the shared ViewModel from the Activity
         MoodEventsViewModel vm = new ViewModelProvider(requireActivity()).get(MoodEventsViewModel.class);
 
+        // Nothing loaded in this session yet: seed the map from the local mood store
+        if (vm.getMoodEvents().getValue() == null) {
+            SharedPreferences sharedPreferences = requireActivity().getSharedPreferences("user_preferences", Context.MODE_PRIVATE);
+            String userID = sharedPreferences.getString("userID", null);
+            if (userID != null) {
+                LocalMoodStore.getInstance(requireContext()).getMoods(userID).addOnSuccessListener(events -> {
+                    if (binding == null || vm.getMoodEvents().getValue() != null) return;
+                    vm.setMoodEvents(events);
+                });
+            }
+        }
+
+        // Request the map once; markers are then kept in sync by the MarkerSynchronizer
+        SupportMapFragment mapFragment = (SupportMapFragment)
+                getChildFragmentManager().findFragmentById(R.id.map2_fragment);
+        if (mapFragment != null) {
+            mapFragment.getMapAsync(this);
+        }
+
         // Observe the mood events LiveData
         vm.getMoodEvents().observe(getViewLifecycleOwner(), events -> {
             if (events != null) {
                 Log.d("MapDebug", "reached");
                 // Update the local list (creating a copy if needed)
                 moodEvents = new ArrayList<>(events);
-                // Refresh the map markers by requesting the map asynchronously
-                SupportMapFragment mapFragment = (SupportMapFragment)
-                        getChildFragmentManager().findFragmentById(R.id.map2_fragment);
-                if (mapFragment != null) {
-                    mapFragment.getMapAsync(this);
-                }
+                renderMoodEvents();
             }
         });
     }
@@ -107,28 +126,26 @@ public class PersonalMap extends Fragment implements OnMapReadyCallback {
     @Override
     public void onMapReady(@NonNull GoogleMap googleMap) {
         Log.d("MapDebug", "reached");
-        // Loop through moodEvents and add markers for those with locations
-        if (moodEvents != null) {
-            for (MoodEvent event : moodEvents) {
-                if (event != null && event.getHasLocation()) {
-                    double lat = event.getLatitude();
-                    double lng = event.getLongitude();
-                    Log.d("MapDebug", "Placing marker at lat=" + lat + ", lng=" + lng);
-
-                    // Create a custom marker bitmap with the mood string
-                    Bitmap markerBitmap = createCustomMarker(getContext(), event.getMood());
-
-                    googleMap.addMarker(new MarkerOptions()
-                            .position(new LatLng(lat, lng))
-                            .icon(BitmapDescriptorFactory.fromBitmap(markerBitmap)));
-                }
-            }
-            // Optionally adjust the camera to the first event's location
-            if (!moodEvents.isEmpty() && moodEvents.get(0).getHasLocation()) {
-                double lat = moodEvents.get(0).getLatitude();
-                double lng = moodEvents.get(0).getLongitude();
-                googleMap.moveCamera(CameraUpdateFactory.newLatLngZoom(new LatLng(lat, lng), 10));
-            }
+        this.googleMap = googleMap;
+        markerSynchronizer = new MarkerSynchronizer(googleMap, event ->
+                BitmapDescriptorFactory.fromBitmap(createCustomMarker(getContext(), event.getMood())));
+        renderMoodEvents();
+    }
+
+    /**
+     * Pushes the latest mood events to the map. Only the markers that changed since the last
+     * emission are touched; the camera is moved to the first located event once.
+     */
+    private void renderMoodEvents() {
+        if (markerSynchronizer == null || moodEvents == null) return;
+        markerSynchronizer.submit(moodEvents);
+
+        // Optionally adjust the camera to the first event's location
+        if (!cameraPositioned && !moodEvents.isEmpty() && moodEvents.get(0).getHasLocation()) {
+            double lat = moodEvents.get(0).getLatitude();
+            double lng = moodEvents.get(0).getLongitude();
+            googleMap.moveCamera(CameraUpdateFactory.newLatLngZoom(new LatLng(lat, lng), 10));
+            cameraPositioned = true;
         }
     }
 
@@ -169,6 +186,12 @@ public class PersonalMap extends Fragment implements OnMapReadyCallback {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (markerSynchronizer != null) {
+            markerSynchronizer.clear();
+            markerSynchronizer = null;
+        }
+        googleMap = null;
+        cameraPositioned = false;
         // Prevent memory leaks by nullifying the binding
         binding = null;
     }
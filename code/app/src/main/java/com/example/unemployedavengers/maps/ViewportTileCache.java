@@ -0,0 +1,207 @@
+/**
+ * ViewportTileCache - Tracks which map regions have already been fetched, keyed by Web Mercator tiles.
+ *
+ * Purpose:
+ * - Splits a visible bounding box into "z/x/y" tiles at a zoom level derived from the camera zoom.
+ * - Remembers which tiles have been loaded so camera moves over explored areas cost no reads.
+ * - Treats a tile as fetched when it or any of its ancestors (a lower zoom tile covering it) was fetched,
+ *   so zooming in never re-fetches an area loaded while zoomed out.
+ *
+ * Key Features:
+ * - Pure Java with no map SDK dependencies, so it can be unit tested directly.
+ * - keysFor gives the keys of every tile containing a point, from zoom 0 to MAX_TILE_ZOOM. They
+ *   are stored on each located mood summary, so a tile at any zoom the cache hands out can be
+ *   queried directly with array-contains-any.
+ * - Tile zoom is clamped between MIN_TILE_ZOOM and MAX_TILE_ZOOM and lowered when the box would need
+ *   more than MAX_TILES tiles.
+ *
+ * Known Issues:
+ * - Bounding boxes crossing the antimeridian are split by the caller into two boxes.
+ * - The cache lives in memory only and is reset with the fragment.
+ */
+
+package com.example.unemployedavengers.maps;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ViewportTileCache {
+    public static final int MIN_TILE_ZOOM = 2;
+    public static final int MAX_TILE_ZOOM = 14;
+    private static final int MAX_TILES = 16;
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    /**
+     * A single Web Mercator tile and its geographic bounds.
+     */
+    public static final class Tile {
+        public final int zoom;
+        public final int x;
+        public final int y;
+
+        public Tile(int zoom, int x, int y) {
+            this.zoom = zoom;
+            this.x = x;
+            this.y = y;
+        }
+
+        public String key() {
+            return zoom + "/" + x + "/" + y;
+        }
+
+        public double north() {
+            return tileToLatitude(y, zoom);
+        }
+
+        public double south() {
+            return tileToLatitude(y + 1, zoom);
+        }
+
+        public double west() {
+            return tileToLongitude(x, zoom);
+        }
+
+        public double east() {
+            return tileToLongitude(x + 1, zoom);
+        }
+
+        /**
+         * @return The tile one zoom level up that contains this tile, or null at zoom 0.
+         */
+        public Tile parent() {
+            if (zoom == 0) return null;
+            return new Tile(zoom - 1, x / 2, y / 2);
+        }
+    }
+
+    private final Set<String> fetched = new HashSet<>();
+
+    /**
+     * @return The keys of the tiles containing the point at every zoom from 0 to MAX_TILE_ZOOM,
+     *         coarsest first.
+     */
+    public static List<String> keysFor(double latitude, double longitude) {
+        List<String> keys = new ArrayList<>(MAX_TILE_ZOOM + 1);
+        for (int zoom = 0; zoom <= MAX_TILE_ZOOM; zoom++) {
+            keys.add(new Tile(zoom, longitudeToTileX(longitude, zoom), latitudeToTileY(latitude, zoom)).key());
+        }
+        return keys;
+    }
+
+    /**
+     * Picks the tile zoom for a camera zoom level.
+     *
+     * @param cameraZoom The zoom reported by the map camera.
+     * @return The clamped tile zoom.
+     */
+    public static int tileZoomFor(float cameraZoom) {
+        int zoom = (int) Math.floor(cameraZoom);
+        return Math.max(MIN_TILE_ZOOM, Math.min(MAX_TILE_ZOOM, zoom));
+    }
+
+    /**
+     * Lists the tiles covering a bounding box. The zoom is lowered until the box fits in MAX_TILES tiles.
+     *
+     * @param south Southern latitude of the box.
+     * @param west Western longitude of the box.
+     * @param north Northern latitude of the box.
+     * @param east Eastern longitude of the box (must be >= west).
+     * @param zoom The preferred tile zoom.
+     * @return The covering tiles.
+     */
+    public static List<Tile> tilesFor(double south, double west, double north, double east, int zoom) {
+        int z = zoom;
+        while (true) {
+            int minX = longitudeToTileX(west, z);
+            int maxX = longitudeToTileX(east, z);
+            int minY = latitudeToTileY(north, z);
+            int maxY = latitudeToTileY(south, z);
+            int count = (maxX - minX + 1) * (maxY - minY + 1);
+            if (count <= MAX_TILES || z <= 0) {
+                List<Tile> tiles = new ArrayList<>(count);
+                for (int x = minX; x <= maxX; x++) {
+                    for (int y = minY; y <= maxY; y++) {
+                        tiles.add(new Tile(z, x, y));
+                    }
+                }
+                return tiles;
+            }
+            z--;
+        }
+    }
+
+    /**
+     * @return true if the tile, or any tile containing it, has been fetched.
+     */
+    public boolean isFetched(Tile tile) {
+        for (Tile t = tile; t != null; t = t.parent()) {
+            if (fetched.contains(t.key())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The tiles in the list that have not been fetched yet.
+     */
+    public List<Tile> missing(List<Tile> tiles) {
+        List<Tile> missing = new ArrayList<>();
+        for (Tile tile : tiles) {
+            if (!isFetched(tile)) {
+                missing.add(tile);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Records tiles as fetched.
+     */
+    public void markFetched(List<Tile> tiles) {
+        for (Tile tile : tiles) {
+            fetched.add(tile.key());
+        }
+    }
+
+    /**
+     * Forgets specific tiles, e.g. when the query covering them failed.
+     */
+    public void forget(List<Tile> tiles) {
+        for (Tile tile : tiles) {
+            fetched.remove(tile.key());
+        }
+    }
+
+    /**
+     * Forgets every fetched tile, e.g. when the set of followed users changes.
+     */
+    public void clear() {
+        fetched.clear();
+    }
+
+    static int longitudeToTileX(double longitude, int zoom) {
+        int n = 1 << zoom;
+        int x = (int) Math.floor((longitude + 180.0) / 360.0 * n);
+        return Math.max(0, Math.min(n - 1, x));
+    }
+
+    static int latitudeToTileY(double latitude, int zoom) {
+        int n = 1 << zoom;
+        double lat = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+        double latRad = Math.toRadians(lat);
+        int y = (int) Math.floor((1.0 - Math.log(Math.tan(latRad) + 1.0 / Math.cos(latRad)) / Math.PI) / 2.0 * n);
+        return Math.max(0, Math.min(n - 1, y));
+    }
+
+    static double tileToLongitude(int x, int zoom) {
+        return x / (double) (1 << zoom) * 360.0 - 180.0;
+    }
+
+    static double tileToLatitude(int y, int zoom) {
+        double n = Math.PI - 2.0 * Math.PI * y / (double) (1 << zoom);
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+}
@@ -19,7 +19,7 @@
  * Methods:
  * - onCreateView: Inflates the layout using view binding and prepares the view for displaying the map.
  * - onViewCreated: Observes mood events from the WithinFiveKmViewModel and updates the map markers accordingly.
- * - onMapReady: Adds markers to the map for mood events that have location data, ensuring only events within 5 km of the user are shown.
+ * - onMapReady: Hands the map to a MarkerSynchronizer that keeps markers for the located events within 5 km in sync with the ViewModel.
  * - createCustomMarker: Creates a custom bitmap for each mood event marker, with the mood influencing the marker's text and color.
  * - onDestroyView: Nullifies the binding to prevent memory leaks when the view is destroyed.
  *
@@ -72,7 +72,6 @@ import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.model.BitmapDescriptorFactory;
 import com.google.android.gms.maps.model.LatLng;
-import com.google.android.gms.maps.model.MarkerOptions;
 import com.google.maps.android.SphericalUtil;
 
 import java.util.ArrayList;
@@ -81,6 +80,9 @@ public class WithinFiveKmMap extends Fragment implements OnMapReadyCallback {
 
     private WithinFiveKmMapBinding binding;
     private ArrayList<MoodEvent> moodEvents;
+    private GoogleMap googleMap;
+    private MarkerSynchronizer markerSynchronizer;
+    private boolean cameraPositioned = false;
 
 
     @Override
@@ -100,18 +102,20 @@ public class WithinFiveKmMap extends Fragment implements OnMapReadyCallback {
         WithinFiveKmViewModel vm = new ViewModelProvider(requireActivity()).get(WithinFiveKmViewModel.class);
 
 
+        // Request the map once; markers are then kept in sync by the MarkerSynchronizer
+        SupportMapFragment mapFragment = (SupportMapFragment)
+                getChildFragmentManager().findFragmentById(R.id.map3_fragment);
+        if (mapFragment != null) {
+            mapFragment.getMapAsync(this);
+        }
+
         // Observe the mood events LiveData
         vm.getMoodEvents().observe(getViewLifecycleOwner(), events -> {
             if (events != null) {
                 Log.d("MapDebug", "reached");
                 // Update the local list (creating a copy if needed)
                 moodEvents = new ArrayList<>(events);
-                // Refresh the map markers by requesting the map asynchronously
-                SupportMapFragment mapFragment = (SupportMapFragment)
-                        getChildFragmentManager().findFragmentById(R.id.map3_fragment);
-                if (mapFragment != null) {
-                    mapFragment.getMapAsync(this);
-                }
+                renderMoodEvents();
             }
         });
     }
@@ -119,32 +123,26 @@ public class WithinFiveKmMap extends Fragment implements OnMapReadyCallback {
     @Override
     public void onMapReady(@NonNull GoogleMap googleMap) {
         Log.d("MapDebug", "reached");
-        // Loop through moodEvents and add markers for those with locations
-        if (moodEvents != null) {
-
-            for (MoodEvent event : moodEvents) {
-
-
-                // key verification for within 5km
-                if (event != null && event.getHasLocation()) {
-                    double lat = event.getLatitude();
-                    double lng = event.getLongitude();
-                    Log.d("MapDebug", "Placing marker at lat=" + lat + ", lng=" + lng);
-
-                    // Create a custom marker bitmap with the mood string
-                    Bitmap markerBitmap = createCustomMarker(getContext(), event.getMood());
+        this.googleMap = googleMap;
+        markerSynchronizer = new MarkerSynchronizer(googleMap, event ->
+                BitmapDescriptorFactory.fromBitmap(createCustomMarker(getContext(), event.getMood())));
+        renderMoodEvents();
+    }
 
-                    googleMap.addMarker(new MarkerOptions()
-                            .position(new LatLng(lat, lng))
-                            .icon(BitmapDescriptorFactory.fromBitmap(markerBitmap)));
-                }
-            }
-            // Optionally adjust the camera to the first event's location
-            if (!moodEvents.isEmpty() && moodEvents.get(0).getHasLocation()) {
-                double lat = moodEvents.get(0).getLatitude();
-                double lng = moodEvents.get(0).getLongitude();
-                googleMap.moveCamera(CameraUpdateFactory.newLatLngZoom(new LatLng(lat, lng), 10));
-            }
+    /**
+     * Pushes the latest mood events to the map. Only the markers that changed since the last
+     * emission are touched; the camera is moved to the first located event once.
+     */
+    private void renderMoodEvents() {
+        if (markerSynchronizer == null || moodEvents == null) return;
+        markerSynchronizer.submit(moodEvents);
+
+        // Optionally adjust the camera to the first event's location
+        if (!cameraPositioned && !moodEvents.isEmpty() && moodEvents.get(0).getHasLocation()) {
+            double lat = moodEvents.get(0).getLatitude();
+            double lng = moodEvents.get(0).getLongitude();
+            googleMap.moveCamera(CameraUpdateFactory.newLatLngZoom(new LatLng(lat, lng), 10));
+            cameraPositioned = true;
         }
     }
 
@@ -185,6 +183,12 @@ public class WithinFiveKmMap extends Fragment implements OnMapReadyCallback {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        if (markerSynchronizer != null) {
+            markerSynchronizer.clear();
+            markerSynchronizer = null;
+        }
+        googleMap = null;
+        cameraPositioned = false;
         // Prevent memory leaks by nullifying the binding
         binding = null;
     }
@@ -0,0 +1,75 @@
+/**
+ * DocumentSize - Estimates the stored size of a Firestore document.
+ *
+ * Purpose:
+ * - The SDK does not report how many bytes a read transferred, so FirestoreMeter estimates it
+ *   from the document's data with Firestore's storage size rules.
+ *
+ * Key Features:
+ * - Document name: each path segment's length plus one, plus 16.
+ * - Fields: name length plus one, plus the value: strings as UTF-8 length plus one, numbers,
+ *   dates and timestamps as 8, booleans and null as 1, geo points as 16, maps and arrays as the
+ *   sum of their entries. References and other types are counted as 8.
+ * - 32 bytes of overhead per document.
+ *
+ * Outstanding Issues:
+ * - Index entries are not counted, so this is a lower bound of what Firestore stores.
+ */
+
+package com.example.unemployedavengers.metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+public final class DocumentSize {
+    private DocumentSize() {
+    }
+
+    /**
+     * @param path The document path, e.g. "users/abc/moods/xyz".
+     * @param data The document's fields, or null for a missing document.
+     * @return The estimated size in bytes.
+     */
+    public static long estimate(String path, Map<String, Object> data) {
+        long bytes = 32 + 16;
+        for (String segment : path.split("/")) {
+            bytes += utf8Length(segment) + 1;
+        }
+        if (data != null) {
+            bytes += fields(data);
+        }
+        return bytes;
+    }
+
+    private static long fields(Map<?, ?> data) {
+        long bytes = 0;
+        for (Map.Entry<?, ?> entry : data.entrySet()) {
+            bytes += utf8Length(String.valueOf(entry.getKey())) + 1;
+            bytes += value(entry.getValue());
+        }
+        return bytes;
+    }
+
+    private static long value(Object value) {
+        if (value == null || value instanceof Boolean) return 1;
+        if (value instanceof String) return utf8Length((String) value) + 1;
+        if (value instanceof Number) return 8;
+        if (value instanceof Map) return fields((Map<?, ?>) value);
+        if (value instanceof Collection) {
+            long bytes = 0;
+            for (Object element : (Collection<?>) value) {
+                bytes += value(element);
+            }
+            return bytes;
+        }
+        if (value instanceof byte[]) return ((byte[]) value).length;
+        // Timestamps and dates are 8 bytes; a GeoPoint is two doubles. Checked by name so this
+        // class stays free of the Firebase SDK.
+        return value.getClass().getSimpleName().equals("GeoPoint") ? 16 : 8;
+    }
+
+    private static long utf8Length(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
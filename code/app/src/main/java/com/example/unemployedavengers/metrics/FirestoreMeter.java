@@ -0,0 +1,398 @@
+/**
+ * FirestoreMeter - Counts the Firestore reads, writes and listener events of every call site and
+ * screen.
+ *
+ * Purpose:
+ * - We pay per document read, so every Firestore access in the app goes through get(), write()
+ *   or listener() with a call-site label such as "CommentAdapter.likeCount". The meter then shows
+ *   which screen and which call site spent the reads, how many bytes they moved and how long they
+ *   took.
+ *
+ * Key Features:
+ * - Totals are kept per call-site label and per screen. The screen is the navigation destination
+ *   current when the request was made; MainActivity sets it on every destination change.
+ * - Documents are counted the way Firestore bills them: one per document returned by the server,
+ *   one for a query that returned nothing and one for each document get. Documents answered from
+ *   the local cache are counted separately and are not billed.
+ * - Bytes are estimated with DocumentSize; latencies go into a LatencyHistogram in milliseconds.
+ * - toJson() lists everything in name order; dump() writes it to the app's external files
+ *   directory, where it can be pulled with adb.
+ * - Disabled, the wrappers return the SDK's Task untouched and nothing is recorded. MainActivity
+ *   enables it in debuggable builds, so androidTest runs can assert per-screen budgets.
+ *
+ * Outstanding Issues:
+ * - Documents read inside transactions (MoodOutbox) are recorded by the caller with recordRead.
+ */
+
+package com.example.unemployedavengers.metrics;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+
+public final class FirestoreMeter {
+    public static final String UNKNOWN_SCREEN = "unknown";
+
+    // Completion is recorded on whichever thread finishes the Task, so metering never waits for
+    // the main thread
+    private static final Executor DIRECT = Runnable::run;
+
+    private static FirestoreMeter instance;
+
+    /**
+     * Running totals for one call site or screen.
+     */
+    public static final class Totals {
+        private long reads;
+        private long documents;
+        private long cachedDocuments;
+        private long bytes;
+        private long writes;
+        private long writtenDocuments;
+        private long listenerEvents;
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        /** @return Number of get() calls and listener events. */
+        public synchronized long getReads() {
+            return reads;
+        }
+
+        /** @return Billed document reads. */
+        public synchronized long getDocuments() {
+            return documents;
+        }
+
+        /** @return Documents answered from the local cache, not billed. */
+        public synchronized long getCachedDocuments() {
+            return cachedDocuments;
+        }
+
+        /** @return Estimated bytes of the documents read from the server. */
+        public synchronized long getBytes() {
+            return bytes;
+        }
+
+        /** @return Number of write() calls. */
+        public synchronized long getWrites() {
+            return writes;
+        }
+
+        /** @return Documents written or deleted. */
+        public synchronized long getWrittenDocuments() {
+            return writtenDocuments;
+        }
+
+        /** @return Snapshots delivered to listeners. */
+        public synchronized long getListenerEvents() {
+            return listenerEvents;
+        }
+
+        /** @return Latencies of reads and writes in milliseconds. */
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        synchronized void addRead(int documents, long bytes, boolean fromCache, long elapsedMs) {
+            reads++;
+            if (fromCache) {
+                cachedDocuments += documents;
+            } else {
+                this.documents += documents;
+                this.bytes += bytes;
+            }
+            if (elapsedMs >= 0) {
+                latency.record(elapsedMs);
+            }
+        }
+
+        synchronized void addWrite(int documents, long elapsedMs) {
+            writes++;
+            writtenDocuments += documents;
+            latency.record(elapsedMs);
+        }
+
+        synchronized void addListenerEvent() {
+            listenerEvents++;
+        }
+
+        synchronized String toJson() {
+            return "{\"reads\": " + reads
+                    + ", \"documents\": " + documents
+                    + ", \"cachedDocuments\": " + cachedDocuments
+                    + ", \"bytes\": " + bytes
+                    + ", \"writes\": " + writes
+                    + ", \"writtenDocuments\": " + writtenDocuments
+                    + ", \"listenerEvents\": " + listenerEvents
+                    + ", \"latencyMs\": " + latency.toJson() + "}";
+        }
+    }
+
+    private final Map<String, Totals> callSites = new TreeMap<>();
+    private final Map<String, Totals> screens = new TreeMap<>();
+    private volatile boolean enabled;
+    private volatile String screen = UNKNOWN_SCREEN;
+
+    FirestoreMeter() {
+    }
+
+    public static synchronized FirestoreMeter getInstance() {
+        if (instance == null) {
+            instance = new FirestoreMeter();
+        }
+        return instance;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param screen Name of the screen requests are made for from now on.
+     */
+    public void setScreen(@NonNull String screen) {
+        this.screen = screen;
+    }
+
+    @NonNull
+    public String getScreen() {
+        return screen;
+    }
+
+    /**
+     * Reads one document from the server (or the cache when offline).
+     */
+    @NonNull
+    public Task<DocumentSnapshot> get(@NonNull String label, @NonNull DocumentReference ref) {
+        return get(label, ref, Source.DEFAULT);
+    }
+
+    /**
+     * Reads one document from the given source.
+     */
+    @NonNull
+    public Task<DocumentSnapshot> get(@NonNull String label, @NonNull DocumentReference ref, @NonNull Source source) {
+        Task<DocumentSnapshot> task = ref.get(source);
+        if (!enabled) return task;
+        String requestScreen = screen;
+        long start = System.nanoTime();
+        task.addOnCompleteListener(DIRECT, completed -> {
+            if (!completed.isSuccessful() || completed.getResult() == null) return;
+            DocumentSnapshot snapshot = completed.getResult();
+            recordRead(label, requestScreen, 1, DocumentSize.estimate(ref.getPath(), snapshot.getData()),
+                    snapshot.getMetadata().isFromCache(), elapsedMs(start));
+        });
+        return task;
+    }
+
+    /**
+     * Runs a query against the server (or the cache when offline).
+     */
+    @NonNull
+    public Task<QuerySnapshot> get(@NonNull String label, @NonNull Query query) {
+        return get(label, query, Source.DEFAULT);
+    }
+
+    /**
+     * Runs a query against the given source.
+     */
+    @NonNull
+    public Task<QuerySnapshot> get(@NonNull String label, @NonNull Query query, @NonNull Source source) {
+        Task<QuerySnapshot> task = query.get(source);
+        if (!enabled) return task;
+        String requestScreen = screen;
+        long start = System.nanoTime();
+        task.addOnCompleteListener(DIRECT, completed -> {
+            if (!completed.isSuccessful() || completed.getResult() == null) return;
+            QuerySnapshot snapshot = completed.getResult();
+            boolean fromCache = snapshot.getMetadata().isFromCache();
+            recordRead(label, requestScreen, billedDocuments(snapshot.size(), fromCache),
+                    fromCache ? 0 : bytesOf(snapshot), fromCache, elapsedMs(start));
+        });
+        return task;
+    }
+
+    /**
+     * Records a write once it completes.
+     *
+     * @param label The call site.
+     * @param documents Documents the write sets, updates or deletes.
+     * @param write The SDK's Task for the write.
+     * @return The same Task.
+     */
+    @NonNull
+    public <T> Task<T> write(@NonNull String label, int documents, @NonNull Task<T> write) {
+        if (!enabled) return write;
+        String requestScreen = screen;
+        long start = System.nanoTime();
+        write.addOnCompleteListener(DIRECT, completed -> {
+            if (completed.isSuccessful()) {
+                recordWrite(label, requestScreen, documents, elapsedMs(start));
+            }
+        });
+        return write;
+    }
+
+    /**
+     * Wraps a snapshot listener so every snapshot it receives is counted. Only changed documents
+     * are billed after the first snapshot, so those are what is counted.
+     */
+    @NonNull
+    public EventListener<QuerySnapshot> listener(@NonNull String label, @NonNull EventListener<QuerySnapshot> listener) {
+        if (!enabled) return listener;
+        String requestScreen = screen;
+        return (snapshot, error) -> {
+            if (snapshot != null) {
+                boolean fromCache = snapshot.getMetadata().isFromCache();
+                int changed = snapshot.getDocumentChanges().size();
+                recordRead(label, requestScreen, fromCache ? changed : Math.max(1, changed),
+                        fromCache ? 0 : bytesOf(snapshot), fromCache, -1);
+                synchronized (this) {
+                    totals(callSites, label).addListenerEvent();
+                    totals(screens, requestScreen).addListenerEvent();
+                }
+            }
+            listener.onEvent(snapshot, error);
+        };
+    }
+
+    /**
+     * Records a read made outside get(), e.g. inside a transaction.
+     */
+    public void recordRead(@NonNull String label, int documents, long bytes, boolean fromCache, long elapsedMs) {
+        if (!enabled) return;
+        recordRead(label, screen, documents, bytes, fromCache, elapsedMs);
+    }
+
+    /**
+     * Records a write made outside write(), e.g. inside a transaction.
+     */
+    public void recordWrite(@NonNull String label, int documents, long elapsedMs) {
+        if (!enabled) return;
+        recordWrite(label, screen, documents, elapsedMs);
+    }
+
+    /**
+     * @return The totals for a screen, or null if it made no requests since the last reset.
+     */
+    @Nullable
+    public synchronized Totals screenTotals(@NonNull String screen) {
+        return screens.get(screen);
+    }
+
+    /**
+     * @return The totals for a call site, or null if it made no requests since the last reset.
+     */
+    @Nullable
+    public synchronized Totals callSiteTotals(@NonNull String label) {
+        return callSites.get(label);
+    }
+
+    /**
+     * Forgets everything recorded so far, e.g. before opening the screen under test.
+     */
+    public synchronized void reset() {
+        callSites.clear();
+        screens.clear();
+    }
+
+    /**
+     * @return Every screen's and call site's totals, in name order.
+     */
+    @NonNull
+    public synchronized String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"screens\": {");
+        appendTotals(json, screens);
+        json.append("},\n  \"callSites\": {");
+        appendTotals(json, callSites);
+        json.append("}\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Writes toJson() to firestore-usage-{time}.json in the app's external files directory.
+     *
+     * @return The file written.
+     */
+    @NonNull
+    public File dump(@NonNull Context context) throws IOException {
+        File directory = context.getExternalFilesDir(null);
+        if (directory == null) {
+            directory = context.getFilesDir();
+        }
+        File file = new File(directory, "firestore-usage-" + System.currentTimeMillis() + ".json");
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(toJson());
+        }
+        return file;
+    }
+
+    synchronized void recordRead(String label, String screen, int documents, long bytes, boolean fromCache, long elapsedMs) {
+        totals(callSites, label).addRead(documents, bytes, fromCache, elapsedMs);
+        totals(screens, screen).addRead(documents, bytes, fromCache, elapsedMs);
+    }
+
+    synchronized void recordWrite(String label, String screen, int documents, long elapsedMs) {
+        totals(callSites, label).addWrite(documents, elapsedMs);
+        totals(screens, screen).addWrite(documents, elapsedMs);
+    }
+
+    /**
+     * @return What Firestore bills for a query that returned this many documents.
+     */
+    static int billedDocuments(int returned, boolean fromCache) {
+        return fromCache ? returned : Math.max(1, returned);
+    }
+
+    private static Totals totals(Map<String, Totals> map, String key) {
+        Totals totals = map.get(key);
+        if (totals == null) {
+            totals = new Totals();
+            map.put(key, totals);
+        }
+        return totals;
+    }
+
+    private static void appendTotals(StringBuilder json, Map<String, Totals> map) {
+        boolean first = true;
+        for (Map.Entry<String, Totals> entry : map.entrySet()) {
+            json.append(first ? "\n" : ",\n");
+            json.append("    \"").append(entry.getKey()).append("\": ").append(entry.getValue().toJson());
+            first = false;
+        }
+        if (!map.isEmpty()) json.append("\n  ");
+    }
+
+    private static long bytesOf(QuerySnapshot snapshot) {
+        long bytes = 0;
+        for (DocumentSnapshot document : snapshot.getDocuments()) {
+            bytes += DocumentSize.estimate(document.getReference().getPath(), document.getData());
+        }
+        return bytes;
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * FirestoreMeterOverlay - Debug overlay showing what the current screen has read from Firestore.
+ *
+ * Purpose:
+ * - Shows the current screen's reads, billed documents, bytes, writes and latency percentiles on
+ *   top of the app while it is used, so expensive screens are noticed without pulling a dump.
+ *
+ * Key Features:
+ * - Refreshed once a second while attached; stops when the activity's content view goes away.
+ * - Ignores touches, so it never gets in the way of the screen or of UI tests.
+ * - Toggled from Settings in debuggable builds; the choice is kept in shared preferences.
+ */
+
+package com.example.unemployedavengers.metrics;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+
+public final class FirestoreMeterOverlay {
+    private static final String PREFS = "debug";
+    private static final String KEY_ENABLED = "firestore_meter_overlay";
+    private static final long REFRESH_MS = 1000;
+
+    private FirestoreMeterOverlay() {
+    }
+
+    /**
+     * @return true for debug builds, where the meter and its overlay are available.
+     */
+    public static boolean isAvailable(@NonNull Context context) {
+        return (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    public static boolean isEnabled(@NonNull Context context) {
+        return context.getSharedPreferences(PREFS, Context.MODE_PRIVATE).getBoolean(KEY_ENABLED, false);
+    }
+
+    /**
+     * Remembers the choice and shows or hides the overlay on the given activity.
+     */
+    public static void setEnabled(@NonNull Activity activity, boolean enabled) {
+        activity.getSharedPreferences(PREFS, Context.MODE_PRIVATE).edit().putBoolean(KEY_ENABLED, enabled).apply();
+        if (enabled) {
+            attach(activity);
+        } else {
+            detach(activity);
+        }
+    }
+
+    /**
+     * Adds the overlay to the activity if it is enabled and not already shown.
+     */
+    public static void attachIfEnabled(@NonNull Activity activity) {
+        if (isAvailable(activity) && isEnabled(activity)) {
+            attach(activity);
+        }
+    }
+
+    private static void attach(Activity activity) {
+        ViewGroup content = activity.findViewById(android.R.id.content);
+        if (content == null || content.findViewWithTag(KEY_ENABLED) != null) return;
+
+        TextView overlay = new TextView(activity);
+        overlay.setTag(KEY_ENABLED);
+        overlay.setTextColor(Color.WHITE);
+        overlay.setBackgroundColor(0x99000000);
+        overlay.setTextSize(TypedValue.COMPLEX_UNIT_SP, 10);
+        overlay.setPadding(8, 4, 8, 4);
+        overlay.setClickable(false);
+        overlay.setFocusable(false);
+        overlay.setImportantForAccessibility(View.IMPORTANT_FOR_ACCESSIBILITY_NO);
+        FrameLayout.LayoutParams params = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT,
+                Gravity.CENTER_VERTICAL | Gravity.END);
+        content.addView(overlay, params);
+
+        Handler handler = new Handler(Looper.getMainLooper());
+        Runnable refresh = new Runnable() {
+            @Override
+            public void run() {
+                if (!overlay.isAttachedToWindow()) return;
+                overlay.setText(describe(FirestoreMeter.getInstance()));
+                handler.postDelayed(this, REFRESH_MS);
+            }
+        };
+        overlay.addOnAttachStateChangeListener(new View.OnAttachStateChangeListener() {
+            @Override
+            public void onViewAttachedToWindow(@NonNull View view) {
+                handler.post(refresh);
+            }
+
+            @Override
+            public void onViewDetachedFromWindow(@NonNull View view) {
+                handler.removeCallbacks(refresh);
+            }
+        });
+    }
+
+    private static void detach(Activity activity) {
+        ViewGroup content = activity.findViewById(android.R.id.content);
+        if (content == null) return;
+        View overlay = content.findViewWithTag(KEY_ENABLED);
+        if (overlay != null) {
+            content.removeView(overlay);
+        }
+    }
+
+    private static String describe(FirestoreMeter meter) {
+        String screen = meter.getScreen();
+        FirestoreMeter.Totals totals = meter.screenTotals(screen);
+        if (totals == null) {
+            return screen + "\nno Firestore requests";
+        }
+        LatencyHistogram latency = totals.getLatency();
+        return String.format(Locale.US, "%s\nreads %d  docs %d (cache %d)\n%.1f KB  writes %d (%d docs)\np50 %d ms  p90 %d ms",
+                screen, totals.getReads(), totals.getDocuments(), totals.getCachedDocuments(),
+                totals.getBytes() / 1024.0, totals.getWrites(), totals.getWrittenDocuments(),
+                latency.percentile(50), latency.percentile(90));
+    }
+}
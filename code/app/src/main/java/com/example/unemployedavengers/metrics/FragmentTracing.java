@@ -0,0 +1,82 @@
+/**
+ * FragmentTracing - Traces fragment creation and time-to-first-content for every screen.
+ *
+ * Purpose:
+ * - Marks each fragment from creation until its view is created as a "fragment.create.<Name>"
+ *   span, and lets screens report when their first real content is on screen.
+ *
+ * Key Features:
+ * - Registered once on the activity's fragment manager, recursively, so fragments inside the
+ *   NavHostFragment are covered without touching each screen.
+ * - reportFirstContent() records "ttfc.<Name>" in milliseconds from the fragment being created;
+ *   only the first report per view counts, later refreshes are ignored.
+ */
+
+package com.example.unemployedavengers.metrics;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+public final class FragmentTracing extends FragmentManager.FragmentLifecycleCallbacks {
+    // Keyed weakly so a fragment that never shows content does not leak
+    private static final Map<Fragment, Long> createdAt = new WeakHashMap<>();
+    private final Map<Fragment, Span> creating = new WeakHashMap<>();
+
+    @Override
+    public void onFragmentPreAttached(@NonNull FragmentManager fm, @NonNull Fragment f, @NonNull Context context) {
+        synchronized (createdAt) {
+            createdAt.put(f, SystemClock.elapsedRealtime());
+        }
+        creating.put(f, Span.beginAsync("fragment.create." + f.getClass().getSimpleName()));
+    }
+
+    @Override
+    public void onFragmentViewCreated(@NonNull FragmentManager fm, @NonNull Fragment f, @NonNull View v, @Nullable Bundle savedInstanceState) {
+        Span span = creating.remove(f);
+        if (span != null) {
+            span.end();
+        }
+    }
+
+    @Override
+    public void onFragmentViewDestroyed(@NonNull FragmentManager fm, @NonNull Fragment f) {
+        // A view recreated from the back stack counts as a new load of the screen
+        synchronized (createdAt) {
+            createdAt.put(f, SystemClock.elapsedRealtime());
+        }
+    }
+
+    @Override
+    public void onFragmentDetached(@NonNull FragmentManager fm, @NonNull Fragment f) {
+        creating.remove(f);
+        synchronized (createdAt) {
+            createdAt.remove(f);
+        }
+    }
+
+    /**
+     * Call once the screen shows real content (not a placeholder or spinner).
+     *
+     * @param fragment The screen that finished loading.
+     */
+    public static void reportFirstContent(@NonNull Fragment fragment) {
+        Long start;
+        synchronized (createdAt) {
+            start = createdAt.remove(fragment);
+        }
+        if (start == null) return;
+        MetricsRegistry.getInstance()
+                .histogram("ttfc." + fragment.getClass().getSimpleName())
+                .record(SystemClock.elapsedRealtime() - start);
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * LatencyHistogram - Fixed-size histogram of latencies with bounded relative error.
+ *
+ * Purpose:
+ * - Records every latency of a call site in constant memory and answers percentiles, so p50/p99
+ *   can be reported without keeping the samples.
+ *
+ * Key Features:
+ * - HDR-style buckets: exact below 16, then 8 sub-buckets per power of two, so any recorded value
+ *   is reported within 12.5% of itself.
+ * - Units are the caller's; FirestoreMeter records milliseconds.
+ * - Thread safe; recording is a few arithmetic operations and an array increment.
+ */
+
+package com.example.unemployedavengers.metrics;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+public class LatencyHistogram {
+    private static final int LINEAR = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Exponents 4 to 62 each get SUB_BUCKETS buckets after the linear ones
+    private static final int BUCKETS = LINEAR + (63 - 4) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    /**
+     * @param value The latency; negative values are recorded as 0.
+     */
+    public synchronized void record(long value) {
+        long v = Math.max(0, value);
+        counts[bucketOf(v)]++;
+        count++;
+        sum += v;
+        max = Math.max(max, v);
+    }
+
+    /**
+     * @return Number of recorded values.
+     */
+    public synchronized long count() {
+        return count;
+    }
+
+    /**
+     * @return Largest recorded value, exactly.
+     */
+    public synchronized long max() {
+        return max;
+    }
+
+    /**
+     * @return Mean of the recorded values, or 0 if none.
+     */
+    public synchronized double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * @param percentile Between 0 and 100.
+     * @return The upper bound of the bucket holding that percentile (never above max), or 0 if
+     *         nothing was recorded.
+     */
+    public synchronized long percentile(double percentile) {
+        if (count == 0) return 0;
+        long rank = (long) Math.ceil(Math.max(0, Math.min(100, percentile)) / 100.0 * count);
+        rank = Math.max(1, rank);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBoundOf(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Adds another histogram's values to this one.
+     */
+    public void add(LatencyHistogram other) {
+        long[] otherCounts;
+        long otherCount;
+        long otherSum;
+        long otherMax;
+        synchronized (other) {
+            otherCounts = other.counts.clone();
+            otherCount = other.count;
+            otherSum = other.sum;
+            otherMax = other.max;
+        }
+        synchronized (this) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += otherCounts[i];
+            }
+            count += otherCount;
+            sum += otherSum;
+            max = Math.max(max, otherMax);
+        }
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * @return count, p50, p90, p99 and max as a JSON object.
+     */
+    public synchronized String toJson() {
+        return String.format(Locale.US, "{\"count\": %d, \"p50\": %d, \"p90\": %d, \"p99\": %d, \"max\": %d}",
+                count, percentile(50), percentile(90), percentile(99), max);
+    }
+
+    static int bucketOf(long value) {
+        if (value < LINEAR) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - 4) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR) return bucket;
+        int exponent = (bucket - LINEAR) / SUB_BUCKETS + 4;
+        int sub = (bucket - LINEAR) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (SUB_BUCKETS + sub) * width + width - 1;
+    }
+}
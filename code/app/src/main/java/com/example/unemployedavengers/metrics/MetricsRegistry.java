@@ -0,0 +1,212 @@
+/**
+ * MetricsRegistry - Named counters, gauges and latency histograms for the whole app.
+ *
+ * Purpose:
+ * - Gives screen loads, DAO calls and adapter binds one place to report how long they took and
+ *   how often they ran, and writes it all out periodically so time-to-first-content and hot-path
+ *   latencies can be compared between builds.
+ *
+ * Key Features:
+ * - Counters and histograms are created on first use and live for the process.
+ * - Gauges are read when a snapshot is taken; the Java heap in use is always registered.
+ * - Span records into histograms named "span.<name>" in microseconds; screens report
+ *   time-to-first-content into "ttfc.<Fragment>" in milliseconds.
+ * - startSnapshots() rewrites files/metrics/metrics-<version>-<process start>.json every 30
+ *   seconds and keeps the 10 most recent files, so they can be pulled with adb and diffed.
+ *   MainActivity only starts it in debug builds.
+ *
+ * Outstanding Issues:
+ * - Snapshots are cumulative for the process; compare runs of the same scenario.
+ */
+
+package com.example.unemployedavengers.metrics;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+public final class MetricsRegistry {
+    private static final String TAG = "MetricsRegistry";
+    private static final long SNAPSHOT_PERIOD_S = 30;
+    private static final int KEPT_SNAPSHOTS = 10;
+
+    private static MetricsRegistry instance;
+
+    /**
+     * A count that only goes up.
+     */
+    public static final class Counter {
+        private final AtomicLong value = new AtomicLong();
+
+        public void increment() {
+            value.incrementAndGet();
+        }
+
+        public void add(long amount) {
+            value.addAndGet(amount);
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    private final Map<String, Counter> counters = new TreeMap<>();
+    private final Map<String, LongSupplier> gauges = new TreeMap<>();
+    private final Map<String, LatencyHistogram> histograms = new TreeMap<>();
+    private final long processStart = System.currentTimeMillis();
+    private ScheduledExecutorService snapshotExecutor;
+
+    MetricsRegistry() {
+        Runtime runtime = Runtime.getRuntime();
+        gauge("heap.usedBytes", () -> runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    @NonNull
+    public synchronized Counter counter(@NonNull String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counter = new Counter();
+            counters.put(name, counter);
+        }
+        return counter;
+    }
+
+    /**
+     * @param name Name of the gauge; registering the same name again replaces it.
+     * @param value Read on every snapshot, on the snapshot thread.
+     */
+    public synchronized void gauge(@NonNull String name, @NonNull LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    @NonNull
+    public synchronized LatencyHistogram histogram(@NonNull String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            histograms.put(name, histogram);
+        }
+        return histogram;
+    }
+
+    /**
+     * @param build Identifies the build the numbers came from, e.g. "1.0 (1)".
+     * @return Every counter, gauge and histogram in name order.
+     */
+    @NonNull
+    public String toJson(@NonNull String build) {
+        Map<String, Counter> counterCopy;
+        Map<String, LongSupplier> gaugeCopy;
+        Map<String, LatencyHistogram> histogramCopy;
+        synchronized (this) {
+            counterCopy = new TreeMap<>(counters);
+            gaugeCopy = new TreeMap<>(gauges);
+            histogramCopy = new TreeMap<>(histograms);
+        }
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"build\": \"").append(build).append("\",\n");
+        json.append("  \"processStart\": ").append(processStart).append(",\n");
+        json.append("  \"takenAt\": ").append(System.currentTimeMillis()).append(",\n");
+        json.append("  \"counters\": {");
+        boolean first = true;
+        for (Map.Entry<String, Counter> entry : counterCopy.entrySet()) {
+            json.append(first ? "\n" : ",\n").append("    \"").append(entry.getKey()).append("\": ").append(entry.getValue().get());
+            first = false;
+        }
+        json.append(counterCopy.isEmpty() ? "},\n" : "\n  },\n");
+        json.append("  \"gauges\": {");
+        first = true;
+        for (Map.Entry<String, LongSupplier> entry : gaugeCopy.entrySet()) {
+            json.append(first ? "\n" : ",\n").append("    \"").append(entry.getKey()).append("\": ").append(entry.getValue().getAsLong());
+            first = false;
+        }
+        json.append(gaugeCopy.isEmpty() ? "},\n" : "\n  },\n");
+        json.append("  \"histograms\": {");
+        first = true;
+        for (Map.Entry<String, LatencyHistogram> entry : histogramCopy.entrySet()) {
+            json.append(first ? "\n" : ",\n").append("    \"").append(entry.getKey()).append("\": ").append(entry.getValue().toJson());
+            first = false;
+        }
+        json.append(histogramCopy.isEmpty() ? "}\n" : "\n  }\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    /**
+     * Starts writing snapshots every 30 seconds. Does nothing if already started.
+     */
+    public synchronized void startSnapshots(@NonNull Context context) {
+        if (snapshotExecutor != null) return;
+        Context appContext = context.getApplicationContext();
+        String build = buildOf(appContext);
+        File directory = new File(appContext.getFilesDir(), "metrics");
+        File file = new File(directory, "metrics-" + build.replaceAll("[^A-Za-z0-9.]+", "_") + "-" + processStart + ".json");
+
+        snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, TAG);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        snapshotExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                writeSnapshot(directory, file, build);
+            } catch (IOException e) {
+                Log.w(TAG, "Could not write metrics snapshot", e);
+            }
+        }, SNAPSHOT_PERIOD_S, SNAPSHOT_PERIOD_S, TimeUnit.SECONDS);
+    }
+
+    private void writeSnapshot(File directory, File file, String build) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(toJson(build));
+        }
+
+        File[] snapshots = directory.listFiles((dir, name) -> name.startsWith("metrics-") && name.endsWith(".json"));
+        if (snapshots == null || snapshots.length <= KEPT_SNAPSHOTS) return;
+        Arrays.sort(snapshots, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        for (int i = KEPT_SNAPSHOTS; i < snapshots.length; i++) {
+            if (!snapshots[i].delete()) {
+                Log.w(TAG, "Could not delete old snapshot " + snapshots[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static String buildOf(Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            return info.versionName + " (" + info.versionCode + ")";
+        } catch (PackageManager.NameNotFoundException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Span - Times one section of a hot path and marks it in system traces.
+ *
+ * Purpose:
+ * - Wraps android.os.Trace so a section shows up in Perfetto/systrace captures and its duration
+ *   is recorded into MetricsRegistry's "span.<name>" histogram in microseconds.
+ *
+ * Key Features:
+ * - begin() is for work that starts and ends on one thread; use it with try-with-resources.
+ * - beginAsync() is for work that completes on another thread or in a callback, like DAO calls
+ *   and fragment creation. Its trace section is only emitted on API 29+, where async sections
+ *   exist; the duration is recorded on every API level.
+ * - Names are constants at the call sites, so starting a span does not allocate a string.
+ *
+ * Outstanding Issues:
+ * - An async span that never ends (e.g. a callback that is never called) is not recorded.
+ */
+
+package com.example.unemployedavengers.metrics;
+
+import android.os.Build;
+import android.os.Trace;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class Span implements AutoCloseable {
+    // Trace section names are limited to 127 characters
+    private static final int MAX_SECTION_NAME = 127;
+    private static final AtomicInteger nextCookie = new AtomicInteger();
+
+    private final String name;
+    private final long startNanos;
+    private final int cookie;
+    private boolean ended;
+
+    private Span(String name, int cookie) {
+        this.name = name;
+        this.cookie = cookie;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts a span that ends on the same thread.
+     */
+    @NonNull
+    public static Span begin(@NonNull String name) {
+        Trace.beginSection(sectionName(name));
+        return new Span(name, -1);
+    }
+
+    /**
+     * Starts a span that may end on another thread.
+     */
+    @NonNull
+    public static Span beginAsync(@NonNull String name) {
+        int cookie = nextCookie.incrementAndGet();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(sectionName(name), cookie);
+        }
+        return new Span(name, cookie);
+    }
+
+    /**
+     * Ends the span and records its duration. Only the first call has an effect.
+     */
+    public void end() {
+        synchronized (this) {
+            if (ended) return;
+            ended = true;
+        }
+        if (cookie < 0) {
+            Trace.endSection();
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(sectionName(name), cookie);
+        }
+        MetricsRegistry.getInstance().histogram("span." + name).record((System.nanoTime() - startNanos) / 1000);
+    }
+
+    @Override
+    public void close() {
+        end();
+    }
+
+    private static String sectionName(String name) {
+        return name.length() <= MAX_SECTION_NAME ? name : name.substring(0, MAX_SECTION_NAME);
+    }
+}
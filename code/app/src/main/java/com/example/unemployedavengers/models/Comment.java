@@ -147,6 +147,15 @@ public class Comment implements Serializable {
         return timestamp;
     }
 
+    /**
+     * Sets the timestamp of when the comment was created.
+     *
+     * @param timestamp The timestamp in milliseconds.
+     */
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
     /**
      * Returns the ID of the parent comment, or null if this is a top-level comment.
      *
@@ -0,0 +1,89 @@
+/**
+ * CommentMapper - Converts Comment to and from Firestore document data without reflection.
+ *
+ * Purpose:
+ * - Replaces toObject(Comment.class) and add(comment) on the comment threads of a mood.
+ *
+ * Key Features:
+ * - fromMap reads DocumentSnapshot.getData() in one pass; missing fields keep the defaults of
+ *   the no-argument constructor (an empty replyIds list) and unknown fields are ignored.
+ * - toMap writes the same fields, under the same names, as Firestore does for a Comment.
+ */
+package com.example.unemployedavengers.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public final class CommentMapper {
+    /** Number of properties Comment stores in Firestore. */
+    public static final int FIELD_COUNT = 9;
+
+    private CommentMapper() {
+    }
+
+    /**
+     * @param data The document's data, or null if the document does not exist.
+     * @return The comment, or null if data is null.
+     * @throws IllegalArgumentException if a field has a type that cannot be converted.
+     */
+    public static Comment fromMap(Map<String, Object> data) {
+        if (data == null) {
+            return null;
+        }
+        Comment comment = new Comment();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            String field = entry.getKey();
+            Object value = entry.getValue();
+            switch (field) {
+                case "id":
+                    comment.setId(DocumentFields.asString(field, value));
+                    break;
+                case "moodEventId":
+                    comment.setMoodEventId(DocumentFields.asString(field, value));
+                    break;
+                case "userId":
+                    comment.setUserId(DocumentFields.asString(field, value));
+                    break;
+                case "username":
+                    comment.setUsername(DocumentFields.asString(field, value));
+                    break;
+                case "content":
+                    comment.setContent(DocumentFields.asString(field, value));
+                    break;
+                case "timestamp":
+                    comment.setTimestamp(DocumentFields.asLong(field, value));
+                    break;
+                case "parentId":
+                    comment.setParentId(DocumentFields.asString(field, value));
+                    break;
+                case "replyIds":
+                    comment.setReplyIds(DocumentFields.asStringList(field, value));
+                    break;
+                case "likeCount":
+                    comment.setLikeCount(DocumentFields.asInt(field, value));
+                    break;
+                default:
+                    // Not a Comment property; toObject ignores it too
+                    break;
+            }
+        }
+        return comment;
+    }
+
+    /**
+     * @return Every stored property of the comment, nulls included.
+     */
+    public static Map<String, Object> toMap(Comment comment) {
+        Map<String, Object> data = new HashMap<>(DocumentFields.capacityFor(FIELD_COUNT));
+        data.put("id", comment.getId());
+        data.put("moodEventId", comment.getMoodEventId());
+        data.put("userId", comment.getUserId());
+        data.put("username", comment.getUsername());
+        data.put("content", comment.getContent());
+        data.put("timestamp", comment.getTimestamp());
+        data.put("parentId", comment.getParentId());
+        data.put("replyIds", comment.getReplyIds());
+        data.put("likeCount", comment.getLikeCount());
+        return data;
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ * DocumentFields - Field conversions shared by the document mappers.
+ *
+ * Purpose:
+ * - Converts the values found in a Firestore document's data map the same way Firestore's
+ *   toObject() does, so a mapper gives the same model or the same error as the reflective path.
+ *
+ * Key Features:
+ * - Whole numbers come back as Long and fractions as Double; either is accepted for numeric
+ *   fields, as long as it fits.
+ * - Strings and booleans must already have that type; null is rejected for primitive fields.
+ * - No Android or Firebase dependencies, so the mappers are unit tested and benchmarked on the JVM.
+ */
+package com.example.unemployedavengers.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class DocumentFields {
+
+    private DocumentFields() {
+    }
+
+    /**
+     * @return Initial capacity of a HashMap that holds the given number of fields without resizing.
+     */
+    static int capacityFor(int fields) {
+        return (int) (fields / 0.75f) + 1;
+    }
+
+    static String asString(String field, Object value) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        throw conversionError(field, value, "String");
+    }
+
+    static long asLong(String field, Object value) {
+        if (value instanceof Long || value instanceof Integer) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Double) {
+            double number = (Double) value;
+            if (number >= Long.MIN_VALUE && number <= Long.MAX_VALUE) {
+                return (long) number;
+            }
+        }
+        throw conversionError(field, value, "long");
+    }
+
+    static int asInt(String field, Object value) {
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        if (value instanceof Long || value instanceof Double) {
+            double number = ((Number) value).doubleValue();
+            if (number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+                return ((Number) value).intValue();
+            }
+        }
+        throw conversionError(field, value, "int");
+    }
+
+    static double asDouble(String field, Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        throw conversionError(field, value, "double");
+    }
+
+    static boolean asBoolean(String field, Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        throw conversionError(field, value, "boolean");
+    }
+
+    static List<String> asStringList(String field, Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (!(value instanceof List)) {
+            throw conversionError(field, value, "List");
+        }
+        List<?> values = (List<?>) value;
+        List<String> strings = new ArrayList<>(values.size());
+        for (Object element : values) {
+            strings.add(asString(field, element));
+        }
+        return strings;
+    }
+
+    private static IllegalArgumentException conversionError(String field, Object value, String type) {
+        String found = value == null ? "null" : value.getClass().getName();
+        return new IllegalArgumentException("Could not convert " + found + " to " + type + " (found in field '" + field + "')");
+    }
+}
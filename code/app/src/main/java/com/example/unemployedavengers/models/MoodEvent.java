@@ -13,6 +13,8 @@ import java.util.UUID;
  * </p>
  */
 public class MoodEvent implements Serializable {
+    // Pinned to the value computed before needsDetail was added, so journaled outbox payloads still load
+    private static final long serialVersionUID = -2066140044598167023L;
 
     // Attributes
     private String userName;
@@ -29,6 +31,9 @@ public class MoodEvent implements Serializable {
     private double latitude;
     private double longitude;
     private boolean hasLocation = false;
+    private long updatedAt;
+    // Not stored: true while situation, radioSituation and imageUri are still in the detail document
+    private boolean needsDetail;
 
     /**
      * Gets the username of the user who created the mood event.
@@ -283,6 +288,44 @@ public class MoodEvent implements Serializable {
         this.hasLocation = hasLocation;
     }
 
+    /**
+     * Gets the time of the last change made to the mood event, used to resolve conflicting writes.
+     *
+     * @return the timestamp of the last change, or 0 if the event predates this field.
+     */
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Sets the time of the last change made to the mood event.
+     *
+     * @param updatedAt the timestamp to set.
+     */
+    public void setUpdatedAt(long updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Tells whether this mood was read from a summary document and its situation, radio situation
+     * and image still have to be loaded with IMoodEventDAO.loadDetail before it is shown in full
+     * or edited.
+     *
+     * @return true if the detail fields are not loaded yet.
+     */
+    public boolean needsDetail() {
+        return needsDetail;
+    }
+
+    /**
+     * Marks whether the detail fields of this mood are still to be loaded.
+     *
+     * @param needsDetail true if only the summary has been read.
+     */
+    public void setNeedsDetail(boolean needsDetail) {
+        this.needsDetail = needsDetail;
+    }
+
     /**
      * Default constructor for Firebase and empty initialization.
      */
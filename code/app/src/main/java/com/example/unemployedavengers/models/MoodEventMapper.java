@@ -0,0 +1,179 @@
+/**
+ * MoodEventMapper - Converts MoodEvent to and from Firestore document data without reflection.
+ *
+ * Purpose:
+ * - Replaces toObject(MoodEvent.class) and set(moodEvent), whose reflective bean mapping was a
+ *   top CPU cost when loading long histories.
+ *
+ * Key Features:
+ * - fromMap reads DocumentSnapshot.getData() in one pass; missing fields keep the defaults of
+ *   the no-argument constructor and unknown fields are ignored, as with toObject.
+ * - toMap writes the same fields, under the same names, as Firestore does for a MoodEvent.
+ * - toSummaryMap and toDetailMap split a mood into the summary stored in users/{id}/moods, which
+ *   every list and map query reads, and the detail stored in users/{id}/moodDetails, which only
+ *   the detail and edit screens need. Summaries are marked with HAS_DETAIL so fromMap can flag
+ *   the mood as needing its detail; moods stored whole before the split are read as before.
+ *   Located summaries also carry TILES, which FriendsViewportLoader queries.
+ *
+ * Outstanding Issues:
+ * - A field added to MoodEvent must be added here too; DocumentMappersTest fails until it is.
+ */
+package com.example.unemployedavengers.models;
+
+import com.example.unemployedavengers.maps.ViewportTileCache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public final class MoodEventMapper {
+    /** Number of properties MoodEvent stores in Firestore. */
+    public static final int FIELD_COUNT = 15;
+    /** Set on summary documents whose detail fields live in the moodDetails collection. */
+    public static final String HAS_DETAIL = "hasDetail";
+    /**
+     * Set on summaries of located moods: the keys of the map tiles containing the mood at every
+     * zoom, from ViewportTileCache.keysFor. Not a MoodEvent property.
+     */
+    public static final String TILES = "tiles";
+    /** The fields kept out of the summary document. */
+    public static final String[] DETAIL_FIELDS = {"situation", "radioSituation", "imageUri"};
+
+    private MoodEventMapper() {
+    }
+
+    /**
+     * @param data The document's data, or null if the document does not exist.
+     * @return The mood event, or null if data is null.
+     * @throws IllegalArgumentException if a field has a type that cannot be converted.
+     */
+    public static MoodEvent fromMap(Map<String, Object> data) {
+        if (data == null) {
+            return null;
+        }
+        MoodEvent moodEvent = new MoodEvent();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            String field = entry.getKey();
+            Object value = entry.getValue();
+            switch (field) {
+                case "userName":
+                    moodEvent.setUserName(DocumentFields.asString(field, value));
+                    break;
+                case "mood":
+                    moodEvent.setMood(DocumentFields.asString(field, value));
+                    break;
+                case "imageUri":
+                    moodEvent.setImageUri(DocumentFields.asString(field, value));
+                    break;
+                case "reason":
+                    moodEvent.setReason(DocumentFields.asString(field, value));
+                    break;
+                case "situation":
+                    moodEvent.setSituation(DocumentFields.asString(field, value));
+                    break;
+                case "radioSituation":
+                    moodEvent.setRadioSituation(DocumentFields.asString(field, value));
+                    break;
+                case "time":
+                    moodEvent.setTime(DocumentFields.asLong(field, value));
+                    break;
+                case "existed":
+                    moodEvent.setExisted(DocumentFields.asBoolean(field, value));
+                    break;
+                case "id":
+                    moodEvent.setId(DocumentFields.asString(field, value));
+                    break;
+                case "userId":
+                    moodEvent.setUserId(DocumentFields.asString(field, value));
+                    break;
+                case "publicStatus":
+                    moodEvent.setPublicStatus(DocumentFields.asBoolean(field, value));
+                    break;
+                case "latitude":
+                    moodEvent.setLatitude(DocumentFields.asDouble(field, value));
+                    break;
+                case "longitude":
+                    moodEvent.setLongitude(DocumentFields.asDouble(field, value));
+                    break;
+                case "hasLocation":
+                    moodEvent.setHasLocation(DocumentFields.asBoolean(field, value));
+                    break;
+                case "updatedAt":
+                    moodEvent.setUpdatedAt(DocumentFields.asLong(field, value));
+                    break;
+                case HAS_DETAIL:
+                    moodEvent.setNeedsDetail(DocumentFields.asBoolean(field, value));
+                    break;
+                default:
+                    // Not a MoodEvent property; toObject ignores it too
+                    break;
+            }
+        }
+        return moodEvent;
+    }
+
+    /**
+     * @return Every stored property of the mood event, nulls included.
+     */
+    public static Map<String, Object> toMap(MoodEvent moodEvent) {
+        Map<String, Object> data = new HashMap<>(DocumentFields.capacityFor(FIELD_COUNT));
+        data.put("userName", moodEvent.getUserName());
+        data.put("mood", moodEvent.getMood());
+        data.put("imageUri", moodEvent.getImageUri());
+        data.put("reason", moodEvent.getReason());
+        data.put("situation", moodEvent.getSituation());
+        data.put("radioSituation", moodEvent.getRadioSituation());
+        data.put("time", moodEvent.getTime());
+        data.put("existed", moodEvent.getExisted());
+        data.put("id", moodEvent.getId());
+        data.put("userId", moodEvent.getUserId());
+        data.put("publicStatus", moodEvent.getPublicStatus());
+        data.put("latitude", moodEvent.getLatitude());
+        data.put("longitude", moodEvent.getLongitude());
+        data.put("hasLocation", moodEvent.getHasLocation());
+        data.put("updatedAt", moodEvent.getUpdatedAt());
+        return data;
+    }
+
+    /**
+     * @return The fields stored in the summary document, marked with HAS_DETAIL, plus TILES for
+     *         a located mood.
+     */
+    public static Map<String, Object> toSummaryMap(MoodEvent moodEvent) {
+        Map<String, Object> data = toMap(moodEvent);
+        for (String field : DETAIL_FIELDS) {
+            data.remove(field);
+        }
+        data.put(HAS_DETAIL, true);
+        if (moodEvent.getHasLocation()) {
+            data.put(TILES, ViewportTileCache.keysFor(moodEvent.getLatitude(), moodEvent.getLongitude()));
+        }
+        return data;
+    }
+
+    /**
+     * @return The fields stored in the detail document.
+     */
+    public static Map<String, Object> toDetailMap(MoodEvent moodEvent) {
+        Map<String, Object> data = new HashMap<>(DocumentFields.capacityFor(DETAIL_FIELDS.length));
+        data.put("situation", moodEvent.getSituation());
+        data.put("radioSituation", moodEvent.getRadioSituation());
+        data.put("imageUri", moodEvent.getImageUri());
+        return data;
+    }
+
+    /**
+     * Fills in the detail fields of a mood read from its summary and clears needsDetail.
+     *
+     * @param moodEvent The mood to complete.
+     * @param data The detail document's data, or null if it does not exist.
+     * @throws IllegalArgumentException if a field has a type that cannot be converted.
+     */
+    public static void applyDetail(MoodEvent moodEvent, Map<String, Object> data) {
+        if (data != null) {
+            moodEvent.setSituation(DocumentFields.asString("situation", data.get("situation")));
+            moodEvent.setRadioSituation(DocumentFields.asString("radioSituation", data.get("radioSituation")));
+            moodEvent.setImageUri(DocumentFields.asString("imageUri", data.get("imageUri")));
+        }
+        moodEvent.setNeedsDetail(false);
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * ProfileCounts - How many followers, followees and moods a user has.
+ *
+ * Purpose:
+ * - What profile headers show instead of the sizes of the followers, following and moods
+ *   subcollections, which used to be downloaded whole to be counted.
+ *
+ * Key Features:
+ * - The field names below are the maintained counters on users/{id}; fromUserData reads them
+ *   back, and only trusts them once SEEDED_AT has been written next to them.
+ * - describe() gives the one-line summary shown under the username.
+ * - No Android or Firebase dependencies.
+ */
+package com.example.unemployedavengers.models;
+
+import java.util.Map;
+
+public final class ProfileCounts {
+    /** Maintained number of users/{id}/followers documents. */
+    public static final String FOLLOWERS = "followerCount";
+    /** Maintained number of users/{id}/following documents. */
+    public static final String FOLLOWING = "followingCount";
+    /** Maintained number of users/{id}/moods documents. */
+    public static final String MOODS = "moodCount";
+    /** When the counters were set from count() aggregations; increments alone start from 0. */
+    public static final String SEEDED_AT = "countsSeededAt";
+
+    private final long followers;
+    private final long following;
+    private final long moods;
+
+    public ProfileCounts(long followers, long following, long moods) {
+        this.followers = followers;
+        this.following = following;
+        this.moods = moods;
+    }
+
+    /**
+     * @param data A user document's data, or null if it does not exist.
+     * @return The maintained counters, or null if they were never seeded. Counters that drifted
+     *         below zero read as zero.
+     */
+    public static ProfileCounts fromUserData(Map<String, Object> data) {
+        if (data == null || !(data.get(SEEDED_AT) instanceof Number)) {
+            return null;
+        }
+        return new ProfileCounts(counter(data, FOLLOWERS), counter(data, FOLLOWING), counter(data, MOODS));
+    }
+
+    private static long counter(Map<String, Object> data, String field) {
+        Object value = data.get(field);
+        return value instanceof Number ? Math.max(0L, ((Number) value).longValue()) : 0L;
+    }
+
+    /**
+     * @return The line profile headers show, "1 follower", "12 following" and "40 moods"
+     *         joined by middle dots.
+     */
+    public String describe() {
+        return followers + (followers == 1 ? " follower" : " followers")
+                + " \u00B7 " + following + " following"
+                + " \u00B7 " + moods + (moods == 1 ? " mood" : " moods");
+    }
+
+    public long getFollowers() {
+        return followers;
+    }
+
+    public long getFollowing() {
+        return following;
+    }
+
+    public long getMoods() {
+        return moods;
+    }
+}
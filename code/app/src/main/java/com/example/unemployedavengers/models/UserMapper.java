@@ -0,0 +1,102 @@
+/**
+ * UserMapper - Converts User to and from Firestore document data without reflection.
+ *
+ * Purpose:
+ * - Replaces toObject(User.class) and set(user) for the users collection, which is read for
+ *   every profile, search result and follow request.
+ *
+ * Key Features:
+ * - fromMap reads DocumentSnapshot.getData() in one pass; fields such as lastMoodAt that are
+ *   not User properties are ignored, as with toObject.
+ * - toMap writes the same fields, under the same names, as Firestore does for a User.
+ * - normalize gives the case-insensitive form of a username used for the usernames/{name}
+ *   reservations and the USERNAME_LOWER search field, which UserDAOImplement stores next to
+ *   toMap's fields.
+ */
+package com.example.unemployedavengers.models;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public final class UserMapper {
+    /** Number of properties User stores in Firestore. */
+    public static final int FIELD_COUNT = 5;
+    /** Lower-cased username stored on user documents for prefix search; not a User property. */
+    public static final String USERNAME_LOWER = "usernameLower";
+
+    private UserMapper() {
+    }
+
+    /**
+     * @param data The document's data, or null if the document does not exist.
+     * @return The user, or null if data is null.
+     * @throws IllegalArgumentException if a field has a type that cannot be converted.
+     */
+    public static User fromMap(Map<String, Object> data) {
+        if (data == null) {
+            return null;
+        }
+        User user = new User();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            String field = entry.getKey();
+            Object value = entry.getValue();
+            switch (field) {
+                case "userId":
+                    user.setUserId(DocumentFields.asString(field, value));
+                    break;
+                case "username":
+                    user.setUsername(DocumentFields.asString(field, value));
+                    break;
+                case "dummyEmail":
+                    user.setDummyEmail(DocumentFields.asString(field, value));
+                    break;
+                case "password":
+                    user.setPassword(DocumentFields.asString(field, value));
+                    break;
+                case "avatar":
+                    user.setAvatar(DocumentFields.asString(field, value));
+                    break;
+                default:
+                    // Not a User property; toObject ignores it too
+                    break;
+            }
+        }
+        return user;
+    }
+
+    /**
+     * @return Every stored property of the user, nulls included.
+     */
+    public static Map<String, Object> toMap(User user) {
+        Map<String, Object> data = new HashMap<>(DocumentFields.capacityFor(FIELD_COUNT));
+        data.put("userId", user.getUserId());
+        data.put("username", user.getUsername());
+        data.put("dummyEmail", user.getDummyEmail());
+        data.put("password", user.getPassword());
+        data.put("avatar", user.getAvatar());
+        return data;
+    }
+
+    /**
+     * @param username A username as typed.
+     * @return The form that two usernames differing only in case share.
+     */
+    public static String normalize(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param username A username as typed.
+     * @return The id of the username's usernames/{name} reservation, or null if the name cannot
+     *         be a Firestore document id (blank, containing '/', "." or "..", or "__...__").
+     */
+    public static String reservationId(String username) {
+        String id = normalize(username);
+        if (id.trim().isEmpty() || id.contains("/") || id.equals(".") || id.equals("..")
+                || (id.startsWith("__") && id.endsWith("__"))) {
+            return null;
+        }
+        return id;
+    }
+}
@@ -0,0 +1,258 @@
+/**
+ * UserDAOContract - Behaviour every IUserDAO implementation must share.
+ *
+ * This abstract test class verifies:
+ * - Sign-up signs into the new account and the profile can be read back
+ * - Sign-in rejects a wrong password
+ * - A follow request moves from "requested" to "following" when accepted and back to "none"
+ *   when unfollowed or rejected
+ * - Prefix search excludes the signed-in user
+ * - Limited prefix search returns at most the limit, in username order
+ * - Lookups by username ignore case, and a name taken in another case cannot be signed up
+ * - Bulk follow-status resolution gives every distinct target its status
+ * - Bulk relationship resolution tells mutual follows from one-way follows and requests
+ * - Accepting or rejecting requests in bulk clears every one of them
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ * - Lives in src/sharedTest so InMemoryUserDAOTest runs it as a unit test and
+ *   EmulatorUserDAOTest runs it against the Firebase emulators
+ * - Usernames get a random suffix, since emulator data outlives a single run
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.DAO.IUserDAO;
+import com.example.unemployedavengers.local.Relationships;
+import com.example.unemployedavengers.models.User;
+import com.google.android.gms.tasks.Task;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public abstract class UserDAOContract {
+
+    private static final String PASSWORD = "123456";
+
+    protected IUserDAO userDAO;
+    private String suffix;
+
+    /**
+     * @return A fresh DAO for one test.
+     */
+    protected abstract IUserDAO createUserDAO();
+
+    @Before
+    public void setUpContract() {
+        userDAO = createUserDAO();
+        suffix = UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Waits for a task without needing a main looper, and rethrows its failure.
+     */
+    protected static <T> T await(Task<T> task) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        task.addOnCompleteListener(Runnable::run, completed -> done.countDown());
+        if (!done.await(30, TimeUnit.SECONDS)) {
+            throw new AssertionError("Task did not complete");
+        }
+        if (!task.isSuccessful()) {
+            throw task.getException();
+        }
+        return task.getResult();
+    }
+
+    private User signUp(String prefix) throws Exception {
+        await(userDAO.signUpUser(prefix + suffix, PASSWORD));
+        return await(userDAO.getCurrentUserProfile());
+    }
+
+    @Test
+    public void signUpUser_SignsInAndStoresProfile() throws Exception {
+        User user = signUp("contract");
+
+        assertEquals("contract" + suffix, user.getUsername());
+        assertTrue(await(userDAO.checkUserExists("contract" + suffix)));
+        assertEquals(user.getUserId(), await(userDAO.getUserByUsername("contract" + suffix)).getUserId());
+    }
+
+    @Test
+    public void signInUser_WrongPassword_Fails() throws Exception {
+        signUp("wrongpw");
+
+        boolean failed = false;
+        try {
+            await(userDAO.signInUser("wrongpw" + suffix, "not-the-password"));
+        } catch (Exception e) {
+            failed = true;
+        }
+
+        assertTrue(failed);
+    }
+
+    @Test
+    public void getUserByUsername_Unknown_ReturnsNull() throws Exception {
+        assertNull(await(userDAO.getUserByUsername("nobody" + suffix)));
+        assertFalse(await(userDAO.checkUserExists("nobody" + suffix)));
+    }
+
+    @Test
+    public void getUserByUsername_IgnoresCase() throws Exception {
+        User user = signUp("MixedCase");
+
+        assertTrue(await(userDAO.checkUserExists("mixedcase" + suffix)));
+        assertEquals(user.getUserId(), await(userDAO.getUserByUsername("MIXEDCASE" + suffix.toUpperCase())).getUserId());
+    }
+
+    @Test
+    public void signUpUser_NameTakenInOtherCase_Fails() throws Exception {
+        signUp("taken");
+
+        boolean failed = false;
+        try {
+            await(userDAO.signUpUser("TAKEN" + suffix, PASSWORD));
+        } catch (Exception e) {
+            failed = true;
+        }
+
+        assertTrue(failed);
+    }
+
+    @Test
+    public void followRequest_AcceptThenUnfollow_UpdatesStatus() throws Exception {
+        String requester = signUp("requester").getUserId();
+        String target = signUp("target").getUserId();
+
+        await(userDAO.requestFollow(requester, target));
+        assertEquals("requested", await(userDAO.getFollowStatus(requester, target)));
+
+        await(userDAO.acceptFollowRequest(requester, target));
+        assertEquals("following", await(userDAO.getFollowStatus(requester, target)));
+
+        await(userDAO.unfollowUser(requester, target));
+        assertEquals("none", await(userDAO.getFollowStatus(requester, target)));
+    }
+
+    @Test
+    public void getFollowStatuses_ResolvesEveryTarget() throws Exception {
+        String followed = signUp("bulkfollowed").getUserId();
+        String requested = signUp("bulkrequested").getUserId();
+        String stranger = signUp("bulkstranger").getUserId();
+        String requester = signUp("bulkrequester").getUserId();
+        await(userDAO.requestFollow(requester, followed));
+        await(userDAO.acceptFollowRequest(requester, followed));
+        await(userDAO.requestFollow(requester, requested));
+
+        Map<String, String> statuses = await(userDAO.getFollowStatuses(requester,
+                Arrays.asList(followed, requested, stranger, followed)));
+
+        assertEquals(3, statuses.size());
+        assertEquals("following", statuses.get(followed));
+        assertEquals("requested", statuses.get(requested));
+        assertEquals("none", statuses.get(stranger));
+    }
+
+    @Test
+    public void getRelationships_TellsMutualFromOneWay() throws Exception {
+        String mutual = signUp("relmutual").getUserId();
+        String followed = signUp("relfollowed").getUserId();
+        String follower = signUp("relfollower").getUserId();
+        String requested = signUp("relrequested").getUserId();
+        String stranger = signUp("relstranger").getUserId();
+        String user = signUp("reluser").getUserId();
+        await(userDAO.requestFollow(user, mutual));
+        await(userDAO.acceptFollowRequest(user, mutual));
+        await(userDAO.requestFollow(mutual, user));
+        await(userDAO.acceptFollowRequest(mutual, user));
+        await(userDAO.requestFollow(user, followed));
+        await(userDAO.acceptFollowRequest(user, followed));
+        await(userDAO.requestFollow(follower, user));
+        await(userDAO.acceptFollowRequest(follower, user));
+        await(userDAO.requestFollow(user, requested));
+
+        Map<String, String> relationships = await(userDAO.getRelationships(user,
+                Arrays.asList(mutual, followed, follower, requested, stranger, mutual)));
+
+        assertEquals(5, relationships.size());
+        assertEquals(Relationships.MUTUAL, relationships.get(mutual));
+        assertEquals(Relationships.FOLLOWING, relationships.get(followed));
+        assertEquals(Relationships.FOLLOWER, relationships.get(follower));
+        assertEquals(Relationships.REQUESTED, relationships.get(requested));
+        assertEquals(Relationships.NONE, relationships.get(stranger));
+    }
+
+    @Test
+    public void followRequest_Reject_ClearsRequest() throws Exception {
+        String requester = signUp("rejected").getUserId();
+        String target = signUp("rejecter").getUserId();
+
+        await(userDAO.requestFollow(requester, target));
+        await(userDAO.rejectFollowRequest(requester, target));
+
+        assertEquals("none", await(userDAO.getFollowStatus(requester, target)));
+    }
+
+    @Test
+    public void followRequests_AcceptAllAndRejectAll_ClearEveryRequest() throws Exception {
+        String accepted1 = signUp("bulkaccepted1").getUserId();
+        String accepted2 = signUp("bulkaccepted2").getUserId();
+        String rejected = signUp("bulkrejected").getUserId();
+        String target = signUp("bulktarget").getUserId();
+        await(userDAO.requestFollow(accepted1, target));
+        await(userDAO.requestFollow(accepted2, target));
+        await(userDAO.requestFollow(rejected, target));
+
+        await(userDAO.acceptFollowRequests(Arrays.asList(accepted1, accepted2), target));
+        await(userDAO.rejectFollowRequests(Arrays.asList(rejected), target));
+
+        assertEquals("following", await(userDAO.getFollowStatus(accepted1, target)));
+        assertEquals("following", await(userDAO.getFollowStatus(accepted2, target)));
+        assertEquals("none", await(userDAO.getFollowStatus(rejected, target)));
+    }
+
+    @Test
+    public void searchUsers_MatchesPrefixAndExcludesCurrentUser() throws Exception {
+        String other = signUp("searcha").getUserId();
+        signUp("searchb");
+
+        List<User> results = await(userDAO.searchUsers("search"));
+
+        boolean foundOther = false;
+        for (User user : results) {
+            assertTrue(user.getUsername().startsWith("search"));
+            assertFalse(user.getUsername().equals("searchb" + suffix));
+            foundOther |= user.getUserId().equals(other);
+        }
+        assertTrue(foundOther);
+    }
+
+    @Test
+    public void searchUsers_WithLimit_CapsResultsInUsernameOrder() throws Exception {
+        // The suffix goes first so no user from an earlier run shares the prefix
+        await(userDAO.signUpUser(suffix + "a", PASSWORD));
+        await(userDAO.signUpUser(suffix + "b", PASSWORD));
+        await(userDAO.signUpUser(suffix + "c", PASSWORD));
+
+        List<User> capped = await(userDAO.searchUsers(suffix, 1));
+        List<User> all = await(userDAO.searchUsers(suffix, 5));
+
+        assertEquals(1, capped.size());
+        assertEquals(suffix + "a", capped.get(0).getUsername());
+        assertEquals(2, all.size());
+        assertEquals(suffix + "a", all.get(0).getUsername());
+        assertEquals(suffix + "b", all.get(1).getUsername());
+    }
+}
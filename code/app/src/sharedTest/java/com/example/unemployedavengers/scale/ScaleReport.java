@@ -0,0 +1,166 @@
+/**
+ * ScaleReport - Per-screen cost of loading one scenario, written as JSON that can be diffed.
+ *
+ * Purpose:
+ * - measure() runs one screen's load path and records the documents it read from the server,
+ *   the bytes that corresponds to, wall time and peak heap. toJson() writes every measurement in
+ *   a fixed order so two releases' reports diff line by line.
+ *
+ * Key Features:
+ * - Document reads come from a DAOMetrics installed in the DAOs; reads answered from a cache are
+ *   counted separately and are not billed.
+ * - Bytes are estimated as billed reads times the dataset's average mood document size.
+ * - Peak heap is sampled every few milliseconds on a background thread after a GC.
+ *
+ * Outstanding Issues:
+ * - Reads that bypass the DAOs (e.g. FollowedMoodSync's users queries) are not counted.
+ */
+
+package com.example.unemployedavengers.scale;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.DAO.DAOMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class ScaleReport {
+
+    /**
+     * One screen's load path.
+     */
+    public interface LoadPath {
+        void run() throws Exception;
+    }
+
+    /**
+     * DAOMetrics that totals reads so the report can reset and read them around each load path.
+     */
+    public static class Counter implements DAOMetrics {
+        private long reads;
+        private long documents;
+        private long cachedDocuments;
+
+        @Override
+        public synchronized void onRead(@NonNull String operation, int documents, boolean fromCache, long elapsedMs) {
+            reads++;
+            if (fromCache) {
+                cachedDocuments += documents;
+            } else {
+                this.documents += documents;
+            }
+        }
+
+        @Override
+        public void onWrite(@NonNull String operation, int documents, long elapsedMs) {
+        }
+
+        synchronized void reset() {
+            reads = 0;
+            documents = 0;
+            cachedDocuments = 0;
+        }
+
+        synchronized long[] snapshot() {
+            return new long[]{reads, documents, cachedDocuments};
+        }
+    }
+
+    private static class Measurement {
+        String screen;
+        long queries;
+        long documentReads;
+        long cachedDocuments;
+        long bytes;
+        long wallMs;
+        long peakHeapBytes;
+    }
+
+    private final String scenario;
+    private final SyntheticDataset dataset;
+    private final Counter counter;
+    private final List<Measurement> measurements = new ArrayList<>();
+
+    /**
+     * @param dataset The dataset the screens load.
+     * @param counter The metrics installed in the DAOs the screens use.
+     */
+    public ScaleReport(@NonNull SyntheticDataset dataset, @NonNull Counter counter) {
+        this.scenario = dataset.config.name;
+        this.dataset = dataset;
+        this.counter = counter;
+    }
+
+    /**
+     * Runs a load path and records what it cost.
+     *
+     * @param screen Name of the screen in the report.
+     * @param loadPath Loads everything the screen shows and returns when it is done.
+     */
+    public void measure(@NonNull String screen, @NonNull LoadPath loadPath) throws Exception {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        counter.reset();
+
+        long[] peak = {runtime.totalMemory() - runtime.freeMemory()};
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak[0] = Math.max(peak[0], runtime.totalMemory() - runtime.freeMemory());
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "ScaleReportHeap");
+        sampler.start();
+
+        long start = System.nanoTime();
+        try {
+            loadPath.run();
+        } finally {
+            long wallMs = (System.nanoTime() - start) / 1_000_000;
+            sampler.interrupt();
+            sampler.join();
+
+            long[] counts = counter.snapshot();
+            Measurement measurement = new Measurement();
+            measurement.screen = screen;
+            measurement.queries = counts[0];
+            measurement.documentReads = counts[1];
+            measurement.cachedDocuments = counts[2];
+            measurement.bytes = counts[1] * dataset.averageMoodBytes();
+            measurement.wallMs = wallMs;
+            measurement.peakHeapBytes = Math.max(peak[0], runtime.totalMemory() - runtime.freeMemory());
+            measurements.add(measurement);
+        }
+    }
+
+    /**
+     * @return The scenario, the dataset's size and every measurement, in the order measured.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"scenario\": \"").append(scenario).append("\",\n");
+        json.append("  \"seed\": ").append(dataset.config.seed).append(",\n");
+        json.append("  \"users\": ").append(dataset.users.size()).append(",\n");
+        json.append("  \"follows\": ").append(dataset.followCount()).append(",\n");
+        json.append("  \"moods\": ").append(dataset.moodCount()).append(",\n");
+        json.append("  \"comments\": ").append(dataset.comments.size()).append(",\n");
+        json.append("  \"screens\": [");
+        for (int i = 0; i < measurements.size(); i++) {
+            Measurement m = measurements.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append(String.format(Locale.US,
+                    "    {\"screen\": \"%s\", \"queries\": %d, \"documentReads\": %d, \"cachedDocuments\": %d,"
+                            + " \"bytes\": %d, \"wallMs\": %d, \"peakHeapBytes\": %d}",
+                    m.screen, m.queries, m.documentReads, m.cachedDocuments, m.bytes, m.wallMs, m.peakHeapBytes));
+        }
+        json.append(measurements.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * ScenarioConfig - Shape of one synthetic dataset used by the scale tests.
+ *
+ * Purpose:
+ * - Describes how many users there are, how the follow graph is distributed, how many moods and
+ *   comments they have and how far apart their located moods are, so SyntheticDataset can
+ *   generate the same data on every run from the seed.
+ *
+ * Key Features:
+ * - Follow counts follow a power law between minFollowing and maxFollowing, and popular users
+ *   (low indices) attract most followers, like a real social graph.
+ * - small, medium and large are the presets the harness reports on; named() picks one by name.
+ */
+
+package com.example.unemployedavengers.scale;
+
+import androidx.annotation.NonNull;
+
+public class ScenarioConfig {
+    public String name;
+    public long seed = 1L;
+
+    // Follow graph
+    public int users;
+    public int minFollowing = 1;
+    public int maxFollowing = 200;
+    public double degreeExponent = 2.5;
+    public double popularitySkew = 2.0;
+
+    // Content
+    public int meanMoodsPerUser = 20;
+    public double meanCommentsPerMood = 1.0;
+    public double replyFraction = 0.3;
+    public long historyMs = 90L * 24 * 60 * 60 * 1000;
+
+    // Geography
+    public double locatedFraction = 0.6;
+    public double centerLatitude = 53.5461;
+    public double centerLongitude = -113.4938;
+    public double radiusKm = 25.0;
+
+    public ScenarioConfig(@NonNull String name, int users) {
+        this.name = name;
+        this.users = users;
+    }
+
+    /**
+     * @return A few users, for checking the harness itself.
+     */
+    public static ScenarioConfig small() {
+        ScenarioConfig config = new ScenarioConfig("small", 200);
+        config.maxFollowing = 30;
+        config.meanMoodsPerUser = 10;
+        return config;
+    }
+
+    /**
+     * @return A campus-sized community.
+     */
+    public static ScenarioConfig medium() {
+        return new ScenarioConfig("medium", 5_000);
+    }
+
+    /**
+     * @return The follow graph size the in-memory DAOs are expected to handle on a laptop.
+     */
+    public static ScenarioConfig large() {
+        ScenarioConfig config = new ScenarioConfig("large", 100_000);
+        config.meanMoodsPerUser = 5;
+        config.meanCommentsPerMood = 0.5;
+        config.radiusKm = 500.0;
+        return config;
+    }
+
+    /**
+     * @param name "small", "medium" or "large".
+     * @return The preset with that name.
+     */
+    public static ScenarioConfig named(@NonNull String name) {
+        switch (name) {
+            case "small":
+                return small();
+            case "medium":
+                return medium();
+            case "large":
+                return large();
+            default:
+                throw new IllegalArgumentException("Unknown scenario: " + name);
+        }
+    }
+}
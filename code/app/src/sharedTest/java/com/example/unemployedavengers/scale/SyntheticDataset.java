@@ -0,0 +1,271 @@
+/**
+ * SyntheticDataset - Deterministic users, follow graph, moods and comments for a ScenarioConfig.
+ *
+ * Purpose:
+ * - Gives the scale harness and the DAO benchmarks realistic volumes without real user data.
+ *   The same config and seed always produce the same dataset, so reports can be diffed.
+ *
+ * Key Features:
+ * - Follow counts are drawn from a power law; followees are biased towards popular users.
+ * - Moods are spread over the configured history; a fraction are located within radiusKm of the
+ *   centre, uniformly over the disc.
+ * - Comment threads have a Poisson size; some comments reply to earlier ones in the same thread.
+ * - seedInto loads the users, follows and moods into the in-memory DAOs.
+ *
+ * Outstanding Issues:
+ * - Comment timestamps come from the Comment constructor, so they are not deterministic.
+ * - There is no in-memory comment store, so seedInto skips comments.
+ */
+
+package com.example.unemployedavengers.scale;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.implementationDAO.InMemoryMoodEventDAO;
+import com.example.unemployedavengers.implementationDAO.InMemoryUserDAO;
+import com.example.unemployedavengers.models.Comment;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.example.unemployedavengers.models.User;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class SyntheticDataset {
+    public static final String PASSWORD = "123456";
+
+    private static final String[] MOODS = {"Anger", "Confusion", "Disgust", "Fear", "Happiness", "Sadness", "Shame", "Surprise"};
+    private static final String[] SITUATIONS = {"Alone", "With another person", "With several people", "With a crowd"};
+    private static final String[] WORDS = {"exam", "coffee", "bus", "rain", "friends", "lab", "gym", "deadline",
+            "music", "family", "sleep", "lecture", "walk", "movie", "snow", "work"};
+    private static final double KM_PER_DEGREE = 111.32;
+
+    public final ScenarioConfig config;
+    public final List<User> users = new ArrayList<>();
+    public final Map<String, List<String>> following = new LinkedHashMap<>();
+    public final Map<String, List<MoodEvent>> moods = new LinkedHashMap<>();
+    public final List<Comment> comments = new ArrayList<>();
+
+    private SyntheticDataset(ScenarioConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * @param config The shape of the dataset.
+     * @return The dataset for the config's seed.
+     */
+    public static SyntheticDataset generate(@NonNull ScenarioConfig config) {
+        SyntheticDataset dataset = new SyntheticDataset(config);
+        Random random = new Random(config.seed);
+        long now = 1_700_000_000_000L;
+
+        for (int i = 0; i < config.users; i++) {
+            String id = userId(config, i);
+            String username = config.name + "user" + i;
+            dataset.users.add(new User(id, username, username + "@example.com", PASSWORD, ""));
+        }
+
+        for (int i = 0; i < config.users; i++) {
+            int degree = Math.min(followingCount(config, random), config.users - 1);
+            Set<String> followees = new LinkedHashSet<>();
+            // Popular users may already be taken, so give up after a bounded number of draws
+            for (int attempt = 0; followees.size() < degree && attempt < degree * 10; attempt++) {
+                int target = (int) (config.users * Math.pow(random.nextDouble(), config.popularitySkew));
+                if (target != i) {
+                    followees.add(userId(config, target));
+                }
+            }
+            dataset.following.put(userId(config, i), new ArrayList<>(followees));
+        }
+
+        int moodCounter = 0;
+        int commentCounter = 0;
+        for (User user : dataset.users) {
+            int count = random.nextInt(2 * config.meanMoodsPerUser + 1);
+            List<MoodEvent> userMoods = new ArrayList<>();
+            for (int m = 0; m < count; m++) {
+                long time = now - (long) (random.nextDouble() * config.historyMs);
+                MoodEvent moodEvent = new MoodEvent(
+                        MOODS[random.nextInt(MOODS.length)],
+                        WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)],
+                        "",
+                        time,
+                        SITUATIONS[random.nextInt(SITUATIONS.length)],
+                        "",
+                        random.nextDouble() < 0.7);
+                moodEvent.setId(config.name + "-m" + String.format("%08d", moodCounter++));
+                moodEvent.setUserId(user.getUserId());
+                moodEvent.setUserName(user.getUsername());
+                moodEvent.setUpdatedAt(time);
+                if (random.nextDouble() < config.locatedFraction) {
+                    placeInRadius(config, random, moodEvent);
+                }
+                userMoods.add(moodEvent);
+
+                int threadSize = poisson(random, config.meanCommentsPerMood);
+                List<Comment> thread = new ArrayList<>();
+                for (int c = 0; c < threadSize; c++) {
+                    User author = dataset.users.get(random.nextInt(dataset.users.size()));
+                    Comment parent = !thread.isEmpty() && random.nextDouble() < config.replyFraction
+                            ? thread.get(random.nextInt(thread.size()))
+                            : null;
+                    Comment comment = new Comment(moodEvent.getId(), author.getUserId(), author.getUsername(),
+                            WORDS[random.nextInt(WORDS.length)], parent != null ? parent.getId() : null);
+                    comment.setId(config.name + "-c" + String.format("%08d", commentCounter++));
+                    if (parent != null) {
+                        parent.addReplyId(comment.getId());
+                    }
+                    thread.add(comment);
+                }
+                dataset.comments.addAll(thread);
+            }
+            dataset.moods.put(user.getUserId(), userMoods);
+        }
+        return dataset;
+    }
+
+    /**
+     * Loads users, follows and moods into the in-memory DAOs.
+     */
+    public void seedInto(@NonNull InMemoryUserDAO userDAO, @NonNull InMemoryMoodEventDAO moodEventDAO) {
+        for (User user : users) {
+            userDAO.addUser(user.getUserId(), user.getUsername(), PASSWORD);
+        }
+        for (Map.Entry<String, List<String>> entry : following.entrySet()) {
+            for (String followedId : entry.getValue()) {
+                userDAO.addFollow(entry.getKey(), followedId);
+            }
+        }
+        for (Map.Entry<String, List<MoodEvent>> entry : moods.entrySet()) {
+            for (MoodEvent moodEvent : entry.getValue()) {
+                moodEventDAO.saveMoodEvent(entry.getKey(), moodEvent);
+            }
+        }
+    }
+
+    /**
+     * @return The user following the most people, whose screens have the most to load.
+     */
+    public String busiestFollower() {
+        String busiest = null;
+        int most = -1;
+        for (Map.Entry<String, List<String>> entry : following.entrySet()) {
+            if (entry.getValue().size() > most) {
+                most = entry.getValue().size();
+                busiest = entry.getKey();
+            }
+        }
+        return busiest;
+    }
+
+    /**
+     * @return Total number of moods.
+     */
+    public int moodCount() {
+        int count = 0;
+        for (List<MoodEvent> userMoods : moods.values()) {
+            count += userMoods.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return Total number of follow relationships.
+     */
+    public int followCount() {
+        int count = 0;
+        for (List<String> followees : following.values()) {
+            count += followees.size();
+        }
+        return count;
+    }
+
+    /**
+     * @return Average stored size of a mood document, used to turn read counts into bytes.
+     */
+    public long averageMoodBytes() {
+        long total = 0;
+        int count = 0;
+        for (List<MoodEvent> userMoods : moods.values()) {
+            for (MoodEvent moodEvent : userMoods) {
+                total += estimateDocumentBytes(moodEvent);
+                count++;
+            }
+        }
+        return count == 0 ? 0 : total / count;
+    }
+
+    /**
+     * Estimates a mood document's size with Firestore's storage size rules: the document name,
+     * each field name plus one, strings as length plus one, numbers as 8 bytes, booleans as 1, and
+     * 32 bytes of overhead.
+     *
+     * @param moodEvent The mood as stored at users/{userId}/moods/{id}.
+     * @return The estimated size in bytes.
+     */
+    public static long estimateDocumentBytes(@NonNull MoodEvent moodEvent) {
+        long bytes = 32;
+        bytes += ("users".length() + 1) + (moodEvent.getUserId().length() + 1)
+                + ("moods".length() + 1) + (moodEvent.getId().length() + 1) + 16;
+        bytes += stringField("mood", moodEvent.getMood());
+        bytes += stringField("reason", moodEvent.getReason());
+        bytes += stringField("situation", moodEvent.getSituation());
+        bytes += stringField("radioSituation", moodEvent.getRadioSituation());
+        bytes += stringField("imageUri", moodEvent.getImageUri());
+        bytes += stringField("id", moodEvent.getId());
+        bytes += stringField("userId", moodEvent.getUserId());
+        bytes += stringField("userName", moodEvent.getUserName());
+        bytes += ("time".length() + 1) + 8;
+        bytes += ("updatedAt".length() + 1) + 8;
+        bytes += ("latitude".length() + 1) + 8;
+        bytes += ("longitude".length() + 1) + 8;
+        bytes += ("publicStatus".length() + 1) + 1;
+        bytes += ("existed".length() + 1) + 1;
+        bytes += ("hasLocation".length() + 1) + 1;
+        return bytes;
+    }
+
+    private static long stringField(String name, String value) {
+        return (name.length() + 1) + (value == null ? 1 : value.length() + 1);
+    }
+
+    private static String userId(ScenarioConfig config, int index) {
+        // Prefixed with the scenario so several scenarios can share one emulator
+        return config.name + "-u" + String.format("%07d", index);
+    }
+
+    private static int followingCount(ScenarioConfig config, Random random) {
+        // Inverse transform sampling of a Pareto distribution starting at minFollowing
+        double u = random.nextDouble();
+        double degree = config.minFollowing * Math.pow(1.0 - u, -1.0 / (config.degreeExponent - 1.0));
+        return (int) Math.min(config.maxFollowing, Math.round(degree));
+    }
+
+    private static void placeInRadius(ScenarioConfig config, Random random, MoodEvent moodEvent) {
+        // The square root keeps points uniform over the disc instead of bunched at the centre
+        double distanceKm = config.radiusKm * Math.sqrt(random.nextDouble());
+        double bearing = random.nextDouble() * 2 * Math.PI;
+        double latitude = config.centerLatitude + distanceKm * Math.cos(bearing) / KM_PER_DEGREE;
+        double longitude = config.centerLongitude + distanceKm * Math.sin(bearing)
+                / (KM_PER_DEGREE * Math.cos(Math.toRadians(config.centerLatitude)));
+        moodEvent.setHasLocation(true);
+        moodEvent.setLatitude(latitude);
+        moodEvent.setLongitude(longitude);
+    }
+
+    private static int poisson(Random random, double mean) {
+        // Knuth's method; means here are small
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            count++;
+            product *= random.nextDouble();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * CachedReadsTest.java
+ *
+ * Unit tests for the revalidation rule of CachedReads, the stale-while-revalidate read helper.
+ *
+ * This test class verifies:
+ * - The server copy is delivered when no cached copy was delivered
+ * - Identical content is not delivered twice
+ * - Changed field values, added or removed documents and a different order count as changes
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ * - Content is built as the helper builds it: document id to field map, in result order
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.local.CachedReads;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class CachedReadsTest {
+
+    private Map<String, Object> fields(String username) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("username", username);
+        return fields;
+    }
+
+    private Map<String, Object> content(String... idsAndUsernames) {
+        Map<String, Object> content = new LinkedHashMap<>();
+        for (int i = 0; i < idsAndUsernames.length; i += 2) {
+            content.put(idsAndUsernames[i], fields(idsAndUsernames[i + 1]));
+        }
+        return content;
+    }
+
+    @Test
+    public void hasChanged_NothingDelivered_IsTrue() {
+        assertTrue(CachedReads.hasChanged(null, content("u1", "alice")));
+    }
+
+    @Test
+    public void hasChanged_SameContent_IsFalse() {
+        assertFalse(CachedReads.hasChanged(content("u1", "alice", "u2", "bob"), content("u1", "alice", "u2", "bob")));
+    }
+
+    @Test
+    public void hasChanged_FieldValueChanged_IsTrue() {
+        assertTrue(CachedReads.hasChanged(content("u1", "alice"), content("u1", "alicia")));
+    }
+
+    @Test
+    public void hasChanged_DocumentAddedOrRemoved_IsTrue() {
+        assertTrue(CachedReads.hasChanged(content("u1", "alice"), content("u1", "alice", "u2", "bob")));
+        assertTrue(CachedReads.hasChanged(content("u1", "alice", "u2", "bob"), content("u1", "alice")));
+    }
+
+    @Test
+    public void hasChanged_OrderChanged_IsTrue() {
+        // Query results are ordered, so a reordering has to be redrawn
+        assertTrue(CachedReads.hasChanged(content("u1", "alice", "u2", "bob"), content("u2", "bob", "u1", "alice")));
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * CommentThreadsTest.java
+ *
+ * Unit tests for CommentThreads, which groups a mood's comments loaded in one query into threads.
+ *
+ * This test class verifies:
+ * - Top-level comments and replies are separated
+ * - Every top-level comment has a reply list, empty when nobody replied
+ * - Replies to a comment that was not loaded are dropped
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.implementationDAO.CommentThreads;
+import com.example.unemployedavengers.models.Comment;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class CommentThreadsTest {
+
+    private Comment comment(String id, String parentId) {
+        Comment comment = new Comment("mood", "user", "name", "content " + id, parentId);
+        comment.setId(id);
+        return comment;
+    }
+
+    @Test
+    public void build_MixedComments_SplitsTopLevelAndReplies() {
+        Comment first = comment("a", null);
+        Comment second = comment("b", null);
+        Comment reply = comment("c", "a");
+
+        CommentThreads threads = CommentThreads.build(Arrays.asList(reply, first, second));
+
+        assertEquals(2, threads.topLevel.size());
+        assertTrue(threads.topLevel.contains(first));
+        assertTrue(threads.topLevel.contains(second));
+        assertEquals(Collections.singletonList(reply), threads.replies.get("a"));
+        assertTrue(threads.replies.get("b").isEmpty());
+    }
+
+    @Test
+    public void build_ReplyToMissingComment_IsDropped() {
+        Comment orphan = comment("c", "missing");
+
+        CommentThreads threads = CommentThreads.build(Collections.singletonList(orphan));
+
+        assertTrue(threads.topLevel.isEmpty());
+        assertFalse(threads.replies.containsKey("missing"));
+    }
+
+    @Test
+    public void build_NoComments_IsEmpty() {
+        CommentThreads threads = CommentThreads.build(Collections.emptyList());
+
+        assertTrue(threads.topLevel.isEmpty());
+        assertTrue(threads.replies.isEmpty());
+    }
+}
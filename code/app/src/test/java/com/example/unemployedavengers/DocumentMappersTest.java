@@ -0,0 +1,226 @@
+/**
+ * DocumentMappersTest.java
+ *
+ * Unit tests for MoodEventMapper, CommentMapper and UserMapper, which replace Firestore's
+ * reflective toObject() and set(pojo) for the three stored models.
+ *
+ * This test class verifies:
+ * - toMap writes exactly the properties Firestore derives from each model's getters
+ * - fromMap(toMap(x)) gives back an identical model
+ * - Missing fields keep the constructor defaults and unknown fields are ignored
+ * - Numbers are converted between Long, Integer and Double as toObject converts them
+ * - Values of the wrong type are rejected
+ * - A mood split into summary and detail documents reads back whole once its detail is applied
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ * - DocumentMapperEquivalenceTest compares the mappers with toObject() on the emulator
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.maps.ViewportTileCache;
+import com.example.unemployedavengers.models.Comment;
+import com.example.unemployedavengers.models.CommentMapper;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.example.unemployedavengers.models.MoodEventMapper;
+import com.example.unemployedavengers.models.User;
+import com.example.unemployedavengers.models.UserMapper;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class DocumentMappersTest {
+
+    /**
+     * The property names Firestore serializes for a class: one per public getter.
+     */
+    private static Set<String> beanProperties(Class<?> type) {
+        Set<String> properties = new HashSet<>();
+        for (Method method : type.getMethods()) {
+            String name = method.getName();
+            if (name.startsWith("get") && name.length() > 3 && method.getParameterCount() == 0
+                    && !Modifier.isStatic(method.getModifiers()) && !name.equals("getClass")) {
+                properties.add(Character.toLowerCase(name.charAt(3)) + name.substring(4));
+            }
+        }
+        return properties;
+    }
+
+    private static MoodEvent sampleMood() {
+        MoodEvent moodEvent = new MoodEvent("Happiness \uD83D\uDE0A", "exam done", "With friends", 1_700_000_000_000L, "Crowd", "content://image/1", false);
+        moodEvent.setId("mood1");
+        moodEvent.setUserId("user1");
+        moodEvent.setUserName("alice");
+        moodEvent.setExisted(true);
+        moodEvent.setLatitude(53.5461);
+        moodEvent.setLongitude(-113.4938);
+        moodEvent.setHasLocation(true);
+        moodEvent.setUpdatedAt(1_700_000_000_500L);
+        return moodEvent;
+    }
+
+    @Test
+    public void toMap_WritesEveryBeanProperty() {
+        assertEquals(beanProperties(MoodEvent.class), MoodEventMapper.toMap(sampleMood()).keySet());
+        assertEquals(beanProperties(Comment.class), CommentMapper.toMap(new Comment("mood1", "user1", "alice", "hi", null)).keySet());
+        assertEquals(beanProperties(User.class), UserMapper.toMap(new User("user1", "alice", "alice@example.com", "pw", "")).keySet());
+        assertEquals(MoodEventMapper.FIELD_COUNT, beanProperties(MoodEvent.class).size());
+        assertEquals(CommentMapper.FIELD_COUNT, beanProperties(Comment.class).size());
+        assertEquals(UserMapper.FIELD_COUNT, beanProperties(User.class).size());
+    }
+
+    @Test
+    public void moodEvent_RoundTrip_IsIdentical() {
+        Map<String, Object> data = MoodEventMapper.toMap(sampleMood());
+
+        MoodEvent copy = MoodEventMapper.fromMap(data);
+
+        assertEquals(data, MoodEventMapper.toMap(copy));
+    }
+
+    @Test
+    public void comment_RoundTrip_IsIdentical() {
+        Comment comment = new Comment("mood1", "user1", "alice", "nice", "parent1");
+        comment.setId("comment1");
+        comment.setTimestamp(1_700_000_000_000L);
+        comment.setReplyIds(Arrays.asList("reply1", "reply2"));
+        comment.setLikeCount(3);
+        Map<String, Object> data = CommentMapper.toMap(comment);
+
+        Comment copy = CommentMapper.fromMap(data);
+
+        assertEquals(data, CommentMapper.toMap(copy));
+    }
+
+    @Test
+    public void user_RoundTrip_IsIdentical() {
+        Map<String, Object> data = UserMapper.toMap(new User("user1", "alice", "alice@example.com", "pw", "https://avatar"));
+
+        User copy = UserMapper.fromMap(data);
+
+        assertEquals(data, UserMapper.toMap(copy));
+    }
+
+    @Test
+    public void fromMap_MissingFields_KeepConstructorDefaults() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("mood", "Fear \uD83D\uDE28");
+        data.put("lastMoodAt", 5L);
+
+        MoodEvent moodEvent = MoodEventMapper.fromMap(data);
+        Comment comment = CommentMapper.fromMap(new HashMap<>());
+
+        assertEquals("Fear \uD83D\uDE28", moodEvent.getMood());
+        assertTrue(moodEvent.getPublicStatus());
+        assertEquals(0L, moodEvent.getTime());
+        assertNull(moodEvent.getId());
+        assertTrue(comment.getReplyIds().isEmpty());
+    }
+
+    @Test
+    public void fromMap_ConvertsNumbersLikeToObject() {
+        Map<String, Object> moodData = new HashMap<>();
+        moodData.put("time", 1.7e12);
+        moodData.put("latitude", 53L);
+        Map<String, Object> commentData = new HashMap<>();
+        commentData.put("likeCount", 4L);
+        commentData.put("timestamp", 12);
+
+        MoodEvent moodEvent = MoodEventMapper.fromMap(moodData);
+        Comment comment = CommentMapper.fromMap(commentData);
+
+        assertEquals(1_700_000_000_000L, moodEvent.getTime());
+        assertEquals(53.0, moodEvent.getLatitude(), 0.0);
+        assertEquals(4, comment.getLikeCount());
+        assertEquals(12L, comment.getTimestamp());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromMap_WrongType_Throws() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("publicStatus", "yes");
+
+        MoodEventMapper.fromMap(data);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromMap_NullForPrimitive_Throws() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("time", null);
+
+        MoodEventMapper.fromMap(data);
+    }
+
+    @Test
+    public void fromMap_NullData_ReturnsNull() {
+        assertNull(MoodEventMapper.fromMap(null));
+        assertNull(CommentMapper.fromMap(null));
+        assertNull(UserMapper.fromMap(null));
+    }
+
+    @Test
+    public void summaryAndDetail_SplitEveryField() {
+        MoodEvent moodEvent = sampleMood();
+
+        Map<String, Object> summary = MoodEventMapper.toSummaryMap(moodEvent);
+        Map<String, Object> detail = MoodEventMapper.toDetailMap(moodEvent);
+
+        Set<String> fields = new HashSet<>(summary.keySet());
+        fields.remove(MoodEventMapper.HAS_DETAIL);
+        fields.remove(MoodEventMapper.TILES);
+        fields.addAll(detail.keySet());
+        assertEquals(MoodEventMapper.toMap(moodEvent).keySet(), fields);
+        assertEquals(new HashSet<>(Arrays.asList(MoodEventMapper.DETAIL_FIELDS)), detail.keySet());
+        assertEquals(true, summary.get(MoodEventMapper.HAS_DETAIL));
+        assertEquals(ViewportTileCache.keysFor(moodEvent.getLatitude(), moodEvent.getLongitude()),
+                summary.get(MoodEventMapper.TILES));
+    }
+
+    @Test
+    public void summary_NeedsDetail_UntilDetailApplied() {
+        MoodEvent original = sampleMood();
+
+        MoodEvent summary = MoodEventMapper.fromMap(MoodEventMapper.toSummaryMap(original));
+
+        assertTrue(summary.needsDetail());
+        assertNull(summary.getSituation());
+        assertNull(summary.getImageUri());
+        assertEquals(original.getReason(), summary.getReason());
+
+        MoodEventMapper.applyDetail(summary, MoodEventMapper.toDetailMap(original));
+
+        assertFalse(summary.needsDetail());
+        assertEquals(MoodEventMapper.toMap(original), MoodEventMapper.toMap(summary));
+    }
+
+    @Test
+    public void wholeDocument_DoesNotNeedDetail() {
+        MoodEvent moodEvent = MoodEventMapper.fromMap(MoodEventMapper.toMap(sampleMood()));
+
+        assertFalse(moodEvent.needsDetail());
+        assertEquals("Crowd", moodEvent.getRadioSituation());
+    }
+
+    @Test
+    public void applyDetail_MissingDocument_ClearsFlag() {
+        MoodEvent summary = MoodEventMapper.fromMap(MoodEventMapper.toSummaryMap(sampleMood()));
+
+        MoodEventMapper.applyDetail(summary, null);
+
+        assertFalse(summary.needsDetail());
+        assertNull(summary.getSituation());
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * FirestoreMeterTest.java
+ *
+ * Unit tests for FirestoreMeter's bookkeeping and DocumentSize's estimates.
+ *
+ * This test class verifies:
+ * - Reads and writes are totalled per call site and per current screen
+ * - Cached documents are counted separately from billed ones
+ * - Nothing is recorded while the meter is disabled
+ * - The JSON export lists screens and call sites
+ * - Document sizes follow Firestore's storage size rules
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Records through recordRead/recordWrite, so no Firestore instance is needed
+ * - Follows Arrange-Act-Assert pattern
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.metrics.DocumentSize;
+import com.example.unemployedavengers.metrics.FirestoreMeter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class FirestoreMeterTest {
+    private FirestoreMeter meter;
+
+    @Before
+    public void setUp() {
+        meter = FirestoreMeter.getInstance();
+        meter.reset();
+        meter.setEnabled(true);
+        meter.setScreen("historyFragment");
+    }
+
+    @After
+    public void tearDown() {
+        meter.setEnabled(false);
+        meter.setScreen(FirestoreMeter.UNKNOWN_SCREEN);
+        meter.reset();
+    }
+
+    @Test
+    public void recordRead_TotalsPerCallSiteAndScreen() {
+        meter.recordRead("History.moods", 20, 4000, false, 120);
+        meter.recordRead("CommentAdapter.likeCount", 1, 100, false, 30);
+        meter.setScreen("dashboardFragment");
+        meter.recordRead("History.moods", 5, 1000, false, 80);
+
+        FirestoreMeter.Totals history = meter.screenTotals("historyFragment");
+        FirestoreMeter.Totals callSite = meter.callSiteTotals("History.moods");
+
+        assertEquals(2, history.getReads());
+        assertEquals(21, history.getDocuments());
+        assertEquals(4100, history.getBytes());
+        assertEquals(25, callSite.getDocuments());
+        assertEquals(2, callSite.getLatency().count());
+    }
+
+    @Test
+    public void recordRead_FromCache_IsNotBilled() {
+        meter.recordRead("Dashboard.user", 1, 300, true, 2);
+
+        FirestoreMeter.Totals totals = meter.screenTotals("historyFragment");
+
+        assertEquals(0, totals.getDocuments());
+        assertEquals(1, totals.getCachedDocuments());
+        assertEquals(0, totals.getBytes());
+    }
+
+    @Test
+    public void recordWrite_CountsDocuments() {
+        meter.recordWrite("MoodEventDAO.batch", 3, 50);
+
+        FirestoreMeter.Totals totals = meter.callSiteTotals("MoodEventDAO.batch");
+
+        assertEquals(1, totals.getWrites());
+        assertEquals(3, totals.getWrittenDocuments());
+    }
+
+    @Test
+    public void disabled_RecordsNothing() {
+        meter.setEnabled(false);
+
+        meter.recordRead("History.moods", 20, 4000, false, 120);
+
+        assertNull(meter.screenTotals("historyFragment"));
+    }
+
+    @Test
+    public void toJson_ListsScreensAndCallSites() {
+        meter.recordRead("History.moods", 20, 4000, false, 120);
+
+        String json = meter.toJson();
+
+        assertTrue(json.contains("\"historyFragment\": {\"reads\": 1, \"documents\": 20"));
+        assertTrue(json.contains("\"History.moods\""));
+    }
+
+    @Test
+    public void estimate_FollowsStorageSizeRules() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("mood", "Happy");
+        data.put("time", 1000L);
+        data.put("publicStatus", true);
+        data.put("replyIds", Arrays.asList("a", "b"));
+
+        long bytes = DocumentSize.estimate("users/u1/moods/m1", data);
+
+        // 32 + 16 for the name, segments 6 + 3 + 6 + 3, then fields
+        // mood 5 + 6, time 5 + 8, publicStatus 13 + 1, replyIds 9 + 2 + 2
+        assertEquals(48 + 18 + 11 + 13 + 14 + 13, bytes);
+    }
+
+    @Test
+    public void estimate_MissingDocument_CountsNameOnly() {
+        assertEquals(48 + 6 + 3, DocumentSize.estimate("users/u1", null));
+    }
+}
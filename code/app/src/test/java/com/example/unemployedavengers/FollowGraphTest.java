@@ -0,0 +1,90 @@
+/**
+ * FollowGraphTest.java
+ *
+ * Unit tests for FollowGraph, the id sets behind FollowGraphStore.
+ *
+ * This test class verifies:
+ * - Follow status is "following" before "requested", and "none" otherwise
+ * - The version only moves when a set actually changes
+ * - get returns a copy that does not write through
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.local.FollowGraph;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Set;
+
+public class FollowGraphTest {
+    private FollowGraph graph;
+
+    @Before
+    public void setUp() {
+        graph = new FollowGraph();
+    }
+
+    @Test
+    public void followStatus_FollowingWinsOverRequested() {
+        graph.add(FollowGraph.Kind.REQUESTED, "bob");
+        graph.add(FollowGraph.Kind.REQUESTED, "carol");
+        graph.add(FollowGraph.Kind.FOLLOWING, "carol");
+
+        assertEquals(FollowGraph.STATUS_REQUESTED, graph.followStatus("bob"));
+        assertEquals(FollowGraph.STATUS_FOLLOWING, graph.followStatus("carol"));
+        assertEquals(FollowGraph.STATUS_NONE, graph.followStatus("dave"));
+    }
+
+    @Test
+    public void followers_DoNotCountAsFollowing() {
+        graph.add(FollowGraph.Kind.FOLLOWERS, "bob");
+
+        assertEquals(FollowGraph.STATUS_NONE, graph.followStatus("bob"));
+        assertTrue(graph.contains(FollowGraph.Kind.FOLLOWERS, "bob"));
+    }
+
+    @Test
+    public void version_MovesOnlyOnChange() {
+        assertTrue(graph.add(FollowGraph.Kind.FOLLOWING, "bob"));
+        assertFalse(graph.add(FollowGraph.Kind.FOLLOWING, "bob"));
+        assertFalse(graph.remove(FollowGraph.Kind.FOLLOWING, "carol"));
+        assertEquals(1, graph.getVersion());
+
+        assertFalse(graph.replace(FollowGraph.Kind.FOLLOWING, Arrays.asList("bob")));
+        assertEquals(1, graph.getVersion());
+
+        assertTrue(graph.replace(FollowGraph.Kind.FOLLOWING, Arrays.asList("carol", "dave")));
+        assertEquals(2, graph.getVersion());
+        assertFalse(graph.contains(FollowGraph.Kind.FOLLOWING, "bob"));
+    }
+
+    @Test
+    public void setVersion_ContinuesFromRestoredValue() {
+        graph.setVersion(41);
+
+        graph.add(FollowGraph.Kind.FOLLOWERS, "bob");
+
+        assertEquals(42, graph.getVersion());
+    }
+
+    @Test
+    public void get_ReturnsCopy() {
+        graph.add(FollowGraph.Kind.FOLLOWING, "bob");
+
+        Set<String> following = graph.get(FollowGraph.Kind.FOLLOWING);
+        following.add("carol");
+
+        assertFalse(graph.contains(FollowGraph.Kind.FOLLOWING, "carol"));
+        assertEquals(1, graph.get(FollowGraph.Kind.FOLLOWING).size());
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * FollowedMoodSyncTest.java
+ *
+ * Unit tests for the pure helpers of FollowedMoodSync, the delta sync of followed users' moods,
+ * and FeedMerge, which builds the feed from the synced moods.
+ *
+ * This test class verifies:
+ * - A followee is only refreshed when its lastMoodAt moved past the value seen at the last sync
+ * - A followee is re-seeded on every sync while it has no lastMoodAt
+ * - A followee's mirror is checked against the server once a day
+ * - The feed keeps the latest moods of each followee and orders them by time
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.local.FeedMerge;
+import com.example.unemployedavengers.local.FollowedMoodSync;
+import com.example.unemployedavengers.models.MoodEvent;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class FollowedMoodSyncTest {
+
+    private MoodEvent mood(String userId, long time) {
+        MoodEvent event = new MoodEvent("Happy", "reason", "situation", time, "None", "");
+        event.setUserId(userId);
+        return event;
+    }
+
+    @Test
+    public void needsRefresh_OnlyWhenLastMoodAtAdvanced() {
+        assertFalse(FollowedMoodSync.needsRefresh(500L, 500L));
+        assertFalse(FollowedMoodSync.needsRefresh(500L, 400L));
+        assertTrue(FollowedMoodSync.needsRefresh(500L, 501L));
+        assertTrue(FollowedMoodSync.needsRefresh(0L, 1L));
+    }
+
+    @Test
+    public void needsReseed_OnlyWithoutLastMoodAt() {
+        assertFalse(FollowedMoodSync.needsReseed(500L));
+        assertTrue(FollowedMoodSync.needsReseed(0L));
+    }
+
+    @Test
+    public void needsReconcile_OncePerDay() {
+        long hour = 60 * 60 * 1000L;
+        long now = 100 * hour;
+
+        assertFalse(FollowedMoodSync.needsReconcile(now - hour, now));
+        assertTrue(FollowedMoodSync.needsReconcile(now - 25 * hour, now));
+    }
+
+    @Test
+    public void latestPerUser_KeepsFirstMoodsOfEachUser() {
+        // Arrange: grouped by user, most recent first within each user
+        List<MoodEvent> moods = Arrays.asList(
+                mood("alice", 900L), mood("alice", 800L), mood("alice", 700L), mood("alice", 600L),
+                mood("bob", 950L), mood("bob", 100L));
+
+        // Act
+        List<MoodEvent> latest = FeedMerge.latestPerUser(moods, 3);
+
+        // Assert
+        assertEquals(5, latest.size());
+        for (MoodEvent event : latest) {
+            assertTrue(event.getTime() != 600L);
+        }
+    }
+
+    @Test
+    public void latestPerUser_OrdersByTimeAcrossUsers() {
+        List<MoodEvent> moods = Arrays.asList(
+                mood("alice", 900L), mood("alice", 300L),
+                mood("bob", 950L), mood("bob", 100L));
+
+        List<MoodEvent> latest = FeedMerge.latestPerUser(moods, 2);
+
+        assertEquals(950L, latest.get(0).getTime());
+        assertEquals(900L, latest.get(1).getTime());
+        assertEquals(300L, latest.get(2).getTime());
+        assertEquals(100L, latest.get(3).getTime());
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * FriendSuggestionsTest.java
+ *
+ * Unit tests for FriendSuggestions, the ranking behind "people you may know".
+ *
+ * This test class verifies:
+ * - Candidates are ranked by how many followees follow them, ties by user id
+ * - The user, their followees and excluded ids are never suggested
+ * - At most limit candidates are returned
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.local.FriendSuggestions;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class FriendSuggestionsTest {
+    private static final String[] NONE = new String[0];
+
+    @Test
+    public void rank_OrdersByMutualCountThenId() {
+        List<String[]> lists = Arrays.asList(
+                new String[]{"carol", "dave", "erin"},
+                new String[]{"dave", "erin"},
+                new String[]{"erin", "frank"});
+
+        List<FriendSuggestions.Candidate> ranked = FriendSuggestions.rank("me", new String[]{"a", "b", "c"}, lists, NONE, 10);
+
+        assertEquals(Arrays.asList("erin", "dave", "carol", "frank"), ids(ranked));
+        assertEquals(3, ranked.get(0).mutualCount);
+        assertEquals(2, ranked.get(1).mutualCount);
+        assertEquals(1, ranked.get(3).mutualCount);
+    }
+
+    @Test
+    public void rank_SkipsSelfFollowingAndExcluded() {
+        List<String[]> lists = Arrays.asList(
+                new String[]{"bob", "carol", "me"},
+                new String[]{"bob", "carol", "dave", "me"});
+
+        List<FriendSuggestions.Candidate> ranked = FriendSuggestions.rank("me", new String[]{"bob"}, lists,
+                new String[]{"dave"}, 10);
+
+        assertEquals(Arrays.asList("carol"), ids(ranked));
+    }
+
+    @Test
+    public void rank_KeepsOnlyTheBestLimit() {
+        List<String[]> lists = Arrays.asList(
+                new String[]{"u1", "u2", "u3", "u4"},
+                new String[]{"u3", "u4"},
+                new String[]{"u4"});
+
+        List<FriendSuggestions.Candidate> ranked = FriendSuggestions.rank("me", NONE, lists, NONE, 2);
+
+        assertEquals(Arrays.asList("u4", "u3"), ids(ranked));
+        assertTrue(FriendSuggestions.rank("me", NONE, new ArrayList<>(), NONE, 5).isEmpty());
+    }
+
+    private static List<String> ids(List<FriendSuggestions.Candidate> candidates) {
+        List<String> ids = new ArrayList<>();
+        for (FriendSuggestions.Candidate candidate : candidates) {
+            ids.add(candidate.userId);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * InMemoryMoodEventDAOTest.java
+ *
+ * Unit tests for InMemoryMoodEventDAO, the network-free IMoodEventDAO used by benchmarks.
+ *
+ * This test class verifies:
+ * - Saved moods get an id and owner and are returned most recent first
+ * - Recent, updated-since and map tile reads apply the same rules as the Firestore DAO
+ * - Counts cover every mood of one user only
+ * - Deletes remove moods and every read and write is reported to DAOMetrics
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ * - Reads results straight from the already-completed Tasks
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.DAO.DAOMetrics;
+import com.example.unemployedavengers.implementationDAO.InMemoryMoodEventDAO;
+import com.example.unemployedavengers.maps.ViewportTileCache;
+import com.example.unemployedavengers.models.MoodEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class InMemoryMoodEventDAOTest {
+
+    private InMemoryMoodEventDAO dao;
+    private int reads;
+    private int writes;
+
+    private MoodEvent mood(long time) {
+        MoodEvent event = new MoodEvent("Happy", "reason", "situation", time, "None", "");
+        event.setUpdatedAt(time);
+        return event;
+    }
+
+    private MoodEvent located(long time, double latitude, double longitude, boolean isPublic) {
+        MoodEvent event = mood(time);
+        event.setHasLocation(true);
+        event.setLatitude(latitude);
+        event.setLongitude(longitude);
+        event.setPublicStatus(isPublic);
+        return event;
+    }
+
+    @Before
+    public void setUp() {
+        reads = 0;
+        writes = 0;
+        dao = new InMemoryMoodEventDAO(new DAOMetrics() {
+            @Override
+            public void onRead(@NonNull String operation, int documents, boolean fromCache, long elapsedMs) {
+                reads += documents;
+            }
+
+            @Override
+            public void onWrite(@NonNull String operation, int documents, long elapsedMs) {
+                writes += documents;
+            }
+        });
+    }
+
+    @Test
+    public void saveMoodEvent_AssignsIdAndOwner_AndReadsAreMostRecentFirst() {
+        // Arrange
+        MoodEvent older = mood(100L);
+        MoodEvent newer = mood(200L);
+
+        // Act
+        dao.saveMoodEvent("alice", older);
+        dao.saveMoodEvent("alice", newer);
+        List<MoodEvent> moods = dao.getMoodEvents("alice").getResult();
+
+        // Assert
+        assertNotNull(older.getId());
+        assertEquals("alice", older.getUserId());
+        assertEquals(Arrays.asList(newer, older), moods);
+        assertEquals(2, writes);
+        assertEquals(2, reads);
+    }
+
+    @Test
+    public void getRecentMoodEvents_LimitsResult() {
+        for (long time = 1; time <= 5; time++) {
+            dao.saveMoodEvent("alice", mood(time));
+        }
+
+        List<MoodEvent> recent = dao.getRecentMoodEvents("alice", 3).getResult();
+
+        assertEquals(3, recent.size());
+        assertEquals(5L, recent.get(0).getTime());
+    }
+
+    @Test
+    public void getMoodEventsUpdatedSince_ReturnsOnlyNewerChanges() {
+        dao.saveMoodEvent("alice", mood(100L));
+        dao.saveMoodEvent("alice", mood(300L));
+
+        List<MoodEvent> changed = dao.getMoodEventsUpdatedSince("alice", 100L).getResult();
+
+        assertEquals(1, changed.size());
+        assertEquals(300L, changed.get(0).getUpdatedAt());
+    }
+
+    @Test
+    public void getPublicMoodEventsInTiles_KeepsPublicLocatedMoodsInTiles() {
+        // Edmonton, then the same latitude in Europe
+        String edmonton = ViewportTileCache.keysFor(53.5, -113.5).get(10);
+        dao.saveMoodEvent("alice", located(1L, 53.5, -113.5, true));
+        dao.saveMoodEvent("alice", located(2L, 53.5, -113.5, false));
+        dao.saveMoodEvent("bob", located(3L, 53.5, 10.0, true));
+        dao.saveMoodEvent("bob", mood(4L));
+        dao.saveMoodEvent("carol", located(5L, 53.5, -113.5, true));
+
+        List<MoodEvent> inTiles = dao.getPublicMoodEventsInTiles(Arrays.asList("alice", "bob"),
+                Collections.singletonList(edmonton)).getResult();
+
+        assertEquals(1, inTiles.size());
+        assertEquals(1L, inTiles.get(0).getTime());
+    }
+
+    @Test
+    public void countMoodEvents_CountsOnlyThatUser() {
+        dao.saveMoodEvent("alice", mood(100L));
+        dao.saveMoodEvent("alice", mood(200L));
+        dao.saveMoodEvent("bob", mood(300L));
+
+        assertEquals(2L, (long) dao.countMoodEvents("alice").getResult());
+        assertEquals(0L, (long) dao.countMoodEvents("carol").getResult());
+    }
+
+    @Test
+    public void deleteMoodEvent_RemovesMood() {
+        MoodEvent event = mood(100L);
+        dao.saveMoodEvent("alice", event);
+
+        dao.deleteMoodEvent("alice", event.getId());
+
+        assertTrue(dao.getMoodEvents("alice").getResult().isEmpty());
+    }
+}
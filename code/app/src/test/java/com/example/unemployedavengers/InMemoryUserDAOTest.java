@@ -0,0 +1,108 @@
+/**
+ * InMemoryUserDAOTest.java
+ *
+ * Unit tests for InMemoryUserDAO, the network-free IUserDAO used for load testing.
+ *
+ * This test class verifies:
+ * - Everything in UserDAOContract, which EmulatorUserDAOTest also runs against Firebase
+ * - Injected latency delays completion and is reported to DAOMetrics
+ * - Injected failures fail operations without applying them
+ * - Seeded users and follows are visible through the IUserDAO methods
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import com.example.unemployedavengers.DAO.DAOMetrics;
+import com.example.unemployedavengers.DAO.IUserDAO;
+import com.example.unemployedavengers.implementationDAO.InMemoryUserDAO;
+import com.google.android.gms.tasks.Task;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class InMemoryUserDAOTest extends UserDAOContract {
+
+    private final List<Long> reportedLatencies = new ArrayList<>();
+
+    @Override
+    protected IUserDAO createUserDAO() {
+        return new InMemoryUserDAO();
+    }
+
+    private InMemoryUserDAO recordingDAO(long seed) {
+        return new InMemoryUserDAO(new DAOMetrics() {
+            @Override
+            public void onRead(@NonNull String operation, int documents, boolean fromCache, long elapsedMs) {
+                reportedLatencies.add(elapsedMs);
+            }
+
+            @Override
+            public void onWrite(@NonNull String operation, int documents, long elapsedMs) {
+                reportedLatencies.add(elapsedMs);
+            }
+        }, seed);
+    }
+
+    @Test
+    public void setLatency_DelaysCompletion() throws Exception {
+        InMemoryUserDAO dao = recordingDAO(1L);
+        dao.addUser("alice", "alice", "123456");
+        dao.setLatency(50L, 20L);
+
+        Task<Boolean> exists = dao.checkUserExists("alice");
+
+        assertFalse(exists.isComplete());
+        assertTrue(await(exists));
+        long reported = reportedLatencies.get(0);
+        assertTrue(reported >= 50L && reported <= 70L);
+        dao.shutdown();
+    }
+
+    @Test
+    public void setFailureRate_FailsWithoutApplying() {
+        InMemoryUserDAO dao = new InMemoryUserDAO();
+        dao.addUser("alice", "alice", "123456");
+        dao.addUser("bob", "bob", "123456");
+        dao.setFailureRate(1.0);
+
+        Task<Void> request = dao.requestFollow("alice", "bob");
+
+        assertFalse(request.isSuccessful());
+        assertTrue(dao.getRequests("bob").isEmpty());
+    }
+
+    @Test
+    public void sameSeed_InjectsSameFailures() {
+        InMemoryUserDAO first = new InMemoryUserDAO(DAOMetrics.NONE, 42L);
+        InMemoryUserDAO second = new InMemoryUserDAO(DAOMetrics.NONE, 42L);
+        first.setFailureRate(0.5);
+        second.setFailureRate(0.5);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(first.checkUserExists("x").isSuccessful(), second.checkUserExists("x").isSuccessful());
+        }
+    }
+
+    @Test
+    public void addFollow_IsVisibleAsFollowing() throws Exception {
+        InMemoryUserDAO dao = new InMemoryUserDAO();
+        dao.addUser("alice", "alice", "123456");
+        dao.addUser("bob", "bob", "123456");
+
+        dao.addFollow("alice", "bob");
+
+        assertEquals("following", await(dao.getFollowStatus("alice", "bob")));
+        assertEquals("none", await(dao.getFollowStatus("bob", "alice")));
+    }
+}
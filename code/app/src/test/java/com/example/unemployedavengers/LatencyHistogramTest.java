@@ -0,0 +1,87 @@
+/**
+ * LatencyHistogramTest.java
+ *
+ * Unit tests for LatencyHistogram, the fixed-size histogram behind FirestoreMeter's latencies.
+ *
+ * This test class verifies:
+ * - Small values are reported exactly
+ * - Percentiles of large values stay within the bucket precision of 12.5%
+ * - Histograms can be merged and reset
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.metrics.LatencyHistogram;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentile_SmallValues_AreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(5, histogram.percentile(50));
+        assertEquals(9, histogram.percentile(90));
+        assertEquals(10, histogram.percentile(100));
+        assertEquals(10, histogram.count());
+        assertEquals(5.5, histogram.mean(), 0.0001);
+    }
+
+    @Test
+    public void percentile_LargeValues_WithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 37L);
+        }
+
+        long p50 = histogram.percentile(50);
+        long p99 = histogram.percentile(99);
+
+        assertTrue(p50 >= 500 * 37L && p50 <= 500 * 37L * 1.125);
+        assertTrue(p99 >= 990 * 37L && p99 <= 990 * 37L * 1.125);
+        assertEquals(1000 * 37L, histogram.max());
+    }
+
+    @Test
+    public void percentile_NeverAboveMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+
+        assertEquals(1000, histogram.percentile(99));
+    }
+
+    @Test
+    public void add_MergesCounts() {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(3);
+        second.record(200);
+
+        first.add(second);
+
+        assertEquals(2, first.count());
+        assertEquals(200, first.max());
+        assertEquals(3, first.percentile(50));
+    }
+
+    @Test
+    public void reset_ForgetsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+
+        histogram.reset();
+
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(50));
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * LocalMoodStoreTest.java
+ *
+ * Unit tests for the full-text query building of LocalMoodStore, which turns the reason typed
+ * in the Filter dialog into an FTS MATCH expression.
+ *
+ * This test class verifies:
+ * - Each word becomes a prefix term on the searched column
+ * - Case is normalised and FTS operators or quotes in user input are dropped
+ * - Input without searchable words produces no query
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ * - Exercises only the static buildMatchQuery method, so no database is needed
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.example.unemployedavengers.local.LocalMoodStore;
+
+import org.junit.Test;
+
+public class LocalMoodStoreTest {
+
+    @Test
+    public void buildMatchQuery_SingleWord_IsPrefixTerm() {
+        assertEquals("reason:exam*", LocalMoodStore.buildMatchQuery("reason", "exam"));
+    }
+
+    @Test
+    public void buildMatchQuery_SeveralWords_AreAllRequired() {
+        assertEquals("reason:bad* reason:day*", LocalMoodStore.buildMatchQuery("reason", "  Bad   DAY "));
+    }
+
+    @Test
+    public void buildMatchQuery_OperatorsAndQuotes_AreDropped() {
+        assertEquals("reason:work* reason:stress*", LocalMoodStore.buildMatchQuery("reason", "\"work\" -stress*"));
+    }
+
+    @Test
+    public void buildMatchQuery_NoWords_ReturnsNull() {
+        assertNull(LocalMoodStore.buildMatchQuery("reason", "  ?! "));
+        assertNull(LocalMoodStore.buildMatchQuery("reason", null));
+    }
+}
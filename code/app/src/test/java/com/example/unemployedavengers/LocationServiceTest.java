@@ -0,0 +1,52 @@
+/**
+ * LocationServiceTest.java
+ *
+ * Unit tests for the fix comparison used by LocationService to decide whether a new location
+ * replaces the cached one.
+ *
+ * This test class verifies:
+ * - Much newer fixes always replace the cached fix
+ * - Much older fixes never replace the cached fix
+ * - More accurate fixes win when the ages are close
+ * - Slightly newer but much less accurate fixes are rejected
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ * - Exercises only the static isBetterFix method, so no location provider is needed
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LocationServiceTest {
+    private static final long MINUTE = 60 * 1000;
+
+    @Test
+    public void isBetterFix_MuchNewer_IsBetterEvenIfLessAccurate() {
+        assertTrue(LocationService.isBetterFix(0, 1000f, 10 * MINUTE, 5f));
+    }
+
+    @Test
+    public void isBetterFix_MuchOlder_IsNotBetterEvenIfMoreAccurate() {
+        assertFalse(LocationService.isBetterFix(10 * MINUTE, 5f, 0, 1000f));
+    }
+
+    @Test
+    public void isBetterFix_SimilarAgeMoreAccurate_IsBetter() {
+        assertTrue(LocationService.isBetterFix(30 * 1000, 10f, 0, 50f));
+    }
+
+    @Test
+    public void isBetterFix_SlightlyNewerMuchLessAccurate_IsNotBetter() {
+        assertFalse(LocationService.isBetterFix(0, 500f, 30 * 1000, 20f));
+    }
+
+    @Test
+    public void isBetterFix_SlightlyNewerSimilarAccuracy_IsBetter() {
+        assertTrue(LocationService.isBetterFix(0, 30f, 30 * 1000, 20f));
+    }
+}
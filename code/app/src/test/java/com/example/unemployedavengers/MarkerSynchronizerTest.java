@@ -0,0 +1,104 @@
+/**
+ * MarkerSynchronizerTest.java
+ *
+ * Unit tests for the diffing logic of MarkerSynchronizer, which keeps map markers
+ * in step with the mood events emitted by the map ViewModels.
+ *
+ * This test class verifies:
+ * - New located events produce add operations
+ * - Unchanged events produce no operations
+ * - Location and mood changes produce move and restyle operations
+ * - Events that disappear (or lose their location) produce remove operations
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ * - Exercises only the pure computePlan method, so no GoogleMap is needed
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.maps.MarkerSynchronizer;
+import com.example.unemployedavengers.models.MoodEvent;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MarkerSynchronizerTest {
+
+    private MoodEvent locatedEvent(String id, String mood, double lat, double lng) {
+        MoodEvent event = new MoodEvent(mood, "reason", "situation", System.currentTimeMillis(), "None", "");
+        event.setId(id);
+        event.setUserName("user");
+        event.setLatitude(lat);
+        event.setLongitude(lng);
+        event.setHasLocation(true);
+        return event;
+    }
+
+    private MarkerSynchronizer.MarkerState stateOf(MoodEvent event) {
+        return new MarkerSynchronizer.MarkerState(event.getLatitude(), event.getLongitude(),
+                MarkerSynchronizer.iconKeyFor(event));
+    }
+
+    @Test
+    public void computePlan_NewEvents_AreAdded() {
+        MoodEvent event1 = locatedEvent("a", "Happiness", 53.5, -113.5);
+        MoodEvent event2 = locatedEvent("b", "Anger", 53.6, -113.4);
+
+        MarkerSynchronizer.Plan plan = MarkerSynchronizer.computePlan(
+                Collections.emptyMap(), Arrays.asList(event1, event2));
+
+        assertEquals(2, plan.toAdd.size());
+        assertEquals(2, plan.size());
+    }
+
+    @Test
+    public void computePlan_UnchangedEvents_ProduceNoOperations() {
+        MoodEvent event = locatedEvent("a", "Happiness", 53.5, -113.5);
+        Map<String, MarkerSynchronizer.MarkerState> current = new HashMap<>();
+        current.put("a", stateOf(event));
+
+        MarkerSynchronizer.Plan plan = MarkerSynchronizer.computePlan(current, Collections.singletonList(event));
+
+        assertTrue(plan.isEmpty());
+    }
+
+    @Test
+    public void computePlan_ChangedLocationAndMood_AreMovedAndRestyled() {
+        MoodEvent original = locatedEvent("a", "Happiness", 53.5, -113.5);
+        Map<String, MarkerSynchronizer.MarkerState> current = new HashMap<>();
+        current.put("a", stateOf(original));
+
+        MoodEvent edited = locatedEvent("a", "Sadness", 53.7, -113.5);
+        MarkerSynchronizer.Plan plan = MarkerSynchronizer.computePlan(current, Collections.singletonList(edited));
+
+        assertEquals(1, plan.toMove.size());
+        assertEquals(1, plan.toRestyle.size());
+        assertEquals(0, plan.toAdd.size());
+        assertEquals(0, plan.toRemove.size());
+    }
+
+    @Test
+    public void computePlan_MissingOrUnlocatedEvents_AreRemoved() {
+        MoodEvent kept = locatedEvent("a", "Happiness", 53.5, -113.5);
+        MoodEvent unlocated = locatedEvent("b", "Fear", 53.6, -113.4);
+        Map<String, MarkerSynchronizer.MarkerState> current = new HashMap<>();
+        current.put("a", stateOf(kept));
+        current.put("b", stateOf(unlocated));
+        current.put("c", new MarkerSynchronizer.MarkerState(1, 1, "Shame|user"));
+
+        unlocated.setHasLocation(false);
+        MarkerSynchronizer.Plan plan = MarkerSynchronizer.computePlan(current, Arrays.asList(kept, unlocated));
+
+        assertEquals(2, plan.toRemove.size());
+        assertTrue(plan.toRemove.containsAll(Arrays.asList("b", "c")));
+        assertEquals(2, plan.size());
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * MetricsRegistryTest.java
+ *
+ * Unit tests for MetricsRegistry, where hot-path spans and time-to-first-content are recorded.
+ *
+ * This test class verifies:
+ * - Counters and histograms are created once per name and shared
+ * - Gauges are read when the snapshot is taken
+ * - The snapshot JSON lists counters, gauges and histograms with the build they came from
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ * - The registry is process-wide, so every test uses its own metric names
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.metrics.MetricsRegistry;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void counter_SameName_IsShared() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+
+        registry.counter("test.shared").increment();
+        registry.counter("test.shared").add(4);
+
+        assertSame(registry.counter("test.shared"), registry.counter("test.shared"));
+        assertEquals(5, registry.counter("test.shared").get());
+    }
+
+    @Test
+    public void histogram_SameName_IsShared() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+
+        registry.histogram("test.histogram").record(12);
+        registry.histogram("test.histogram").record(20);
+
+        assertEquals(2, registry.histogram("test.histogram").count());
+        assertEquals(20, registry.histogram("test.histogram").max());
+    }
+
+    @Test
+    public void toJson_ReadsGaugesWhenTaken() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        AtomicLong queued = new AtomicLong(3);
+        registry.gauge("test.queued", queued::get);
+
+        queued.set(42);
+        String json = registry.toJson("1.0 (1)");
+
+        assertTrue(json.contains("\"test.queued\": 42"));
+    }
+
+    @Test
+    public void toJson_ListsEveryMetricWithBuild() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.counter("test.json.counter").add(7);
+        registry.histogram("ttfc.TestFragment").record(250);
+
+        String json = registry.toJson("2.3 (17)");
+
+        assertTrue(json.contains("\"build\": \"2.3 (17)\""));
+        assertTrue(json.contains("\"test.json.counter\": 7"));
+        assertTrue(json.contains("\"ttfc.TestFragment\": {\"count\": 1"));
+        assertTrue(json.contains("\"heap.usedBytes\": "));
+    }
+}
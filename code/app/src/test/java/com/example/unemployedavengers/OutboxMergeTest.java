@@ -0,0 +1,93 @@
+/**
+ * OutboxMergeTest.java
+ *
+ * Unit tests for OutboxMerge, the pure rules behind the mood event outbox.
+ *
+ * This test class verifies:
+ * - A replay batch is collapsed to the last operation per mood
+ * - Last-writer-wins only applies journaled writes newer than the server copy
+ * - Pending creates, edits and deletes are layered over loaded moods
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.local.OutboxMerge;
+import com.example.unemployedavengers.local.OutboxOperation;
+import com.example.unemployedavengers.models.MoodEvent;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class OutboxMergeTest {
+
+    private MoodEvent mood(String id, String moodText) {
+        MoodEvent event = new MoodEvent(moodText, "reason", "situation", 1000L, "None", "");
+        event.setId(id);
+        return event;
+    }
+
+    private OutboxOperation operation(long seq, String type, MoodEvent payload, long updatedAt) {
+        return new OutboxOperation(seq, "op" + seq, "user", payload.getId(), type, payload, updatedAt,
+                OutboxOperation.STATE_PENDING, 0);
+    }
+
+    @Test
+    public void collapse_SeveralOperationsOnOneMood_KeepsLast() {
+        MoodEvent created = mood("a", "Happiness");
+        MoodEvent edited = mood("a", "Sadness");
+        MoodEvent other = mood("b", "Fear");
+
+        List<OutboxOperation> collapsed = OutboxMerge.collapse(Arrays.asList(
+                operation(1, OutboxOperation.TYPE_CREATE, created, 10),
+                operation(2, OutboxOperation.TYPE_CREATE, other, 11),
+                operation(3, OutboxOperation.TYPE_UPDATE, edited, 12)));
+
+        assertEquals(2, collapsed.size());
+        assertEquals("Sadness", collapsed.get(0).payload.getMood());
+        assertEquals("b", collapsed.get(1).moodId);
+    }
+
+    @Test
+    public void shouldApply_ComparesAgainstServerCopy() {
+        assertTrue(OutboxMerge.shouldApply(10, null));
+        assertTrue(OutboxMerge.shouldApply(10, 5L));
+        assertFalse(OutboxMerge.shouldApply(10, 10L));
+        assertFalse(OutboxMerge.shouldApply(10, 20L));
+    }
+
+    @Test
+    public void applyPending_LayersCreatesEditsAndDeletes() {
+        List<MoodEvent> loaded = Arrays.asList(mood("a", "Happiness"), mood("b", "Fear"));
+        MoodEvent edited = mood("a", "Anger");
+        MoodEvent created = mood("c", "Shame");
+
+        List<MoodEvent> merged = OutboxMerge.applyPending(loaded, Arrays.asList(
+                operation(1, OutboxOperation.TYPE_UPDATE, edited, 10),
+                operation(2, OutboxOperation.TYPE_DELETE, mood("b", "Fear"), 11),
+                operation(3, OutboxOperation.TYPE_CREATE, created, 12)));
+
+        assertEquals(2, merged.size());
+        assertEquals("Anger", merged.get(0).getMood());
+        assertEquals("c", merged.get(1).getId());
+    }
+
+    @Test
+    public void applyPending_NoOperations_ReturnsLoaded() {
+        List<MoodEvent> loaded = Collections.singletonList(mood("a", "Happiness"));
+
+        List<MoodEvent> merged = OutboxMerge.applyPending(loaded, Collections.emptyList());
+
+        assertEquals(1, merged.size());
+        assertEquals("a", merged.get(0).getId());
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * ProfileCountsTest.java
+ *
+ * Unit tests for ProfileCounts, the counts shown in profile headers.
+ *
+ * This test class verifies:
+ * - Maintained counters are only read back once they have been seeded
+ * - Counters that drifted below zero read as zero
+ * - Follow counters only move when a relationship changes state
+ * - The header line uses singular and plural forms
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.example.unemployedavengers.implementationDAO.ProfileCounters;
+import com.example.unemployedavengers.models.ProfileCounts;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ProfileCountsTest {
+
+    @Test
+    public void fromUserData_NotSeeded_ReturnsNull() {
+        // Increments alone create the fields, starting from zero
+        Map<String, Object> data = new HashMap<>();
+        data.put(ProfileCounts.FOLLOWERS, 1L);
+
+        assertNull(ProfileCounts.fromUserData(data));
+        assertNull(ProfileCounts.fromUserData(null));
+    }
+
+    @Test
+    public void fromUserData_Seeded_ReadsCountersAndClampsAtZero() {
+        Map<String, Object> data = new HashMap<>();
+        data.put(ProfileCounts.SEEDED_AT, 1000L);
+        data.put(ProfileCounts.FOLLOWERS, 12L);
+        data.put(ProfileCounts.FOLLOWING, -1L);
+
+        ProfileCounts counts = ProfileCounts.fromUserData(data);
+
+        assertEquals(12, counts.getFollowers());
+        assertEquals(0, counts.getFollowing());
+        assertEquals(0, counts.getMoods());
+    }
+
+    @Test
+    public void followDelta_OnlyCountsChangesOfState() {
+        assertEquals(1, ProfileCounters.followDelta(false, true));
+        assertEquals(0, ProfileCounters.followDelta(true, true));
+        assertEquals(-1, ProfileCounters.followDelta(true, false));
+        assertEquals(0, ProfileCounters.followDelta(false, false));
+    }
+
+    @Test
+    public void describe_UsesSingularForOne() {
+        assertEquals("1 follower \u00B7 3 following \u00B7 1 mood", new ProfileCounts(1, 3, 1).describe());
+        assertEquals("0 followers \u00B7 1 following \u00B7 2 moods", new ProfileCounts(0, 1, 2).describe());
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * RelationshipsTest.java
+ *
+ * Unit tests for Relationships and the SortedIds merges behind it.
+ *
+ * This test class verifies:
+ * - SortedIds.of sorts and drops duplicates, and intersect/difference match set semantics
+ * - Mutuals, fans and users not following back are split correctly
+ * - classify gives the same answer as relationshipOf for every id, including unknown and
+ *   repeated ones, and a pending request outranks being followed
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.local.Relationships;
+import com.example.unemployedavengers.local.SortedIds;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+public class RelationshipsTest {
+
+    @Test
+    public void sortedIds_MergesMatchSetSemantics() {
+        String[] a = SortedIds.of(Arrays.asList("d", "b", "a", "b", "f"));
+        String[] b = SortedIds.of(Arrays.asList("f", "c", "b", "g"));
+
+        assertArrayEquals(new String[]{"a", "b", "d", "f"}, a);
+        assertArrayEquals(new String[]{"b", "f"}, SortedIds.intersect(a, b));
+        assertEquals(2, SortedIds.intersectionSize(a, b));
+        assertArrayEquals(new String[]{"a", "d"}, SortedIds.difference(a, b));
+        assertArrayEquals(new String[]{"c", "g"}, SortedIds.difference(b, a));
+        assertTrue(SortedIds.contains(a, "d"));
+        assertFalse(SortedIds.contains(a, "c"));
+    }
+
+    @Test
+    public void mutualsFansAndNotFollowedBack_SplitTheGraph() {
+        Relationships relationships = Relationships.of(
+                Arrays.asList("bob", "carol", "dave"),
+                Arrays.asList("carol", "erin", "dave", "frank"),
+                Arrays.asList("grace"));
+
+        assertArrayEquals(new String[]{"carol", "dave"}, relationships.mutuals());
+        assertEquals(2, relationships.mutualCount());
+        assertArrayEquals(new String[]{"erin", "frank"}, relationships.fans());
+        assertArrayEquals(new String[]{"bob"}, relationships.notFollowedBack());
+        assertArrayEquals(new String[]{"grace"}, relationships.pending());
+    }
+
+    @Test
+    public void classify_MatchesRelationshipOfForEveryId() {
+        Relationships relationships = Relationships.of(
+                Arrays.asList("bob", "carol"),
+                Arrays.asList("carol", "erin", "grace"),
+                Arrays.asList("grace"));
+
+        Map<String, String> classified = relationships.classify(
+                Arrays.asList("zed", "grace", "bob", "erin", "carol", "bob", "alice"));
+
+        assertEquals(6, classified.size());
+        assertEquals(Relationships.MUTUAL, classified.get("carol"));
+        assertEquals(Relationships.FOLLOWING, classified.get("bob"));
+        assertEquals(Relationships.FOLLOWER, classified.get("erin"));
+        assertEquals(Relationships.REQUESTED, classified.get("grace"));
+        assertEquals(Relationships.NONE, classified.get("alice"));
+        assertEquals(Relationships.NONE, classified.get("zed"));
+        for (Map.Entry<String, String> entry : classified.entrySet()) {
+            assertEquals(relationships.relationshipOf(entry.getKey()), entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * SyntheticDatasetTest.java
+ *
+ * Unit tests for SyntheticDataset and ScaleReport, the scale test data generator and its report.
+ *
+ * This test class verifies:
+ * - The same config and seed produce the same dataset
+ * - Follow counts stay within the configured bounds and never include the user themselves
+ * - Located moods fall within the configured radius
+ * - Seeding the in-memory DAOs makes the dataset visible through IUserDAO and IMoodEventDAO
+ * - The report lists every measured screen with its billed reads
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.implementationDAO.InMemoryMoodEventDAO;
+import com.example.unemployedavengers.implementationDAO.InMemoryUserDAO;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.example.unemployedavengers.scale.ScaleReport;
+import com.example.unemployedavengers.scale.ScenarioConfig;
+import com.example.unemployedavengers.scale.SyntheticDataset;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class SyntheticDatasetTest {
+
+    @Test
+    public void generate_SameSeed_SameDataset() {
+        SyntheticDataset first = SyntheticDataset.generate(ScenarioConfig.small());
+        SyntheticDataset second = SyntheticDataset.generate(ScenarioConfig.small());
+
+        assertEquals(first.following, second.following);
+        assertEquals(first.moodCount(), second.moodCount());
+        assertEquals(first.comments.size(), second.comments.size());
+        for (String userId : first.moods.keySet()) {
+            List<MoodEvent> a = first.moods.get(userId);
+            List<MoodEvent> b = second.moods.get(userId);
+            assertEquals(a.size(), b.size());
+            for (int i = 0; i < a.size(); i++) {
+                assertEquals(a.get(i).getTime(), b.get(i).getTime());
+                assertEquals(a.get(i).getLatitude(), b.get(i).getLatitude(), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void generate_FollowCountsWithinBounds() {
+        ScenarioConfig config = ScenarioConfig.small();
+        SyntheticDataset dataset = SyntheticDataset.generate(config);
+
+        for (Map.Entry<String, List<String>> entry : dataset.following.entrySet()) {
+            assertTrue(entry.getValue().size() <= config.maxFollowing);
+            assertFalse(entry.getValue().contains(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void generate_LocatedMoodsWithinRadius() {
+        ScenarioConfig config = ScenarioConfig.small();
+        SyntheticDataset dataset = SyntheticDataset.generate(config);
+        double maxLatitudeDelta = config.radiusKm / 111.32 + 1e-9;
+
+        for (List<MoodEvent> moods : dataset.moods.values()) {
+            for (MoodEvent moodEvent : moods) {
+                if (moodEvent.getHasLocation()) {
+                    assertTrue(Math.abs(moodEvent.getLatitude() - config.centerLatitude) <= maxLatitudeDelta);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void seedInto_MakesDatasetVisibleThroughDAOs() throws Exception {
+        SyntheticDataset dataset = SyntheticDataset.generate(ScenarioConfig.small());
+        InMemoryUserDAO userDAO = new InMemoryUserDAO();
+        InMemoryMoodEventDAO moodEventDAO = new InMemoryMoodEventDAO();
+
+        dataset.seedInto(userDAO, moodEventDAO);
+
+        String owner = dataset.busiestFollower();
+        String followee = dataset.following.get(owner).get(0);
+        assertEquals("following", userDAO.getFollowStatus(owner, followee).getResult());
+        assertEquals(dataset.moods.get(followee).size(), moodEventDAO.getMoodEvents(followee).getResult().size());
+    }
+
+    @Test
+    public void toJson_ListsMeasuredScreens() throws Exception {
+        SyntheticDataset dataset = SyntheticDataset.generate(ScenarioConfig.small());
+        ScaleReport.Counter counter = new ScaleReport.Counter();
+        InMemoryMoodEventDAO moodEventDAO = new InMemoryMoodEventDAO(counter);
+        dataset.seedInto(new InMemoryUserDAO(), moodEventDAO);
+        String owner = dataset.busiestFollower();
+        ScaleReport report = new ScaleReport(dataset, counter);
+
+        report.measure("history", () -> moodEventDAO.getMoodEvents(owner));
+
+        String json = report.toJson();
+        assertTrue(json.contains("\"scenario\": \"small\""));
+        assertTrue(json.contains("\"screen\": \"history\", \"queries\": 1, \"documentReads\": "
+                + dataset.moods.get(owner).size() + ","));
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * TtlMoodEventCacheTest.java
+ *
+ * Unit tests for TtlMoodEventCache, the pluggable read cache of MoodEventDAOImplement.
+ *
+ * This test class verifies:
+ * - Entries are served until their time to live runs out
+ * - The least recently used entry is evicted beyond the size limit
+ * - Invalidating a user drops only that user's entries
+ * - Callers get copies they can modify
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ * - Drives expiry with a fake clock
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.example.unemployedavengers.implementationDAO.TtlMoodEventCache;
+import com.example.unemployedavengers.models.MoodEvent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TtlMoodEventCacheTest {
+
+    private long now = 0L;
+
+    private List<MoodEvent> moods(int count) {
+        List<MoodEvent> moods = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            moods.add(new MoodEvent("Happy", "reason", "situation", i, "None", ""));
+        }
+        return moods;
+    }
+
+    @Test
+    public void get_ExpiresAfterTtl() {
+        TtlMoodEventCache cache = new TtlMoodEventCache(10, 1000L, () -> now);
+        cache.put("alice|all", moods(2));
+
+        now = 999L;
+        assertNotNull(cache.get("alice|all"));
+        now = 1000L;
+        assertNull(cache.get("alice|all"));
+    }
+
+    @Test
+    public void put_EvictsLeastRecentlyUsed() {
+        TtlMoodEventCache cache = new TtlMoodEventCache(2, 1000L, () -> now);
+        cache.put("alice|all", moods(1));
+        cache.put("bob|all", moods(1));
+        cache.get("alice|all");
+
+        cache.put("carol|all", moods(1));
+
+        assertNotNull(cache.get("alice|all"));
+        assertNull(cache.get("bob|all"));
+        assertNotNull(cache.get("carol|all"));
+    }
+
+    @Test
+    public void invalidateUser_DropsOnlyThatUsersEntries() {
+        TtlMoodEventCache cache = new TtlMoodEventCache(10, 1000L, () -> now);
+        cache.put("alice|all", moods(1));
+        cache.put("alice|recent|3", moods(1));
+        cache.put("alice2|all", moods(1));
+
+        cache.invalidateUser("alice");
+
+        assertNull(cache.get("alice|all"));
+        assertNull(cache.get("alice|recent|3"));
+        assertNotNull(cache.get("alice2|all"));
+    }
+
+    @Test
+    public void get_ReturnsCopy() {
+        TtlMoodEventCache cache = new TtlMoodEventCache(10, 1000L, () -> now);
+        cache.put("alice|all", moods(2));
+
+        Collections.reverse(cache.get("alice|all"));
+        cache.get("alice|all").clear();
+
+        assertEquals(2, cache.get("alice|all").size());
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * UsernameTrieTest.java
+ *
+ * Unit tests for UsernameTrie, which lets type-ahead user search answer narrowing prefixes
+ * from the users earlier searches returned.
+ *
+ * This test class verifies:
+ * - Matches come back in username order and are capped by the limit
+ * - Prefixes match usernames regardless of case
+ * - A prefix is complete if it, or a shorter prefix it starts with, was marked complete
+ * - Adding the same user twice keeps one copy, and clear empties the trie
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.friendSection.UsernameTrie;
+import com.example.unemployedavengers.models.User;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class UsernameTrieTest {
+    private UsernameTrie trie;
+
+    private static User user(String id, String username) {
+        return new User(id, username, username + "@example.com", "pw", "");
+    }
+
+    private static List<String> usernames(List<User> users) {
+        List<String> names = new ArrayList<>();
+        for (User user : users) {
+            names.add(user.getUsername());
+        }
+        return names;
+    }
+
+    @Before
+    public void setUp() {
+        trie = new UsernameTrie();
+        trie.addAll(Arrays.asList(user("4", "alicia"), user("1", "al"), user("3", "alice"),
+                user("2", "bob"), user("5", "alfred")));
+    }
+
+    @Test
+    public void find_ReturnsMatchesInUsernameOrder() {
+        assertEquals(Arrays.asList("al", "alfred", "alice", "alicia"), usernames(trie.find("al", 10)));
+        assertEquals(Arrays.asList("alice", "alicia"), usernames(trie.find("alic", 10)));
+        assertTrue(trie.find("z", 10).isEmpty());
+    }
+
+    @Test
+    public void find_StopsAtLimit() {
+        assertEquals(Arrays.asList("al", "alfred"), usernames(trie.find("a", 2)));
+    }
+
+    @Test
+    public void find_IgnoresCase() {
+        trie.addAll(Arrays.asList(user("6", "Alina")));
+        trie.markComplete("AL");
+
+        assertEquals(Arrays.asList("alice", "alicia", "Alina"), usernames(trie.find("ALI", 10)));
+        assertTrue(trie.isComplete("ali"));
+    }
+
+    @Test
+    public void isComplete_CoversLongerPrefixes() {
+        trie.markComplete("al");
+
+        assertTrue(trie.isComplete("al"));
+        assertTrue(trie.isComplete("alic"));
+        assertTrue(trie.isComplete("alz"));
+        assertFalse(trie.isComplete("a"));
+        assertFalse(trie.isComplete("bo"));
+    }
+
+    @Test
+    public void isComplete_NothingMarked_IsFalse() {
+        assertFalse(trie.isComplete("alice"));
+    }
+
+    @Test
+    public void addAll_SameUserTwice_KeepsOne() {
+        trie.addAll(Arrays.asList(user("3", "alice"), user("6", "alice")));
+
+        assertEquals(6, trie.size());
+        assertEquals(Arrays.asList("alice", "alice"), usernames(trie.find("alice", 10)).subList(0, 2));
+    }
+
+    @Test
+    public void clear_RemovesUsersAndCompletePrefixes() {
+        trie.markComplete("al");
+
+        trie.clear();
+
+        assertEquals(0, trie.size());
+        assertFalse(trie.isComplete("al"));
+        assertTrue(trie.find("", 10).isEmpty());
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * ViewScopeTest.java
+ *
+ * Unit tests for ViewScope, which runs a screen's processing in the background and hands the
+ * results to its view.
+ *
+ * This test class verifies:
+ * - Transforms run on the background executor and their results are delivered
+ * - Failures of the load are passed through to the delivery
+ * - Nothing is transformed or delivered once the view lifecycle is destroyed
+ * - Work of one scope completes in the order it was started
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ * - The background executor is a queue run by the test; the main executor runs directly
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+
+import com.example.unemployedavengers.concurrent.ViewScope;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+public class ViewScopeTest {
+
+    private static class ViewLifecycle implements LifecycleOwner {
+        final LifecycleRegistry registry = LifecycleRegistry.createUnsafe(this);
+
+        @NonNull
+        @Override
+        public Lifecycle getLifecycle() {
+            return registry;
+        }
+    }
+
+    private final Queue<Runnable> background = new ArrayDeque<>();
+    private ViewLifecycle viewLifecycle;
+    private ViewScope scope;
+
+    @Before
+    public void setUp() {
+        viewLifecycle = new ViewLifecycle();
+        viewLifecycle.registry.setCurrentState(Lifecycle.State.RESUMED);
+        scope = new ViewScope(viewLifecycle.getLifecycle(), background::add, Runnable::run);
+    }
+
+    private void runBackground() {
+        while (!background.isEmpty()) {
+            background.poll().run();
+        }
+    }
+
+    @Test
+    public void transform_RunsInBackgroundAndDelivers() {
+        List<Integer> delivered = new ArrayList<>();
+
+        scope.deliver(scope.transform(Tasks.forResult("mood"), String::length),
+                task -> delivered.add(task.getResult()));
+        assertTrue(delivered.isEmpty());
+        runBackground();
+
+        assertEquals(1, delivered.size());
+        assertEquals(4, (int) delivered.get(0));
+    }
+
+    @Test
+    public void transform_FailedLoad_DeliversFailure() {
+        List<Exception> failures = new ArrayList<>();
+        IllegalStateException error = new IllegalStateException("offline");
+
+        scope.deliver(scope.transform(Tasks.<String>forException(error), String::length),
+                task -> failures.add(task.getException()));
+        runBackground();
+
+        assertEquals(1, failures.size());
+        assertEquals(error, failures.get(0));
+    }
+
+    @Test
+    public void destroyedView_SkipsTransformAndDelivery() {
+        List<String> calls = new ArrayList<>();
+
+        scope.deliver(scope.compute(() -> {
+            calls.add("transform");
+            return "done";
+        }), task -> calls.add("deliver"));
+        viewLifecycle.registry.setCurrentState(Lifecycle.State.DESTROYED);
+        runBackground();
+
+        assertFalse(scope.isActive());
+        assertTrue(calls.isEmpty());
+    }
+
+    @Test
+    public void work_CompletesInStartOrder() {
+        List<String> delivered = new ArrayList<>();
+        TaskCompletionSource<String> slowLoad = new TaskCompletionSource<>();
+
+        scope.deliver(scope.transform(slowLoad.getTask(), value -> value), task -> delivered.add(task.getResult()));
+        scope.deliver(scope.transform(Tasks.forResult("newer"), value -> value), task -> delivered.add(task.getResult()));
+        runBackground();
+        assertTrue(delivered.isEmpty());
+
+        slowLoad.setResult("older");
+        runBackground();
+
+        assertEquals(2, delivered.size());
+        assertEquals("older", delivered.get(0));
+        assertEquals("newer", delivered.get(1));
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * ViewportTileCacheTest.java
+ *
+ * Unit tests for ViewportTileCache, which remembers which map tiles have already had their
+ * mood events fetched by FriendsMap.
+ *
+ * This test class verifies:
+ * - Camera zoom levels are clamped to the supported tile zoom range
+ * - A bounding box is covered by the expected tiles
+ * - Tiles under an already fetched tile are treated as fetched
+ * - Forgotten tiles are reported as missing again
+ * - keysFor names the tile containing a point at every zoom, matching tilesFor
+ *
+ * Testing Methodology:
+ * - Uses JUnit 4 testing framework
+ * - Follows Arrange-Act-Assert pattern
+ */
+package com.example.unemployedavengers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.unemployedavengers.maps.ViewportTileCache;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+public class ViewportTileCacheTest {
+
+    @Test
+    public void tileZoomFor_ClampsToSupportedRange() {
+        assertEquals(ViewportTileCache.MIN_TILE_ZOOM, ViewportTileCache.tileZoomFor(0f));
+        assertEquals(10, ViewportTileCache.tileZoomFor(10.7f));
+        assertEquals(ViewportTileCache.MAX_TILE_ZOOM, ViewportTileCache.tileZoomFor(21f));
+    }
+
+    @Test
+    public void tilesFor_SmallBox_ReturnsCoveringTiles() {
+        // A box around Edmonton at zoom 10
+        List<ViewportTileCache.Tile> tiles = ViewportTileCache.tilesFor(53.45, -113.6, 53.6, -113.4, 10);
+
+        assertFalse(tiles.isEmpty());
+        for (ViewportTileCache.Tile tile : tiles) {
+            assertEquals(10, tile.zoom);
+            assertTrue(tile.south() < tile.north());
+            assertTrue(tile.west() < tile.east());
+        }
+    }
+
+    @Test
+    public void tilesFor_LargeBox_LowersZoom() {
+        List<ViewportTileCache.Tile> tiles = ViewportTileCache.tilesFor(-60, -170, 70, 170, 14);
+
+        assertTrue(tiles.size() <= 16);
+        assertTrue(tiles.get(0).zoom < 14);
+    }
+
+    @Test
+    public void isFetched_ChildOfFetchedTile_IsFetched() {
+        ViewportTileCache cache = new ViewportTileCache();
+        ViewportTileCache.Tile parent = new ViewportTileCache.Tile(5, 5, 10);
+        cache.markFetched(Collections.singletonList(parent));
+
+        ViewportTileCache.Tile child = new ViewportTileCache.Tile(7, 21, 42);
+
+        assertTrue(cache.isFetched(child));
+        assertFalse(cache.isFetched(new ViewportTileCache.Tile(7, 0, 0)));
+    }
+
+    @Test
+    public void keysFor_Point_MatchesTilesContainingIt() {
+        List<String> keys = ViewportTileCache.keysFor(53.5461, -113.4938);
+
+        assertEquals(ViewportTileCache.MAX_TILE_ZOOM + 1, keys.size());
+        assertEquals("0/0/0", keys.get(0));
+        for (int zoom = ViewportTileCache.MIN_TILE_ZOOM; zoom <= ViewportTileCache.MAX_TILE_ZOOM; zoom++) {
+            List<ViewportTileCache.Tile> tiles = ViewportTileCache.tilesFor(53.5461, -113.4938, 53.5461, -113.4938, zoom);
+            assertEquals(1, tiles.size());
+            assertEquals(tiles.get(0).key(), keys.get(zoom));
+        }
+    }
+
+    @Test
+    public void forget_FetchedTile_IsMissingAgain() {
+        ViewportTileCache cache = new ViewportTileCache();
+        List<ViewportTileCache.Tile> tiles = Collections.singletonList(new ViewportTileCache.Tile(8, 40, 80));
+        cache.markFetched(tiles);
+
+        cache.forget(tiles);
+
+        assertEquals(1, cache.missing(tiles).size());
+    }
+}
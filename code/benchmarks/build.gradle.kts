@@ -0,0 +1,50 @@
+// JMH benchmarks for the pure-Java hot paths of the app.
+//   ./gradlew :benchmarks:jmh                  run every benchmark, results in build/results/jmh/results.json
+//   ./gradlew :benchmarks:jmh -Pjmh.includes=MoodFilter   run matching benchmarks only
+// There is no recorded baseline to compare runs against yet, so there is no compare task either;
+// compare results.json files from two runs by hand until a reference run is committed.
+
+plugins {
+    `java-library`
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+// Mood names carry emoji
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+// The app is an Android module, so the classes under test are compiled in from its sources.
+// Only files without Android or Firebase imports can be listed here.
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            include(
+                "com/example/unemployedavengers/MoodFilterHelper.java",
+                "com/example/unemployedavengers/arrayadapters/MoodDisplayFormat.java",
+                "com/example/unemployedavengers/implementationDAO/CommentThreads.java",
+                "com/example/unemployedavengers/local/FeedMerge.java",
+                "com/example/unemployedavengers/models/Comment.java",
+                "com/example/unemployedavengers/models/CommentMapper.java",
+                "com/example/unemployedavengers/models/DocumentFields.java",
+                "com/example/unemployedavengers/models/MoodEvent.java",
+                "com/example/unemployedavengers/models/MoodEventMapper.java"
+            )
+        }
+    }
+}
+
+jmh {
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    (findProperty("jmh.includes") as String?)?.let { includes.set(listOf(it)) }
+}
@@ -0,0 +1,80 @@
+/**
+ * BenchmarkData - Deterministic moods and comments for the benchmarks.
+ *
+ * Purpose:
+ * - Every benchmark builds its input here from a fixed seed, so runs on different machines and
+ *   releases measure the same data and baselines stay comparable.
+ */
+
+package com.example.unemployedavengers.benchmarks;
+
+import com.example.unemployedavengers.models.Comment;
+import com.example.unemployedavengers.models.MoodEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+final class BenchmarkData {
+    static final String[] MOODS = {"Anger 😡", "Confusion 😵", "Disgust 🤢", "Fear 😨", "Happiness 😊", "Sadness 😢", "Shame 😳", "Surprise 😲"};
+    static final String[] WORDS = {"exam", "coffee", "bus", "rain", "friends", "lab", "gym", "deadline",
+            "music", "family", "sleep", "lecture", "walk", "movie", "snow", "work"};
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @param count Number of moods.
+     * @param users Number of owners the moods are spread over.
+     * @return Moods grouped by owner, most recent first within each owner, like the feed query returns them.
+     */
+    static List<MoodEvent> moods(int count, int users) {
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        List<MoodEvent> moods = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MoodEvent moodEvent = new MoodEvent(
+                    MOODS[random.nextInt(MOODS.length)],
+                    WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)],
+                    "",
+                    now - (long) (random.nextDouble() * 30 * DAY_MS),
+                    "Alone",
+                    "",
+                    random.nextBoolean());
+            moodEvent.setUserId("user" + (i % users));
+            moodEvent.setId("mood" + i);
+            moods.add(moodEvent);
+        }
+        Collections.sort(moods, (a, b) -> {
+            int byUser = a.getUserId().compareTo(b.getUserId());
+            return byUser != 0 ? byUser : Long.compare(b.getTime(), a.getTime());
+        });
+        return moods;
+    }
+
+    /**
+     * @param count Number of comments on one mood.
+     * @return Comments in random order; about a third reply to an earlier top-level comment.
+     */
+    static List<Comment> comments(int count) {
+        Random random = new Random(42);
+        List<Comment> comments = new ArrayList<>(count);
+        List<String> topLevelIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String parentId = !topLevelIds.isEmpty() && random.nextInt(3) == 0
+                    ? topLevelIds.get(random.nextInt(topLevelIds.size()))
+                    : null;
+            Comment comment = new Comment("mood", "user" + random.nextInt(100), "name", WORDS[random.nextInt(WORDS.length)], parentId);
+            comment.setId("comment" + i);
+            if (parentId == null) {
+                topLevelIds.add(comment.getId());
+            }
+            comments.add(comment);
+        }
+        Collections.shuffle(comments, random);
+        return comments;
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * CommentThreadsBenchmark - Cost of assembling a mood's comments into threads in MoodDetailFragment.
+ */
+
+package com.example.unemployedavengers.benchmarks;
+
+import com.example.unemployedavengers.implementationDAO.CommentThreads;
+import com.example.unemployedavengers.models.Comment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CommentThreadsBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int comments;
+
+    private List<Comment> flat;
+
+    @Setup
+    public void setup() {
+        flat = BenchmarkData.comments(comments);
+    }
+
+    @Benchmark
+    public CommentThreads build() {
+        return CommentThreads.build(flat);
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * DisplayFormatBenchmark - Cost of the per-row formatting the adapters do while scrolling:
+ * timestamp text and mood color category for every visible mood.
+ */
+
+package com.example.unemployedavengers.benchmarks;
+
+import com.example.unemployedavengers.arrayadapters.MoodDisplayFormat;
+import com.example.unemployedavengers.models.MoodEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DisplayFormatBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int events;
+
+    private List<MoodEvent> moods;
+
+    @Setup
+    public void setup() {
+        moods = BenchmarkData.moods(events, Math.max(1, events / 20));
+    }
+
+    @Benchmark
+    public void formatTimestamp(Blackhole blackhole) {
+        for (MoodEvent moodEvent : moods) {
+            blackhole.consume(MoodDisplayFormat.formatTimestamp(moodEvent.getTime()));
+        }
+    }
+
+    /**
+     * What the adapters did before MoodDisplayFormat: a new SimpleDateFormat for every row.
+     */
+    @Benchmark
+    public void formatTimestampNewFormatPerRow(Blackhole blackhole) {
+        for (MoodEvent moodEvent : moods) {
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+            blackhole.consume(sdf.format(new Date(moodEvent.getTime())));
+        }
+    }
+
+    @Benchmark
+    public void moodCategory(Blackhole blackhole) {
+        for (MoodEvent moodEvent : moods) {
+            blackhole.consume(MoodDisplayFormat.moodCategory(moodEvent.getMood()));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * DocumentMapperBenchmark - Cost of turning document data into models and back, with the
+ * generated-style mappers and with reflection as toObject() and set(pojo) do it.
+ */
+
+package com.example.unemployedavengers.benchmarks;
+
+import com.example.unemployedavengers.models.Comment;
+import com.example.unemployedavengers.models.CommentMapper;
+import com.example.unemployedavengers.models.MoodEvent;
+import com.example.unemployedavengers.models.MoodEventMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DocumentMapperBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int documents;
+
+    private final ReflectiveMapper<MoodEvent> reflectiveMoods = new ReflectiveMapper<>(MoodEvent.class);
+    private final ReflectiveMapper<Comment> reflectiveComments = new ReflectiveMapper<>(Comment.class);
+    private List<MoodEvent> moods;
+    private List<Map<String, Object>> moodData;
+    private List<Map<String, Object>> commentData;
+
+    @Setup
+    public void setup() {
+        moods = BenchmarkData.moods(documents, Math.max(1, documents / 20));
+        moodData = new ArrayList<>(documents);
+        for (MoodEvent moodEvent : moods) {
+            moodData.add(MoodEventMapper.toMap(moodEvent));
+        }
+        commentData = new ArrayList<>(documents);
+        for (Comment comment : BenchmarkData.comments(documents)) {
+            Map<String, Object> data = CommentMapper.toMap(comment);
+            // Firestore returns every whole number as a Long
+            data.put("likeCount", (long) comment.getLikeCount());
+            commentData.add(data);
+        }
+    }
+
+    @Benchmark
+    public List<MoodEvent> readMoodsMapper() {
+        List<MoodEvent> result = new ArrayList<>(moodData.size());
+        for (Map<String, Object> data : moodData) {
+            result.add(MoodEventMapper.fromMap(data));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<MoodEvent> readMoodsReflective() throws ReflectiveOperationException {
+        List<MoodEvent> result = new ArrayList<>(moodData.size());
+        for (Map<String, Object> data : moodData) {
+            result.add(reflectiveMoods.fromMap(data));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Comment> readCommentsMapper() {
+        List<Comment> result = new ArrayList<>(commentData.size());
+        for (Map<String, Object> data : commentData) {
+            result.add(CommentMapper.fromMap(data));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Comment> readCommentsReflective() throws ReflectiveOperationException {
+        List<Comment> result = new ArrayList<>(commentData.size());
+        for (Map<String, Object> data : commentData) {
+            result.add(reflectiveComments.fromMap(data));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> writeMoodsMapper() {
+        List<Map<String, Object>> result = new ArrayList<>(moods.size());
+        for (MoodEvent moodEvent : moods) {
+            result.add(MoodEventMapper.toMap(moodEvent));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> writeMoodsReflective() throws ReflectiveOperationException {
+        List<Map<String, Object>> result = new ArrayList<>(moods.size());
+        for (MoodEvent moodEvent : moods) {
+            result.add(reflectiveMoods.toMap(moodEvent));
+        }
+        return result;
+    }
+}
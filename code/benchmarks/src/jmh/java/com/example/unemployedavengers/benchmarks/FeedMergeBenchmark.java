@@ -0,0 +1,45 @@
+/**
+ * FeedMergeBenchmark - Cost of building the followed-users feed from the mirrored moods.
+ */
+
+package com.example.unemployedavengers.benchmarks;
+
+import com.example.unemployedavengers.local.FeedMerge;
+import com.example.unemployedavengers.models.MoodEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FeedMergeBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int events;
+
+    // Feed shown by FollowedUserMoodEvents: the latest three of each followee
+    @Param({"3"})
+    public int perFollowee;
+
+    private List<MoodEvent> moods;
+
+    @Setup
+    public void setup() {
+        moods = BenchmarkData.moods(events, Math.max(1, events / 20));
+    }
+
+    @Benchmark
+    public List<MoodEvent> latestPerUser() {
+        return FeedMerge.latestPerUser(moods, perFollowee);
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * MoodFilterBenchmark - Cost of MoodFilterHelper.filterMoodEvents, run on every filter change in
+ * Dashboard, History and the maps.
+ */
+
+package com.example.unemployedavengers.benchmarks;
+
+import com.example.unemployedavengers.MoodFilterHelper;
+import com.example.unemployedavengers.models.MoodEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MoodFilterBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int events;
+
+    private List<MoodEvent> moods;
+
+    @Setup
+    public void setup() {
+        moods = BenchmarkData.moods(events, Math.max(1, events / 20));
+    }
+
+    @Benchmark
+    public List<MoodEvent> noFilter() {
+        return MoodFilterHelper.filterMoodEvents(moods, false, false, false, null, null);
+    }
+
+    @Benchmark
+    public List<MoodEvent> byMood() {
+        return MoodFilterHelper.filterMoodEvents(moods, true, false, false, "Happiness", null);
+    }
+
+    @Benchmark
+    public List<MoodEvent> byReason() {
+        return MoodFilterHelper.filterMoodEvents(moods, false, true, false, null, "coffee");
+    }
+
+    @Benchmark
+    public List<MoodEvent> byWeek() {
+        return MoodFilterHelper.filterMoodEvents(moods, false, false, true, null, null);
+    }
+
+    @Benchmark
+    public List<MoodEvent> allFilters() {
+        return MoodFilterHelper.filterMoodEvents(moods, true, true, true, "Happiness", "coffee");
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * ReflectiveMapper - Stand-in for Firestore's toObject() and set(pojo) in the benchmarks.
+ *
+ * Purpose:
+ * - Firestore's CustomClassMapper only ships in the Android library, so this does what it does
+ *   for our models on the JVM: find bean properties once per class, then look up and invoke a
+ *   setter or getter by reflection for every field of every document.
+ */
+
+package com.example.unemployedavengers.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+final class ReflectiveMapper<T> {
+    private final Class<T> type;
+    private final Map<String, Method> setters = new HashMap<>();
+    private final Map<String, Method> getters = new HashMap<>();
+
+    ReflectiveMapper(Class<T> type) {
+        this.type = type;
+        for (Method method : type.getMethods()) {
+            String name = method.getName();
+            if (name.startsWith("set") && name.length() > 3 && method.getParameterCount() == 1) {
+                setters.put(property(name), method);
+            } else if (name.startsWith("get") && name.length() > 3 && method.getParameterCount() == 0
+                    && !name.equals("getClass")) {
+                getters.put(property(name), method);
+            }
+        }
+    }
+
+    T fromMap(Map<String, Object> data) throws ReflectiveOperationException {
+        T instance = type.getConstructor().newInstance();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            Method setter = setters.get(entry.getKey());
+            if (setter != null) {
+                setter.invoke(instance, convert(entry.getValue(), setter.getParameterTypes()[0]));
+            }
+        }
+        return instance;
+    }
+
+    Map<String, Object> toMap(T instance) throws ReflectiveOperationException {
+        Map<String, Object> data = new HashMap<>();
+        for (Map.Entry<String, Method> getter : getters.entrySet()) {
+            data.put(getter.getKey(), getter.getValue().invoke(instance));
+        }
+        return data;
+    }
+
+    private static Object convert(Object value, Class<?> target) {
+        if (value == null) return null;
+        if (target == long.class || target == Long.class) return ((Number) value).longValue();
+        if (target == int.class || target == Integer.class) return ((Number) value).intValue();
+        if (target == double.class || target == Double.class) return ((Number) value).doubleValue();
+        if (target == boolean.class || target == Boolean.class) return value;
+        if (target == String.class) return value;
+        if (target == List.class) return value;
+        throw new IllegalArgumentException("Unsupported property type " + target);
+    }
+
+    private static String property(String accessor) {
+        return Character.toLowerCase(accessor.charAt(3)) + accessor.substring(4);
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * SerializationBenchmark - Cost of the Java serialization used when moods and comments are passed
+ * between screens in Bundles.
+ */
+
+package com.example.unemployedavengers.benchmarks;
+
+import com.example.unemployedavengers.models.Comment;
+import com.example.unemployedavengers.models.MoodEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int events;
+
+    private ArrayList<MoodEvent> moods;
+    private ArrayList<Comment> comments;
+    private byte[] serializedMoods;
+    private byte[] serializedComments;
+
+    @Setup
+    public void setup() throws IOException {
+        moods = new ArrayList<>(BenchmarkData.moods(events, Math.max(1, events / 20)));
+        comments = new ArrayList<>(BenchmarkData.comments(events));
+        serializedMoods = serialize(moods);
+        serializedComments = serialize(comments);
+    }
+
+    @Benchmark
+    public byte[] serializeMoods() throws IOException {
+        return serialize(moods);
+    }
+
+    @Benchmark
+    public Object deserializeMoods() throws IOException, ClassNotFoundException {
+        return deserialize(serializedMoods);
+    }
+
+    @Benchmark
+    public byte[] serializeComments() throws IOException {
+        return serialize(comments);
+    }
+
+    @Benchmark
+    public Object deserializeComments() throws IOException, ClassNotFoundException {
+        return deserialize(serializedComments);
+    }
+
+    private static byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return in.readObject();
+        }
+    }
+}
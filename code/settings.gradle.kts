@@ -21,4 +21,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "UnemployedAvengers"
 include(":app")
- 
\ No newline at end of file
+include(":benchmarks")